@@ -3,6 +3,13 @@ package cat.uvic.teknos.dam.kamika.app;
 import cat.uvic.teknos.dam.kamika.app.manager.*;
 import cat.uvic.teknos.dam.kamika.model.ModelFactory;
 import cat.uvic.teknos.dam.kamika.repositories.*;
+import cat.uvic.teknos.dam.kamika.repositories.async.AsyncRepositoryFactory;
+import cat.uvic.teknos.dam.kamika.repositories.caching.CachingRepositoryFactory;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.JdbcRepositoryFactory;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.PooledDataSource;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.SingleConnectionDataSource;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.migrations.MigrationRunner;
+import cat.uvic.teknos.dam.kamika.repositories.reference.ReferenceDataRepositoryFactory;
 
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
@@ -45,14 +52,33 @@ public class App {
             System.out.println("Using JDBC implementation");
         }
 
+        migrateSchema();
+
         var diManager = new DIManager();
         RepositoryFactory repositoryFactory = diManager.get("repository_factory", RepositoryFactory.class);
+        JdbcRepositoryFactory jdbcFactory = repositoryFactory instanceof JdbcRepositoryFactory factory ? factory : null;
+        if (jdbcFactory != null && Boolean.parseBoolean(diManager.getProperty("connection_pool", "false"))) {
+            jdbcFactory.setDataSource(new PooledDataSource());
+        }
+        if (Boolean.parseBoolean(diManager.getProperty("repository_cache", "false"))) {
+            int maximumSize = Integer.parseInt(diManager.getProperty("repository_cache_size",
+                    String.valueOf(CachingRepositoryFactory.DEFAULT_MAXIMUM_SIZE)));
+            repositoryFactory = new CachingRepositoryFactory(repositoryFactory, maximumSize);
+        }
+        if (Boolean.parseBoolean(diManager.getProperty("reference_data_snapshot", "false"))) {
+            repositoryFactory = new ReferenceDataRepositoryFactory(repositoryFactory);
+        }
         ModelFactory modelFactory = diManager.get("model_factory", ModelFactory.class);
+        // Independent queries overlap up to the number of connections; JPA calls run one at a time
+        AsyncRepositoryFactory asyncRepositoryFactory = new AsyncRepositoryFactory(repositoryFactory,
+                jdbcFactory != null ? jdbcFactory.getMaxConnections() : 1);
 
         ConsoleManager consoleManager = new ConsoleManager(scanner, repositoryFactory, modelFactory);
         DeveloperManager developerManager = new DeveloperManager(scanner, repositoryFactory, modelFactory);
         GameEditionManager gameEditionManager = new GameEditionManager(scanner, repositoryFactory, modelFactory);
         GameManager gameManager = new GameManager(scanner, repositoryFactory, modelFactory);
+        gameManager.setLazyLoadingFactory(jdbcFactory);
+        gameManager.setAsyncRepositoryFactory(asyncRepositoryFactory);
         GenreManager genreManager = new GenreManager(scanner, repositoryFactory, modelFactory);
         PublisherManager publisherManager = new PublisherManager(scanner, repositoryFactory, modelFactory);
 
@@ -88,10 +114,22 @@ public class App {
                     break;
                 case "0":
                     System.out.println("Exiting...");
+                    asyncRepositoryFactory.close();
                     return;
                 default:
                     System.out.println("Invalid option");
             }
         }
     }
+
+    /**
+     * Applies pending schema migrations, such as the developers' version column, before any
+     * repository is used. Both implementations share the database, so it runs for JPA too.
+     */
+    private static void migrateSchema() {
+        try (var dataSource = new SingleConnectionDataSource()) {
+            int applied = new MigrationRunner(dataSource).migrate();
+            System.out.println("Applied " + applied + " schema migration(s).");
+        }
+    }
 }
\ No newline at end of file
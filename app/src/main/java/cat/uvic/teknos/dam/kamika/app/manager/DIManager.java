@@ -40,6 +40,17 @@ public class DIManager {
         }
     }
 
+    /**
+     * Returns a plain setting of the {@code di.properties} file, such as a flag or a size.
+     *
+     * @param key          the property key
+     * @param defaultValue the value returned if the key is not configured
+     * @return the configured value, or the default
+     */
+    public String getProperty(String key, String defaultValue) {
+        return properties.getProperty(key, defaultValue).trim();
+    }
+
     /**
      * Creates and returns an instance of the class mapped to the specified key
      * in the {@code di.properties} file.
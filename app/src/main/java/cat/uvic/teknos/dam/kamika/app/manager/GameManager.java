@@ -1,19 +1,33 @@
 package cat.uvic.teknos.dam.kamika.app.manager;
 
+import cat.uvic.teknos.dam.kamika.model.Game;
+import cat.uvic.teknos.dam.kamika.model.GameEdition;
 import cat.uvic.teknos.dam.kamika.model.ModelFactory;
+import cat.uvic.teknos.dam.kamika.repositories.GameEditionRepository;
 import cat.uvic.teknos.dam.kamika.repositories.RepositoryFactory;
+import cat.uvic.teknos.dam.kamika.repositories.async.AsyncRepositoryFactory;
+import cat.uvic.teknos.dam.kamika.repositories.async.RepositoryCall;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.JdbcGameRepository;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.JdbcRepositoryFactory;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.loaders.LoadScope;
 import com.github.freva.asciitable.AsciiTable;
 import com.github.freva.asciitable.Column;
 
 import java.sql.SQLException;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
 
 public class GameManager {
     private final ModelFactory modelFactory;
     private final RepositoryFactory repositoryFactory;
     private final Scanner scanner;
+    private JdbcRepositoryFactory lazyLoadingFactory;
+    private AsyncRepositoryFactory asyncRepositoryFactory;
 
     public GameManager(Scanner scanner, RepositoryFactory repositoryFactory, ModelFactory modelFactory) {
         this.scanner = scanner;
@@ -21,23 +35,74 @@ public class GameManager {
         this.modelFactory = modelFactory;
     }
 
+    /**
+     * Lists games through a {@link LoadScope} of the given factory, so the developers and
+     * publishers of the whole table are read with one query each instead of one per game.
+     *
+     * @param lazyLoadingFactory the JDBC factory, or null to list games through the repository factory
+     */
+    public void setLazyLoadingFactory(JdbcRepositoryFactory lazyLoadingFactory) {
+        this.lazyLoadingFactory = lazyLoadingFactory;
+    }
+
+    /**
+     * Runs the independent queries of the game details view, the game and its editions,
+     * concurrently through the given facade.
+     *
+     * @param asyncRepositoryFactory the facade over this manager's repository factory, or null to query serially
+     */
+    public void setAsyncRepositoryFactory(AsyncRepositoryFactory asyncRepositoryFactory) {
+        this.asyncRepositoryFactory = asyncRepositoryFactory;
+    }
+
     /**
      * Displays all games in a formatted ASCII table.
-     * Shows ID, title, release date, developer ID, publisher ID, PEGI, and multiplayer.
+     * Shows ID, title, release date, developer, publisher, PEGI, and multiplayer.
      */
     private void displayAllGames() {
-        var games = repositoryFactory.getGameRepository().findAll();
+        if (lazyLoadingFactory == null) {
+            displayGames(repositoryFactory.getGameRepository().findAll());
+            return;
+        }
+
+        // One scope per listing: the associations are loaded for every game on first access
+        try (LoadScope scope = lazyLoadingFactory.openLoadScope()) {
+            var repository = (JdbcGameRepository) lazyLoadingFactory.getGameRepository();
+            displayGames(repository.findAll(scope));
+        }
+    }
+
+    private void displayGames(Collection<Game> games) {
         System.out.println(AsciiTable.getTable(games, Arrays.asList(
                 new Column().header("ID").with(g -> Integer.toString(g.getId())),
                 new Column().header("Title").with(g -> g.getTitle()),
                 new Column().header("Release").with(g -> g.getReleaseDate().toString()),
-                new Column().header("DevID").with(g -> g.getDeveloper() != null ? Integer.toString(g.getDeveloper().getId()) : "N/A"),
-                new Column().header("PubID").with(g -> g.getPublisher() != null ? Integer.toString(g.getPublisher().getId()) : "N/A"),
+                new Column().header("Developer").with(g -> g.getDeveloper() != null ? g.getDeveloper().getId() + " " + g.getDeveloper().getName() : "N/A"),
+                new Column().header("Publisher").with(g -> g.getPublisher() != null ? g.getPublisher().getId() + " " + g.getPublisher().getName() : "N/A"),
                 new Column().header("PEGI").with(g -> g.getPegiRating()),
                 new Column().header("Multi").with(g -> g.isMultiplayer() ? "Yes" : "No")
         )));
     }
 
+    private CompletableFuture<Optional<Game>> findGame(int id) {
+        if (asyncRepositoryFactory == null) {
+            return CompletableFuture.completedFuture(repositoryFactory.getGameRepository().findById(id));
+        }
+        return asyncRepositoryFactory.games().supply(repository -> repository.findById(id));
+    }
+
+    private CompletableFuture<List<GameEdition>> findEditions(int gameId) {
+        RepositoryCall<GameEditionRepository, List<GameEdition>> call = repository -> repository.findByGameId(gameId);
+        if (asyncRepositoryFactory == null) {
+            try {
+                return CompletableFuture.completedFuture(call.call(repositoryFactory.getGameEditionRepository()));
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return asyncRepositoryFactory.gameEditions().supply(call);
+    }
+
     /**
      * Runs the game management interface.
      * Menu: 1. Show all games, 2. View game details, 3. Create new game, 4. Delete game, 5. Exit.
@@ -74,9 +139,10 @@ public class GameManager {
                     System.out.println("\nEnter game ID to view details: ");
                     try {
                         var id = Integer.parseInt(scanner.nextLine());
-                        var gameOpt = repository.findById(id);
-                        if (gameOpt.isPresent()) {
-                            var game = gameOpt.get();
+                        var gameOpt = findGame(id);
+                        var editions = findEditions(id);
+                        if (gameOpt.join().isPresent()) {
+                            var game = gameOpt.join().get();
                             System.out.println("Game found:");
                             System.out.println("ID: " + game.getId());
                             System.out.println("Title: " + game.getTitle());
@@ -85,6 +151,9 @@ public class GameManager {
                             System.out.println("Publisher ID: " + (game.getPublisher() != null ? game.getPublisher().getId() : "N/A"));
                             System.out.println("PEGI: " + game.getPegiRating());
                             System.out.println("Multiplayer: " + (game.isMultiplayer() ? "Yes" : "No"));
+                            for (var edition : editions.join()) {
+                                System.out.println("Edition: " + edition.getEditionName() + " (" + edition.getPrice() + ")");
+                            }
                         } else {
                             System.out.println("Game not found. Returning to the menu...");
                         }
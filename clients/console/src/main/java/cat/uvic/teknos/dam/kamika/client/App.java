@@ -1,6 +1,7 @@
 package cat.uvic.teknos.dam.kamika.client;
 
 import cat.uvic.teknos.dam.kamika.client.api.DeveloperApiClient;
+import cat.uvic.teknos.dam.kamika.client.api.NearCache;
 import cat.uvic.teknos.dam.kamika.client.manager.DIManager;
 import cat.uvic.teknos.dam.kamika.model.Developer;
 import cat.uvic.teknos.dam.kamika.model.ModelFactory;
@@ -8,12 +9,15 @@ import cat.uvic.teknos.dam.kamika.model.impl.DeveloperImpl;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import rawhttp.core.RawHttp;
+import java.time.Duration;
 import java.util.Scanner;
 
 /**
  * The main entry point for the console client application.
  * It manually creates and injects all dependencies into the main {@link Client} class
  * following the Dependency Injection pattern.
+ * Developers are kept in a {@link NearCache} when the {@code kamika.nearCache} system property
+ * is {@code true}, sized by {@code kamika.nearCacheSize} and {@code kamika.nearCacheTtlSeconds}.
  * @author Your Name
  * @version 2.0.1
  */
@@ -44,6 +48,11 @@ public class App {
         objectMapper.registerModule(module);
 
         DeveloperApiClient developerApiClient = new DeveloperApiClient(rawHttp, objectMapper);
+        if (Boolean.getBoolean("kamika.nearCache")) {
+            developerApiClient.setNearCache(new NearCache(
+                    Integer.getInteger("kamika.nearCacheSize", NearCache.DEFAULT_MAXIMUM_SIZE),
+                    Duration.ofSeconds(Long.getLong("kamika.nearCacheTtlSeconds", NearCache.DEFAULT_TTL.toSeconds()))));
+        }
 
         Client clientApp = new Client(scanner, modelFactory, developerApiClient);
 
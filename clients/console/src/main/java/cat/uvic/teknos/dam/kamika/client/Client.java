@@ -8,6 +8,8 @@ import cat.uvic.teknos.dam.kamika.model.Developer;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Scanner;
 import java.util.Set;
@@ -237,16 +239,19 @@ public class Client {
         Developer devToUpdate = existingDevOpt.get();
         System.out.println("Updating developer: " + devToUpdate.getName());
         System.out.println("(Press Enter to keep current value)");
+        Map<String, Object> changes = new LinkedHashMap<>();
         System.out.printf("Enter new name [%s]: ", devToUpdate.getName());
         String name = scanner.nextLine();
-        if (!name.isBlank()) devToUpdate.setName(name);
+        if (!name.isBlank()) changes.put("name", name);
         System.out.printf("Enter new country [%s]: ", devToUpdate.getCountry());
         String country = scanner.nextLine();
-        if (!country.isBlank()) devToUpdate.setCountry(country);
+        if (!country.isBlank()) changes.put("country", country);
         System.out.printf("Enter new foundation year [%d]: ", devToUpdate.getFoundationYear());
         String yearStr = scanner.nextLine();
-        if (!yearStr.isBlank()) devToUpdate.setFoundationYear(Integer.parseInt(yearStr));
-        if (developerApi.update(devToUpdate)) {
+        if (!yearStr.isBlank()) changes.put("foundationYear", Integer.parseInt(yearStr));
+        if (changes.isEmpty()) {
+            System.out.println("\nNothing to update.");
+        } else if (developerApi.patch(id, changes, devToUpdate.getVersion())) {
             System.out.println("\nDeveloper updated successfully.");
         } else {
             System.out.println("\nFailed to update developer.");
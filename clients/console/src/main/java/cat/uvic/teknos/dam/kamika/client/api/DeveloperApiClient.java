@@ -14,6 +14,7 @@ import rawhttp.core.body.StringBody;
 import java.io.IOException;
 import java.net.Socket;
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -22,17 +23,22 @@ import java.util.Set;
  * Uses RawHttp for communication and Jackson for JSON serialization.
  * Security Update:
  * Integrated {@link CryptoUtils} to ensure Data Integrity.
- * Signs outgoing requests (POST/PUT) using {@code X-Content-Hash} header.
+ * Signs outgoing requests (POST/PUT/PATCH) using {@code X-Content-Hash} header.
  * Verifies incoming responses by checking the server's hash signature.
+ * Reads can be served from an optional {@link NearCache}, which the client's own writes
+ * invalidate.
  * @author Montse Orozco
  * @version 2.0.2
  */
 public class DeveloperApiClient {
     private static final String HOST = "localhost:8081";
     private static final int PORT = 8081;
+    private static final String DEVELOPERS = "developers";
     private final RawHttp http;
     private final ObjectMapper objectMapper;
     private final CryptoUtils cryptoUtils;
+    private final int port;
+    private NearCache nearCache;
 
     /**
      * Constructs a new API client with its required dependencies.
@@ -41,47 +47,54 @@ public class DeveloperApiClient {
      * @param objectMapper The ObjectMapper instance (pre-configured) for JSON conversion.
      */
     public DeveloperApiClient(RawHttp http, ObjectMapper objectMapper) {
+        this(http, objectMapper, PORT);
+    }
+
+    /**
+     * Constructs an API client of a server listening on another local port.
+     *
+     * @param http The RawHttp instance to use for parsing requests/responses.
+     * @param objectMapper The ObjectMapper instance (pre-configured) for JSON conversion.
+     * @param port The port of the server on localhost.
+     */
+    DeveloperApiClient(RawHttp http, ObjectMapper objectMapper, int port) {
         this.http = http;
         this.objectMapper = objectMapper;
         this.cryptoUtils = new CryptoUtils();
+        this.port = port;
     }
 
     /**
-     * Fetches all developers from the server.
+     * Keeps the developers read from the server in a near cache, so that repeated reads are
+     * served locally within its TTL and revalidated with conditional requests after it.
+     *
+     * @param nearCache The near cache, or {@code null} to always download.
+     */
+    public void setNearCache(NearCache nearCache) {
+        this.nearCache = nearCache;
+    }
+
+    /**
+     * Fetches all developers from the server, or from the near cache if it is set.
      * Verifies response integrity.
      *
      * @return A {@link Set} of all developers.
      * @throws ClientException if an error occurs or integrity check fails.
      */
     public Set<Developer> getAll() {
-        RawHttpRequest request = http.parseRequest(
-                "GET /developers HTTP/1.1\r\n" +
-                        "Host: " + HOST + "\r\n" +
-                        "User-Agent: KamikaConsoleClient\r\n" +
-                        "Connection: close\r\n" +
-                        "\r\n");
-
-        try (Socket socket = new Socket("localhost", PORT)) {
-            request.writeTo(socket.getOutputStream());
-            RawHttpResponse<?> response = http.parseResponse(socket.getInputStream()).eagerly();
-
-            if (response.getStatusCode() == 200) {
-                String jsonBody = response.getBody().orElseThrow(() -> new ClientException("Server response body is missing"))
-                        .decodeBodyToString(StandardCharsets.UTF_8);
-
-                validateResponseIntegrity(response, jsonBody);
-
-                return objectMapper.readValue(jsonBody, new TypeReference<>() {});
-            } else {
-                throw new ClientException("Server returned an error. Status: " + response.getStatusCode());
+        try {
+            Fetched fetched = fetchJson(DEVELOPERS);
+            if (fetched.body() == null) {
+                throw new ClientException("Server returned an error. Status: " + fetched.statusCode());
             }
+            return objectMapper.readValue(fetched.body(), new TypeReference<>() {});
         } catch (IOException e) {
-            throw new ClientException("Error connecting to or reading from the server: " + e.getMessage(), e);
+            throw new ClientException("Error reading the developers: " + e.getMessage(), e);
         }
     }
 
     /**
-     * Fetches a single developer by their ID.
+     * Fetches a single developer by their ID, from the near cache if it is set and holds it.
      * Verifies response integrity.
      *
      * @param id The ID of the developer to fetch.
@@ -89,25 +102,65 @@ public class DeveloperApiClient {
      * @throws ClientException if an error occurs.
      */
     public Optional<Developer> getById(int id) {
+        try {
+            Fetched fetched = fetchJson(DEVELOPERS + "/" + id);
+            return fetched.body() != null
+                    ? Optional.of(objectMapper.readValue(fetched.body(), DeveloperImpl.class))
+                    : Optional.empty();
+        } catch (IOException e) {
+            throw new ClientException("Error reading the developer: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Downloads the JSON body of a path, or takes it from the near cache. A fresh cached body is
+     * returned as is; a stale one is revalidated with {@code If-None-Match} and only downloaded
+     * again if the server answers with a new version.
+     *
+     * @param key The path without its leading slash.
+     * @return The body with the status the server answered, 200 if it was not contacted, or
+     *         no body if it answered {@code 404}.
+     * @throws ClientException if an error occurs or integrity check fails.
+     */
+    private Fetched fetchJson(String key) {
+        NearCache.Entry cached = nearCache == null ? null : nearCache.get(key);
+        if (cached != null && cached.isFresh()) {
+            return new Fetched(200, cached.body());
+        }
+
+        String conditional = cached != null && cached.etag() != null
+                ? "If-None-Match: " + cached.etag() + "\r\n"
+                : "";
         RawHttpRequest request = http.parseRequest(
-                "GET /developers/" + id + " HTTP/1.1\r\n" +
+                "GET /" + key + " HTTP/1.1\r\n" +
                         "Host: " + HOST + "\r\n" +
+                        "User-Agent: KamikaConsoleClient\r\n" +
+                        conditional +
                         "Connection: close\r\n" +
                         "\r\n");
 
-        try (Socket socket = new Socket("localhost", PORT)) {
+        try (Socket socket = new Socket("localhost", port)) {
             request.writeTo(socket.getOutputStream());
             RawHttpResponse<?> response = http.parseResponse(socket.getInputStream()).eagerly();
 
-            if (response.getStatusCode() == 200) {
+            if (response.getStatusCode() == 304 && cached != null) {
+                nearCache.revalidated(key, cached);
+                return new Fetched(304, cached.body());
+            } else if (response.getStatusCode() == 200) {
                 String jsonBody = response.getBody().orElseThrow(() -> new ClientException("Server response body is missing"))
                         .decodeBodyToString(StandardCharsets.UTF_8);
 
                 validateResponseIntegrity(response, jsonBody);
 
-                return Optional.of(objectMapper.readValue(jsonBody, DeveloperImpl.class));
+                if (nearCache != null) {
+                    nearCache.put(key, jsonBody, response.getHeaders().getFirst("ETag").orElse(null));
+                }
+                return new Fetched(200, jsonBody);
             } else if (response.getStatusCode() == 404) {
-                return Optional.empty();
+                if (nearCache != null) {
+                    nearCache.invalidate(key);
+                }
+                return new Fetched(404, null);
             } else {
                 throw new ClientException("Server returned an error. Status: " + response.getStatusCode());
             }
@@ -139,11 +192,12 @@ public class DeveloperApiClient {
                                     "\r\n")
                     .withBody(new StringBody(jsonPayload));
 
-            try (Socket socket = new Socket("localhost", PORT)) {
+            try (Socket socket = new Socket("localhost", port)) {
                 request.writeTo(socket.getOutputStream());
                 RawHttpResponse<?> response = http.parseResponse(socket.getInputStream()).eagerly();
 
                 if (response.getStatusCode() == 201) {
+                    invalidate(DEVELOPERS);
                     String jsonBody = response.getBody().orElseThrow(() -> new ClientException("Server response body is missing"))
                             .decodeBodyToString(StandardCharsets.UTF_8);
 
@@ -161,10 +215,11 @@ public class DeveloperApiClient {
 
     /**
      * Updates an existing developer on the server.
-     * Computes hash for request.
+     * Computes hash for request. The update only applies if the developer is still at the version
+     * it was read with.
      *
      * @param developer The developer object with updated data.
-     * @return true if the update was successful.
+     * @return true if the update was successful, false if it was not found or changed in the meantime.
      * @throws ClientException if an error occurs.
      */
     public boolean update(Developer developer) {
@@ -177,15 +232,56 @@ public class DeveloperApiClient {
                                     "Host: " + HOST + "\r\n" +
                                     "Content-Type: application/json\r\n" +
                                     "X-Content-Hash: " + contentHash + "\r\n" +
+                                    "If-Match: \"" + developer.getVersion() + "\"\r\n" +
+                                    "Content-Length: " + jsonPayload.getBytes(StandardCharsets.UTF_8).length + "\r\n" +
+                                    "Connection: close\r\n" +
+                                    "\r\n")
+                    .withBody(new StringBody(jsonPayload));
+
+            try (Socket socket = new Socket("localhost", port)) {
+                request.writeTo(socket.getOutputStream());
+                RawHttpResponse<?> response = http.parseResponse(socket.getInputStream()).eagerly();
+                return response.getStatusCode() == 200;
+            } finally {
+                invalidate(DEVELOPERS, DEVELOPERS + "/" + developer.getId());
+            }
+        } catch (IOException e) {
+            throw new ClientException("Error processing request: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Changes only the given fields of a developer on the server, sent as a JSON Merge Patch.
+     * Computes hash for request.
+     *
+     * @param id The ID of the developer to change.
+     * @param changes The new values by field name; a {@code null} value clears the field.
+     * @param version The version the changes are based on, sent as {@code If-Match}.
+     * @return true if the patch was applied, false if the developer was not found or changed in the meantime.
+     * @throws ClientException if an error occurs.
+     */
+    public boolean patch(int id, Map<String, Object> changes, int version) {
+        try {
+            String jsonPayload = objectMapper.writeValueAsString(changes);
+            String contentHash = cryptoUtils.hash(jsonPayload);
+
+            RawHttpRequest request = http.parseRequest(
+                            "PATCH /developers/" + id + " HTTP/1.1\r\n" +
+                                    "Host: " + HOST + "\r\n" +
+                                    "Content-Type: application/merge-patch+json\r\n" +
+                                    "X-Content-Hash: " + contentHash + "\r\n" +
+                                    "If-Match: \"" + version + "\"\r\n" +
                                     "Content-Length: " + jsonPayload.getBytes(StandardCharsets.UTF_8).length + "\r\n" +
                                     "Connection: close\r\n" +
                                     "\r\n")
                     .withBody(new StringBody(jsonPayload));
 
-            try (Socket socket = new Socket("localhost", PORT)) {
+            try (Socket socket = new Socket("localhost", port)) {
                 request.writeTo(socket.getOutputStream());
                 RawHttpResponse<?> response = http.parseResponse(socket.getInputStream()).eagerly();
                 return response.getStatusCode() == 200;
+            } finally {
+                invalidate(DEVELOPERS, DEVELOPERS + "/" + id);
             }
         } catch (IOException e) {
             throw new ClientException("Error processing request: " + e.getMessage(), e);
@@ -206,7 +302,7 @@ public class DeveloperApiClient {
                         "Connection: close\r\n" +
                         "\r\n");
 
-        try (Socket socket = new Socket("localhost", PORT)) {
+        try (Socket socket = new Socket("localhost", port)) {
             request.writeTo(socket.getOutputStream());
             RawHttpResponse<?> response = http.parseResponse(socket.getInputStream()).eagerly();
 
@@ -219,6 +315,8 @@ public class DeveloperApiClient {
             }
         } catch (IOException e) {
             throw new ClientException("Error connecting to or reading from the server: " + e.getMessage(), e);
+        } finally {
+            invalidate(DEVELOPERS, DEVELOPERS + "/" + id);
         }
     }
 
@@ -236,7 +334,7 @@ public class DeveloperApiClient {
                         "Connection: close\r\n" +
                         "\r\n");
 
-        try (Socket socket = new Socket("localhost", PORT)) {
+        try (Socket socket = new Socket("localhost", port)) {
             request.writeTo(socket.getOutputStream());
             RawHttpResponse<?> response = http.parseResponse(socket.getInputStream()).eagerly();
 
@@ -250,6 +348,19 @@ public class DeveloperApiClient {
         }
     }
 
+    /**
+     * Forgets the cached paths a write may have changed, whether it succeeded or not.
+     *
+     * @param keys The paths without their leading slash.
+     */
+    private void invalidate(String... keys) {
+        if (nearCache != null) {
+            for (String key : keys) {
+                nearCache.invalidate(key);
+            }
+        }
+    }
+
     /**
      * Helper method to validate the integrity of the response body using the X-Content-Hash header.
      *
@@ -271,4 +382,13 @@ public class DeveloperApiClient {
             }
         }
     }
+
+    /**
+     * The JSON body of a path and the status the server answered it with.
+     *
+     * @param statusCode The status code.
+     * @param body The body, or {@code null} if the server answered {@code 404}.
+     */
+    private record Fetched(int statusCode, String body) {
+    }
 }
\ No newline at end of file
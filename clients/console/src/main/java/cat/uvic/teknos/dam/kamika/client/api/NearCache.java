@@ -0,0 +1,135 @@
+package cat.uvic.teknos.dam.kamika.client.api;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * A bounded client-side cache of the JSON bodies returned by the server, keyed by path,
+ * e.g. {@code developers} or {@code developers/7}.
+ * Entries younger than the TTL are served without contacting the server. Older entries are
+ * kept with their {@code ETag}, so that the client can revalidate them with a conditional
+ * request and reuse the body if the server answers {@code 304 Not Modified}.
+ * The least recently used entry is evicted when the cache is full.
+ * @author Montse Orozco
+ * @version 2.0.2
+ */
+public class NearCache {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 500;
+    public static final Duration DEFAULT_TTL = Duration.ofSeconds(30);
+
+    private final int maximumSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long hits;
+    private long revalidations;
+    private long misses;
+
+    /**
+     * Creates an empty near cache.
+     *
+     * @param maximumSize The maximum number of cached bodies.
+     * @param ttl How long a body is served without revalidating it.
+     */
+    public NearCache(int maximumSize, Duration ttl) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive");
+        }
+        this.maximumSize = maximumSize;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Returns the cached entry of a path, fresh or not.
+     *
+     * @param key The path without its leading slash.
+     * @return The entry, or {@code null} if the path is not cached.
+     */
+    public synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+        } else if (entry.isFresh()) {
+            hits++;
+        }
+        return entry;
+    }
+
+    /**
+     * Caches a body downloaded from the server.
+     *
+     * @param key The path without its leading slash.
+     * @param body The JSON body.
+     * @param etag The {@code ETag} of the body, or {@code null} if it cannot be revalidated.
+     */
+    public synchronized void put(String key, String body, String etag) {
+        entries.put(key, new Entry(body, etag, System.nanoTime() + ttlNanos));
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maximumSize) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Serves a stale entry for another TTL after the server confirmed it is unchanged.
+     *
+     * @param key The path without its leading slash.
+     * @param entry The entry that was revalidated.
+     */
+    public synchronized void revalidated(String key, Entry entry) {
+        revalidations++;
+        entries.put(key, new Entry(entry.body(), entry.etag(), System.nanoTime() + ttlNanos));
+    }
+
+    /**
+     * Forgets a path, e.g. after the client changed it.
+     *
+     * @param key The path without its leading slash.
+     */
+    public synchronized void invalidate(String key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Returns the reads served locally without contacting the server.
+     *
+     * @return The number of fresh hits.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the reads answered by the server with {@code 304 Not Modified}.
+     *
+     * @return The number of successful revalidations.
+     */
+    public synchronized long getRevalidations() {
+        return revalidations;
+    }
+
+    /**
+     * Returns the reads of paths that were not cached.
+     *
+     * @return The number of misses.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * A cached body with its {@code ETag} and the moment it must be revalidated.
+     *
+     * @param body The JSON body.
+     * @param etag The {@code ETag}, or {@code null}.
+     * @param expiresAt The {@link System#nanoTime()} after which the body is stale.
+     */
+    public record Entry(String body, String etag, long expiresAt) {
+
+        public boolean isFresh() {
+            return System.nanoTime() - expiresAt < 0;
+        }
+    }
+}
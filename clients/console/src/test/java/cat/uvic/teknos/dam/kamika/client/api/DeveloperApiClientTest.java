@@ -0,0 +1,156 @@
+package cat.uvic.teknos.dam.kamika.client.api;
+
+import cat.uvic.teknos.dam.kamika.client.exceptions.ClientException;
+import cat.uvic.teknos.dam.kamika.model.Developer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rawhttp.core.RawHttp;
+import rawhttp.core.RawHttpRequest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeveloperApiClientTest {
+
+    private static final RawHttp HTTP = new RawHttp();
+    private static final String SEGA = "{\"id\":7,\"name\":\"Sega\",\"country\":\"Japan\",\"foundationYear\":1960,\"version\":3}";
+
+    private final BlockingQueue<String> responses = new LinkedBlockingQueue<>();
+    private final List<RawHttpRequest> requests = new CopyOnWriteArrayList<>();
+    private ServerSocket server;
+    private DeveloperApiClient client;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new ServerSocket(0);
+        Thread thread = new Thread(this::serve, "fake-server");
+        thread.setDaemon(true);
+        thread.start();
+        client = new DeveloperApiClient(HTTP, new ObjectMapper(), server.getLocalPort());
+    }
+
+    @AfterEach
+    void stopServer() throws IOException {
+        server.close();
+    }
+
+    @Test
+    void staleDeveloperIsRevalidatedAndReusedOnNotModified() {
+        var nearCache = new NearCache(10, Duration.ZERO);
+        client.setNearCache(nearCache);
+        responses.add(ok(SEGA, "\"3\""));
+        responses.add("HTTP/1.1 304 Not Modified\r\nETag: \"3\"\r\n\r\n");
+
+        Developer first = client.getById(7).orElseThrow();
+        Developer second = client.getById(7).orElseThrow();
+
+        assertEquals("Sega", first.getName());
+        assertEquals("Sega", second.getName());
+        assertEquals(3, second.getVersion());
+        assertEquals(2, requests.size());
+        assertEquals(Optional.empty(), requests.get(0).getHeaders().getFirst("If-None-Match"));
+        assertEquals(Optional.of("\"3\""), requests.get(1).getHeaders().getFirst("If-None-Match"));
+        assertEquals(1, nearCache.getRevalidations());
+    }
+
+    @Test
+    void changedDeveloperIsDownloadedAgain() {
+        var nearCache = new NearCache(10, Duration.ZERO);
+        client.setNearCache(nearCache);
+        responses.add(ok(SEGA, "\"3\""));
+        responses.add(ok(SEGA.replace("Sega", "SEGA").replace("3}", "4}"), "\"4\""));
+        responses.add("HTTP/1.1 304 Not Modified\r\nETag: \"4\"\r\n\r\n");
+
+        client.getById(7);
+        assertEquals("SEGA", client.getById(7).orElseThrow().getName());
+        client.getById(7);
+
+        assertEquals(Optional.of("\"4\""), requests.get(2).getHeaders().getFirst("If-None-Match"));
+        assertEquals(1, nearCache.getRevalidations());
+    }
+
+    @Test
+    void freshDevelopersAreServedWithoutContactingTheServer() {
+        var nearCache = new NearCache(10, Duration.ofMinutes(1));
+        client.setNearCache(nearCache);
+        responses.add(ok("[]", "\"0\""));
+
+        assertTrue(client.getAll().isEmpty());
+        assertTrue(client.getAll().isEmpty());
+
+        assertEquals(1, requests.size());
+        assertEquals(1, nearCache.getHits());
+    }
+
+    @Test
+    void missingDeveloperIsForgotten() {
+        var nearCache = new NearCache(10, Duration.ZERO);
+        client.setNearCache(nearCache);
+        responses.add(ok(SEGA, "\"3\""));
+        responses.add(status(404, "Not Found"));
+
+        client.getById(7);
+
+        assertEquals(Optional.empty(), client.getById(7));
+        assertNull(nearCache.get("developers/7"));
+    }
+
+    @Test
+    void errorsReportTheStatusTheServerAnswered() {
+        responses.add(status(404, "Not Found"));
+        responses.add(status(503, "Service Unavailable"));
+
+        ClientException notFound = assertThrows(ClientException.class, () -> client.getAll());
+        ClientException unavailable = assertThrows(ClientException.class, () -> client.getAll());
+
+        assertTrue(notFound.getMessage().endsWith("Status: 404"), notFound.getMessage());
+        assertTrue(unavailable.getMessage().endsWith("Status: 503"), unavailable.getMessage());
+    }
+
+    /**
+     * Answers each connection with the next scripted response and records its request.
+     */
+    private void serve() {
+        while (!server.isClosed()) {
+            try (Socket socket = server.accept()) {
+                requests.add(HTTP.parseRequest(socket.getInputStream()));
+                String response = responses.poll(5, TimeUnit.SECONDS);
+                OutputStream out = socket.getOutputStream();
+                out.write((response == null ? status(500, "Internal Server Error") : response)
+                        .getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            } catch (IOException e) {
+                // Closed by stopServer()
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static String ok(String json, String etag) {
+        return "HTTP/1.1 200 OK\r\n" +
+                "Content-Type: application/json\r\n" +
+                "ETag: " + etag + "\r\n" +
+                "Content-Length: " + json.getBytes(StandardCharsets.UTF_8).length + "\r\n" +
+                "\r\n" + json;
+    }
+
+    private static String status(int code, String reason) {
+        return "HTTP/1.1 " + code + " " + reason + "\r\nContent-Length: 0\r\n\r\n";
+    }
+}
@@ -0,0 +1,84 @@
+package cat.uvic.teknos.dam.kamika.client.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NearCacheTest {
+
+    @Test
+    void entryIsServedUntilItsTtlEnds() {
+        var cache = new NearCache(10, Duration.ofMinutes(1));
+        cache.put("developers/7", "{}", "\"3\"");
+
+        NearCache.Entry entry = cache.get("developers/7");
+
+        assertTrue(entry.isFresh());
+        assertEquals("{}", entry.body());
+        assertEquals("\"3\"", entry.etag());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void staleEntryIsKeptForRevalidation() {
+        var cache = new NearCache(10, Duration.ZERO);
+        cache.put("developers/7", "{}", "\"3\"");
+
+        NearCache.Entry entry = cache.get("developers/7");
+
+        assertNotNull(entry);
+        assertFalse(entry.isFresh());
+        assertEquals("\"3\"", entry.etag());
+        assertEquals(0, cache.getHits());
+        assertEquals(0, cache.getMisses());
+    }
+
+    @Test
+    void revalidatedEntryIsFreshForAnotherTtl() throws InterruptedException {
+        var cache = new NearCache(10, Duration.ofMillis(50));
+        cache.put("developers/7", "{}", "\"3\"");
+        Thread.sleep(100);
+        NearCache.Entry stale = cache.get("developers/7");
+        assertFalse(stale.isFresh());
+
+        cache.revalidated("developers/7", stale);
+
+        NearCache.Entry revalidated = cache.get("developers/7");
+        assertTrue(revalidated.isFresh());
+        assertEquals("{}", revalidated.body());
+        assertEquals("\"3\"", revalidated.etag());
+        assertEquals(1, cache.getRevalidations());
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        var cache = new NearCache(2, Duration.ofMinutes(1));
+        cache.put("developers/1", "1", null);
+        cache.put("developers/2", "2", null);
+        cache.get("developers/1");
+
+        cache.put("developers/3", "3", null);
+
+        assertNotNull(cache.get("developers/1"));
+        assertNull(cache.get("developers/2"));
+        assertNotNull(cache.get("developers/3"));
+    }
+
+    @Test
+    void invalidatedEntryIsAMiss() {
+        var cache = new NearCache(10, Duration.ofMinutes(1));
+        cache.put("developers", "[]", null);
+
+        cache.invalidate("developers");
+
+        assertNull(cache.get("developers"));
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void maximumSizeMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new NearCache(0, Duration.ofMinutes(1)));
+    }
+}
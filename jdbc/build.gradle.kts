@@ -16,4 +16,27 @@ dependencies {
     // Testing dependencies
     testImplementation("org.junit.jupiter:junit-jupiter:5.10.0")
     testImplementation("org.mybatis:mybatis:3.5.19")
-}
\ No newline at end of file
+    // In-memory databases for the tests that need more than one, such as the shards
+    testImplementation("com.h2database:h2:2.2.224")
+}
+
+tasks.named<Test>("test") {
+    useJUnitPlatform {
+        excludeTags("benchmark")
+    }
+}
+
+// Throughput comparisons against the database of datasource.properties, e.g. ColumnListBenchmark
+tasks.register<Test>("benchmark") {
+    description = "Runs the JDBC benchmarks."
+    group = "verification"
+    testClassesDirs = sourceSets["test"].output.classesDirs
+    classpath = sourceSets["test"].runtimeClasspath
+    useJUnitPlatform {
+        includeTags("benchmark")
+    }
+    systemProperties(System.getProperties().filterKeys { it.toString().startsWith("kamika.benchmark.") }
+        .mapKeys { it.key.toString() })
+    testLogging.showStandardStreams = true
+    outputs.upToDateWhen { false }
+}
@@ -0,0 +1,142 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc;
+
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.CrudException;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Ordered list of the columns a repository selects from a table.
+ * <p>
+ * Queries are built from this list instead of {@code SELECT *}, so the position of every
+ * column is known in advance and rows can be mapped by ordinal, avoiding the driver's
+ * case-insensitive name lookup on every {@code getX} call. The expected layout is checked
+ * against {@link ResultSetMetaData} the first time a result set is mapped.
+ * </p>
+ */
+public final class ColumnList {
+
+    private final String table;
+    private final List<String> columns;
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private volatile boolean validated;
+
+    private ColumnList(String table, List<String> columns) {
+        this.table = table;
+        this.columns = columns;
+        for (int i = 0; i < columns.size(); i++) {
+            ordinals.put(columns.get(i), i + 1);
+        }
+    }
+
+    /**
+     * Creates the column list of a table.
+     *
+     * @param table   the table name
+     * @param columns the selected columns, in order
+     * @return the column list
+     */
+    public static ColumnList of(String table, String... columns) {
+        if (columns.length == 0) {
+            throw new IllegalArgumentException("At least one column is required");
+        }
+        return new ColumnList(table, List.of(columns));
+    }
+
+    /**
+     * Returns a new list with extra columns appended, e.g. the aliased columns of a join.
+     *
+     * @param extraColumns the column labels to append
+     * @return the extended column list
+     */
+    public ColumnList extend(String... extraColumns) {
+        List<String> extended = new ArrayList<>(columns);
+        extended.addAll(List.of(extraColumns));
+        return new ColumnList(table, List.copyOf(extended));
+    }
+
+    /**
+     * Returns the 1-based position of a column in the select list.
+     *
+     * @param column the column name
+     * @return the column ordinal
+     */
+    public int ordinal(String column) {
+        Integer ordinal = ordinals.get(column);
+        if (ordinal == null) {
+            throw new IllegalArgumentException("Unknown column " + column + " in " + table);
+        }
+        return ordinal;
+    }
+
+    /**
+     * Returns the number of columns.
+     *
+     * @return the column count
+     */
+    public int size() {
+        return columns.size();
+    }
+
+    /**
+     * Returns the comma-separated column names.
+     *
+     * @return the select list
+     */
+    public String names() {
+        return String.join(", ", columns);
+    }
+
+    /**
+     * Returns the comma-separated column names qualified with a table alias.
+     *
+     * @param alias the table alias
+     * @return the qualified select list
+     */
+    public String names(String alias) {
+        return columns.stream().map(column -> alias + "." + column).collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Returns {@code SELECT <columns> FROM <table>}, ready for a WHERE or ORDER BY clause.
+     *
+     * @return the select statement
+     */
+    public String select() {
+        return "SELECT " + names() + " FROM " + table;
+    }
+
+    /**
+     * Checks once that the first columns of the result set match this list.
+     * Extra trailing columns, such as joined ones, are allowed.
+     *
+     * @param rs the result set about to be mapped
+     * @throws SQLException if the metadata cannot be read
+     * @throws CrudException if the layout does not match
+     */
+    public void validate(ResultSet rs) throws SQLException {
+        if (validated) {
+            return;
+        }
+
+        ResultSetMetaData metaData = rs.getMetaData();
+        if (metaData.getColumnCount() < columns.size()) {
+            throw new CrudException("Expected at least " + columns.size() + " columns for " + table
+                    + " but got " + metaData.getColumnCount());
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            String label = metaData.getColumnLabel(i + 1);
+            if (!columns.get(i).equalsIgnoreCase(label)) {
+                throw new CrudException("Column " + (i + 1) + " of " + table + " is " + label
+                        + ", expected " + columns.get(i));
+            }
+        }
+        validated = true;
+    }
+}
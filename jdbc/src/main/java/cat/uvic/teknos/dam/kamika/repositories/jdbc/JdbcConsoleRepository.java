@@ -2,12 +2,19 @@ package cat.uvic.teknos.dam.kamika.repositories.jdbc;
 
 import cat.uvic.teknos.dam.kamika.model.Console;
 import cat.uvic.teknos.dam.kamika.repositories.ConsoleRepository;
+import cat.uvic.teknos.dam.kamika.repositories.Sort;
 import cat.uvic.teknos.dam.kamika.model.impl.ConsoleImpl;
 import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.DataSource;
 import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.CrudException;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.filters.IdFilter;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.ids.HiLoIdAllocator;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.ids.IdSequence;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.statistics.CatalogStatistics;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.statistics.Counter;
 
 import java.sql.*;
 import java.util.*;
+import java.util.stream.Stream;
 
 /**
  * JDBC implementation of the Console repository.
@@ -15,10 +22,75 @@ import java.util.*;
  */
 public class JdbcConsoleRepository implements ConsoleRepository {
 
+    /**
+     * Columns selected from CONSOLE, shared by every query that maps a console row.
+     */
+    public static final ColumnList COLUMNS = ColumnList.of("CONSOLE",
+            "CONSOLE_ID", "NAME", "MANUFACTURER", "RELEASE_YEAR");
+
+    private static final int CONSOLE_ID = COLUMNS.ordinal("CONSOLE_ID");
+    private static final int NAME = COLUMNS.ordinal("NAME");
+    private static final int MANUFACTURER = COLUMNS.ordinal("MANUFACTURER");
+    private static final int RELEASE_YEAR = COLUMNS.ordinal("RELEASE_YEAR");
+
+    static final KeyedInsert INSERT = KeyedInsert.of("CONSOLE", "CONSOLE_ID",
+            "NAME", "MANUFACTURER", "RELEASE_YEAR");
+
+    private static final SortColumns<Console> SORT_COLUMNS = new SortColumns<>("CONSOLE", ConsoleRepository.SORT_BY_ID,
+            Map.of(
+                    ConsoleRepository.SORT_BY_ID, "CONSOLE_ID",
+                    ConsoleRepository.SORT_BY_NAME, "NAME",
+                    ConsoleRepository.SORT_BY_MANUFACTURER, "MANUFACTURER",
+                    ConsoleRepository.SORT_BY_RELEASE_YEAR, "RELEASE_YEAR"));
+
     private final DataSource dataSource;
+    private final int fetchSize;
+    private CatalogStatistics statistics = CatalogStatistics.DISABLED;
+    private HiLoIdAllocator idAllocator;
+    private IdFilter idFilter = IdFilter.DISABLED;
 
     public JdbcConsoleRepository(DataSource dataSource) {
+        this(dataSource, ResultSetStreams.DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Creates the repository with a custom fetch size for the streaming queries.
+     *
+     * @param dataSource the data source used to obtain database connections
+     * @param fetchSize  the number of rows fetched per round trip by {@link #streamAll()}
+     */
+    public JdbcConsoleRepository(DataSource dataSource, int fetchSize) {
         this.dataSource = dataSource;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Sets the statistics updated by this repository's writes and used to answer its counts.
+     *
+     * @param statistics the catalog statistics, or {@link CatalogStatistics#DISABLED}
+     */
+    public void setStatistics(CatalogStatistics statistics) {
+        this.statistics = Objects.requireNonNull(statistics);
+    }
+
+    /**
+     * Sets the allocator new rows take their ID from, instead of reading back the one
+     * generated by the database.
+     *
+     * @param idAllocator the allocator, or {@code null} to use AUTO_INCREMENT
+     */
+    public void setIdAllocator(HiLoIdAllocator idAllocator) {
+        this.idAllocator = idAllocator;
+    }
+
+    /**
+     * Sets the filter that answers lookups of missing IDs without a query, and that inserts
+     * keep up to date.
+     *
+     * @param idFilter the filter of this repository's table, or {@link IdFilter#DISABLED}
+     */
+    public void setIdFilter(IdFilter idFilter) {
+        this.idFilter = Objects.requireNonNull(idFilter);
     }
 
     @Override
@@ -27,8 +99,12 @@ public class JdbcConsoleRepository implements ConsoleRepository {
             throw new CrudException("Invalid console ID: " + id);
         }
 
-        String sql = "SELECT * FROM CONSOLE WHERE CONSOLE_ID = ?";
-        try (Connection conn = dataSource.getConnection();
+        if (!idFilter.mightContain(id)) {
+            return Optional.empty();
+        }
+
+        String sql = COLUMNS.select() + " WHERE CONSOLE_ID = ?";
+        try (Connection conn = dataSource.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, id);
@@ -40,6 +116,7 @@ public class JdbcConsoleRepository implements ConsoleRepository {
         } catch (SQLException e) {
             throw new CrudException("Error finding console by ID", e);
         }
+        idFilter.recordFalsePositive();
         return Optional.empty();
     }
 
@@ -54,27 +131,28 @@ public class JdbcConsoleRepository implements ConsoleRepository {
     }
 
     private Console insert(Console console) {
-        String sql = "INSERT INTO CONSOLE (NAME, MANUFACTURER, RELEASE_YEAR) VALUES (?, ?, ?)";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        int allocatedId = idAllocator != null ? idAllocator.next(IdSequence.CONSOLE) : 0;
+        try (Connection conn = dataSource.getConnection()) {
+            return statistics.write(conn, changes -> {
+                try (PreparedStatement stmt = INSERT.prepare(conn, allocatedId)) {
 
-            stmt.setString(1, console.getName());
-            stmt.setString(2, console.getManufacturer());
-            stmt.setObject(3, console.getReleaseYear());
+                    stmt.setString(1, console.getName());
+                    stmt.setString(2, console.getManufacturer());
+                    stmt.setObject(3, console.getReleaseYear());
 
-            int affectedRows = stmt.executeUpdate();
+                    int affectedRows = stmt.executeUpdate();
 
-            if (affectedRows == 0) {
-                throw new CrudException("Failed to insert console, no rows affected.");
-            }
+                    if (affectedRows == 0) {
+                        throw new CrudException("Failed to insert console, no rows affected.");
+                    }
 
-            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    console.setId(generatedKeys.getInt(1));
+                    console.setId(INSERT.key(stmt, allocatedId));
+                    idFilter.add(console.getId());
                 }
-            }
 
-            return console;
+                changes.increment(Counter.CONSOLES);
+                return console;
+            });
 
         } catch (SQLException e) {
             throw new CrudException("Error inserting console", e);
@@ -105,13 +183,8 @@ public class JdbcConsoleRepository implements ConsoleRepository {
 
     @Override
     public void delete(Console console) {
-        String sql = "DELETE FROM CONSOLE WHERE CONSOLE_ID = ?";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, console.getId());
-            stmt.executeUpdate();
-
+        try {
+            deleteRow(console.getId());
         } catch (SQLException e) {
             throw new CrudException("Error deleting console", e);
         }
@@ -119,23 +192,37 @@ public class JdbcConsoleRepository implements ConsoleRepository {
 
     @Override
     public boolean deleteById(int id) {
-        String sql = "DELETE FROM CONSOLE WHERE CONSOLE_ID = ?";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, id);
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
-
+        try {
+            return deleteRow(id);
         } catch (SQLException e) {
             throw new CrudException("Error deleting console by ID", e);
         }
     }
 
+    private boolean deleteRow(int id) throws SQLException {
+        String sql = "DELETE FROM CONSOLE WHERE CONSOLE_ID = ?";
+        try (Connection conn = dataSource.getConnection()) {
+            return statistics.write(conn, changes -> {
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setInt(1, id);
+                    if (stmt.executeUpdate() == 0) {
+                        return false;
+                    }
+                }
+
+                changes.decrement(Counter.CONSOLES);
+                return true;
+            });
+        }
+    }
+
     @Override
     public long count() {
+        if (statistics.isLoaded()) {
+            return statistics.get(Counter.CONSOLES);
+        }
         String sql = "SELECT COUNT(*) FROM CONSOLE";
-        try (Connection conn = dataSource.getConnection();
+        try (Connection conn = dataSource.getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -151,13 +238,21 @@ public class JdbcConsoleRepository implements ConsoleRepository {
 
     @Override
     public boolean existsById(int id) {
+        if (!idFilter.mightContain(id)) {
+            return false;
+        }
+
         String sql = "SELECT 1 FROM CONSOLE WHERE CONSOLE_ID = ?";
-        try (Connection conn = dataSource.getConnection();
+        try (Connection conn = dataSource.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
-                return rs.next();
+                if (rs.next()) {
+                    return true;
+                }
+                idFilter.recordFalsePositive();
+                return false;
             }
 
         } catch (SQLException e) {
@@ -168,8 +263,8 @@ public class JdbcConsoleRepository implements ConsoleRepository {
     @Override
     public Set<Console> findAll() {
         Set<Console> consoles = new HashSet<>();
-        String sql = "SELECT * FROM CONSOLE";
-        try (Connection conn = dataSource.getConnection();
+        String sql = COLUMNS.select();
+        try (Connection conn = dataSource.getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -182,6 +277,22 @@ public class JdbcConsoleRepository implements ConsoleRepository {
         return consoles;
     }
 
+    @Override
+    public Stream<Console> streamAll() {
+        return ResultSetStreams.stream(dataSource, COLUMNS.select(), fetchSize, this::mapToEntity);
+    }
+
+    /**
+     * Sorts in SQL and pre-sizes the result from the row count when statistics are loaded.
+     * Every row is returned, even if it is equal to another one in every field.
+     */
+    @Override
+    public List<Console> findAll(Sort<Console> sort) {
+        long sizeHint = statistics.isLoaded() ? statistics.get(Counter.CONSOLES) : 0;
+        return ResultSetStreams.list(dataSource, COLUMNS.select() + SORT_COLUMNS.orderBy(sort),
+                fetchSize, sizeHint, this::mapToEntity);
+    }
+
     /**
      * Maps a ResultSet row to a Console entity.
      *
@@ -190,11 +301,13 @@ public class JdbcConsoleRepository implements ConsoleRepository {
      * @throws SQLException if a database access error occurs
      */
     private Console mapToEntity(ResultSet rs) throws SQLException {
+        COLUMNS.validate(rs);
+
         Console console = new ConsoleImpl();
-        console.setId(rs.getInt("CONSOLE_ID"));
-        console.setName(rs.getString("NAME"));
-        console.setManufacturer(rs.getString("MANUFACTURER"));
-        console.setReleaseYear(rs.getObject("RELEASE_YEAR", Integer.class));
+        console.setId(rs.getInt(CONSOLE_ID));
+        console.setName(rs.getString(NAME));
+        console.setManufacturer(rs.getString(MANUFACTURER));
+        console.setReleaseYear(rs.getObject(RELEASE_YEAR, Integer.class));
         return console;
     }
 }
\ No newline at end of file
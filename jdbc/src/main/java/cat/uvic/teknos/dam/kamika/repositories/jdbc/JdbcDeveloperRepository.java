@@ -1,13 +1,22 @@
 package cat.uvic.teknos.dam.kamika.repositories.jdbc;
 
 import cat.uvic.teknos.dam.kamika.model.Developer;
+import cat.uvic.teknos.dam.kamika.repositories.DeveloperPatch;
 import cat.uvic.teknos.dam.kamika.repositories.DeveloperRepository;
+import cat.uvic.teknos.dam.kamika.repositories.Sort;
+import cat.uvic.teknos.dam.kamika.repositories.exceptions.VersionConflictException;
 import cat.uvic.teknos.dam.kamika.model.impl.DeveloperImpl;
 import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.DataSource;
 import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.CrudException;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.filters.IdFilter;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.ids.HiLoIdAllocator;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.ids.IdSequence;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.statistics.CatalogStatistics;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.statistics.Counter;
 
 import java.sql.*;
 import java.util.*;
+import java.util.stream.Stream;
 
 /**
  * JDBC implementation of the Developer repository.
@@ -15,10 +24,76 @@ import java.util.*;
  */
 public class JdbcDeveloperRepository implements DeveloperRepository {
 
+    /**
+     * Columns selected from DEVELOPER, shared by every query that maps a developer row.
+     */
+    public static final ColumnList COLUMNS = ColumnList.of("DEVELOPER",
+            "DEVELOPER_ID", "NAME", "COUNTRY", "FOUNDATION_YEAR", "VERSION");
+
+    private static final int DEVELOPER_ID = COLUMNS.ordinal("DEVELOPER_ID");
+    private static final int NAME = COLUMNS.ordinal("NAME");
+    private static final int COUNTRY = COLUMNS.ordinal("COUNTRY");
+    private static final int FOUNDATION_YEAR = COLUMNS.ordinal("FOUNDATION_YEAR");
+    private static final int VERSION = COLUMNS.ordinal("VERSION");
+
+    static final KeyedInsert INSERT = KeyedInsert.of("DEVELOPER", "DEVELOPER_ID",
+            "NAME", "COUNTRY", "FOUNDATION_YEAR");
+
+    private static final SortColumns<Developer> SORT_COLUMNS = new SortColumns<>("DEVELOPER", DeveloperRepository.SORT_BY_ID,
+            Map.of(
+                    DeveloperRepository.SORT_BY_ID, "DEVELOPER_ID",
+                    DeveloperRepository.SORT_BY_NAME, "NAME",
+                    DeveloperRepository.SORT_BY_COUNTRY, "COUNTRY",
+                    DeveloperRepository.SORT_BY_FOUNDATION_YEAR, "FOUNDATION_YEAR"));
+
     private final DataSource dataSource;
+    private final int fetchSize;
+    private CatalogStatistics statistics = CatalogStatistics.DISABLED;
+    private HiLoIdAllocator idAllocator;
+    private IdFilter idFilter = IdFilter.DISABLED;
 
     public JdbcDeveloperRepository(DataSource dataSource) {
+        this(dataSource, ResultSetStreams.DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Creates the repository with a custom fetch size for the streaming queries.
+     *
+     * @param dataSource the data source used to obtain database connections
+     * @param fetchSize  the number of rows fetched per round trip by {@link #streamAll()}
+     */
+    public JdbcDeveloperRepository(DataSource dataSource, int fetchSize) {
         this.dataSource = dataSource;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Sets the statistics updated by this repository's writes and used to answer its counts.
+     *
+     * @param statistics the catalog statistics, or {@link CatalogStatistics#DISABLED}
+     */
+    public void setStatistics(CatalogStatistics statistics) {
+        this.statistics = Objects.requireNonNull(statistics);
+    }
+
+    /**
+     * Sets the allocator new rows take their ID from, instead of reading back the one
+     * generated by the database.
+     *
+     * @param idAllocator the allocator, or {@code null} to use AUTO_INCREMENT
+     */
+    public void setIdAllocator(HiLoIdAllocator idAllocator) {
+        this.idAllocator = idAllocator;
+    }
+
+    /**
+     * Sets the filter that answers lookups of missing IDs without a query, and that inserts
+     * keep up to date.
+     *
+     * @param idFilter the filter of this repository's table, or {@link IdFilter#DISABLED}
+     */
+    public void setIdFilter(IdFilter idFilter) {
+        this.idFilter = Objects.requireNonNull(idFilter);
     }
 
     @Override
@@ -27,8 +102,12 @@ public class JdbcDeveloperRepository implements DeveloperRepository {
             throw new CrudException("Invalid developer ID: " + id);
         }
 
-        String sql = "SELECT * FROM DEVELOPER WHERE DEVELOPER_ID = ?";
-        try (Connection conn = dataSource.getConnection();
+        if (!idFilter.mightContain(id)) {
+            return Optional.empty();
+        }
+
+        String sql = COLUMNS.select() + " WHERE DEVELOPER_ID = ?";
+        try (Connection conn = dataSource.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, id);
@@ -40,6 +119,7 @@ public class JdbcDeveloperRepository implements DeveloperRepository {
         } catch (SQLException e) {
             throw new CrudException("Error finding developer by ID", e);
         }
+        idFilter.recordFalsePositive();
         return Optional.empty();
     }
 
@@ -59,64 +139,172 @@ public class JdbcDeveloperRepository implements DeveloperRepository {
     }
 
     private Developer insert(Developer developer) {
-        String sql = "INSERT INTO DEVELOPER (NAME, COUNTRY, FOUNDATION_YEAR) VALUES (?, ?, ?)";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        int allocatedId = idAllocator != null ? idAllocator.next(IdSequence.DEVELOPER) : 0;
+        try (Connection conn = dataSource.getConnection()) {
+            return statistics.write(conn, changes -> {
+                try (PreparedStatement stmt = INSERT.prepare(conn, allocatedId)) {
 
-            stmt.setString(1, developer.getName());
-            stmt.setString(2, developer.getCountry());
-            stmt.setObject(3, developer.getFoundationYear());
+                    stmt.setString(1, developer.getName());
+                    stmt.setString(2, developer.getCountry());
+                    stmt.setObject(3, developer.getFoundationYear());
 
-            int affectedRows = stmt.executeUpdate();
+                    int affectedRows = stmt.executeUpdate();
 
-            if (affectedRows == 0) {
-                throw new CrudException("Failed to insert developer, no rows affected.");
-            }
+                    if (affectedRows == 0) {
+                        throw new CrudException("Failed to insert developer, no rows affected.");
+                    }
 
-            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    developer.setId(generatedKeys.getInt(1));
+                    developer.setId(INSERT.key(stmt, allocatedId));
+                    developer.setVersion(0);
+                    idFilter.add(developer.getId());
                 }
-            }
 
-            return developer;
+                changes.increment(Counter.DEVELOPERS)
+                        .increment(Counter.DEVELOPERS_BY_COUNTRY, developer.getCountry());
+                return developer;
+            });
 
         } catch (SQLException e) {
             throw new CrudException("Error inserting developer", e);
         }
     }
 
+    /**
+     * Updates a developer if it is still at the version it was read at, and increments the
+     * version. The row is not locked between the read and the update; a concurrent change
+     * makes the update match no row instead.
+     *
+     * @throws VersionConflictException if the developer was changed or deleted since
+     */
     private Developer update(Developer developer) {
-        String sql = "UPDATE DEVELOPER SET NAME = ?, COUNTRY = ?, FOUNDATION_YEAR = ? WHERE DEVELOPER_ID = ?";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        String sql = "UPDATE DEVELOPER SET NAME = ?, COUNTRY = ?, FOUNDATION_YEAR = ?, VERSION = VERSION + 1 "
+                + "WHERE DEVELOPER_ID = ? AND VERSION = ?";
+        try (Connection conn = dataSource.getConnection()) {
+            return statistics.write(conn, changes -> {
+                String oldCountry = changes.isTracking() ? lockCountry(conn, developer.getId()) : null;
+
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+                    stmt.setString(1, developer.getName());
+                    stmt.setString(2, developer.getCountry());
+                    stmt.setObject(3, developer.getFoundationYear());
+                    stmt.setInt(4, developer.getId());
+                    stmt.setInt(5, developer.getVersion());
+
+                    int affectedRows = stmt.executeUpdate();
+                    if (affectedRows == 0) {
+                        throw new VersionConflictException("Developer", developer.getId(),
+                                developer.getVersion(), currentVersion(conn, developer.getId()));
+                    }
+                }
+
+                developer.setVersion(developer.getVersion() + 1);
+                changes.move(Counter.DEVELOPERS_BY_COUNTRY, oldCountry, developer.getCountry());
+                return developer;
+            });
+
+        } catch (SQLException e) {
+            throw new CrudException("Error updating developer", e);
+        }
+    }
+
+    /**
+     * Reads the developer from the primary and updates only the columns the patch changes,
+     * conditional on the version that was read. No UPDATE is sent if nothing differs.
+     */
+    @Override
+    public Optional<Developer> patch(int id, DeveloperPatch patch) {
+        Objects.requireNonNull(patch, "Patch cannot be null");
+        if (id <= 0) {
+            throw new CrudException("Invalid developer ID: " + id);
+        }
+
+        if (!idFilter.mightContain(id)) {
+            return Optional.empty();
+        }
 
-            stmt.setString(1, developer.getName());
-            stmt.setString(2, developer.getCountry());
-            stmt.setObject(3, developer.getFoundationYear());
-            stmt.setInt(4, developer.getId());
+        try (Connection conn = dataSource.getConnection()) {
+            Developer developer = findById(conn, id);
+            if (developer == null) {
+                idFilter.recordFalsePositive();
+                return Optional.empty();
+            }
 
-            int affectedRows = stmt.executeUpdate();
-            if (affectedRows == 0) {
-                throw new CrudException("Error updating developer: no rows affected");
+            Integer expectedVersion = patch.getExpectedVersion();
+            if (expectedVersion != null && expectedVersion != developer.getVersion()) {
+                throw new VersionConflictException("Developer", id, expectedVersion, developer.getVersion());
             }
 
-            return developer;
+            Set<DeveloperPatch.Field> changed = patch.diff(developer);
+            if (changed.isEmpty()) {
+                return Optional.of(developer);
+            }
+
+            StringJoiner assignments = new StringJoiner(", ", "UPDATE DEVELOPER SET ", ", VERSION = VERSION + 1");
+            for (DeveloperPatch.Field field : changed) {
+                assignments.add(column(field) + " = ?");
+            }
+            String sql = assignments + " WHERE DEVELOPER_ID = ? AND VERSION = ?";
+            String oldCountry = developer.getCountry();
+
+            return Optional.of(statistics.write(conn, changes -> {
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    int index = 1;
+                    for (DeveloperPatch.Field field : changed) {
+                        stmt.setObject(index++, patch.get(field));
+                    }
+                    stmt.setInt(index++, id);
+                    stmt.setInt(index, developer.getVersion());
+
+                    if (stmt.executeUpdate() == 0) {
+                        throw new VersionConflictException("Developer", id,
+                                developer.getVersion(), currentVersion(conn, id));
+                    }
+                }
+
+                patch.applyTo(developer);
+                developer.setVersion(developer.getVersion() + 1);
+                if (changed.contains(DeveloperPatch.Field.COUNTRY)) {
+                    changes.move(Counter.DEVELOPERS_BY_COUNTRY, oldCountry, developer.getCountry());
+                }
+                return developer;
+            }));
 
         } catch (SQLException e) {
-            throw new CrudException("Error updating developer", e);
+            throw new CrudException("Error patching developer", e);
         }
     }
 
-    @Override
-    public void delete(Developer developer) {
-        String sql = "DELETE FROM DEVELOPER WHERE DEVELOPER_ID = ?";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+    private Developer findById(Connection conn, int id) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(COLUMNS.select() + " WHERE DEVELOPER_ID = ?")) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? mapToEntity(rs) : null;
+            }
+        }
+    }
 
-            stmt.setInt(1, developer.getId());
-            stmt.executeUpdate();
+    private static String column(DeveloperPatch.Field field) {
+        return switch (field) {
+            case NAME -> "NAME";
+            case COUNTRY -> "COUNTRY";
+            case FOUNDATION_YEAR -> "FOUNDATION_YEAR";
+        };
+    }
+
+    private static Integer currentVersion(Connection conn, int id) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT VERSION FROM DEVELOPER WHERE DEVELOPER_ID = ?")) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
 
+    @Override
+    public void delete(Developer developer) {
+        try {
+            deleteRow(developer.getId());
         } catch (SQLException e) {
             throw new CrudException("Error deleting developer", e);
         }
@@ -124,23 +312,53 @@ public class JdbcDeveloperRepository implements DeveloperRepository {
 
     @Override
     public boolean deleteById(int id) {
+        try {
+            return deleteRow(id);
+        } catch (SQLException e) {
+            throw new CrudException("Error deleting developer by ID", e);
+        }
+    }
+
+    private boolean deleteRow(int id) throws SQLException {
         String sql = "DELETE FROM DEVELOPER WHERE DEVELOPER_ID = ?";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = dataSource.getConnection()) {
+            return statistics.write(conn, changes -> {
+                String oldCountry = changes.isTracking() ? lockCountry(conn, id) : null;
+
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setInt(1, id);
+                    if (stmt.executeUpdate() == 0) {
+                        return false;
+                    }
+                }
 
-            stmt.setInt(1, id);
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+                changes.decrement(Counter.DEVELOPERS)
+                        .decrement(Counter.DEVELOPERS_BY_COUNTRY, oldCountry);
+                return true;
+            });
+        }
+    }
 
-        } catch (SQLException e) {
-            throw new CrudException("Error deleting developer by ID", e);
+    /**
+     * Reads the current country of a developer and locks the row until the transaction ends.
+     */
+    private String lockCountry(Connection conn, int id) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT COUNTRY FROM DEVELOPER WHERE DEVELOPER_ID = ? FOR UPDATE")) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
         }
     }
 
     @Override
     public long count() {
+        if (statistics.isLoaded()) {
+            return statistics.get(Counter.DEVELOPERS);
+        }
         String sql = "SELECT COUNT(*) FROM DEVELOPER";
-        try (Connection conn = dataSource.getConnection();
+        try (Connection conn = dataSource.getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -156,13 +374,21 @@ public class JdbcDeveloperRepository implements DeveloperRepository {
 
     @Override
     public boolean existsById(int id) {
+        if (!idFilter.mightContain(id)) {
+            return false;
+        }
+
         String sql = "SELECT 1 FROM DEVELOPER WHERE DEVELOPER_ID = ?";
-        try (Connection conn = dataSource.getConnection();
+        try (Connection conn = dataSource.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
-                return rs.next();
+                if (rs.next()) {
+                    return true;
+                }
+                idFilter.recordFalsePositive();
+                return false;
             }
 
         } catch (SQLException e) {
@@ -172,11 +398,14 @@ public class JdbcDeveloperRepository implements DeveloperRepository {
 
     @Override
     public long countByCountryIgnoreCase(String country) {
-        String sql = "SELECT COUNT(*) FROM DEVELOPER WHERE LOWER(COUNTRY) = LOWER(?)";
-        try (Connection conn = dataSource.getConnection();
+        if (statistics.isLoaded()) {
+            return country == null ? 0 : statistics.get(Counter.DEVELOPERS_BY_COUNTRY, country);
+        }
+        String sql = "SELECT COUNT(*) FROM DEVELOPER WHERE LOWER(COUNTRY) = ?";
+        try (Connection conn = dataSource.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setString(1, country);
+            stmt.setString(1, LookupKeys.lower(country));
 
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
@@ -193,8 +422,8 @@ public class JdbcDeveloperRepository implements DeveloperRepository {
     @Override
     public Set<Developer> findAll() {
         Set<Developer> developers = new HashSet<>();
-        String sql = "SELECT * FROM DEVELOPER";
-        try (Connection conn = dataSource.getConnection();
+        String sql = COLUMNS.select();
+        try (Connection conn = dataSource.getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -207,6 +436,29 @@ public class JdbcDeveloperRepository implements DeveloperRepository {
         return developers;
     }
 
+    @Override
+    public Stream<Developer> streamAll() {
+        return ResultSetStreams.stream(dataSource, COLUMNS.select(), fetchSize, this::mapToEntity);
+    }
+
+    /**
+     * Sorts in SQL and pre-sizes the result from the row count when statistics are loaded.
+     * Every row is returned, even if it is equal to another one in every field.
+     */
+    @Override
+    public List<Developer> findAll(Sort<Developer> sort) {
+        long sizeHint = statistics.isLoaded() ? statistics.get(Counter.DEVELOPERS) : 0;
+        return ResultSetStreams.list(dataSource, COLUMNS.select() + SORT_COLUMNS.orderBy(sort),
+                fetchSize, sizeHint, this::mapToEntity);
+    }
+
+    @Override
+    public Stream<Developer> streamByCountryIgnoreCase(String country) {
+        String sql = COLUMNS.select() + " WHERE LOWER(COUNTRY) = ?";
+        return ResultSetStreams.stream(dataSource, sql, fetchSize,
+                stmt -> stmt.setString(1, LookupKeys.lower(country)), this::mapToEntity);
+    }
+
     /**
      * Maps a ResultSet row to a Developer entity.
      *
@@ -215,11 +467,14 @@ public class JdbcDeveloperRepository implements DeveloperRepository {
      * @throws SQLException if a database access error occurs
      */
     private Developer mapToEntity(ResultSet rs) throws SQLException {
+        COLUMNS.validate(rs);
+
         Developer developer = new DeveloperImpl();
-        developer.setId(rs.getInt("DEVELOPER_ID"));
-        developer.setName(rs.getString("NAME"));
-        developer.setCountry(rs.getString("COUNTRY"));
-        developer.setFoundationYear(rs.getObject("FOUNDATION_YEAR", Integer.class));
+        developer.setId(rs.getInt(DEVELOPER_ID));
+        developer.setName(rs.getString(NAME));
+        developer.setCountry(rs.getString(COUNTRY));
+        developer.setFoundationYear(rs.getObject(FOUNDATION_YEAR, Integer.class));
+        developer.setVersion(rs.getInt(VERSION));
         return developer;
     }
 }
\ No newline at end of file
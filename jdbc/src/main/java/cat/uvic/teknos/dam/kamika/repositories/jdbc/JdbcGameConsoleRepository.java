@@ -5,6 +5,10 @@ import cat.uvic.teknos.dam.kamika.repositories.GameConsoleRepository;
 import cat.uvic.teknos.dam.kamika.model.impl.GameConsoleImpl;
 import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.DataSource;
 import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.CrudException;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.ids.HiLoIdAllocator;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.ids.IdSequence;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.statistics.CatalogStatistics;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.statistics.Counter;
 
 import java.sql.*;
 import java.util.Objects;
@@ -12,16 +16,53 @@ import java.util.Optional;
 
 public class JdbcGameConsoleRepository implements GameConsoleRepository {
 
+    /**
+     * Columns selected from GAME_CONSOLE, shared by every query that maps a game console row.
+     */
+    public static final ColumnList COLUMNS = ColumnList.of("GAME_CONSOLE",
+            "GAME_CONSOLE_ID", "GAME_ID", "CONSOLE_ID", "RELEASE_DATE", "IS_EXCLUSIVE", "RESOLUTION");
+
+    private static final int GAME_CONSOLE_ID = COLUMNS.ordinal("GAME_CONSOLE_ID");
+    private static final int GAME_ID = COLUMNS.ordinal("GAME_ID");
+    private static final int CONSOLE_ID = COLUMNS.ordinal("CONSOLE_ID");
+    private static final int RELEASE_DATE = COLUMNS.ordinal("RELEASE_DATE");
+    private static final int IS_EXCLUSIVE = COLUMNS.ordinal("IS_EXCLUSIVE");
+    private static final int RESOLUTION = COLUMNS.ordinal("RESOLUTION");
+
+    static final KeyedInsert INSERT = KeyedInsert.of("GAME_CONSOLE", "GAME_CONSOLE_ID",
+            "GAME_ID", "CONSOLE_ID", "RELEASE_DATE", "IS_EXCLUSIVE", "RESOLUTION");
+
     private final DataSource dataSource;
+    private CatalogStatistics statistics = CatalogStatistics.DISABLED;
+    private HiLoIdAllocator idAllocator;
 
     public JdbcGameConsoleRepository(DataSource dataSource) {
         this.dataSource = dataSource;
     }
 
+    /**
+     * Sets the statistics updated by this repository's writes and used to answer its counts.
+     *
+     * @param statistics the catalog statistics, or {@link CatalogStatistics#DISABLED}
+     */
+    public void setStatistics(CatalogStatistics statistics) {
+        this.statistics = Objects.requireNonNull(statistics);
+    }
+
+    /**
+     * Sets the allocator new rows take their ID from, instead of reading back the one
+     * generated by the database.
+     *
+     * @param idAllocator the allocator, or {@code null} to use AUTO_INCREMENT
+     */
+    public void setIdAllocator(HiLoIdAllocator idAllocator) {
+        this.idAllocator = idAllocator;
+    }
+
     @Override
     public Optional<GameConsole> findByGameConsoleId(int gameConsoleId) {
-        String sql = "SELECT * FROM GAME_CONSOLE WHERE GAME_CONSOLE_ID = ?";
-        try (Connection conn = dataSource.getConnection();
+        String sql = COLUMNS.select() + " WHERE GAME_CONSOLE_ID = ?";
+        try (Connection conn = dataSource.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, gameConsoleId);
@@ -40,12 +81,21 @@ public class JdbcGameConsoleRepository implements GameConsoleRepository {
     @Override
     public boolean deleteByGameConsoleId(int gameConsoleId) {
         String sql = "DELETE FROM GAME_CONSOLE WHERE GAME_CONSOLE_ID = ?";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = dataSource.getConnection()) {
+            return statistics.write(conn, changes -> {
+                Integer consoleId = changes.isTracking() ? lockConsoleId(conn, gameConsoleId) : null;
+
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setInt(1, gameConsoleId);
+                    if (stmt.executeUpdate() == 0) {
+                        return false;
+                    }
+                }
 
-            stmt.setInt(1, gameConsoleId);
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+                changes.decrement(Counter.GAME_CONSOLES)
+                        .decrement(Counter.GAMES_BY_CONSOLE, consoleId);
+                return true;
+            });
         } catch (SQLException e) {
             throw new CrudException("Error eliminando por GAME_CONSOLE_ID", e);
         }
@@ -57,8 +107,8 @@ public class JdbcGameConsoleRepository implements GameConsoleRepository {
             throw new CrudException("Invalid composite ID: " + gameId + "/" + consoleId);
         }
 
-        String sql = "SELECT * FROM GAME_CONSOLE WHERE GAME_ID = ? AND CONSOLE_ID = ?";
-        try (Connection conn = dataSource.getConnection();
+        String sql = COLUMNS.select() + " WHERE GAME_ID = ? AND CONSOLE_ID = ?";
+        try (Connection conn = dataSource.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, gameId);
@@ -85,7 +135,7 @@ public class JdbcGameConsoleRepository implements GameConsoleRepository {
         if (gameId <= 0 || consoleId <= 0)
             throw new CrudException("Game and Console IDs must be valid");
 
-        if (!existsById(gameId, consoleId)) {
+        if (!exists(gameId, consoleId, false)) {
             insert(gameConsole);
         } else {
             update(gameConsole);
@@ -95,25 +145,28 @@ public class JdbcGameConsoleRepository implements GameConsoleRepository {
     }
 
     private void insert(GameConsole gameConsole) {
-        String sql = "INSERT INTO GAME_CONSOLE (GAME_ID, CONSOLE_ID, RELEASE_DATE, IS_EXCLUSIVE, RESOLUTION) VALUES (?, ?, ?, ?, ?)";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-
-            stmt.setInt(1, gameConsole.getGameId());
-            stmt.setInt(2, gameConsole.getConsoleId());
-            stmt.setObject(3, gameConsole.getReleaseDate());
-            stmt.setBoolean(4, gameConsole.isExclusive());
-            stmt.setString(5, gameConsole.getResolution());
-
-            int rowsAffected = stmt.executeUpdate();
-            if (rowsAffected == 0)
-                throw new CrudException("Insert failed: no rows affected");
-
-            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    gameConsole.setGameConsoleId(generatedKeys.getInt(1));
+        int allocatedId = idAllocator != null ? idAllocator.next(IdSequence.GAME_CONSOLE) : 0;
+        try (Connection conn = dataSource.getConnection()) {
+            statistics.write(conn, changes -> {
+                try (PreparedStatement stmt = INSERT.prepare(conn, allocatedId)) {
+
+                    stmt.setInt(1, gameConsole.getGameId());
+                    stmt.setInt(2, gameConsole.getConsoleId());
+                    stmt.setObject(3, gameConsole.getReleaseDate());
+                    stmt.setBoolean(4, gameConsole.isExclusive());
+                    stmt.setString(5, gameConsole.getResolution());
+
+                    int rowsAffected = stmt.executeUpdate();
+                    if (rowsAffected == 0)
+                        throw new CrudException("Insert failed: no rows affected");
+
+                    gameConsole.setGameConsoleId(INSERT.key(stmt, allocatedId));
                 }
-            }
+
+                changes.increment(Counter.GAME_CONSOLES)
+                        .increment(Counter.GAMES_BY_CONSOLE, gameConsole.getConsoleId());
+                return null;
+            });
         } catch (SQLException e) {
             throw new CrudException("Error inserting game-console relation", e);
         }
@@ -152,14 +205,22 @@ public class JdbcGameConsoleRepository implements GameConsoleRepository {
     @Override
     public boolean deleteById(int gameId, int consoleId) {
         String sql = "DELETE FROM GAME_CONSOLE WHERE GAME_ID = ? AND CONSOLE_ID = ?";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = dataSource.getConnection()) {
+            return statistics.write(conn, changes -> {
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setInt(1, gameId);
-            stmt.setInt(2, consoleId);
+                    stmt.setInt(1, gameId);
+                    stmt.setInt(2, consoleId);
 
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+                    if (stmt.executeUpdate() == 0) {
+                        return false;
+                    }
+                }
+
+                changes.decrement(Counter.GAME_CONSOLES)
+                        .decrement(Counter.GAMES_BY_CONSOLE, consoleId);
+                return true;
+            });
 
         } catch (SQLException e) {
             throw new CrudException("Error deleting game-console relation by ID", e);
@@ -168,8 +229,11 @@ public class JdbcGameConsoleRepository implements GameConsoleRepository {
 
     @Override
     public long count() {
+        if (statistics.isLoaded()) {
+            return statistics.get(Counter.GAME_CONSOLES);
+        }
         String sql = "SELECT COUNT(*) FROM GAME_CONSOLE";
-        try (Connection conn = dataSource.getConnection();
+        try (Connection conn = dataSource.getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -184,8 +248,16 @@ public class JdbcGameConsoleRepository implements GameConsoleRepository {
 
     @Override
     public boolean existsById(int gameId, int consoleId) {
+        return exists(gameId, consoleId, true);
+    }
+
+    /**
+     * Checks whether a game-console relation exists. Checks that decide a write go to
+     * the primary, since a replica may not have caught up with it yet.
+     */
+    private boolean exists(int gameId, int consoleId, boolean readOnly) {
         String sql = "SELECT 1 FROM GAME_CONSOLE WHERE GAME_ID = ? AND CONSOLE_ID = ?";
-        try (Connection conn = dataSource.getConnection();
+        try (Connection conn = readOnly ? dataSource.getReadConnection() : dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, gameId);
@@ -200,15 +272,30 @@ public class JdbcGameConsoleRepository implements GameConsoleRepository {
         }
     }
 
+    /**
+     * Reads the console of a game-console relation and locks the row until the transaction ends.
+     */
+    private Integer lockConsoleId(Connection conn, int gameConsoleId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT CONSOLE_ID FROM GAME_CONSOLE WHERE GAME_CONSOLE_ID = ? FOR UPDATE")) {
+            stmt.setInt(1, gameConsoleId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
+
     private GameConsole mapToEntity(ResultSet rs) throws SQLException {
+        COLUMNS.validate(rs);
+
         GameConsoleImpl entity = new GameConsoleImpl();
-        entity.setGameConsoleId(rs.getInt("GAME_CONSOLE_ID"));
-        entity.setGameId(rs.getInt("GAME_ID"));
-        entity.setConsoleId(rs.getInt("CONSOLE_ID"));
-        Date date = rs.getDate("RELEASE_DATE");
+        entity.setGameConsoleId(rs.getInt(GAME_CONSOLE_ID));
+        entity.setGameId(rs.getInt(GAME_ID));
+        entity.setConsoleId(rs.getInt(CONSOLE_ID));
+        Date date = rs.getDate(RELEASE_DATE);
         entity.setReleaseDate(date != null ? date.toLocalDate() : null);
-        entity.setExclusive(rs.getBoolean("IS_EXCLUSIVE"));
-        entity.setResolution(rs.getString("RESOLUTION"));
+        entity.setExclusive(rs.getBoolean(IS_EXCLUSIVE));
+        entity.setResolution(rs.getString(RESOLUTION));
         return entity;
     }
 }
\ No newline at end of file
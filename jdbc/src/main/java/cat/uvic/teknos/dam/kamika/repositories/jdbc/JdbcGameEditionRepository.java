@@ -2,23 +2,97 @@ package cat.uvic.teknos.dam.kamika.repositories.jdbc;
 
 import cat.uvic.teknos.dam.kamika.model.GameEdition;
 import cat.uvic.teknos.dam.kamika.repositories.GameEditionRepository;
+import cat.uvic.teknos.dam.kamika.repositories.Sort;
 import cat.uvic.teknos.dam.kamika.model.impl.GameEditionImpl;
 import cat.uvic.teknos.dam.kamika.model.impl.GameImpl;
 import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.DataSource;
 import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.CrudException;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.filters.IdFilter;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.ids.HiLoIdAllocator;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.ids.IdSequence;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.statistics.CatalogStatistics;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.statistics.Counter;
 
 import java.sql.*;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 public class JdbcGameEditionRepository implements GameEditionRepository {
 
+    /**
+     * Columns selected from GAME_EDITION, shared by every query that maps a game edition row.
+     */
+    public static final ColumnList COLUMNS = ColumnList.of("GAME_EDITION",
+            "GAME_EDITION_ID", "GAME_ID", "EDITION_NAME", "SPECIAL_CONTENT", "PRICE");
+
+    private static final int GAME_EDITION_ID = COLUMNS.ordinal("GAME_EDITION_ID");
+    private static final int GAME_ID = COLUMNS.ordinal("GAME_ID");
+    private static final int EDITION_NAME = COLUMNS.ordinal("EDITION_NAME");
+    private static final int SPECIAL_CONTENT = COLUMNS.ordinal("SPECIAL_CONTENT");
+    private static final int PRICE = COLUMNS.ordinal("PRICE");
+
+    static final KeyedInsert INSERT = KeyedInsert.of("GAME_EDITION", "GAME_EDITION_ID",
+            "GAME_ID", "EDITION_NAME", "SPECIAL_CONTENT", "PRICE");
+
+    private static final SortColumns<GameEdition> SORT_COLUMNS = new SortColumns<>("GAME_EDITION", GameEditionRepository.SORT_BY_ID,
+            Map.of(
+                    GameEditionRepository.SORT_BY_ID, "GAME_EDITION_ID",
+                    GameEditionRepository.SORT_BY_EDITION_NAME, "EDITION_NAME",
+                    GameEditionRepository.SORT_BY_PRICE, "PRICE"));
+
     private final DataSource dataSource;
+    private final int fetchSize;
+    private CatalogStatistics statistics = CatalogStatistics.DISABLED;
+    private HiLoIdAllocator idAllocator;
+    private IdFilter idFilter = IdFilter.DISABLED;
 
     public JdbcGameEditionRepository(DataSource dataSource) {
+        this(dataSource, ResultSetStreams.DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Creates the repository with a custom fetch size for the streaming queries.
+     *
+     * @param dataSource the data source used to obtain database connections
+     * @param fetchSize  the number of rows fetched per round trip by {@link #streamAll()}
+     */
+    public JdbcGameEditionRepository(DataSource dataSource, int fetchSize) {
         this.dataSource = Objects.requireNonNull(dataSource);
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Sets the statistics updated by this repository's writes and used to answer its counts.
+     *
+     * @param statistics the catalog statistics, or {@link CatalogStatistics#DISABLED}
+     */
+    public void setStatistics(CatalogStatistics statistics) {
+        this.statistics = Objects.requireNonNull(statistics);
+    }
+
+    /**
+     * Sets the allocator new rows take their ID from, instead of reading back the one
+     * generated by the database.
+     *
+     * @param idAllocator the allocator, or {@code null} to use AUTO_INCREMENT
+     */
+    public void setIdAllocator(HiLoIdAllocator idAllocator) {
+        this.idAllocator = idAllocator;
+    }
+
+    /**
+     * Sets the filter that answers lookups of missing IDs without a query, and that inserts
+     * keep up to date.
+     *
+     * @param idFilter the filter of this repository's table, or {@link IdFilter#DISABLED}
+     */
+    public void setIdFilter(IdFilter idFilter) {
+        this.idFilter = Objects.requireNonNull(idFilter);
     }
 
     @Override
@@ -27,8 +101,8 @@ public class JdbcGameEditionRepository implements GameEditionRepository {
             throw new CrudException("Invalid parameters for finding game edition");
         }
 
-        String sql = "SELECT * FROM GAME_EDITION WHERE GAME_ID = ? AND EDITION_NAME = ?";
-        try (Connection conn = dataSource.getConnection();
+        String sql = COLUMNS.select() + " WHERE GAME_ID = ? AND EDITION_NAME = ?";
+        try (Connection conn = dataSource.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, gameId);
@@ -48,6 +122,18 @@ public class JdbcGameEditionRepository implements GameEditionRepository {
         return Optional.empty();
     }
 
+    /**
+     * Queries the editions of the game through the GAME_ID index.
+     */
+    @Override
+    public List<GameEdition> findByGameId(int gameId) {
+        String sql = COLUMNS.select() + " WHERE GAME_ID = ? ORDER BY GAME_EDITION_ID";
+        try (Stream<GameEdition> editions = ResultSetStreams.stream(dataSource, sql, fetchSize,
+                stmt -> stmt.setInt(1, gameId), this::mapToEntity)) {
+            return editions.toList();
+        }
+    }
+
     @Override
     public GameEdition save(GameEdition gameEdition) {
         if (gameEdition == null) {
@@ -75,19 +161,28 @@ public class JdbcGameEditionRepository implements GameEditionRepository {
     }
 
     private void insert(GameEdition gameEdition) {
-        String sql = "INSERT INTO GAME_EDITION (GAME_ID, EDITION_NAME, SPECIAL_CONTENT, PRICE) VALUES (?, ?, ?, ?)";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, gameEdition.getGame().getId());
-            stmt.setString(2, gameEdition.getEditionName());
-            stmt.setString(3, gameEdition.getSpecialContent());
-            stmt.setDouble(4, gameEdition.getPrice());
+        int allocatedId = idAllocator != null ? idAllocator.next(IdSequence.GAME_EDITION) : 0;
+        try (Connection conn = dataSource.getConnection()) {
+            statistics.write(conn, changes -> {
+                try (PreparedStatement stmt = INSERT.prepare(conn, allocatedId)) {
+
+                    stmt.setInt(1, gameEdition.getGame().getId());
+                    stmt.setString(2, gameEdition.getEditionName());
+                    stmt.setString(3, gameEdition.getSpecialContent());
+                    stmt.setDouble(4, gameEdition.getPrice());
+
+                    int affectedRows = stmt.executeUpdate();
+                    if (affectedRows == 0) {
+                        throw new CrudException("Insert failed: no rows affected.");
+                    }
+
+                    gameEdition.setId(INSERT.key(stmt, allocatedId));
+                    idFilter.add(gameEdition.getId());
+                }
 
-            int affectedRows = stmt.executeUpdate();
-            if (affectedRows == 0) {
-                throw new CrudException("Insert failed: no rows affected.");
-            }
+                changes.increment(Counter.GAME_EDITIONS);
+                return null;
+            });
 
         } catch (SQLException e) {
             // ✅ Ahora todos los errores se convierten en CrudException
@@ -122,8 +217,12 @@ public class JdbcGameEditionRepository implements GameEditionRepository {
             throw new CrudException("Invalid game edition ID: " + id);
         }
 
-        String sql = "SELECT * FROM GAME_EDITION WHERE GAME_EDITION_ID = ?";
-        try (Connection conn = dataSource.getConnection();
+        if (!idFilter.mightContain(id)) {
+            return Optional.empty();
+        }
+
+        String sql = COLUMNS.select() + " WHERE GAME_EDITION_ID = ?";
+        try (Connection conn = dataSource.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, id);
@@ -135,6 +234,7 @@ public class JdbcGameEditionRepository implements GameEditionRepository {
         } catch (SQLException e) {
             throw new CrudException("Error finding game edition by ID", e);
         }
+        idFilter.recordFalsePositive();
         return Optional.empty();
     }
 
@@ -146,10 +246,18 @@ public class JdbcGameEditionRepository implements GameEditionRepository {
      * @throws SQLException if a database access error occurs
      */
     private GameEdition mapToEntity(ResultSet rs) throws SQLException {
+        COLUMNS.validate(rs);
+
         GameEdition gameEdition = new GameEditionImpl();
-        gameEdition.setId(rs.getInt("GAME_EDITION_ID"));
-        gameEdition.setEditionName(rs.getString("NAME"));
-        gameEdition.setReleaseDate(rs.getDate("RELEASE_DATE").toLocalDate());
+        gameEdition.setId(rs.getInt(GAME_EDITION_ID));
+
+        GameImpl game = new GameImpl();
+        game.setId(rs.getInt(GAME_ID));
+        gameEdition.setGame(game);
+
+        gameEdition.setEditionName(rs.getString(EDITION_NAME));
+        gameEdition.setSpecialContent(rs.getString(SPECIAL_CONTENT));
+        gameEdition.setPrice(rs.getDouble(PRICE));
         return gameEdition;
     }
 
@@ -168,13 +276,20 @@ public class JdbcGameEditionRepository implements GameEditionRepository {
     @Override
     public void deleteByGameIdAndEditionName(int gameId, String editionName) {
         String sql = "DELETE FROM GAME_EDITION WHERE GAME_ID = ? AND EDITION_NAME = ?";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = dataSource.getConnection()) {
+            statistics.write(conn, changes -> {
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setInt(1, gameId);
-            stmt.setString(2, editionName);
+                    stmt.setInt(1, gameId);
+                    stmt.setString(2, editionName);
 
-            int rowsAffected = stmt.executeUpdate();
+                    int rowsAffected = stmt.executeUpdate();
+                    if (rowsAffected > 0) {
+                        changes.decrement(Counter.GAME_EDITIONS);
+                    }
+                }
+                return null;
+            });
 
         } catch (SQLException e) {
             throw new CrudException("Error deleting game edition by composite key", e);
@@ -183,8 +298,11 @@ public class JdbcGameEditionRepository implements GameEditionRepository {
 
     @Override
     public long count() {
+        if (statistics.isLoaded()) {
+            return statistics.get(Counter.GAME_EDITIONS);
+        }
         String sql = "SELECT COUNT(*) FROM GAME_EDITION";
-        try (Connection conn = dataSource.getConnection();
+        try (Connection conn = dataSource.getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -202,7 +320,7 @@ public class JdbcGameEditionRepository implements GameEditionRepository {
     @Override
     public boolean existsByGameIdAndEditionName(int gameId, String editionName) {
         String sql = "SELECT 1 FROM GAME_EDITION WHERE GAME_ID = ? AND EDITION_NAME = ?";
-        try (Connection conn = dataSource.getConnection();
+        try (Connection conn = dataSource.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, gameId);
@@ -223,8 +341,8 @@ public class JdbcGameEditionRepository implements GameEditionRepository {
             throw new CrudException("Edition name must not be null or empty");
         }
 
-        String sql = "SELECT * FROM GAME_EDITION WHERE EDITION_NAME = ?";
-        try (Connection conn = dataSource.getConnection();
+        String sql = COLUMNS.select() + " WHERE EDITION_NAME = ?";
+        try (Connection conn = dataSource.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, editionName);
@@ -244,8 +362,8 @@ public class JdbcGameEditionRepository implements GameEditionRepository {
 
     @Override
     public Set<GameEdition> findAll() {
-        String sql = "SELECT * FROM GAME_EDITION";
-        try (Connection conn = dataSource.getConnection();
+        String sql = COLUMNS.select();
+        try (Connection conn = dataSource.getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -259,4 +377,20 @@ public class JdbcGameEditionRepository implements GameEditionRepository {
             throw new CrudException("Error retrieving all game editions", e);
         }
     }
+
+    @Override
+    public Stream<GameEdition> streamAll() {
+        return ResultSetStreams.stream(dataSource, COLUMNS.select(), fetchSize, this::mapToEntity);
+    }
+
+    /**
+     * Sorts in SQL and pre-sizes the result from the row count when statistics are loaded.
+     * Every row is returned, even if it is equal to another one in every field.
+     */
+    @Override
+    public List<GameEdition> findAll(Sort<GameEdition> sort) {
+        long sizeHint = statistics.isLoaded() ? statistics.get(Counter.GAME_EDITIONS) : 0;
+        return ResultSetStreams.list(dataSource, COLUMNS.select() + SORT_COLUMNS.orderBy(sort),
+                fetchSize, sizeHint, this::mapToEntity);
+    }
 }
\ No newline at end of file
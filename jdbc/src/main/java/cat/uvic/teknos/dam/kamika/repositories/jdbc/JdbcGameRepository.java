@@ -1,27 +1,139 @@
 package cat.uvic.teknos.dam.kamika.repositories.jdbc;
 
-import cat.uvic.teknos.dam.kamika.model.Game;
+import cat.uvic.teknos.dam.kamika.model.*;
 import cat.uvic.teknos.dam.kamika.repositories.GameRepository;
-import cat.uvic.teknos.dam.kamika.model.impl.GameImpl;
+import cat.uvic.teknos.dam.kamika.repositories.Sort;
+import cat.uvic.teknos.dam.kamika.model.impl.*;
 import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.DataSource;
 import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.CrudException;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.filters.IdFilter;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.ids.HiLoIdAllocator;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.ids.IdSequence;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.statistics.CatalogStatistics;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.statistics.Counter;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.loaders.LoadScope;
 
 import java.sql.*;
 import java.sql.Date;
 import java.util.*;
+import java.util.stream.Stream;
 
 public class JdbcGameRepository implements GameRepository {
 
+    /**
+     * Maximum number of ids bound to a single {@code IN (...)} list when loading associations.
+     */
+    private static final int IN_BATCH_SIZE = 500;
+
+    /**
+     * Columns selected from GAME, shared by every query that maps a game row.
+     */
+    public static final ColumnList COLUMNS = ColumnList.of("GAME",
+            "GAME_ID", "TITLE", "RELEASE_DATE", "DEVELOPER_ID", "PUBLISHER_ID", "GENRE_ID", "PEGI_RATING", "IS_MULTIPLAYER");
+
+    private static final int GAME_ID = COLUMNS.ordinal("GAME_ID");
+    private static final int TITLE = COLUMNS.ordinal("TITLE");
+    private static final int RELEASE_DATE = COLUMNS.ordinal("RELEASE_DATE");
+    private static final int DEVELOPER_ID = COLUMNS.ordinal("DEVELOPER_ID");
+    private static final int PUBLISHER_ID = COLUMNS.ordinal("PUBLISHER_ID");
+    private static final int GENRE_ID = COLUMNS.ordinal("GENRE_ID");
+    private static final int PEGI_RATING = COLUMNS.ordinal("PEGI_RATING");
+    private static final int IS_MULTIPLAYER = COLUMNS.ordinal("IS_MULTIPLAYER");
+
+    static final KeyedInsert INSERT = KeyedInsert.of("GAME", "GAME_ID",
+            "TITLE", "RELEASE_DATE", "DEVELOPER_ID", "PUBLISHER_ID", "PEGI_RATING", "IS_MULTIPLAYER");
+
+    private static final ColumnList DETAILS_COLUMNS = COLUMNS.extend(
+            "DEVELOPER_NAME", "DEVELOPER_COUNTRY", "DEVELOPER_FOUNDATION_YEAR", "PUBLISHER_NAME", "PUBLISHER_COUNTRY");
+
+    private static final int DEVELOPER_NAME = DETAILS_COLUMNS.ordinal("DEVELOPER_NAME");
+    private static final int DEVELOPER_COUNTRY = DETAILS_COLUMNS.ordinal("DEVELOPER_COUNTRY");
+    private static final int DEVELOPER_FOUNDATION_YEAR = DETAILS_COLUMNS.ordinal("DEVELOPER_FOUNDATION_YEAR");
+    private static final int PUBLISHER_NAME = DETAILS_COLUMNS.ordinal("PUBLISHER_NAME");
+    private static final int PUBLISHER_COUNTRY = DETAILS_COLUMNS.ordinal("PUBLISHER_COUNTRY");
+
+    private static final String DETAILS_SELECT = "SELECT " + COLUMNS.names("G") + ", "
+            + "D.NAME AS DEVELOPER_NAME, D.COUNTRY AS DEVELOPER_COUNTRY, D.FOUNDATION_YEAR AS DEVELOPER_FOUNDATION_YEAR, "
+            + "P.NAME AS PUBLISHER_NAME, P.COUNTRY AS PUBLISHER_COUNTRY "
+            + "FROM GAME G "
+            + "JOIN DEVELOPER D ON D.DEVELOPER_ID = G.DEVELOPER_ID "
+            + "JOIN PUBLISHER P ON P.PUBLISHER_ID = G.PUBLISHER_ID ";
+
+    private static final SortColumns<Game> SORT_COLUMNS = new SortColumns<>("GAME", GameRepository.SORT_BY_ID,
+            Map.of(
+                    GameRepository.SORT_BY_ID, "GAME_ID",
+                    GameRepository.SORT_BY_TITLE, "TITLE",
+                    GameRepository.SORT_BY_RELEASE_DATE, "RELEASE_DATE",
+                    GameRepository.SORT_BY_PEGI_RATING, "PEGI_RATING"));
+
     private final DataSource dataSource;
+    private final int fetchSize;
+    private CatalogStatistics statistics = CatalogStatistics.DISABLED;
+    private HiLoIdAllocator idAllocator;
+    private IdFilter idFilter = IdFilter.DISABLED;
+    private IdFilter editionIdFilter = IdFilter.DISABLED;
 
     public JdbcGameRepository(DataSource dataSource) {
+        this(dataSource, ResultSetStreams.DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Creates the repository with a custom fetch size for the streaming queries.
+     *
+     * @param dataSource the data source used to obtain database connections
+     * @param fetchSize  the number of rows fetched per round trip by {@link #streamAll()}
+     */
+    public JdbcGameRepository(DataSource dataSource, int fetchSize) {
         this.dataSource = dataSource;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Sets the statistics updated by this repository's writes and used to answer its counts.
+     *
+     * @param statistics the catalog statistics, or {@link CatalogStatistics#DISABLED}
+     */
+    public void setStatistics(CatalogStatistics statistics) {
+        this.statistics = Objects.requireNonNull(statistics);
+    }
+
+    /**
+     * Sets the allocator new rows take their ID from, instead of reading back the one
+     * generated by the database. Required by {@link #insertAll(Collection)}.
+     *
+     * @param idAllocator the allocator, or {@code null} to use AUTO_INCREMENT
+     */
+    public void setIdAllocator(HiLoIdAllocator idAllocator) {
+        this.idAllocator = idAllocator;
+    }
+
+    /**
+     * Sets the filter that answers lookups of missing IDs without a query, and that inserts
+     * keep up to date.
+     *
+     * @param idFilter the filter of this repository's table, or {@link IdFilter#DISABLED}
+     */
+    public void setIdFilter(IdFilter idFilter) {
+        this.idFilter = Objects.requireNonNull(idFilter);
+    }
+
+    /**
+     * Sets the filter of the GAME_EDITION table, kept up to date by {@link #insertAll(Collection)}.
+     *
+     * @param editionIdFilter the filter, or {@link IdFilter#DISABLED}
+     */
+    public void setEditionIdFilter(IdFilter editionIdFilter) {
+        this.editionIdFilter = Objects.requireNonNull(editionIdFilter);
     }
 
     @Override
     public Optional<Game> findById(int id) {
-        String sql = "SELECT * FROM GAME WHERE GAME_ID = ?";
-        try (Connection conn = dataSource.getConnection();
+        if (!idFilter.mightContain(id)) {
+            return Optional.empty();
+        }
+
+        String sql = COLUMNS.select() + " WHERE GAME_ID = ?";
+        try (Connection conn = dataSource.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, id);
@@ -36,11 +148,144 @@ public class JdbcGameRepository implements GameRepository {
             throw new CrudException("Error retrieving game by ID", e);
         }
 
+        idFilter.recordFalsePositive();
         return Optional.empty();
     }
 
     @Override
     public Game save(Game game) {
+        validate(game);
+
+        if (exists(game.getId(), false)) {
+            update((GameImpl) game);
+        } else {
+            insert((GameImpl) game);
+        }
+        return game;
+    }
+
+    /**
+     * Inserts new games, and the edition attached to each of them, in one transaction.
+     * <p>
+     * IDs are taken from the allocator up front, so no generated keys have to be read back
+     * and each table is written with a single batch. With {@code rewriteBatchedStatements=true}
+     * in the connection URL the driver sends each batch as multi-row INSERTs. The IDs are set
+     * on the entities only once the transaction has committed.
+     * </p>
+     *
+     * @param games the games to insert; their current IDs are ignored
+     * @throws IllegalStateException if no ID allocator is set
+     * @throws CrudException         if the insert fails; nothing is written in that case
+     */
+    public void insertAll(Collection<? extends Game> games) {
+        if (idAllocator == null) {
+            throw new IllegalStateException("Batched inserts need an ID allocator");
+        }
+        for (Game game : games) {
+            validate(game);
+            GameEdition edition = game.getEdition();
+            if (edition != null && (edition.getEditionName() == null || edition.getEditionName().trim().isEmpty())) {
+                throw new IllegalArgumentException("Edition name must not be null or empty");
+            }
+        }
+        if (games.isEmpty()) {
+            return;
+        }
+
+        List<Game> batch = List.copyOf(games);
+        int[] gameIds = new int[batch.size()];
+        int[] editionIds = new int[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            gameIds[i] = idAllocator.next(IdSequence.GAME);
+            if (batch.get(i).getEdition() != null) {
+                editionIds[i] = idAllocator.next(IdSequence.GAME_EDITION);
+            }
+        }
+
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                statistics.write(conn, changes -> {
+                    insertGameBatch(conn, batch, gameIds);
+                    insertEditionBatch(conn, batch, gameIds, editionIds);
+                    for (int i = 0; i < batch.size(); i++) {
+                        idFilter.add(gameIds[i]);
+                        if (batch.get(i).getEdition() != null) {
+                            editionIdFilter.add(editionIds[i]);
+                        }
+                    }
+
+                    for (Game game : batch) {
+                        changes.increment(Counter.GAMES)
+                                .increment(Counter.GAMES_BY_DEVELOPER, game.getDeveloper().getId());
+                        if (game.getEdition() != null) {
+                            changes.increment(Counter.GAME_EDITIONS);
+                        }
+                    }
+                    return null;
+                });
+                conn.commit();
+
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new CrudException("Error inserting games", e);
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).setId(gameIds[i]);
+            if (batch.get(i).getEdition() != null) {
+                batch.get(i).getEdition().setId(editionIds[i]);
+            }
+        }
+    }
+
+    private static void insertGameBatch(Connection conn, List<Game> games, int[] ids) throws SQLException {
+        try (PreparedStatement stmt = INSERT.prepareBatch(conn)) {
+            for (int i = 0; i < games.size(); i++) {
+                Game game = games.get(i);
+                stmt.setString(1, game.getTitle());
+                stmt.setObject(2, game.getReleaseDate());
+                stmt.setInt(3, game.getDeveloper().getId());
+                stmt.setInt(4, game.getPublisher().getId());
+                stmt.setString(5, game.getPegiRating());
+                stmt.setBoolean(6, game.isMultiplayer());
+                stmt.setInt(INSERT.keyIndex(), ids[i]);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    private static void insertEditionBatch(Connection conn, List<Game> games, int[] gameIds,
+                                           int[] editionIds) throws SQLException {
+        KeyedInsert insert = JdbcGameEditionRepository.INSERT;
+        try (PreparedStatement stmt = insert.prepareBatch(conn)) {
+            int rows = 0;
+            for (int i = 0; i < games.size(); i++) {
+                GameEdition edition = games.get(i).getEdition();
+                if (edition == null) {
+                    continue;
+                }
+                stmt.setInt(1, gameIds[i]);
+                stmt.setString(2, edition.getEditionName());
+                stmt.setString(3, edition.getSpecialContent());
+                stmt.setDouble(4, edition.getPrice());
+                stmt.setInt(insert.keyIndex(), editionIds[i]);
+                stmt.addBatch();
+                rows++;
+            }
+            if (rows > 0) {
+                stmt.executeBatch();
+            }
+        }
+    }
+
+    private static void validate(Game game) {
         if (!(game instanceof GameImpl)) {
             throw new IllegalArgumentException("Only GameImpl can be saved");
         }
@@ -60,40 +305,39 @@ public class JdbcGameRepository implements GameRepository {
         if (game.getPegiRating() == null || game.getPegiRating().trim().isEmpty()) {
             throw new IllegalArgumentException("PEGI rating is required");
         }
-
-        if (existsById(game.getId())) {
-            update((GameImpl) game);
-        } else {
-            insert((GameImpl) game);
-        }
-        return game;
     }
 
     private void insert(GameImpl game) throws CrudException {
-        String sql = "INSERT INTO GAME (TITLE, RELEASE_DATE, DEVELOPER_ID, PUBLISHER_ID, PEGI_RATING, IS_MULTIPLAYER) VALUES (?, ?, ?, ?, ?, ?)";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-
-            stmt.setString(1, game.getTitle());
-            stmt.setObject(2, game.getReleaseDate());
-            stmt.setInt(3, game.getDeveloper().getId());
-            stmt.setInt(4, game.getPublisher().getId());
-            stmt.setString(5, game.getPegiRating());
-            stmt.setBoolean(6, game.isMultiplayer());
-
-            int affectedRows = stmt.executeUpdate();
-
-            if (affectedRows == 0) {
-                throw new CrudException("Insert failed: no rows affected.");
-            }
-
-            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    game.setId(generatedKeys.getInt(1));
-                } else {
-                    throw new CrudException("Failed to get generated game ID");
+        int allocatedId = idAllocator != null ? idAllocator.next(IdSequence.GAME) : 0;
+        try (Connection conn = dataSource.getConnection()) {
+            statistics.write(conn, changes -> {
+                try (PreparedStatement stmt = INSERT.prepare(conn, allocatedId)) {
+
+                    stmt.setString(1, game.getTitle());
+                    stmt.setObject(2, game.getReleaseDate());
+                    stmt.setInt(3, game.getDeveloper().getId());
+                    stmt.setInt(4, game.getPublisher().getId());
+                    stmt.setString(5, game.getPegiRating());
+                    stmt.setBoolean(6, game.isMultiplayer());
+
+                    int affectedRows = stmt.executeUpdate();
+
+                    if (affectedRows == 0) {
+                        throw new CrudException("Insert failed: no rows affected.");
+                    }
+
+                    int id = INSERT.key(stmt, allocatedId);
+                    if (id == 0) {
+                        throw new CrudException("Failed to get generated game ID");
+                    }
+                    game.setId(id);
+                    idFilter.add(id);
                 }
-            }
+
+                changes.increment(Counter.GAMES)
+                        .increment(Counter.GAMES_BY_DEVELOPER, game.getDeveloper().getId());
+                return null;
+            });
 
         } catch (SQLException e) {
             throw new CrudException("Error inserting game", e);
@@ -102,21 +346,31 @@ public class JdbcGameRepository implements GameRepository {
 
     private void update(GameImpl game) throws CrudException {
         String sql = "UPDATE GAME SET TITLE = ?, RELEASE_DATE = ?, DEVELOPER_ID = ?, PUBLISHER_ID = ?, PEGI_RATING = ?, IS_MULTIPLAYER = ? WHERE GAME_ID = ?";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, game.getTitle());
-            stmt.setObject(2, game.getReleaseDate());
-            stmt.setInt(3, game.getDeveloper().getId());
-            stmt.setInt(4, game.getPublisher().getId());
-            stmt.setString(5, game.getPegiRating());
-            stmt.setBoolean(6, game.isMultiplayer());
-            stmt.setInt(7, game.getId());
+        try (Connection conn = dataSource.getConnection()) {
+            statistics.write(conn, changes -> {
+                Integer[] previous = changes.isTracking() ? lockCounterKeys(conn, game.getId()) : null;
+
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+                    stmt.setString(1, game.getTitle());
+                    stmt.setObject(2, game.getReleaseDate());
+                    stmt.setInt(3, game.getDeveloper().getId());
+                    stmt.setInt(4, game.getPublisher().getId());
+                    stmt.setString(5, game.getPegiRating());
+                    stmt.setBoolean(6, game.isMultiplayer());
+                    stmt.setInt(7, game.getId());
+
+                    int affectedRows = stmt.executeUpdate();
+                    if (affectedRows == 0) {
+                        throw new CrudException("Update failed: no rows affected");
+                    }
+                }
 
-            int affectedRows = stmt.executeUpdate();
-            if (affectedRows == 0) {
-                throw new CrudException("Update failed: no rows affected");
-            }
+                if (previous != null) {
+                    changes.move(Counter.GAMES_BY_DEVELOPER, previous[0], game.getDeveloper().getId());
+                }
+                return null;
+            });
 
         } catch (SQLException e) {
             throw new CrudException("Error updating game", e);
@@ -129,17 +383,10 @@ public class JdbcGameRepository implements GameRepository {
             throw new IllegalArgumentException("Invalid game ID");
         }
 
-        String sql = "DELETE FROM GAME WHERE GAME_ID = ?";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, game.getId());
-            int affectedRows = stmt.executeUpdate();
-
-            if (affectedRows == 0) {
+        try {
+            if (!deleteRow(game.getId())) {
                 throw new CrudException("Delete failed: no rows affected");
             }
-
         } catch (SQLException e) {
             throw new CrudException("Error deleting game", e);
         }
@@ -147,23 +394,58 @@ public class JdbcGameRepository implements GameRepository {
 
     @Override
     public boolean deleteById(int id) {
+        try {
+            return deleteRow(id);
+        } catch (SQLException e) {
+            throw new CrudException("Error deleting game by ID", e);
+        }
+    }
+
+    private boolean deleteRow(int id) throws SQLException {
         String sql = "DELETE FROM GAME WHERE GAME_ID = ?";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = dataSource.getConnection()) {
+            return statistics.write(conn, changes -> {
+                Integer[] previous = changes.isTracking() ? lockCounterKeys(conn, id) : null;
+
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setInt(1, id);
+                    if (stmt.executeUpdate() == 0) {
+                        return false;
+                    }
+                }
 
-            stmt.setInt(1, id);
-            int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+                changes.decrement(Counter.GAMES);
+                if (previous != null) {
+                    changes.decrement(Counter.GAMES_BY_DEVELOPER, previous[0])
+                            .decrement(Counter.GAMES_BY_GENRE, previous[1]);
+                }
+                return true;
+            });
+        }
+    }
 
-        } catch (SQLException e) {
-            throw new CrudException("Error deleting game by ID", e);
+    /**
+     * Reads the developer and genre of a game and locks the row until the transaction ends.
+     *
+     * @return the developer and genre IDs, which may be {@code null}, or {@code null} if the game does not exist
+     */
+    private Integer[] lockCounterKeys(Connection conn, int id) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT DEVELOPER_ID, GENRE_ID FROM GAME WHERE GAME_ID = ? FOR UPDATE")) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? new Integer[] {rs.getObject(1, Integer.class), rs.getObject(2, Integer.class)} : null;
+            }
         }
     }
 
     @Override
     public long count() {
+        if (statistics.isLoaded()) {
+            return statistics.get(Counter.GAMES);
+        }
         String sql = "SELECT COUNT(*) FROM GAME";
-        try (Connection conn = dataSource.getConnection();
+        try (Connection conn = dataSource.getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -180,8 +462,23 @@ public class JdbcGameRepository implements GameRepository {
 
     @Override
     public boolean existsById(int id) {
+        if (!idFilter.mightContain(id)) {
+            return false;
+        }
+        boolean exists = exists(id, true);
+        if (!exists) {
+            idFilter.recordFalsePositive();
+        }
+        return exists;
+    }
+
+    /**
+     * Checks whether a game exists. Checks that decide a write go to the primary,
+     * since a replica may not have caught up with it yet.
+     */
+    private boolean exists(int id, boolean readOnly) {
         String sql = "SELECT 1 FROM GAME WHERE GAME_ID = ?";
-        try (Connection conn = dataSource.getConnection();
+        try (Connection conn = readOnly ? dataSource.getReadConnection() : dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, id);
@@ -197,9 +494,9 @@ public class JdbcGameRepository implements GameRepository {
 
     @Override
     public Set<Game> findAll() {
-        String sql = "SELECT * FROM GAME";
+        String sql = COLUMNS.select();
         Set<Game> games = new HashSet<>();
-        try (Connection conn = dataSource.getConnection();
+        try (Connection conn = dataSource.getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -212,16 +509,297 @@ public class JdbcGameRepository implements GameRepository {
         return games;
     }
 
+    /**
+     * Returns a scan that reads GAME with concurrent range queries, for exports, index
+     * rebuilds and cache warm-up. The data source should be a pool.
+     *
+     * @return a parallel scan over all games
+     */
+    public ParallelScan<Game> parallelScan() {
+        return new ParallelScan<>(dataSource, "GAME", "GAME_ID", COLUMNS, this::mapToEntity).fetchSize(fetchSize);
+    }
+
+    @Override
+    public Stream<Game> streamAll() {
+        return ResultSetStreams.stream(dataSource, COLUMNS.select(), fetchSize, this::mapToEntity);
+    }
+
+    /**
+     * Sorts in SQL and pre-sizes the result from the row count when statistics are loaded.
+     * Every row is returned, even if it is equal to another one in every field.
+     */
+    @Override
+    public List<Game> findAll(Sort<Game> sort) {
+        long sizeHint = statistics.isLoaded() ? statistics.get(Counter.GAMES) : 0;
+        return ResultSetStreams.list(dataSource, COLUMNS.select() + SORT_COLUMNS.orderBy(sort),
+                fetchSize, sizeHint, this::mapToEntity);
+    }
+
+    @Override
+    public Stream<Game> streamByDeveloperId(int developerId) {
+        String sql = COLUMNS.select() + " WHERE DEVELOPER_ID = ?";
+        return ResultSetStreams.stream(dataSource, sql, fetchSize,
+                stmt -> stmt.setInt(1, developerId), this::mapToEntity);
+    }
+
+    /**
+     * Finds a game whose associations are loaded lazily through the given scope.
+     *
+     * @param id    the game ID
+     * @param scope the scope that batches the association queries
+     * @return the lazy game, or empty if it does not exist
+     */
+    public Optional<Game> findById(int id, LoadScope scope) {
+        String sql = COLUMNS.select() + " WHERE GAME_ID = ?";
+        try (Connection conn = dataSource.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, id);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(scope.mapGame(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            throw new CrudException("Error retrieving game by ID", e);
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Finds all games as lazy proxies bound to the given scope. Accessing an association
+     * on any of them loads that association for every game of the scope with one query.
+     *
+     * @param scope the scope that batches the association queries
+     * @return the lazy games
+     */
+    public Set<Game> findAll(LoadScope scope) {
+        String sql = COLUMNS.select();
+        Set<Game> games = new HashSet<>();
+        try (Connection conn = dataSource.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                games.add(scope.mapGame(rs));
+            }
+        } catch (SQLException e) {
+            throw new CrudException("Error retrieving all games", e);
+        }
+        return games;
+    }
+
+    @Override
+    public Optional<Game> findByIdWithDetails(int id) {
+        if (!idFilter.mightContain(id)) {
+            return Optional.empty();
+        }
+
+        String sql = DETAILS_SELECT + "WHERE G.GAME_ID = ?";
+        try (Connection conn = dataSource.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, id);
+            List<Game> games = loadWithDetails(conn, stmt);
+            if (games.isEmpty()) {
+                idFilter.recordFalsePositive();
+                return Optional.empty();
+            }
+            return Optional.of(games.getFirst());
+
+        } catch (SQLException e) {
+            throw new CrudException("Error retrieving game details by ID", e);
+        }
+    }
+
+    @Override
+    public List<Game> findAllWithDetails(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit must not be negative");
+        }
+
+        String sql = DETAILS_SELECT + "ORDER BY G.GAME_ID LIMIT ? OFFSET ?";
+        try (Connection conn = dataSource.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, limit);
+            stmt.setInt(2, offset);
+            return loadWithDetails(conn, stmt);
+
+        } catch (SQLException e) {
+            throw new CrudException("Error retrieving games with details", e);
+        }
+    }
+
+    /**
+     * Runs the joined game query and then fills the collection associations with one
+     * batched {@code IN} query per association, all on the same connection.
+     */
+    private List<Game> loadWithDetails(Connection conn, PreparedStatement stmt) throws SQLException {
+        Map<Integer, GameImpl> games = new LinkedHashMap<>();
+        Map<Integer, Integer> genreIdsByGame = new HashMap<>();
+        Map<Integer, Developer> developers = new HashMap<>();
+        Map<Integer, Publisher> publishers = new HashMap<>();
+
+        try (ResultSet rs = stmt.executeQuery()) {
+            DETAILS_COLUMNS.validate(rs);
+            while (rs.next()) {
+                GameImpl game = (GameImpl) mapToEntity(rs);
+                game.setDeveloper(developers.computeIfAbsent(rs.getInt(DEVELOPER_ID), id -> new DeveloperImpl()));
+                game.setPublisher(publishers.computeIfAbsent(rs.getInt(PUBLISHER_ID), id -> new PublisherImpl()));
+                mapJoinedDeveloper(rs, game.getDeveloper());
+                mapJoinedPublisher(rs, game.getPublisher());
+
+                int genreId = rs.getInt(GENRE_ID);
+                if (!rs.wasNull()) {
+                    genreIdsByGame.put(game.getId(), genreId);
+                }
+                games.put(game.getId(), game);
+            }
+        }
+
+        if (games.isEmpty()) {
+            return List.of();
+        }
+
+        loadGenres(conn, games, genreIdsByGame);
+        loadConsoles(conn, games);
+        loadEditions(conn, games);
+
+        return new ArrayList<>(games.values());
+    }
+
+    private void mapJoinedDeveloper(ResultSet rs, Developer developer) throws SQLException {
+        developer.setId(rs.getInt(DEVELOPER_ID));
+        developer.setName(rs.getString(DEVELOPER_NAME));
+        developer.setCountry(rs.getString(DEVELOPER_COUNTRY));
+        Integer foundationYear = rs.getObject(DEVELOPER_FOUNDATION_YEAR, Integer.class);
+        if (foundationYear != null) {
+            developer.setFoundationYear(foundationYear);
+        }
+    }
+
+    private void mapJoinedPublisher(ResultSet rs, Publisher publisher) throws SQLException {
+        publisher.setId(rs.getInt(PUBLISHER_ID));
+        publisher.setName(rs.getString(PUBLISHER_NAME));
+        publisher.setCountry(rs.getString(PUBLISHER_COUNTRY));
+    }
+
+    private void loadGenres(Connection conn, Map<Integer, GameImpl> games,
+                            Map<Integer, Integer> genreIdsByGame) throws SQLException {
+        if (genreIdsByGame.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, Genre> genres = new HashMap<>();
+        List<Integer> genreIds = new ArrayList<>(new HashSet<>(genreIdsByGame.values()));
+        for (List<Integer> batch : batches(genreIds)) {
+            String sql = "SELECT GENRE_ID, NAME, DESCRIPTION FROM GENRE WHERE GENRE_ID IN (" + placeholders(batch.size()) + ")";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                bindIds(stmt, batch);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        Genre genre = new GenreImpl();
+                        genre.setId(rs.getInt("GENRE_ID"));
+                        genre.setName(rs.getString("NAME"));
+                        genre.setDescription(rs.getString("DESCRIPTION"));
+                        genres.put(genre.getId(), genre);
+                    }
+                }
+            }
+        }
+
+        genreIdsByGame.forEach((gameId, genreId) -> {
+            Genre genre = genres.get(genreId);
+            if (genre != null) {
+                games.get(gameId).getGenres().add(genre);
+            }
+        });
+    }
+
+    private void loadConsoles(Connection conn, Map<Integer, GameImpl> games) throws SQLException {
+        Map<Integer, Console> consoles = new HashMap<>();
+        for (List<Integer> batch : batches(new ArrayList<>(games.keySet()))) {
+            String sql = """
+                    SELECT GC.GAME_ID, C.CONSOLE_ID, C.NAME, C.MANUFACTURER, C.RELEASE_YEAR
+                    FROM GAME_CONSOLE GC
+                    JOIN CONSOLE C ON C.CONSOLE_ID = GC.CONSOLE_ID
+                    WHERE GC.GAME_ID IN (""" + placeholders(batch.size()) + ")";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                bindIds(stmt, batch);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        Console console = consoles.computeIfAbsent(rs.getInt("CONSOLE_ID"), id -> new ConsoleImpl());
+                        console.setId(rs.getInt("CONSOLE_ID"));
+                        console.setName(rs.getString("NAME"));
+                        console.setManufacturer(rs.getString("MANUFACTURER"));
+                        console.setReleaseYear(rs.getInt("RELEASE_YEAR"));
+                        games.get(rs.getInt("GAME_ID")).getConsoles().add(console);
+                    }
+                }
+            }
+        }
+    }
+
+    private void loadEditions(Connection conn, Map<Integer, GameImpl> games) throws SQLException {
+        for (List<Integer> batch : batches(new ArrayList<>(games.keySet()))) {
+            String sql = "SELECT GAME_EDITION_ID, GAME_ID, EDITION_NAME, SPECIAL_CONTENT, PRICE FROM GAME_EDITION "
+                    + "WHERE GAME_ID IN (" + placeholders(batch.size()) + ") ORDER BY GAME_EDITION_ID";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                bindIds(stmt, batch);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        GameImpl game = games.get(rs.getInt("GAME_ID"));
+                        // A game exposes a single edition, so the first one created wins
+                        if (game.getEdition() != null) {
+                            continue;
+                        }
+                        GameEdition edition = new GameEditionImpl();
+                        edition.setId(rs.getInt("GAME_EDITION_ID"));
+                        edition.setEditionName(rs.getString("EDITION_NAME"));
+                        edition.setSpecialContent(rs.getString("SPECIAL_CONTENT"));
+                        edition.setPrice(rs.getDouble("PRICE"));
+                        edition.setGame(game);
+                        game.setEdition(edition);
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<List<Integer>> batches(List<Integer> ids) {
+        List<List<Integer>> batches = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += IN_BATCH_SIZE) {
+            batches.add(ids.subList(i, Math.min(i + IN_BATCH_SIZE, ids.size())));
+        }
+        return batches;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static void bindIds(PreparedStatement stmt, List<Integer> ids) throws SQLException {
+        for (int i = 0; i < ids.size(); i++) {
+            stmt.setInt(i + 1, ids.get(i));
+        }
+    }
+
     private Game mapToEntity(ResultSet rs) throws SQLException {
+        COLUMNS.validate(rs);
+
         GameImpl game = new GameImpl();
-        game.setId(rs.getInt("GAME_ID"));
-        game.setTitle(rs.getString("TITLE"));
+        game.setId(rs.getInt(GAME_ID));
+        game.setTitle(rs.getString(TITLE));
 
-        Date releaseDate = rs.getDate("RELEASE_DATE");
+        Date releaseDate = rs.getDate(RELEASE_DATE);
         game.setReleaseDate(releaseDate != null ? releaseDate.toLocalDate() : null);
 
-        game.setPegiRating(rs.getString("PEGI_RATING"));
-        game.setMultiplayer(rs.getBoolean("IS_MULTIPLAYER"));
+        game.setPegiRating(rs.getString(PEGI_RATING));
+        game.setMultiplayer(rs.getBoolean(IS_MULTIPLAYER));
 
         return game;
     }
@@ -3,12 +3,19 @@ package cat.uvic.teknos.dam.kamika.repositories.jdbc;
 import cat.uvic.teknos.dam.kamika.model.Console;
 import cat.uvic.teknos.dam.kamika.model.Genre;
 import cat.uvic.teknos.dam.kamika.repositories.GenreRepository;
+import cat.uvic.teknos.dam.kamika.repositories.Sort;
 import cat.uvic.teknos.dam.kamika.model.impl.GenreImpl;
 import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.DataSource;
 import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.CrudException;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.filters.IdFilter;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.ids.HiLoIdAllocator;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.ids.IdSequence;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.statistics.CatalogStatistics;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.statistics.Counter;
 
 import java.sql.*;
 import java.util.*;
+import java.util.stream.Stream;
 
 /**
  * JDBC implementation of the Genre repository.
@@ -16,10 +23,72 @@ import java.util.*;
  */
 public class JdbcGenreRepository implements GenreRepository {
 
+    /**
+     * Columns selected from GENRE, shared by every query that maps a genre row.
+     */
+    public static final ColumnList COLUMNS = ColumnList.of("GENRE",
+            "GENRE_ID", "NAME", "DESCRIPTION");
+
+    private static final int GENRE_ID = COLUMNS.ordinal("GENRE_ID");
+    private static final int NAME = COLUMNS.ordinal("NAME");
+    private static final int DESCRIPTION = COLUMNS.ordinal("DESCRIPTION");
+
+    static final KeyedInsert INSERT = KeyedInsert.of("GENRE", "GENRE_ID",
+            "NAME", "DESCRIPTION");
+
+    private static final SortColumns<Genre> SORT_COLUMNS = new SortColumns<>("GENRE", GenreRepository.SORT_BY_ID,
+            Map.of(
+                    GenreRepository.SORT_BY_ID, "GENRE_ID",
+                    GenreRepository.SORT_BY_NAME, "NAME"));
+
     private final DataSource dataSource;
+    private final int fetchSize;
+    private CatalogStatistics statistics = CatalogStatistics.DISABLED;
+    private HiLoIdAllocator idAllocator;
+    private IdFilter idFilter = IdFilter.DISABLED;
 
     public JdbcGenreRepository(DataSource dataSource) {
+        this(dataSource, ResultSetStreams.DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Creates the repository with a custom fetch size for the streaming queries.
+     *
+     * @param dataSource the data source used to obtain database connections
+     * @param fetchSize  the number of rows fetched per round trip by {@link #streamAll()}
+     */
+    public JdbcGenreRepository(DataSource dataSource, int fetchSize) {
         this.dataSource = Objects.requireNonNull(dataSource);
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Sets the statistics updated by this repository's writes and used to answer its counts.
+     *
+     * @param statistics the catalog statistics, or {@link CatalogStatistics#DISABLED}
+     */
+    public void setStatistics(CatalogStatistics statistics) {
+        this.statistics = Objects.requireNonNull(statistics);
+    }
+
+    /**
+     * Sets the allocator new rows take their ID from, instead of reading back the one
+     * generated by the database.
+     *
+     * @param idAllocator the allocator, or {@code null} to use AUTO_INCREMENT
+     */
+    public void setIdAllocator(HiLoIdAllocator idAllocator) {
+        this.idAllocator = idAllocator;
+    }
+
+    /**
+     * Sets the filter that answers lookups of missing IDs without a query, and that inserts
+     * keep up to date.
+     *
+     * @param idFilter the filter of this repository's table, or {@link IdFilter#DISABLED}
+     */
+    public void setIdFilter(IdFilter idFilter) {
+        this.idFilter = Objects.requireNonNull(idFilter);
     }
 
     /**
@@ -33,8 +102,12 @@ public class JdbcGenreRepository implements GenreRepository {
         if (id < 0) {
             throw new CrudException("Invalid id: " + id);
         }
-        String sql = "SELECT * FROM GENRE WHERE GENRE_ID = ?";
-        try (Connection conn = dataSource.getConnection();
+        if (!idFilter.mightContain(id)) {
+            return Optional.empty();
+        }
+
+        String sql = COLUMNS.select() + " WHERE GENRE_ID = ?";
+        try (Connection conn = dataSource.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, id);
@@ -46,6 +119,7 @@ public class JdbcGenreRepository implements GenreRepository {
         } catch (SQLException e) {
             throw new CrudException("Error finding genre by ID", e);
         }
+        idFilter.recordFalsePositive();
         return Optional.empty();
     }
 
@@ -65,26 +139,27 @@ public class JdbcGenreRepository implements GenreRepository {
     }
 
     private Genre insert(Genre genre) {
-        String sql = "INSERT INTO GENRE (NAME, DESCRIPTION) VALUES (?, ?)";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        int allocatedId = idAllocator != null ? idAllocator.next(IdSequence.GENRE) : 0;
+        try (Connection conn = dataSource.getConnection()) {
+            return statistics.write(conn, changes -> {
+                try (PreparedStatement stmt = INSERT.prepare(conn, allocatedId)) {
 
-            stmt.setString(1, genre.getName());
-            stmt.setString(2, genre.getDescription());
+                    stmt.setString(1, genre.getName());
+                    stmt.setString(2, genre.getDescription());
 
-            int affectedRows = stmt.executeUpdate();
+                    int affectedRows = stmt.executeUpdate();
 
-            if (affectedRows == 0) {
-                throw new CrudException("Failed to insert genre, no rows affected.");
-            }
+                    if (affectedRows == 0) {
+                        throw new CrudException("Failed to insert genre, no rows affected.");
+                    }
 
-            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    genre.setId(generatedKeys.getInt(1));
+                    genre.setId(INSERT.key(stmt, allocatedId));
+                    idFilter.add(genre.getId());
                 }
-            }
 
-            return genre;
+                changes.increment(Counter.GENRES);
+                return genre;
+            });
 
         } catch (SQLException e) {
             throw new CrudException("Error inserting genre", e);
@@ -119,13 +194,8 @@ public class JdbcGenreRepository implements GenreRepository {
      */
     @Override
     public void delete(Genre genre) {
-        String sql = "DELETE FROM GENRE WHERE GENRE_ID = ?";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, genre.getId());
-            stmt.executeUpdate();
-
+        try {
+            deleteRow(genre.getId());
         } catch (SQLException e) {
             throw new CrudException("Error deleting genre", e);
         }
@@ -139,19 +209,30 @@ public class JdbcGenreRepository implements GenreRepository {
      */
     @Override
     public boolean deleteById(int id) {
-        String sql = "DELETE FROM GENRE WHERE GENRE_ID = ?";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, id);
-            int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
-
+        try {
+            return deleteRow(id);
         } catch (SQLException e) {
             throw new CrudException("Error deleting genre by ID", e);
         }
     }
 
+    private boolean deleteRow(int id) throws SQLException {
+        String sql = "DELETE FROM GENRE WHERE GENRE_ID = ?";
+        try (Connection conn = dataSource.getConnection()) {
+            return statistics.write(conn, changes -> {
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setInt(1, id);
+                    if (stmt.executeUpdate() == 0) {
+                        return false;
+                    }
+                }
+
+                changes.decrement(Counter.GENRES);
+                return true;
+            });
+        }
+    }
+
     /**
      * Counts how many genres exist in the database.
      *
@@ -159,8 +240,11 @@ public class JdbcGenreRepository implements GenreRepository {
      */
     @Override
     public long count() {
+        if (statistics.isLoaded()) {
+            return statistics.get(Counter.GENRES);
+        }
         String sql = "SELECT COUNT(*) FROM GENRE";
-        try (Connection conn = dataSource.getConnection();
+        try (Connection conn = dataSource.getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -182,13 +266,21 @@ public class JdbcGenreRepository implements GenreRepository {
      */
     @Override
     public boolean existsById(int id) {
+        if (!idFilter.mightContain(id)) {
+            return false;
+        }
+
         String sql = "SELECT 1 FROM GENRE WHERE GENRE_ID = ?";
-        try (Connection conn = dataSource.getConnection();
+        try (Connection conn = dataSource.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
-                return rs.next();
+                if (rs.next()) {
+                    return true;
+                }
+                idFilter.recordFalsePositive();
+                return false;
             }
 
         } catch (SQLException e) {
@@ -204,11 +296,11 @@ public class JdbcGenreRepository implements GenreRepository {
      */
     @Override
     public Optional<Genre> findByNameIgnoreCase(String name) {
-        String sql = "SELECT * FROM GENRE WHERE LOWER(NAME) = LOWER(?)";
-        try (Connection conn = dataSource.getConnection();
+        String sql = COLUMNS.select() + " WHERE LOWER(NAME) = ?";
+        try (Connection conn = dataSource.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setString(1, name);
+            stmt.setString(1, LookupKeys.lower(name));
 
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
@@ -231,15 +323,20 @@ public class JdbcGenreRepository implements GenreRepository {
     @Override
     public Map<Integer, Long> countGamesPerGenre() {
         Map<Integer, Long> result = new HashMap<>();
-        String sql = "SELECT GENRE_ID, COUNT(*) AS GAME_COUNT FROM GAME GROUP BY GENRE_ID";
+        if (statistics.isLoaded()) {
+            statistics.getAll(Counter.GAMES_BY_GENRE)
+                    .forEach((genreId, gameCount) -> result.put(Integer.valueOf(genreId), gameCount));
+            return result;
+        }
+        String sql = "SELECT GENRE_ID, COUNT(*) AS GAME_COUNT FROM GAME WHERE GENRE_ID IS NOT NULL GROUP BY GENRE_ID";
 
-        try (Connection conn = dataSource.getConnection();
+        try (Connection conn = dataSource.getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
             while (rs.next()) {
-                int genreId = rs.getInt("GENREID");
-                long gameCount = rs.getLong("GAME_COUNT");
+                int genreId = rs.getInt(1);
+                long gameCount = rs.getLong(2);
                 result.put(genreId, gameCount);
             }
 
@@ -253,8 +350,8 @@ public class JdbcGenreRepository implements GenreRepository {
     @Override
     public Set<Genre> findAll() {
         Set<Genre> genres = new HashSet<>();
-        String sql = "SELECT * FROM GENRE";
-        try (Connection conn = dataSource.getConnection();
+        String sql = COLUMNS.select();
+        try (Connection conn = dataSource.getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -267,6 +364,22 @@ public class JdbcGenreRepository implements GenreRepository {
         return genres;
     }
 
+    @Override
+    public Stream<Genre> streamAll() {
+        return ResultSetStreams.stream(dataSource, COLUMNS.select(), fetchSize, this::mapToEntity);
+    }
+
+    /**
+     * Sorts in SQL and pre-sizes the result from the row count when statistics are loaded.
+     * Every row is returned, even if it is equal to another one in every field.
+     */
+    @Override
+    public List<Genre> findAll(Sort<Genre> sort) {
+        long sizeHint = statistics.isLoaded() ? statistics.get(Counter.GENRES) : 0;
+        return ResultSetStreams.list(dataSource, COLUMNS.select() + SORT_COLUMNS.orderBy(sort),
+                fetchSize, sizeHint, this::mapToEntity);
+    }
+
     /**
      * Maps a ResultSet row to a Genre entity.
      *
@@ -275,19 +388,21 @@ public class JdbcGenreRepository implements GenreRepository {
      * @throws SQLException if a database access error occurs
      */
     private Genre mapToEntity(ResultSet rs) throws SQLException {
+        COLUMNS.validate(rs);
+
         Genre genre = new GenreImpl();
-        genre.setId(rs.getInt("GENRE_ID"));
-        genre.setName(rs.getString("NAME"));
-        genre.setDescription(rs.getString("DESCRIPTION"));
+        genre.setId(rs.getInt(GENRE_ID));
+        genre.setName(rs.getString(NAME));
+        genre.setDescription(rs.getString(DESCRIPTION));
         return genre;
     }
 
     @Override
     public Optional<Genre> findByName(String name) {
-        String sql = "SELECT * FROM GENRE WHERE LOWER(NAME) = LOWER(?)";
-        try (Connection conn = dataSource.getConnection();
+        String sql = COLUMNS.select() + " WHERE LOWER(NAME) = ?";
+        try (Connection conn = dataSource.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, name);
+            stmt.setString(1, LookupKeys.lower(name));
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
                     Genre genre = mapToEntity(rs);
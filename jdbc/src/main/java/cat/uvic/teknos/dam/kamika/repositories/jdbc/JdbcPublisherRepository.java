@@ -3,27 +3,98 @@ package cat.uvic.teknos.dam.kamika.repositories.jdbc;
 import cat.uvic.teknos.dam.kamika.model.Genre;
 import cat.uvic.teknos.dam.kamika.model.Publisher;
 import cat.uvic.teknos.dam.kamika.repositories.PublisherRepository;
+import cat.uvic.teknos.dam.kamika.repositories.Sort;
 import cat.uvic.teknos.dam.kamika.model.impl.PublisherImpl;
 import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.DataSource;
 import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.CrudException;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.filters.IdFilter;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.ids.HiLoIdAllocator;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.ids.IdSequence;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.statistics.CatalogStatistics;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.statistics.Counter;
 
 import java.sql.*;
 import java.util.*;
+import java.util.stream.Stream;
 
 public class JdbcPublisherRepository implements PublisherRepository {
 
+    /**
+     * Columns selected from PUBLISHER, shared by every query that maps a publisher row.
+     */
+    public static final ColumnList COLUMNS = ColumnList.of("PUBLISHER",
+            "PUBLISHER_ID", "NAME", "COUNTRY", "DEVELOPER_ID");
+
+    private static final int PUBLISHER_ID = COLUMNS.ordinal("PUBLISHER_ID");
+    private static final int NAME = COLUMNS.ordinal("NAME");
+    private static final int COUNTRY = COLUMNS.ordinal("COUNTRY");
+    private static final int DEVELOPER_ID = COLUMNS.ordinal("DEVELOPER_ID");
+
+    static final KeyedInsert INSERT = KeyedInsert.of("PUBLISHER", "PUBLISHER_ID",
+            "NAME", "COUNTRY");
+
+    private static final SortColumns<Publisher> SORT_COLUMNS = new SortColumns<>("PUBLISHER", PublisherRepository.SORT_BY_ID,
+            Map.of(
+                    PublisherRepository.SORT_BY_ID, "PUBLISHER_ID",
+                    PublisherRepository.SORT_BY_NAME, "NAME",
+                    PublisherRepository.SORT_BY_COUNTRY, "COUNTRY"));
+
     private final DataSource dataSource;
+    private final int fetchSize;
+    private CatalogStatistics statistics = CatalogStatistics.DISABLED;
+    private HiLoIdAllocator idAllocator;
+    private IdFilter idFilter = IdFilter.DISABLED;
 
     public JdbcPublisherRepository(DataSource dataSource) {
+        this(dataSource, ResultSetStreams.DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Creates the repository with a custom fetch size for the streaming queries.
+     *
+     * @param dataSource the data source used to obtain database connections
+     * @param fetchSize  the number of rows fetched per round trip by {@link #streamAll()}
+     */
+    public JdbcPublisherRepository(DataSource dataSource, int fetchSize) {
         this.dataSource = Objects.requireNonNull(dataSource);
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Sets the statistics updated by this repository's writes and used to answer its counts.
+     *
+     * @param statistics the catalog statistics, or {@link CatalogStatistics#DISABLED}
+     */
+    public void setStatistics(CatalogStatistics statistics) {
+        this.statistics = Objects.requireNonNull(statistics);
+    }
+
+    /**
+     * Sets the allocator new rows take their ID from, instead of reading back the one
+     * generated by the database.
+     *
+     * @param idAllocator the allocator, or {@code null} to use AUTO_INCREMENT
+     */
+    public void setIdAllocator(HiLoIdAllocator idAllocator) {
+        this.idAllocator = idAllocator;
+    }
+
+    /**
+     * Sets the filter that answers lookups of missing IDs without a query, and that inserts
+     * keep up to date.
+     *
+     * @param idFilter the filter of this repository's table, or {@link IdFilter#DISABLED}
+     */
+    public void setIdFilter(IdFilter idFilter) {
+        this.idFilter = Objects.requireNonNull(idFilter);
     }
 
     @Override
     public Optional<Publisher> findByName(String name) {
-        String sql = "SELECT * FROM PUBLISHER WHERE LOWER(NAME) = LOWER(?)";
-        try (Connection conn = dataSource.getConnection();
+        String sql = COLUMNS.select() + " WHERE LOWER(NAME) = ?";
+        try (Connection conn = dataSource.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, name);
+            stmt.setString(1, LookupKeys.lower(name));
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
                     Publisher publisher = mapToEntity(rs);
@@ -41,8 +112,12 @@ public class JdbcPublisherRepository implements PublisherRepository {
         if (id <= 0) {
             throw new CrudException("Invalid publisher ID: " + id);
         }
-        String sql = "SELECT * FROM PUBLISHER WHERE PUBLISHER_ID = ?";
-        try (Connection conn = dataSource.getConnection();
+        if (!idFilter.mightContain(id)) {
+            return Optional.empty();
+        }
+
+        String sql = COLUMNS.select() + " WHERE PUBLISHER_ID = ?";
+        try (Connection conn = dataSource.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, id);
@@ -54,14 +129,15 @@ public class JdbcPublisherRepository implements PublisherRepository {
         } catch (SQLException e) {
             throw new CrudException("Error finding publisher by ID", e);
         }
+        idFilter.recordFalsePositive();
         return Optional.empty();
     }
 
     @Override
     public Set<Publisher> findAll() {
         Set<Publisher> publishers = new HashSet<>();
-        String sql = "SELECT * FROM PUBLISHER";
-        try (Connection conn = dataSource.getConnection();
+        String sql = COLUMNS.select();
+        try (Connection conn = dataSource.getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -74,6 +150,29 @@ public class JdbcPublisherRepository implements PublisherRepository {
         return publishers;
     }
 
+    @Override
+    public Stream<Publisher> streamAll() {
+        return ResultSetStreams.stream(dataSource, COLUMNS.select(), fetchSize, this::mapToEntity);
+    }
+
+    /**
+     * Sorts in SQL and pre-sizes the result from the row count when statistics are loaded.
+     * Every row is returned, even if it is equal to another one in every field.
+     */
+    @Override
+    public List<Publisher> findAll(Sort<Publisher> sort) {
+        long sizeHint = statistics.isLoaded() ? statistics.get(Counter.PUBLISHERS) : 0;
+        return ResultSetStreams.list(dataSource, COLUMNS.select() + SORT_COLUMNS.orderBy(sort),
+                fetchSize, sizeHint, this::mapToEntity);
+    }
+
+    @Override
+    public Stream<Publisher> streamByCountryIgnoreCase(String country) {
+        String sql = COLUMNS.select() + " WHERE LOWER(COUNTRY) = ?";
+        return ResultSetStreams.stream(dataSource, sql, fetchSize,
+                stmt -> stmt.setString(1, LookupKeys.lower(country)), this::mapToEntity);
+    }
+
     @Override
     public Publisher save(Publisher publisher) {
         if (publisher.getId() == 0) {
@@ -84,26 +183,28 @@ public class JdbcPublisherRepository implements PublisherRepository {
     }
 
     private Publisher insert(Publisher publisher) {
-        String sql = "INSERT INTO PUBLISHER (NAME, COUNTRY) VALUES (?, ?)";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        int allocatedId = idAllocator != null ? idAllocator.next(IdSequence.PUBLISHER) : 0;
+        try (Connection conn = dataSource.getConnection()) {
+            return statistics.write(conn, changes -> {
+                try (PreparedStatement stmt = INSERT.prepare(conn, allocatedId)) {
 
-            stmt.setString(1, publisher.getName());
-            stmt.setString(2, publisher.getCountry());
+                    stmt.setString(1, publisher.getName());
+                    stmt.setString(2, publisher.getCountry());
 
-            int affectedRows = stmt.executeUpdate();
+                    int affectedRows = stmt.executeUpdate();
 
-            if (affectedRows == 0) {
-                throw new CrudException("Failed to insert publisher, no rows affected.");
-            }
+                    if (affectedRows == 0) {
+                        throw new CrudException("Failed to insert publisher, no rows affected.");
+                    }
 
-            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    publisher.setId(generatedKeys.getInt(1));
+                    publisher.setId(INSERT.key(stmt, allocatedId));
+                    idFilter.add(publisher.getId());
                 }
-            }
 
-            return publisher;
+                changes.increment(Counter.PUBLISHERS)
+                        .increment(Counter.PUBLISHERS_BY_COUNTRY, publisher.getCountry());
+                return publisher;
+            });
 
         } catch (SQLException e) {
             throw new CrudException("Error inserting publisher", e);
@@ -112,19 +213,25 @@ public class JdbcPublisherRepository implements PublisherRepository {
 
     private Publisher update(Publisher publisher) {
         String sql = "UPDATE PUBLISHER SET NAME = ?, COUNTRY = ? WHERE PUBLISHER_ID = ?";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = dataSource.getConnection()) {
+            return statistics.write(conn, changes -> {
+                String oldCountry = changes.isTracking() ? lockCountry(conn, publisher.getId()) : null;
 
-            stmt.setString(1, publisher.getName());
-            stmt.setString(2, publisher.getCountry());
-            stmt.setInt(3, publisher.getId());
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            int affectedRows = stmt.executeUpdate();
-            if (affectedRows == 0) {
-                throw new CrudException("Error updating publisher: no rows affected");
-            }
+                    stmt.setString(1, publisher.getName());
+                    stmt.setString(2, publisher.getCountry());
+                    stmt.setInt(3, publisher.getId());
 
-            return publisher;
+                    int affectedRows = stmt.executeUpdate();
+                    if (affectedRows == 0) {
+                        throw new CrudException("Error updating publisher: no rows affected");
+                    }
+                }
+
+                changes.move(Counter.PUBLISHERS_BY_COUNTRY, oldCountry, publisher.getCountry());
+                return publisher;
+            });
 
         } catch (SQLException e) {
             throw new CrudException("Error updating publisher", e);
@@ -133,13 +240,8 @@ public class JdbcPublisherRepository implements PublisherRepository {
 
     @Override
     public void delete(Publisher publisher) {
-        String sql = "DELETE FROM PUBLISHER WHERE PUBLISHER_ID = ?";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, publisher.getId());
-            stmt.executeUpdate();
-
+        try {
+            deleteRow(publisher.getId());
         } catch (SQLException e) {
             throw new CrudException("Error deleting publisher", e);
         }
@@ -147,23 +249,53 @@ public class JdbcPublisherRepository implements PublisherRepository {
 
     @Override
     public boolean deleteById(int id) {
+        try {
+            return deleteRow(id);
+        } catch (SQLException e) {
+            throw new CrudException("Error deleting publisher by ID", e);
+        }
+    }
+
+    private boolean deleteRow(int id) throws SQLException {
         String sql = "DELETE FROM PUBLISHER WHERE PUBLISHER_ID = ?";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = dataSource.getConnection()) {
+            return statistics.write(conn, changes -> {
+                String oldCountry = changes.isTracking() ? lockCountry(conn, id) : null;
+
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setInt(1, id);
+                    if (stmt.executeUpdate() == 0) {
+                        return false;
+                    }
+                }
 
-            stmt.setInt(1, id);
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+                changes.decrement(Counter.PUBLISHERS)
+                        .decrement(Counter.PUBLISHERS_BY_COUNTRY, oldCountry);
+                return true;
+            });
+        }
+    }
 
-        } catch (SQLException e) {
-            throw new CrudException("Error deleting publisher by ID", e);
+    /**
+     * Reads the current country of a publisher and locks the row until the transaction ends.
+     */
+    private String lockCountry(Connection conn, int id) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT COUNTRY FROM PUBLISHER WHERE PUBLISHER_ID = ? FOR UPDATE")) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
         }
     }
 
     @Override
     public long count() {
+        if (statistics.isLoaded()) {
+            return statistics.get(Counter.PUBLISHERS);
+        }
         String sql = "SELECT COUNT(*) FROM PUBLISHER";
-        try (Connection conn = dataSource.getConnection();
+        try (Connection conn = dataSource.getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -179,13 +311,21 @@ public class JdbcPublisherRepository implements PublisherRepository {
 
     @Override
     public boolean existsById(int id) {
+        if (!idFilter.mightContain(id)) {
+            return false;
+        }
+
         String sql = "SELECT 1 FROM PUBLISHER WHERE PUBLISHER_ID = ?";
-        try (Connection conn = dataSource.getConnection();
+        try (Connection conn = dataSource.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
-                return rs.next();
+                if (rs.next()) {
+                    return true;
+                }
+                idFilter.recordFalsePositive();
+                return false;
             }
         } catch (SQLException e) {
             throw new CrudException("Error checking if publisher exists", e);
@@ -194,11 +334,14 @@ public class JdbcPublisherRepository implements PublisherRepository {
 
     @Override
     public long countByCountryIgnoreCase(String country) {
-        String sql = "SELECT COUNT(*) FROM PUBLISHER WHERE LOWER(COUNTRY) = LOWER(?)";
-        try (Connection conn = dataSource.getConnection();
+        if (statistics.isLoaded()) {
+            return country == null ? 0 : statistics.get(Counter.PUBLISHERS_BY_COUNTRY, country);
+        }
+        String sql = "SELECT COUNT(*) FROM PUBLISHER WHERE LOWER(COUNTRY) = ?";
+        try (Connection conn = dataSource.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setString(1, country);
+            stmt.setString(1, LookupKeys.lower(country));
 
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
@@ -213,10 +356,12 @@ public class JdbcPublisherRepository implements PublisherRepository {
     }
 
     private Publisher mapToEntity(ResultSet rs) throws SQLException {
+        COLUMNS.validate(rs);
+
         Publisher publisher = new PublisherImpl();
-        publisher.setId(rs.getInt("PUBLISHER_ID"));
-        publisher.setName(rs.getString("NAME"));
-        publisher.setCountry(rs.getString("COUNTRY"));
+        publisher.setId(rs.getInt(PUBLISHER_ID));
+        publisher.setName(rs.getString(NAME));
+        publisher.setCountry(rs.getString(COUNTRY));
         return publisher;
     }
 }
\ No newline at end of file
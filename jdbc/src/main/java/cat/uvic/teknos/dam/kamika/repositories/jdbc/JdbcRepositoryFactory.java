@@ -1,7 +1,13 @@
 package cat.uvic.teknos.dam.kamika.repositories.jdbc;
 
 import cat.uvic.teknos.dam.kamika.repositories.*;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.DataSource;
 import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.SingleConnectionDataSource;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.filters.IdFilters;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.ids.HiLoIdAllocator;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.ids.IdSequence;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.loaders.LoadScope;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.statistics.CatalogStatistics;
 
 /**
  * Factory class that provides JDBC repository instances.
@@ -9,7 +15,11 @@ import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.SingleConnection
  */
 public class JdbcRepositoryFactory implements RepositoryFactory {
 
-    private SingleConnectionDataSource dataSource;
+    private DataSource dataSource;
+    private int fetchSize = ResultSetStreams.DEFAULT_FETCH_SIZE;
+    private CatalogStatistics statistics = CatalogStatistics.DISABLED;
+    private HiLoIdAllocator idAllocator;
+    private IdFilters idFilters = IdFilters.NONE;
 
     /**
      * Default constructor.
@@ -24,7 +34,7 @@ public class JdbcRepositoryFactory implements RepositoryFactory {
      *
      * @param dataSource The data source used to obtain database connections.
      */
-    public JdbcRepositoryFactory(SingleConnectionDataSource dataSource) {
+    public JdbcRepositoryFactory(DataSource dataSource) {
         this.dataSource = dataSource;
     }
 
@@ -33,42 +43,126 @@ public class JdbcRepositoryFactory implements RepositoryFactory {
      *
      * @param dataSource The data source to set.
      */
-    public void setDataSource(SingleConnectionDataSource dataSource) {
+    public void setDataSource(DataSource dataSource) {
         this.dataSource = dataSource;
     }
 
+    /**
+     * Sets the number of rows fetched per round trip by the streaming queries.
+     *
+     * @param fetchSize The fetch size passed to the repositories.
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Sets the catalog statistics maintained by the repositories' writes and used for their counts.
+     *
+     * @param statistics The statistics passed to the repositories.
+     */
+    public void setStatistics(CatalogStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * Sets the allocator the repositories take new IDs from. When unset, inserts read back
+     * the ID generated by the database.
+     *
+     * @param idAllocator The allocator passed to the repositories, or null.
+     */
+    public void setIdAllocator(HiLoIdAllocator idAllocator) {
+        this.idAllocator = idAllocator;
+    }
+
+    /**
+     * Sets the ID filters the repositories check before looking up an ID and update on insert.
+     *
+     * @param idFilters The filters of the filtered tables.
+     */
+    public void setIdFilters(IdFilters idFilters) {
+        this.idFilters = idFilters;
+    }
+
+    /**
+     * Opens a scope for lazily loaded entities that shares this factory's data source.
+     *
+     * @return a new load scope, to be closed at the end of the unit of work
+     */
+    public LoadScope openLoadScope() {
+        return new LoadScope(dataSource);
+    }
+
+    /**
+     * Returns how many connections the data source can lend out at once, the concurrency
+     * limit to give an {@code AsyncRepositoryFactory} over this factory.
+     *
+     * @return the maximum number of connections in use at once
+     */
+    public int getMaxConnections() {
+        return dataSource.getMaxConnections();
+    }
+
     @Override
     public GameRepository getGameRepository() {
-        return new JdbcGameRepository(dataSource);
+        var repository = new JdbcGameRepository(dataSource, fetchSize);
+        repository.setStatistics(statistics);
+        repository.setIdAllocator(idAllocator);
+        repository.setIdFilter(idFilters.get(IdSequence.GAME));
+        repository.setEditionIdFilter(idFilters.get(IdSequence.GAME_EDITION));
+        return repository;
     }
 
     @Override
     public DeveloperRepository getDeveloperRepository() {
-        return new JdbcDeveloperRepository(dataSource);
+        var repository = new JdbcDeveloperRepository(dataSource, fetchSize);
+        repository.setStatistics(statistics);
+        repository.setIdAllocator(idAllocator);
+        repository.setIdFilter(idFilters.get(IdSequence.DEVELOPER));
+        return repository;
     }
 
     @Override
     public PublisherRepository getPublisherRepository() {
-        return new JdbcPublisherRepository(dataSource);
+        var repository = new JdbcPublisherRepository(dataSource, fetchSize);
+        repository.setStatistics(statistics);
+        repository.setIdAllocator(idAllocator);
+        repository.setIdFilter(idFilters.get(IdSequence.PUBLISHER));
+        return repository;
     }
 
     @Override
     public GenreRepository getGenreRepository() {
-        return new JdbcGenreRepository(dataSource);
+        var repository = new JdbcGenreRepository(dataSource, fetchSize);
+        repository.setStatistics(statistics);
+        repository.setIdAllocator(idAllocator);
+        repository.setIdFilter(idFilters.get(IdSequence.GENRE));
+        return repository;
     }
 
     @Override
     public ConsoleRepository getConsoleRepository() {
-        return new JdbcConsoleRepository(dataSource);
+        var repository = new JdbcConsoleRepository(dataSource, fetchSize);
+        repository.setStatistics(statistics);
+        repository.setIdAllocator(idAllocator);
+        repository.setIdFilter(idFilters.get(IdSequence.CONSOLE));
+        return repository;
     }
 
     @Override
     public GameEditionRepository getGameEditionRepository() {
-        return new JdbcGameEditionRepository(dataSource);
+        var repository = new JdbcGameEditionRepository(dataSource, fetchSize);
+        repository.setStatistics(statistics);
+        repository.setIdAllocator(idAllocator);
+        repository.setIdFilter(idFilters.get(IdSequence.GAME_EDITION));
+        return repository;
     }
 
     @Override
     public GameConsoleRepository getGameConsoleRepository() {
-        return new JdbcGameConsoleRepository(dataSource);
+        var repository = new JdbcGameConsoleRepository(dataSource);
+        repository.setStatistics(statistics);
+        repository.setIdAllocator(idAllocator);
+        return repository;
     }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * An INSERT whose primary key is either allocated up front or generated by the database.
+ * <p>
+ * The key column is bound last, so the value columns keep the same parameter indexes in
+ * both forms of the statement.
+ * </p>
+ */
+final class KeyedInsert {
+
+    private final String generatedKeySql;
+    private final String allocatedKeySql;
+    private final int keyIndex;
+
+    private KeyedInsert(String table, String idColumn, String... columns) {
+        String names = String.join(", ", columns);
+        String params = "?, ".repeat(columns.length - 1) + "?";
+        this.generatedKeySql = "INSERT INTO " + table + " (" + names + ") VALUES (" + params + ")";
+        this.allocatedKeySql = "INSERT INTO " + table + " (" + names + ", " + idColumn + ") VALUES (" + params + ", ?)";
+        this.keyIndex = columns.length + 1;
+    }
+
+    static KeyedInsert of(String table, String idColumn, String... columns) {
+        return new KeyedInsert(table, idColumn, columns);
+    }
+
+    /**
+     * Prepares the statement for one row.
+     *
+     * @param conn the connection
+     * @param id   the allocated ID, or 0 to let the database generate it
+     * @return the statement, with the key already bound if it was allocated
+     */
+    PreparedStatement prepare(Connection conn, int id) throws SQLException {
+        if (id == 0) {
+            return conn.prepareStatement(generatedKeySql, Statement.RETURN_GENERATED_KEYS);
+        }
+        PreparedStatement stmt = conn.prepareStatement(allocatedKeySql);
+        stmt.setInt(keyIndex, id);
+        return stmt;
+    }
+
+    /**
+     * Prepares a statement for a batch of rows whose keys are all allocated.
+     */
+    PreparedStatement prepareBatch(Connection conn) throws SQLException {
+        return conn.prepareStatement(allocatedKeySql);
+    }
+
+    /**
+     * Returns the index of the key parameter in a batch statement.
+     */
+    int keyIndex() {
+        return keyIndex;
+    }
+
+    /**
+     * Returns the key of the inserted row.
+     *
+     * @param stmt the executed statement
+     * @param id   the ID it was prepared with
+     * @return the allocated ID, or the generated one; 0 if the database returned none
+     */
+    int key(PreparedStatement stmt, int id) throws SQLException {
+        if (id != 0) {
+            return id;
+        }
+        try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+            return generatedKeys.next() ? generatedKeys.getInt(1) : 0;
+        }
+    }
+}
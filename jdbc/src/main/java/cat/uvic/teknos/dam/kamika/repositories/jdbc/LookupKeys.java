@@ -0,0 +1,28 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc;
+
+import java.util.Locale;
+
+/**
+ * Normalizes values bound to case-insensitive lookups.
+ * <p>
+ * Queries compare {@code LOWER(column) = ?} so that MySQL can use the functional
+ * {@code (LOWER(column))} indexes created by the migrations; the parameter is therefore
+ * lowercased in Java instead of wrapping it in {@code LOWER(?)}.
+ * </p>
+ */
+final class LookupKeys {
+
+    private LookupKeys() {
+        // Utility class
+    }
+
+    /**
+     * Lowercases a lookup value, keeping {@code null} so that it matches no rows.
+     *
+     * @param value the value to normalize
+     * @return the lowercased value, or {@code null}
+     */
+    static String lower(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,368 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc;
+
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.DataSource;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.CrudException;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads a whole table with several concurrent range queries instead of one sequential scan.
+ * <p>
+ * The ID space is split into ranges, either evenly between {@code MIN(id)} and {@code MAX(id)}
+ * or at boundaries sampled from the index when the IDs have large gaps. Each range is read on
+ * its own connection by a pool of {@code parallelism} threads, so a scan can keep every core
+ * and every pooled connection busy. The data source should therefore lend at least
+ * {@code parallelism} connections at a time, e.g. a {@code PooledDataSource}.
+ * </p>
+ * <p>
+ * Rows are delivered in no particular order, either to a thread-safe consumer with
+ * {@link #forEach(Consumer)} or through a merged {@link #stream()}.
+ * </p>
+ *
+ * @param <T> the entity type
+ */
+public class ParallelScan<T> {
+
+    /**
+     * Number of entities buffered per range between the readers and a stream consumer.
+     */
+    private static final int QUEUE_CAPACITY_PER_RANGE = 256;
+
+    private final DataSource dataSource;
+    private final ColumnList columns;
+    private final String table;
+    private final String idColumn;
+    private final RowMapper<T> mapper;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private int partitions;
+    private int fetchSize = ResultSetStreams.DEFAULT_FETCH_SIZE;
+    private boolean sampled;
+
+    /**
+     * Creates a scan over a table.
+     *
+     * @param dataSource the data source read connections are taken from
+     * @param table      the table to scan
+     * @param idColumn   the integer primary key used to split the table
+     * @param columns    the selected columns
+     * @param mapper     maps each row to an entity; called concurrently
+     */
+    public ParallelScan(DataSource dataSource, String table, String idColumn, ColumnList columns, RowMapper<T> mapper) {
+        this.dataSource = Objects.requireNonNull(dataSource);
+        this.table = Objects.requireNonNull(table);
+        this.idColumn = Objects.requireNonNull(idColumn);
+        this.columns = Objects.requireNonNull(columns);
+        this.mapper = Objects.requireNonNull(mapper);
+    }
+
+    /**
+     * Sets how many ranges are read at the same time. Defaults to the number of processors.
+     *
+     * @param parallelism the number of concurrent queries
+     * @return this scan
+     */
+    public ParallelScan<T> parallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Sets how many ranges the table is split into. Defaults to four per concurrent query,
+     * so that a slow range does not leave the other threads idle at the end of the scan.
+     *
+     * @param partitions the number of ranges
+     * @return this scan
+     */
+    public ParallelScan<T> partitions(int partitions) {
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("Partitions must be positive");
+        }
+        this.partitions = partitions;
+        return this;
+    }
+
+    /**
+     * Sets the number of rows fetched per round trip by each range query.
+     *
+     * @param fetchSize the fetch size
+     * @return this scan
+     */
+    public ParallelScan<T> fetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    /**
+     * Splits at boundaries sampled from the ID index, so that every range holds about the same
+     * number of rows, instead of splitting {@code MIN..MAX} evenly.
+     *
+     * @param sampled whether to sample the boundaries
+     * @return this scan
+     */
+    public ParallelScan<T> sampled(boolean sampled) {
+        this.sampled = sampled;
+        return this;
+    }
+
+    /**
+     * Computes the ranges the table will be read in.
+     *
+     * @return the inclusive ID ranges, in ascending order; empty if the table is empty
+     * @throws CrudException if the bounds cannot be read
+     */
+    public List<IdRange> split() {
+        int count = partitions > 0 ? partitions : parallelism * 4;
+        try (Connection conn = dataSource.getReadConnection()) {
+            return sampled ? sampledRanges(conn, count) : evenRanges(conn, count);
+        } catch (SQLException e) {
+            throw new CrudException("Error splitting " + table + " into ranges", e);
+        }
+    }
+
+    /**
+     * Reads every row and passes it to a consumer, from several threads at once.
+     *
+     * @param consumer a thread-safe consumer of the entities
+     * @return the number of rows read
+     * @throws CrudException if a range fails; the other ranges are cancelled
+     */
+    public long forEach(Consumer<? super T> consumer) {
+        List<IdRange> ranges = split();
+        AtomicLong rows = new AtomicLong();
+        ExecutorService executor = newExecutor(ranges.size());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (IdRange range : ranges) {
+                futures.add(executor.submit(() -> {
+                    readRange(range, entity -> {
+                        consumer.accept(entity);
+                        rows.incrementAndGet();
+                    });
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                await(future);
+            }
+            return rows.get();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Opens a stream that merges the rows of all ranges as they are read.
+     * <p>
+     * Readers block when the consumer falls behind, so memory stays bounded. The stream must
+     * be closed, e.g. in a try-with-resources block, to stop the readers if it is not fully
+     * consumed.
+     * </p>
+     *
+     * @return a stream of every row, in no particular order
+     * @throws CrudException while consuming, if a range fails
+     */
+    public Stream<T> stream() {
+        List<IdRange> ranges = split();
+        if (ranges.isEmpty()) {
+            return Stream.empty();
+        }
+
+        BlockingQueue<Object> queue = new ArrayBlockingQueue<>(
+                QUEUE_CAPACITY_PER_RANGE * Math.min(parallelism, ranges.size()));
+        ExecutorService executor = newExecutor(ranges.size());
+        for (IdRange range : ranges) {
+            executor.execute(() -> {
+                Object last = RangeDone.INSTANCE;
+                try {
+                    readRange(range, entity -> put(queue, entity));
+                } catch (RuntimeException e) {
+                    last = new RangeFailed(e);
+                }
+                if (!Thread.currentThread().isInterrupted()) {
+                    put(queue, last);
+                }
+            });
+        }
+
+        MergeSpliterator spliterator = new MergeSpliterator(queue, ranges.size());
+        return StreamSupport.stream(spliterator, false).onClose(executor::shutdownNow);
+    }
+
+    private void readRange(IdRange range, Consumer<T> sink) {
+        String sql = columns.select() + " WHERE " + idColumn + " BETWEEN ? AND ?";
+        try (Connection conn = dataSource.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            stmt.setFetchSize(fetchSize);
+            stmt.setLong(1, range.from());
+            stmt.setLong(2, range.to());
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+                    sink.accept(mapper.map(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new CrudException("Error scanning " + table + " range " + range, e);
+        }
+    }
+
+    private List<IdRange> evenRanges(Connection conn, int count) throws SQLException {
+        String sql = "SELECT MIN(" + idColumn + "), MAX(" + idColumn + ") FROM " + table;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            rs.next();
+            long min = rs.getLong(1);
+            if (rs.wasNull()) {
+                return List.of();
+            }
+            long max = rs.getLong(2);
+
+            long step = Math.max(1, (max - min + count) / count);
+            List<IdRange> ranges = new ArrayList<>();
+            for (long from = min; from <= max; from += step) {
+                ranges.add(new IdRange(from, Math.min(max, from + step - 1)));
+            }
+            return ranges;
+        }
+    }
+
+    /**
+     * Reads every {@code total / count}-th ID from the index, an index-only query per boundary.
+     */
+    private List<IdRange> sampledRanges(Connection conn, int count) throws SQLException {
+        long total;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            rs.next();
+            total = rs.getLong(1);
+        }
+        if (total == 0) {
+            return List.of();
+        }
+
+        String sql = "SELECT " + idColumn + " FROM " + table + " ORDER BY " + idColumn + " LIMIT 1 OFFSET ?";
+        List<Long> starts = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int ranges = (int) Math.min(count, total);
+            for (int i = 0; i < ranges; i++) {
+                stmt.setLong(1, total * i / ranges);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        starts.add(rs.getLong(1));
+                    }
+                }
+            }
+        }
+
+        List<IdRange> result = new ArrayList<>();
+        for (int i = 0; i < starts.size(); i++) {
+            long to = i + 1 < starts.size() ? starts.get(i + 1) - 1 : Long.MAX_VALUE;
+            if (starts.get(i) <= to) {
+                result.add(new IdRange(starts.get(i), to));
+            }
+        }
+        return result;
+    }
+
+    private ExecutorService newExecutor(int ranges) {
+        int threads = Math.max(1, Math.min(parallelism, ranges));
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "parallel-scan-" + table);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static void put(BlockingQueue<Object> queue, Object item) {
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CrudException("Interrupted while scanning", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new CrudException("Error scanning", e.getCause());
+        }
+    }
+
+    /**
+     * Takes entities from the queue until every range has reported that it is done.
+     */
+    private final class MergeSpliterator extends Spliterators.AbstractSpliterator<T> {
+
+        private final BlockingQueue<Object> queue;
+        private int pendingRanges;
+
+        MergeSpliterator(BlockingQueue<Object> queue, int ranges) {
+            super(Long.MAX_VALUE, Spliterator.NONNULL);
+            this.queue = queue;
+            this.pendingRanges = ranges;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super T> action) {
+            while (pendingRanges > 0) {
+                Object item;
+                try {
+                    item = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CrudException("Interrupted while scanning", e);
+                }
+
+                if (item == RangeDone.INSTANCE) {
+                    pendingRanges--;
+                } else if (item instanceof RangeFailed failed) {
+                    pendingRanges = 0;
+                    throw failed.cause();
+                } else {
+                    action.accept((T) item);
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private enum RangeDone { INSTANCE }
+
+    private record RangeFailed(RuntimeException cause) {
+    }
+
+    /**
+     * An inclusive range of IDs read by one query.
+     *
+     * @param from the first ID of the range
+     * @param to   the last ID of the range
+     */
+    public record IdRange(long from, long to) {
+    }
+}
@@ -0,0 +1,204 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc;
+
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.DataSource;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.CrudException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Builds lazily evaluated {@link Stream}s on top of forward-only, read-only result sets.
+ * <p>
+ * Rows are mapped one at a time while the stream is consumed, so a scan over millions of
+ * rows runs in constant memory as long as the driver fetches in batches. For MySQL this
+ * requires {@code useCursorFetch=true} in the connection URL; otherwise the driver buffers
+ * the whole result set on the client before the first row is returned.
+ * </p>
+ * <p>
+ * The connection, statement and result set stay open until the stream is closed or fully
+ * consumed, so callers should always use the stream in a try-with-resources block and
+ * should not run other queries on a {@code SingleConnectionDataSource} while it is open.
+ * </p>
+ */
+public final class ResultSetStreams {
+
+    /**
+     * Number of rows fetched per round trip when no fetch size is configured.
+     */
+    public static final int DEFAULT_FETCH_SIZE = 500;
+
+    /**
+     * Largest initial capacity of a list built by {@link #list}, so a wrong size hint cannot
+     * allocate a huge array up front.
+     */
+    private static final int MAX_PRESIZE = 1 << 16;
+
+    private ResultSetStreams() {
+        // Utility class
+    }
+
+    /**
+     * Opens a stream over a query without parameters, on a read connection.
+     *
+     * @param dataSource the data source used to obtain the connection
+     * @param sql        the query to execute
+     * @param fetchSize  the number of rows fetched per round trip
+     * @param mapper     maps each row to an entity
+     * @param <T>        the entity type
+     * @return a lazily populated stream that must be closed after use
+     * @throws CrudException if the query cannot be executed
+     */
+    public static <T> Stream<T> stream(DataSource dataSource, String sql, int fetchSize, RowMapper<T> mapper) {
+        return stream(dataSource, sql, fetchSize, StatementBinder.NONE, mapper);
+    }
+
+    /**
+     * Opens a stream over a parameterized query, on a read connection.
+     *
+     * @param dataSource the data source used to obtain the connection
+     * @param sql        the query to execute
+     * @param fetchSize  the number of rows fetched per round trip
+     * @param binder     sets the query parameters
+     * @param mapper     maps each row to an entity
+     * @param <T>        the entity type
+     * @return a lazily populated stream that must be closed after use
+     * @throws CrudException if the query cannot be executed
+     */
+    public static <T> Stream<T> stream(DataSource dataSource, String sql, int fetchSize,
+                                       StatementBinder binder, RowMapper<T> mapper) {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            conn = dataSource.getReadConnection();
+            stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(fetchSize);
+            binder.bind(stmt);
+            rs = stmt.executeQuery();
+        } catch (SQLException e) {
+            new Resources(conn, stmt, rs).closeQuietly(e);
+            throw new CrudException("Error opening result stream", e);
+        } catch (RuntimeException e) {
+            new Resources(conn, stmt, rs).closeQuietly(e);
+            throw e;
+        }
+
+        Resources resources = new Resources(conn, stmt, rs);
+        return StreamSupport.stream(new RowSpliterator<>(resources, mapper), false)
+                .onClose(resources::close);
+    }
+
+    /**
+     * Runs a query without parameters on a read connection and collects its rows, in order.
+     *
+     * @param dataSource the data source used to obtain the connection
+     * @param sql        the query to execute
+     * @param fetchSize  the number of rows fetched per round trip
+     * @param sizeHint   the expected number of rows, used to pre-size the list; 0 if unknown
+     * @param mapper     maps each row to an entity
+     * @param <T>        the entity type
+     * @return the mapped rows
+     * @throws CrudException if the query cannot be executed
+     */
+    public static <T> List<T> list(DataSource dataSource, String sql, int fetchSize, long sizeHint,
+                                   RowMapper<T> mapper) {
+        List<T> rows = new ArrayList<>((int) Math.max(10, Math.min(sizeHint, MAX_PRESIZE)));
+        try (Connection conn = dataSource.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            stmt.setFetchSize(fetchSize);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(mapper.map(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new CrudException("Error listing query results", e);
+        }
+        return rows;
+    }
+
+    /**
+     * Pulls one row per {@link #tryAdvance} call and releases the resources
+     * as soon as the last row has been read.
+     */
+    private static final class RowSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+
+        private final Resources resources;
+        private final RowMapper<T> mapper;
+
+        RowSpliterator(Resources resources, RowMapper<T> mapper) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.resources = resources;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (resources.isClosed()) {
+                return false;
+            }
+            try {
+                if (!resources.rs.next()) {
+                    resources.close();
+                    return false;
+                }
+                action.accept(mapper.map(resources.rs));
+                return true;
+            } catch (SQLException e) {
+                resources.closeQuietly(e);
+                throw new CrudException("Error reading result stream", e);
+            }
+        }
+    }
+
+    /**
+     * Closes the result set, statement and connection exactly once, in that order.
+     */
+    private static final class Resources {
+
+        private final Connection conn;
+        private final PreparedStatement stmt;
+        private final ResultSet rs;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Resources(Connection conn, PreparedStatement stmt, ResultSet rs) {
+            this.conn = conn;
+            this.stmt = stmt;
+            this.rs = rs;
+        }
+
+        boolean isClosed() {
+            return closed.get();
+        }
+
+        void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            try (Connection c = conn; PreparedStatement s = stmt; ResultSet r = rs) {
+                // Resources are closed in reverse order by the try-with-resources block
+            } catch (SQLException e) {
+                throw new CrudException("Error closing result stream", e);
+            }
+        }
+
+        void closeQuietly(Exception cause) {
+            try {
+                close();
+            } catch (CrudException e) {
+                cause.addSuppressed(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a {@link ResultSet} to an entity.
+ *
+ * @param <T> the type of entity produced for each row
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * Maps the row the result set is currently positioned on.
+     * Implementations must not move the cursor.
+     *
+     * @param rs the result set positioned on the row to map
+     * @return the mapped entity
+     * @throws SQLException if a database access error occurs
+     */
+    T map(ResultSet rs) throws SQLException;
+}
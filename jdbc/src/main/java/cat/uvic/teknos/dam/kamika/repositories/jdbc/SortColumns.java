@@ -0,0 +1,54 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc;
+
+import cat.uvic.teknos.dam.kamika.repositories.Sort;
+
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Maps the sort keys of an entity to the columns of its table, to sort list queries in SQL.
+ *
+ * @param <T> the entity type
+ */
+final class SortColumns<T> {
+
+    private final String table;
+    private final Sort.Key<T> primaryKey;
+    private final Map<Sort.Key<T>, String> columns;
+
+    /**
+     * Creates the mapping of a table.
+     *
+     * @param table      the table name, for error messages
+     * @param primaryKey the key of the primary key column, which breaks ties
+     * @param columns    the column of every key the table can be sorted by
+     */
+    SortColumns(String table, Sort.Key<T> primaryKey, Map<Sort.Key<T>, String> columns) {
+        if (!columns.containsKey(primaryKey)) {
+            throw new IllegalArgumentException("No column for the primary key of " + table);
+        }
+        this.table = table;
+        this.primaryKey = primaryKey;
+        this.columns = Map.copyOf(columns);
+    }
+
+    /**
+     * Returns the {@code ORDER BY} clause of a sort, ending with the primary key so that the
+     * order is total.
+     *
+     * @param sort the sort
+     * @return the clause, with a leading space
+     * @throws IllegalArgumentException if the table cannot be sorted by one of the keys
+     */
+    String orderBy(Sort<T> sort) {
+        StringJoiner clause = new StringJoiner(", ", " ORDER BY ", "");
+        for (Sort.Order<T> order : sort.then(primaryKey).getOrders()) {
+            String column = columns.get(order.key());
+            if (column == null) {
+                throw new IllegalArgumentException("Cannot sort " + table + " by " + order.key());
+            }
+            clause.add(column + " " + order.direction());
+        }
+        return clause.toString();
+    }
+}
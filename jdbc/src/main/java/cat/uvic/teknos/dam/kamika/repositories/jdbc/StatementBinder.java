@@ -0,0 +1,24 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Binds the parameters of a {@link PreparedStatement} before it is executed.
+ */
+@FunctionalInterface
+public interface StatementBinder {
+
+    /**
+     * A binder for statements without parameters.
+     */
+    StatementBinder NONE = stmt -> { };
+
+    /**
+     * Sets the statement parameters.
+     *
+     * @param stmt the statement to bind
+     * @throws SQLException if a parameter cannot be set
+     */
+    void bind(PreparedStatement stmt) throws SQLException;
+}
@@ -14,6 +14,28 @@ public interface DataSource {
      */
     Connection getConnection() throws SQLException;
 
+    /**
+     * Returns a connection for a read-only operation, such as {@code findById} or {@code count}.
+     * Data sources with replicas may serve it from a replica that lags behind the primary.
+     * By default, returns {@link #getConnection()}.
+     *
+     * @return an active database connection that must only be used for queries
+     */
+    default Connection getReadConnection() throws SQLException {
+        return getConnection();
+    }
+
+    /**
+     * Returns how many connections this data source can lend out at the same time, which
+     * bounds how many repository calls are worth running concurrently.
+     * By default, returns 1, the safe value for a source that shares a single connection.
+     *
+     * @return the maximum number of connections in use at once
+     */
+    default int getMaxConnections() {
+        return 1;
+    }
+
     /**
      * Closes any resources held by this data source, such as open connections or pools.
      * By default, does nothing. Can be overridden by implementations.
@@ -0,0 +1,234 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources;
+
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.DataSourceException;
+
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A data source that keeps a fixed number of physical connections and lends them out.
+ * <p>
+ * Unlike {@link SingleConnectionDataSource}, it can be shared by concurrent requests: each
+ * caller gets its own connection, and closing it returns the physical connection to the pool
+ * instead of closing it. Callers block for up to the configured timeout when every
+ * connection is in use.
+ * </p>
+ */
+public class PooledDataSource implements DataSource, AutoCloseable {
+
+    public static final int DEFAULT_POOL_SIZE = 10;
+    public static final long DEFAULT_TIMEOUT_MILLIS = 30_000;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int poolSize;
+    private final long timeoutMillis;
+    private final Semaphore available;
+    private final ConcurrentLinkedDeque<Connection> idle = new ConcurrentLinkedDeque<>();
+    private volatile boolean closed;
+
+    public PooledDataSource(String driver, String server, String database, String user, String password,
+                            String parameters, int poolSize) {
+        this(driver, server, database, user, password, parameters, poolSize, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Creates a pool with a custom wait timeout.
+     *
+     * @param poolSize      the maximum number of physical connections
+     * @param timeoutMillis how long {@link #getConnection()} waits for a free connection
+     */
+    public PooledDataSource(String driver, String server, String database, String user, String password,
+                            String parameters, int poolSize, long timeoutMillis) {
+        if (poolSize <= 0) {
+            throw new DataSourceException("Pool size must be positive");
+        }
+        this.url = SingleConnectionDataSource.buildUrl(driver, server, database, parameters);
+        this.user = user;
+        this.password = password;
+        this.poolSize = poolSize;
+        this.timeoutMillis = timeoutMillis;
+        this.available = new Semaphore(poolSize, true);
+    }
+
+    /**
+     * Creates a pool from {@code datasource.properties}, reading the optional
+     * {@code pool_size} property.
+     */
+    public PooledDataSource() {
+        Properties properties = new Properties();
+
+        try (InputStream inputStream = getClass().getResourceAsStream("/datasource.properties")) {
+            if (inputStream == null) {
+                throw new DataSourceException("File datasource.properties not found in resources");
+            }
+            properties.load(inputStream);
+        } catch (Exception e) {
+            throw new DataSourceException("Failed to load datasource.properties", e);
+        }
+
+        this.url = SingleConnectionDataSource.buildUrl(
+                properties.getProperty("driver", "").trim(),
+                properties.getProperty("server", "").trim(),
+                properties.getProperty("database", "").trim(),
+                properties.getProperty("parameters", "").trim());
+        this.user = properties.getProperty("user", "").trim();
+        this.password = properties.getProperty("password", "");
+        this.poolSize = Integer.parseInt(properties.getProperty("pool_size", String.valueOf(DEFAULT_POOL_SIZE)).trim());
+        this.timeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+        this.available = new Semaphore(poolSize, true);
+    }
+
+    @Override
+    public Connection getConnection() {
+        if (closed) {
+            throw new DataSourceException("Data source is closed");
+        }
+
+        try {
+            if (!available.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new DataSourceException("Timed out waiting for a pooled connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataSourceException("Interrupted while waiting for a pooled connection", e);
+        }
+
+        try {
+            return wrap(borrowPhysical());
+        } catch (SQLException | RuntimeException e) {
+            available.release();
+            throw e instanceof DataSourceException dse ? dse
+                    : new DataSourceException("Failed to establish database connection", e);
+        }
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    @Override
+    public int getMaxConnections() {
+        return poolSize;
+    }
+
+    /**
+     * Returns the number of connections currently lent out.
+     *
+     * @return the number of active connections
+     */
+    public int getActiveConnections() {
+        return poolSize - available.availablePermits();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Connection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            closeQuietly(connection);
+        }
+    }
+
+    private Connection borrowPhysical() throws SQLException {
+        Connection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            if (!connection.isClosed()) {
+                return connection;
+            }
+        }
+        return DriverManager.getConnection(url, user, password);
+    }
+
+    private void release(Connection physical) {
+        try {
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (closed || physical.isClosed()) {
+                closeQuietly(physical);
+            } else {
+                idle.offerFirst(physical);
+            }
+        } catch (SQLException e) {
+            closeQuietly(physical);
+        } finally {
+            available.release();
+        }
+    }
+
+    private Connection wrap(Connection physical) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new PooledConnectionHandler(physical));
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // The connection is being discarded anyway
+        }
+    }
+
+    /**
+     * Forwards calls to the physical connection until the borrower closes it.
+     */
+    private final class PooledConnectionHandler implements InvocationHandler {
+
+        private final Connection physical;
+        private boolean returned;
+
+        PooledConnectionHandler(Connection physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!returned) {
+                        returned = true;
+                        release(physical);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned || physical.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "PooledConnection[" + physical + "]";
+                }
+                default -> {
+                    if (returned) {
+                        throw new SQLException("Connection has been returned to the pool");
+                    }
+                    try {
+                        return method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+            }
+        }
+    }
+}
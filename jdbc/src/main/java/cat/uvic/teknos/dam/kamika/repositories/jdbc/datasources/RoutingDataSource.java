@@ -0,0 +1,238 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources;
+
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.DataSourceException;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A data source that sends writes to a primary database and reads to its replicas.
+ * <p>
+ * {@link #getConnection()} always returns a primary connection. {@link #getReadConnection()},
+ * used by the repositories' read-only operations, picks the replicas in turn and skips the
+ * ones that cannot be reached, falling back to the primary when none is available.
+ * </p>
+ * <p>
+ * Replication is asynchronous, so a replica may not show a row the same caller has just
+ * written. To give read-your-writes consistency, every primary connection marks its caller as
+ * sticky, and the caller's reads also go to the primary until the sticky window has passed.
+ * The caller is whatever a thread has been {@linkplain #bindCaller bound} to, e.g. the address
+ * of the client it serves, so the window outlives the connection that wrote and follows the
+ * client to its next request on whichever thread serves it; a thread bound to no caller is
+ * its own caller. Read-only operations must use {@link #getReadConnection()}, or they would pin
+ * the caller to the primary as well, and background jobs that need the primary, such as filter
+ * rebuilds, should use {@link #getPrimary()} directly.
+ * </p>
+ */
+public class RoutingDataSource implements DataSource, AutoCloseable {
+
+    public static final long DEFAULT_STICKY_MILLIS = 2_000;
+
+    /**
+     * How many writes happen between two sweeps of the callers whose window has passed.
+     */
+    private static final int SWEEP_INTERVAL = 1_024;
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final long stickyNanos;
+    private final ThreadLocal<Object> caller = new ThreadLocal<>();
+    private final Map<Object, Long> lastPrimaryUse = new ConcurrentHashMap<>();
+    private final AtomicLong primaryUses = new AtomicLong();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final LongAdder primaryReads = new LongAdder();
+    private final LongAdder replicaReads = new LongAdder();
+
+    public RoutingDataSource(DataSource primary, List<DataSource> replicas) {
+        this(primary, replicas, DEFAULT_STICKY_MILLIS);
+    }
+
+    /**
+     * Creates a routing data source with a custom read-your-writes window.
+     *
+     * @param primary      the data source of the primary database
+     * @param replicas     the data sources of the replicas; may be empty
+     * @param stickyMillis how long reads stay on the primary after a thread used it
+     */
+    public RoutingDataSource(DataSource primary, List<DataSource> replicas, long stickyMillis) {
+        if (stickyMillis < 0) {
+            throw new DataSourceException("Sticky window must not be negative");
+        }
+        this.primary = Objects.requireNonNull(primary);
+        this.replicas = List.copyOf(replicas);
+        this.stickyNanos = TimeUnit.MILLISECONDS.toNanos(stickyMillis);
+    }
+
+    /**
+     * Makes the calling thread act for the given caller until {@link #unbindCaller()}, so that
+     * the caller's writes and reads share one read-your-writes window across threads and
+     * connections.
+     *
+     * @param caller an identity with value equality, e.g. the client's {@code InetAddress}
+     */
+    public void bindCaller(Object caller) {
+        this.caller.set(Objects.requireNonNull(caller));
+    }
+
+    /**
+     * Makes the calling thread its own caller again, e.g. once a pooled thread has served a client.
+     * The window of the caller it acted for is kept.
+     */
+    public void unbindCaller() {
+        caller.remove();
+    }
+
+    /**
+     * Returns a primary connection and starts the read-your-writes window of the current caller.
+     *
+     * @return a connection to the primary
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        long now = System.nanoTime();
+        lastPrimaryUse.put(currentCaller(), now);
+        if (primaryUses.incrementAndGet() % SWEEP_INTERVAL == 0) {
+            lastPrimaryUse.values().removeIf(lastUse -> now - lastUse >= stickyNanos);
+        }
+        return primary.getConnection();
+    }
+
+    /**
+     * Returns a read-only replica connection, or a primary connection if the current caller
+     * is inside its read-your-writes window or no replica can be reached.
+     *
+     * @return a connection for queries only
+     */
+    @Override
+    public Connection getReadConnection() throws SQLException {
+        if (replicas.isEmpty() || isSticky()) {
+            primaryReads.increment();
+            return primary.getConnection();
+        }
+
+        int first = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        Exception failure = null;
+        for (int i = 0; i < replicas.size(); i++) {
+            DataSource replica = replicas.get((first + i) % replicas.size());
+            try {
+                Connection connection = replica.getConnection();
+                try {
+                    connection.setReadOnly(true);
+                } catch (SQLException e) {
+                    connection.close();
+                    throw e;
+                }
+                replicaReads.increment();
+                return connection;
+            } catch (SQLException | DataSourceException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        primaryReads.increment();
+        try {
+            return primary.getConnection();
+        } catch (SQLException | RuntimeException e) {
+            e.addSuppressed(failure);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns whether reads of the current caller currently go to the primary.
+     *
+     * @return {@code true} inside the read-your-writes window
+     */
+    public boolean isSticky() {
+        Object key = currentCaller();
+        Long lastUse = lastPrimaryUse.get(key);
+        if (lastUse == null) {
+            return false;
+        }
+        if (System.nanoTime() - lastUse < stickyNanos) {
+            return true;
+        }
+        lastPrimaryUse.remove(key, lastUse);
+        return false;
+    }
+
+    /**
+     * Ends the read-your-writes window of the current caller.
+     */
+    public void clearSticky() {
+        lastPrimaryUse.remove(currentCaller());
+    }
+
+    private Object currentCaller() {
+        Object bound = caller.get();
+        return bound != null ? bound : Thread.currentThread();
+    }
+
+    /**
+     * Returns the data source of the primary, for callers that must see every committed write
+     * without starting a read-your-writes window.
+     *
+     * @return the primary data source
+     */
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    /**
+     * Returns the limit of the primary, which serves every write and every sticky read.
+     */
+    @Override
+    public int getMaxConnections() {
+        return primary.getMaxConnections();
+    }
+
+    public int getReplicaCount() {
+        return replicas.size();
+    }
+
+    /**
+     * Returns how many read connections were served by the primary.
+     *
+     * @return the number of primary reads
+     */
+    public long getPrimaryReads() {
+        return primaryReads.sum();
+    }
+
+    /**
+     * Returns how many read connections were served by a replica.
+     *
+     * @return the number of replica reads
+     */
+    public long getReplicaReads() {
+        return replicaReads.sum();
+    }
+
+    @Override
+    public void close() throws Exception {
+        Exception failure = null;
+        for (DataSource dataSource : replicas) {
+            try {
+                dataSource.close();
+            } catch (Exception e) {
+                failure = e;
+            }
+        }
+        primary.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
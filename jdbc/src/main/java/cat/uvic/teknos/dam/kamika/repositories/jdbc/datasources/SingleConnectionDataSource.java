@@ -20,13 +20,25 @@ public class SingleConnectionDataSource implements DataSource, AutoCloseable {
     private final String database;
     private final String user;
     private final String password;
+    private final String parameters;
 
     public SingleConnectionDataSource(String driver, String server, String database, String user, String password) {
+        this(driver, server, database, user, password, "");
+    }
+
+    /**
+     * Creates a data source that appends extra driver parameters to the connection URL.
+     *
+     * @param parameters query string appended to the URL, e.g. {@code useCursorFetch=true}
+     */
+    public SingleConnectionDataSource(String driver, String server, String database, String user, String password,
+                                      String parameters) {
         this.driver = validateProperty(driver, "driver");
         this.server = validateProperty(server, "server");
         this.database = validateProperty(database, "database");
         this.user = validateProperty(user, "user");
         this.password = password; // Password can be empty (e.g., for H2)
+        this.parameters = parameters == null ? "" : parameters.trim();
     }
 
     public SingleConnectionDataSource() {
@@ -43,6 +55,7 @@ public class SingleConnectionDataSource implements DataSource, AutoCloseable {
             this.database = getProperty(properties, "database");
             this.user = getProperty(properties, "user");
             this.password = properties.getProperty("password", ""); // Default to empty
+            this.parameters = properties.getProperty("parameters", "").trim(); // Optional driver parameters
 
         } catch (Exception e) {
             throw new DataSourceException("Failed to load datasource.properties", e);
@@ -53,16 +66,7 @@ public class SingleConnectionDataSource implements DataSource, AutoCloseable {
     public Connection getConnection() {
         try {
             if (connection == null || connection.isClosed()) {
-                String url;
-                if ("h2".equalsIgnoreCase(driver)) {
-                    // Formato especial para H2 en memoria
-                    url = String.format("jdbc:%s:%s", driver, server);
-                } else {
-                    // Formato genérico para otros motores como MySQL
-                    url = String.format("jdbc:%s://%s/%s", driver, server, database);
-                }
-
-                connection = DriverManager.getConnection(url, user, password);
+                connection = DriverManager.getConnection(buildUrl(driver, server, database, parameters), user, password);
             }
         } catch (SQLException e) {
             throw new DataSourceException("Failed to establish database connection", e);
@@ -82,6 +86,24 @@ public class SingleConnectionDataSource implements DataSource, AutoCloseable {
         }
     }
 
+    /**
+     * Builds the JDBC URL for the given connection settings.
+     */
+    static String buildUrl(String driver, String server, String database, String parameters) {
+        String url;
+        if ("h2".equalsIgnoreCase(driver)) {
+            // Formato especial para H2 en memoria
+            url = String.format("jdbc:%s:%s", driver, server);
+        } else {
+            // Formato genérico para otros motores como MySQL
+            url = String.format("jdbc:%s://%s/%s", driver, server, database);
+            if (parameters != null && !parameters.isEmpty()) {
+                url += "?" + parameters;
+            }
+        }
+        return url;
+    }
+
     private String validateProperty(String value, String propertyName) {
         if (value == null || value.trim().isEmpty()) {
             throw new DataSourceException("Invalid or missing property: " + propertyName);
@@ -118,4 +140,8 @@ public class SingleConnectionDataSource implements DataSource, AutoCloseable {
     public String getPassword() {
         return password;
     }
+
+    public String getParameters() {
+        return parameters;
+    }
 }
\ No newline at end of file
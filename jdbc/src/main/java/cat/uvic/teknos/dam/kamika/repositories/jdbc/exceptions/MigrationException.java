@@ -0,0 +1,15 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions;
+
+/**
+ * Represents an error while reading or applying a schema migration.
+ */
+public class MigrationException extends RuntimeException {
+
+    public MigrationException(String message) {
+        super(message);
+    }
+
+    public MigrationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,125 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.filters;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe Bloom filter of integer keys.
+ * <p>
+ * {@link #mightContain(int)} never returns {@code false} for a key that was added, and returns
+ * {@code true} for a key that was not with a probability close to the rate the filter was sized
+ * for, as long as no more keys than expected are added. Keys cannot be removed; a filter is
+ * rebuilt instead. Bits are set with atomic updates, so adds and lookups need no locking.
+ * </p>
+ */
+public final class BloomFilter {
+
+    /**
+     * Offsets the keys so that small IDs, and 0 in particular, do not hash to 0.
+     */
+    private static final long SEED = 0x9e3779b97f4a7c15L;
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final AtomicLong insertions = new AtomicLong();
+
+    /**
+     * Creates a filter with the optimal number of bits and hash functions for its capacity.
+     *
+     * @param expectedInsertions the number of keys the filter is sized for
+     * @param falsePositiveRate  the target false-positive rate at that size, e.g. 0.01
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False-positive rate must be between 0 and 1");
+        }
+        long n = Math.max(1, expectedInsertions);
+        long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = Math.toIntExact(Math.max(1, (bits + 63) / 64));
+
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = wordCount * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    /**
+     * Adds a key.
+     *
+     * @param key the key
+     */
+    public void put(int key) {
+        long hash1 = mix(key + SEED);
+        long hash2 = mix(hash1);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            if ((words.get(word) & mask) == 0) {
+                words.getAndAccumulate(word, mask, (current, m) -> current | m);
+            }
+        }
+        insertions.incrementAndGet();
+    }
+
+    /**
+     * Returns whether a key may have been added.
+     *
+     * @param key the key
+     * @return {@code false} if the key was definitely never added
+     */
+    public boolean mightContain(int key) {
+        long hash1 = mix(key + SEED);
+        long hash2 = mix(hash1);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Estimates the current false-positive rate from the number of keys added so far.
+     *
+     * @return the probability that an absent key is reported as possibly present
+     */
+    public double expectedFalsePositiveRate() {
+        double filled = 1 - Math.exp(-hashCount * (double) insertions.get() / bitCount);
+        return Math.pow(filled, hashCount);
+    }
+
+    public long getInsertions() {
+        return insertions.get();
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * Returns the size of the bit array.
+     *
+     * @return the memory used by the bits, in bytes
+     */
+    public long getMemoryBytes() {
+        return bitCount / 8;
+    }
+
+    /**
+     * The 64-bit finalizer of MurmurHash3, which spreads sequential IDs over the whole bit array.
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,343 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.filters;
+
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.ResultSetStreams;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.DataSource;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.CrudException;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.ids.IdSequence;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A negative cache of the IDs of one table, so lookups of IDs that do not exist are answered
+ * without a query.
+ * <p>
+ * The IDs are kept in a {@link BloomFilter} built from a scan of the primary key and updated
+ * by the repository's inserts. A filter cannot forget deleted IDs, so it is rebuilt
+ * periodically with {@link #startRebuilding(long, TimeUnit)}; until then a deleted ID costs a
+ * query, as it would without the filter. Until the first build, every ID is reported as
+ * possibly present.
+ * </p>
+ * <p>
+ * Inserts made while a rebuild scans the table are replayed into the new filter, and so are,
+ * once periodic rebuilds have started, those made since the previous rebuild started. An ID
+ * that was added is then never reported as missing, even if its transaction commits after the
+ * scan. Without periodic rebuilds no IDs are kept for replay, so memory does not grow with the
+ * number of inserts. The scan reads the primary, since a lagging replica could miss committed
+ * rows.
+ * </p>
+ * <p>
+ * Only inserts made through the repositories this filter is given to are added. Rows inserted
+ * by other processes or repository instances are reported as missing until the next rebuild,
+ * so the filter should only be enabled where those repositories are the only writers of the
+ * table.
+ * </p>
+ */
+public class IdFilter implements AutoCloseable {
+
+    /**
+     * A filter that reports every ID as possibly present.
+     */
+    public static final IdFilter DISABLED = new IdFilter();
+
+    public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+
+    /**
+     * Smallest number of IDs a filter is sized for, so small tables can grow before a rebuild.
+     */
+    private static final long MIN_CAPACITY = 1024;
+
+    private final DataSource dataSource;
+    private final IdSequence table;
+    private final double falsePositiveRate;
+    private final Object rebuildLock = new Object();
+    private final AtomicLong definiteMisses = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+    private volatile BloomFilter filter;
+    private BloomFilter pending;
+    private List<Integer> added = new ArrayList<>();
+    private ScheduledExecutorService scheduler;
+    private volatile RuntimeException lastRebuildFailure;
+
+    public IdFilter(DataSource dataSource, IdSequence table) {
+        this(dataSource, table, DEFAULT_FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * Creates a filter with a custom false-positive rate.
+     *
+     * @param dataSource        the data source the IDs are scanned from
+     * @param table             the table whose IDs are filtered
+     * @param falsePositiveRate the rate each build is sized for; lower rates use more memory
+     */
+    public IdFilter(DataSource dataSource, IdSequence table, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False-positive rate must be between 0 and 1");
+        }
+        this.dataSource = Objects.requireNonNull(dataSource);
+        this.table = Objects.requireNonNull(table);
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    private IdFilter() {
+        this.dataSource = null;
+        this.table = null;
+        this.falsePositiveRate = DEFAULT_FALSE_POSITIVE_RATE;
+    }
+
+    public boolean isEnabled() {
+        return dataSource != null;
+    }
+
+    /**
+     * Returns whether the filter has been built and can answer misses.
+     *
+     * @return {@code true} after the first successful {@link #rebuild()}
+     */
+    public boolean isLoaded() {
+        return filter != null;
+    }
+
+    /**
+     * Returns whether a row with an ID may exist.
+     *
+     * @param id the ID
+     * @return {@code false} only if the row definitely does not exist
+     */
+    public boolean mightContain(int id) {
+        BloomFilter current = filter;
+        if (current == null || current.mightContain(id)) {
+            return true;
+        }
+        definiteMisses.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Records that a query for an ID the filter let through found no row.
+     */
+    public void recordFalsePositive() {
+        if (filter != null) {
+            falsePositives.incrementAndGet();
+        }
+    }
+
+    /**
+     * Adds the ID of an inserted row. Must be called before the insert commits, so that no
+     * reader sees the row as missing. The ID is kept for the next rebuild only while a rebuild
+     * is running or periodic rebuilds are scheduled.
+     *
+     * @param id the ID
+     */
+    public synchronized void add(int id) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (filter != null) {
+            filter.put(id);
+        }
+        if (pending != null) {
+            pending.put(id);
+        }
+        if (pending != null || scheduler != null) {
+            added.add(id);
+        }
+    }
+
+    /**
+     * Builds a new filter from a scan of the table's primary key and replaces the current one.
+     *
+     * @throws CrudException if the table cannot be read; the current filter is kept
+     */
+    public void rebuild() {
+        requireEnabled();
+        synchronized (rebuildLock) {
+            BloomFilter next = new BloomFilter(Math.max(MIN_CAPACITY, countRows() * 2), falsePositiveRate);
+            List<Integer> replayed;
+            synchronized (this) {
+                pending = next;
+                replayed = added;
+                added = new ArrayList<>();
+            }
+
+            try {
+                scanIds(next);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    pending = null;
+                    replayed.addAll(added);
+                    added = replayed;
+                }
+                throw e;
+            }
+
+            synchronized (this) {
+                replayed.forEach(next::put);
+                filter = next;
+                pending = null;
+                if (scheduler == null) {
+                    // No later rebuild would replay them, and they are already in the filter
+                    added = new ArrayList<>();
+                }
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the filter periodically on a background thread.
+     *
+     * @param period the time between two rebuilds
+     * @param unit   the unit of the period
+     */
+    public synchronized void startRebuilding(long period, TimeUnit unit) {
+        requireEnabled();
+        if (scheduler != null) {
+            throw new IllegalStateException("Rebuilding already started");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "id-filter-" + table.getTable());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                rebuild();
+                lastRebuildFailure = null;
+            } catch (RuntimeException e) {
+                lastRebuildFailure = e;
+            }
+        }, period, period, unit);
+    }
+
+    public IdSequence getTable() {
+        return table;
+    }
+
+    /**
+     * Returns the number of lookups answered from memory because the ID did not exist.
+     *
+     * @return the number of definite misses
+     */
+    public long getDefiniteMisses() {
+        return definiteMisses.get();
+    }
+
+    /**
+     * Returns the number of lookups the filter let through although the row did not exist.
+     *
+     * @return the number of false positives
+     */
+    public long getFalsePositives() {
+        return falsePositives.get();
+    }
+
+    /**
+     * Returns the share of lookups of missing IDs that still reached the database. It includes
+     * IDs deleted since the last rebuild.
+     *
+     * @return the observed false-positive rate, or 0 if no missing ID was looked up
+     */
+    public double getObservedFalsePositiveRate() {
+        long positives = falsePositives.get();
+        long lookups = positives + definiteMisses.get();
+        return lookups == 0 ? 0 : (double) positives / lookups;
+    }
+
+    /**
+     * Returns the false-positive rate expected from the number of IDs in the current filter.
+     *
+     * @return the expected rate, or 0 if the filter is not built
+     */
+    public double getExpectedFalsePositiveRate() {
+        BloomFilter current = filter;
+        return current == null ? 0 : current.expectedFalsePositiveRate();
+    }
+
+    /**
+     * Returns the memory used by the current filter.
+     *
+     * @return the size of its bit array in bytes, or 0 if the filter is not built
+     */
+    public long getMemoryBytes() {
+        BloomFilter current = filter;
+        return current == null ? 0 : current.getMemoryBytes();
+    }
+
+    /**
+     * Returns the number of IDs in the current filter.
+     *
+     * @return the IDs scanned by the last rebuild plus those inserted since
+     */
+    public long getSize() {
+        BloomFilter current = filter;
+        return current == null ? 0 : current.getInsertions();
+    }
+
+    /**
+     * Returns the error of the last scheduled rebuild, if it failed.
+     *
+     * @return the failure, or {@code null} if the last run succeeded
+     */
+    public RuntimeException getLastRebuildFailure() {
+        return lastRebuildFailure;
+    }
+
+    /**
+     * Stops the scheduled rebuilds, if any.
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        if (pending == null) {
+            added = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Returns the number of inserted IDs kept to be replayed into the next rebuild.
+     */
+    synchronized int getReplayBacklog() {
+        return added.size();
+    }
+
+    private long countRows() {
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table.getTable())) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            throw new CrudException("Error counting " + table.getTable() + " rows", e);
+        }
+    }
+
+    private void scanIds(BloomFilter target) {
+        String sql = "SELECT " + table.getIdColumn() + " FROM " + table.getTable();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            stmt.setFetchSize(ResultSetStreams.DEFAULT_FETCH_SIZE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    target.put(rs.getInt(1));
+                }
+            }
+        } catch (SQLException e) {
+            throw new CrudException("Error scanning " + table.getTable() + " IDs", e);
+        }
+    }
+
+    private void requireEnabled() {
+        if (!isEnabled()) {
+            throw new IllegalStateException("ID filter is disabled");
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.filters;
+
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.DataSource;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.ids.IdSequence;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ID filters of the tables that use one, handed to the repositories by the factory.
+ */
+public class IdFilters implements AutoCloseable {
+
+    /**
+     * No table is filtered.
+     */
+    public static final IdFilters NONE = new IdFilters(Map.of());
+
+    private final Map<IdSequence, IdFilter> filters;
+
+    /**
+     * Creates a filter for each of the given tables.
+     *
+     * @param dataSource the data source the IDs are scanned from
+     * @param tables     the filtered tables
+     */
+    public IdFilters(DataSource dataSource, IdSequence... tables) {
+        this(create(dataSource, tables));
+    }
+
+    private IdFilters(Map<IdSequence, IdFilter> filters) {
+        this.filters = filters;
+    }
+
+    /**
+     * Returns the filter of a table.
+     *
+     * @param table the table
+     * @return its filter, or {@link IdFilter#DISABLED} if the table is not filtered
+     */
+    public IdFilter get(IdSequence table) {
+        return filters.getOrDefault(table, IdFilter.DISABLED);
+    }
+
+    public Map<IdSequence, IdFilter> getAll() {
+        return Collections.unmodifiableMap(filters);
+    }
+
+    /**
+     * Builds every filter, e.g. at startup.
+     */
+    public void rebuildAll() {
+        filters.values().forEach(IdFilter::rebuild);
+    }
+
+    /**
+     * Rebuilds every filter periodically on a background thread.
+     *
+     * @param period the time between two rebuilds
+     * @param unit   the unit of the period
+     */
+    public void startRebuilding(long period, TimeUnit unit) {
+        filters.values().forEach(filter -> filter.startRebuilding(period, unit));
+    }
+
+    @Override
+    public void close() {
+        filters.values().forEach(IdFilter::close);
+    }
+
+    private static Map<IdSequence, IdFilter> create(DataSource dataSource, IdSequence... tables) {
+        Map<IdSequence, IdFilter> filters = new EnumMap<>(IdSequence.class);
+        for (IdSequence table : tables) {
+            filters.put(table, new IdFilter(dataSource, table));
+        }
+        return filters;
+    }
+}
@@ -0,0 +1,171 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.ids;
+
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.DataSource;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.CrudException;
+
+import java.sql.*;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allocates primary keys in memory from blocks reserved in the ID_SEQUENCE table.
+ * <p>
+ * Each instance reserves {@code blockSize} consecutive IDs of a table with one short
+ * transaction and then hands them out with an atomic counter, so inserts can bind their key
+ * up front instead of reading it back with {@code RETURN_GENERATED_KEYS}. That lets a whole
+ * aggregate, such as games and their editions, be inserted with one batch per table.
+ * </p>
+ * <p>
+ * Several application instances can share the table: each reserves its own blocks, so IDs are
+ * unique but not ordered across instances, and the unused part of a block is skipped on
+ * restart. A block never starts below {@code MAX(id) + 1}, so the allocator can be switched
+ * on for tables that already hold AUTO_INCREMENT rows. From then on every writer of the table
+ * must use it, since AUTO_INCREMENT may hand out IDs of a block that is not used up yet.
+ * </p>
+ */
+public class HiLoIdAllocator {
+
+    public static final int DEFAULT_BLOCK_SIZE = 100;
+
+    private final DataSource dataSource;
+    private final int blockSize;
+    private final Map<IdSequence, Sequence> sequences = new EnumMap<>(IdSequence.class);
+
+    public HiLoIdAllocator(DataSource dataSource) {
+        this(dataSource, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Creates an allocator with a custom block size.
+     *
+     * @param dataSource the data source of the database holding ID_SEQUENCE
+     * @param blockSize  how many IDs are reserved per round trip
+     */
+    public HiLoIdAllocator(DataSource dataSource, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        this.dataSource = Objects.requireNonNull(dataSource);
+        this.blockSize = blockSize;
+        for (IdSequence sequence : IdSequence.values()) {
+            sequences.put(sequence, new Sequence(sequence));
+        }
+    }
+
+    /**
+     * Returns the next free ID of a table, reserving a new block when the current one is used up.
+     *
+     * @param sequence the table
+     * @return an ID no other caller will receive
+     * @throws CrudException if a new block cannot be reserved
+     */
+    public int next(IdSequence sequence) {
+        return sequences.get(sequence).next();
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Reserves the next block in its own transaction, so the row lock on ID_SEQUENCE is held
+     * only for the duration of this call.
+     *
+     * @return the first ID of the reserved block
+     */
+    private long reserve(IdSequence sequence) {
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                long start = Math.max(lockNextValue(conn, sequence), maxId(conn, sequence) + 1);
+
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "UPDATE ID_SEQUENCE SET NEXT_VALUE = ? WHERE SEQUENCE_NAME = ?")) {
+                    stmt.setLong(1, start + blockSize);
+                    stmt.setString(2, sequence.name());
+                    stmt.executeUpdate();
+                }
+                conn.commit();
+                return start;
+
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new CrudException("Error reserving IDs for " + sequence.getTable(), e);
+        }
+    }
+
+    private long lockNextValue(Connection conn, IdSequence sequence) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT NEXT_VALUE FROM ID_SEQUENCE WHERE SEQUENCE_NAME = ? FOR UPDATE")) {
+            stmt.setString(1, sequence.name());
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getLong(1);
+                }
+            }
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO ID_SEQUENCE (SEQUENCE_NAME, NEXT_VALUE) VALUES (?, 1)")) {
+            stmt.setString(1, sequence.name());
+            stmt.executeUpdate();
+        }
+        return 1;
+    }
+
+    private static long maxId(Connection conn, IdSequence sequence) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                     "SELECT MAX(" + sequence.getIdColumn() + ") FROM " + sequence.getTable())) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * The block currently handed out for one table.
+     */
+    private final class Sequence {
+
+        private final IdSequence sequence;
+        private volatile Block block = new Block(0, 0);
+
+        Sequence(IdSequence sequence) {
+            this.sequence = sequence;
+        }
+
+        int next() {
+            while (true) {
+                Block current = block;
+                long id = current.next.getAndIncrement();
+                if (id < current.end) {
+                    return Math.toIntExact(id);
+                }
+                synchronized (this) {
+                    if (block == current) {
+                        long start = reserve(sequence);
+                        block = new Block(start, start + blockSize);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Block {
+
+        private final AtomicLong next;
+        private final long end;
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
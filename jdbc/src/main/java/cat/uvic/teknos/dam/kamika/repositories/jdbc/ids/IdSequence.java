@@ -0,0 +1,31 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.ids;
+
+/**
+ * The rows of the ID_SEQUENCE table, one per table whose IDs are allocated by the application.
+ */
+public enum IdSequence {
+
+    GAME("GAME", "GAME_ID"),
+    GAME_EDITION("GAME_EDITION", "GAME_EDITION_ID"),
+    GAME_CONSOLE("GAME_CONSOLE", "GAME_CONSOLE_ID"),
+    DEVELOPER("DEVELOPER", "DEVELOPER_ID"),
+    PUBLISHER("PUBLISHER", "PUBLISHER_ID"),
+    GENRE("GENRE", "GENRE_ID"),
+    CONSOLE("CONSOLE", "CONSOLE_ID");
+
+    private final String table;
+    private final String idColumn;
+
+    IdSequence(String table, String idColumn) {
+        this.table = table;
+        this.idColumn = idColumn;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String getIdColumn() {
+        return idColumn;
+    }
+}
@@ -0,0 +1,131 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.loaders;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces individual lookups into batched queries, in the style of DataLoader.
+ * <p>
+ * Keys are first {@link #enqueue(Object) enqueued} when an entity that references them is
+ * created. The first {@link #load(Object)} of any key then resolves every pending key at
+ * once, so touching the association of the first of 500 games loads it for all of them.
+ * Resolved values, including misses, are memoized for the lifetime of the loader.
+ * </p>
+ * <p>
+ * Instances are not thread-safe; each one belongs to a single {@link LoadScope}.
+ * </p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class BatchLoader<K, V> {
+
+    private final Function<Set<K>, Map<K, V>> batchFunction;
+    private final Supplier<V> missingValue;
+    private final int maxBatchSize;
+    private final Map<K, V> loaded = new HashMap<>();
+    private final Set<K> pending = new LinkedHashSet<>();
+    private int dispatchCount;
+
+    /**
+     * Creates a loader that resolves missing keys to {@code null}.
+     *
+     * @param batchFunction loads the values of a set of keys with a single query
+     * @param maxBatchSize  the maximum number of keys passed to one call of the batch function
+     */
+    public BatchLoader(Function<Set<K>, Map<K, V>> batchFunction, int maxBatchSize) {
+        this(batchFunction, () -> null, maxBatchSize);
+    }
+
+    /**
+     * Creates a loader with a custom value for keys the batch function does not return.
+     *
+     * @param batchFunction loads the values of a set of keys with a single query
+     * @param missingValue  supplies the value of keys without a result, e.g. an empty set
+     * @param maxBatchSize  the maximum number of keys passed to one call of the batch function
+     */
+    public BatchLoader(Function<Set<K>, Map<K, V>> batchFunction, Supplier<V> missingValue, int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.batchFunction = Objects.requireNonNull(batchFunction);
+        this.missingValue = Objects.requireNonNull(missingValue);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Registers a key to be resolved with the next batch, without loading it yet.
+     *
+     * @param key the key to enqueue; {@code null} keys are ignored
+     */
+    public void enqueue(K key) {
+        if (key != null && !loaded.containsKey(key)) {
+            pending.add(key);
+        }
+    }
+
+    /**
+     * Stores an already known value so that it is never queried.
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public void prime(K key, V value) {
+        pending.remove(key);
+        loaded.put(key, value);
+    }
+
+    /**
+     * Returns the value of a key, dispatching all pending keys if it is not resolved yet.
+     *
+     * @param key the key to load
+     * @return the value, or the missing value if the key does not exist
+     */
+    public V load(K key) {
+        if (!loaded.containsKey(key)) {
+            pending.add(key);
+            dispatch();
+        }
+        return loaded.get(key);
+    }
+
+    /**
+     * Resolves every pending key, using one call of the batch function per chunk of keys.
+     */
+    public void dispatch() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<K> keys = new ArrayList<>(pending);
+        pending.clear();
+
+        for (int from = 0; from < keys.size(); from += maxBatchSize) {
+            Set<K> batch = new LinkedHashSet<>(keys.subList(from, Math.min(from + maxBatchSize, keys.size())));
+            Map<K, V> results = batchFunction.apply(batch);
+            for (K key : batch) {
+                V value = results.get(key);
+                loaded.put(key, value != null ? value : missingValue.get());
+            }
+            dispatchCount++;
+        }
+    }
+
+    /**
+     * Returns how many batch queries this loader has issued.
+     *
+     * @return the number of calls made to the batch function
+     */
+    public int getDispatchCount() {
+        return dispatchCount;
+    }
+
+    /**
+     * Forgets all resolved and pending keys.
+     */
+    public void clear() {
+        loaded.clear();
+        pending.clear();
+    }
+}
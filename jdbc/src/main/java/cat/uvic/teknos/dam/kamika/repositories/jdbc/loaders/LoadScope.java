@@ -0,0 +1,291 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.loaders;
+
+import cat.uvic.teknos.dam.kamika.model.*;
+import cat.uvic.teknos.dam.kamika.model.impl.ConsoleImpl;
+import cat.uvic.teknos.dam.kamika.model.impl.DeveloperImpl;
+import cat.uvic.teknos.dam.kamika.model.impl.GenreImpl;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.ColumnList;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.JdbcDeveloperRepository;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.JdbcGameEditionRepository;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.JdbcGameRepository;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.JdbcGenreRepository;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.JdbcPublisherRepository;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.DataSource;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.CrudException;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.model.LazyJdbcGame;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.model.LazyJdbcGameEdition;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.model.LazyJdbcPublisher;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Groups the batch loaders used by lazy JDBC entities during one unit of work, typically a request.
+ * <p>
+ * Every lazy entity created in a scope enqueues the keys of its associations. When any
+ * association is accessed, all pending keys of that kind are resolved with one
+ * {@code WHERE ID IN (...)} query, and the results are shared by every entity of the scope.
+ * Loaded entities are memoized, so each row is read at most once per scope.
+ * </p>
+ * <p>
+ * A scope is not thread-safe and should be closed when the unit of work ends.
+ * </p>
+ */
+public class LoadScope implements AutoCloseable {
+
+    /**
+     * Maximum number of ids bound to a single {@code IN (...)} list.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private static final ColumnList GAME = JdbcGameRepository.COLUMNS;
+    private static final ColumnList DEVELOPER = JdbcDeveloperRepository.COLUMNS;
+    private static final ColumnList PUBLISHER = JdbcPublisherRepository.COLUMNS;
+    private static final ColumnList GENRE = JdbcGenreRepository.COLUMNS;
+    private static final ColumnList GAME_EDITION = JdbcGameEditionRepository.COLUMNS;
+
+    private static final int GAME_ID = GAME.ordinal("GAME_ID");
+    private static final int GAME_TITLE = GAME.ordinal("TITLE");
+    private static final int GAME_RELEASE_DATE = GAME.ordinal("RELEASE_DATE");
+    private static final int GAME_DEVELOPER_ID = GAME.ordinal("DEVELOPER_ID");
+    private static final int GAME_PUBLISHER_ID = GAME.ordinal("PUBLISHER_ID");
+    private static final int GAME_GENRE_ID = GAME.ordinal("GENRE_ID");
+    private static final int GAME_PEGI_RATING = GAME.ordinal("PEGI_RATING");
+    private static final int GAME_IS_MULTIPLAYER = GAME.ordinal("IS_MULTIPLAYER");
+    private static final int DEVELOPER_ID = DEVELOPER.ordinal("DEVELOPER_ID");
+    private static final int DEVELOPER_NAME = DEVELOPER.ordinal("NAME");
+    private static final int DEVELOPER_COUNTRY = DEVELOPER.ordinal("COUNTRY");
+    private static final int DEVELOPER_FOUNDATION_YEAR = DEVELOPER.ordinal("FOUNDATION_YEAR");
+    private static final int DEVELOPER_VERSION = DEVELOPER.ordinal("VERSION");
+    private static final int PUBLISHER_ID = PUBLISHER.ordinal("PUBLISHER_ID");
+    private static final int PUBLISHER_NAME = PUBLISHER.ordinal("NAME");
+    private static final int PUBLISHER_COUNTRY = PUBLISHER.ordinal("COUNTRY");
+    private static final int PUBLISHER_DEVELOPER_ID = PUBLISHER.ordinal("DEVELOPER_ID");
+    private static final int GENRE_ID = GENRE.ordinal("GENRE_ID");
+    private static final int GENRE_NAME = GENRE.ordinal("NAME");
+    private static final int GENRE_DESCRIPTION = GENRE.ordinal("DESCRIPTION");
+    private static final int EDITION_ID = GAME_EDITION.ordinal("GAME_EDITION_ID");
+    private static final int EDITION_GAME_ID = GAME_EDITION.ordinal("GAME_ID");
+    private static final int EDITION_NAME = GAME_EDITION.ordinal("EDITION_NAME");
+    private static final int EDITION_SPECIAL_CONTENT = GAME_EDITION.ordinal("SPECIAL_CONTENT");
+    private static final int EDITION_PRICE = GAME_EDITION.ordinal("PRICE");
+
+    private final DataSource dataSource;
+    private final BatchLoader<Integer, Developer> developers;
+    private final BatchLoader<Integer, Publisher> publishers;
+    private final BatchLoader<Integer, Genre> genres;
+    private final BatchLoader<Integer, Set<Console>> consolesByGame;
+    private final BatchLoader<Integer, GameEdition> editionsByGame;
+    private final BatchLoader<Integer, Game> games;
+    private final Map<Integer, Console> consoles = new HashMap<>();
+
+    public LoadScope(DataSource dataSource) {
+        this(dataSource, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a scope with a custom batch size.
+     *
+     * @param dataSource the data source used by the batch queries
+     * @param batchSize  the maximum number of ids per query
+     */
+    public LoadScope(DataSource dataSource, int batchSize) {
+        this.dataSource = Objects.requireNonNull(dataSource);
+        this.developers = new BatchLoader<>(this::loadDevelopers, batchSize);
+        this.publishers = new BatchLoader<>(this::loadPublishers, batchSize);
+        this.genres = new BatchLoader<>(this::loadGenres, batchSize);
+        this.consolesByGame = new BatchLoader<>(this::loadConsolesByGame, HashSet::new, batchSize);
+        this.editionsByGame = new BatchLoader<>(this::loadEditionsByGame, batchSize);
+        this.games = new BatchLoader<>(this::loadGames, batchSize);
+    }
+
+    public BatchLoader<Integer, Developer> developers() {
+        return developers;
+    }
+
+    public BatchLoader<Integer, Publisher> publishers() {
+        return publishers;
+    }
+
+    public BatchLoader<Integer, Genre> genres() {
+        return genres;
+    }
+
+    public BatchLoader<Integer, Set<Console>> consolesByGame() {
+        return consolesByGame;
+    }
+
+    public BatchLoader<Integer, GameEdition> editionsByGame() {
+        return editionsByGame;
+    }
+
+    public BatchLoader<Integer, Game> games() {
+        return games;
+    }
+
+    /**
+     * Returns the number of batch queries issued by this scope so far.
+     *
+     * @return the total number of association queries
+     */
+    public int getQueryCount() {
+        return developers.getDispatchCount() + publishers.getDispatchCount() + genres.getDispatchCount()
+                + consolesByGame.getDispatchCount() + editionsByGame.getDispatchCount() + games.getDispatchCount();
+    }
+
+    /**
+     * Maps the current GAME row to a lazy game bound to this scope.
+     *
+     * @param rs a result set positioned on a row with all GAME columns
+     * @return the lazy game
+     * @throws SQLException if a column cannot be read
+     */
+    public Game mapGame(ResultSet rs) throws SQLException {
+        GAME.validate(rs);
+
+        int genreId = rs.getInt(GAME_GENRE_ID);
+        Integer nullableGenreId = rs.wasNull() ? null : genreId;
+
+        LazyJdbcGame game = new LazyJdbcGame(this, rs.getInt(GAME_ID),
+                rs.getInt(GAME_DEVELOPER_ID), rs.getInt(GAME_PUBLISHER_ID), nullableGenreId);
+        game.setTitle(rs.getString(GAME_TITLE));
+
+        Date releaseDate = rs.getDate(GAME_RELEASE_DATE);
+        game.setReleaseDate(releaseDate != null ? releaseDate.toLocalDate() : null);
+
+        game.setPegiRating(rs.getString(GAME_PEGI_RATING));
+        game.setMultiplayer(rs.getBoolean(GAME_IS_MULTIPLAYER));
+        return game;
+    }
+
+    @Override
+    public void close() {
+        developers.clear();
+        publishers.clear();
+        genres.clear();
+        consolesByGame.clear();
+        editionsByGame.clear();
+        games.clear();
+        consoles.clear();
+    }
+
+    private Map<Integer, Developer> loadDevelopers(Set<Integer> ids) {
+        String sql = DEVELOPER.select() + " WHERE DEVELOPER_ID IN (%s)";
+        return queryByIds(sql, ids, "developers", (rs, results) -> {
+            DEVELOPER.validate(rs);
+            Developer developer = new DeveloperImpl();
+            developer.setId(rs.getInt(DEVELOPER_ID));
+            developer.setName(rs.getString(DEVELOPER_NAME));
+            developer.setCountry(rs.getString(DEVELOPER_COUNTRY));
+            developer.setFoundationYear(rs.getInt(DEVELOPER_FOUNDATION_YEAR));
+            developer.setVersion(rs.getInt(DEVELOPER_VERSION));
+            results.put(developer.getId(), developer);
+        });
+    }
+
+    private Map<Integer, Publisher> loadPublishers(Set<Integer> ids) {
+        String sql = PUBLISHER.select() + " WHERE PUBLISHER_ID IN (%s)";
+        return queryByIds(sql, ids, "publishers", (rs, results) -> {
+            PUBLISHER.validate(rs);
+            int developerId = rs.getInt(PUBLISHER_DEVELOPER_ID);
+            Publisher publisher = new LazyJdbcPublisher(this, rs.wasNull() ? null : developerId);
+            publisher.setId(rs.getInt(PUBLISHER_ID));
+            publisher.setName(rs.getString(PUBLISHER_NAME));
+            publisher.setCountry(rs.getString(PUBLISHER_COUNTRY));
+            results.put(publisher.getId(), publisher);
+        });
+    }
+
+    private Map<Integer, Genre> loadGenres(Set<Integer> ids) {
+        String sql = GENRE.select() + " WHERE GENRE_ID IN (%s)";
+        return queryByIds(sql, ids, "genres", (rs, results) -> {
+            GENRE.validate(rs);
+            Genre genre = new GenreImpl();
+            genre.setId(rs.getInt(GENRE_ID));
+            genre.setName(rs.getString(GENRE_NAME));
+            genre.setDescription(rs.getString(GENRE_DESCRIPTION));
+            results.put(genre.getId(), genre);
+        });
+    }
+
+    private Map<Integer, Set<Console>> loadConsolesByGame(Set<Integer> gameIds) {
+        String sql = """
+                SELECT GC.GAME_ID, C.CONSOLE_ID, C.NAME, C.MANUFACTURER, C.RELEASE_YEAR
+                FROM GAME_CONSOLE GC
+                JOIN CONSOLE C ON C.CONSOLE_ID = GC.CONSOLE_ID
+                WHERE GC.GAME_ID IN (%s)""";
+        return queryByIds(sql, gameIds, "consoles", (rs, results) -> {
+            int consoleId = rs.getInt("CONSOLE_ID");
+            Console console = consoles.get(consoleId);
+            if (console == null) {
+                console = new ConsoleImpl();
+                console.setId(consoleId);
+                console.setName(rs.getString("NAME"));
+                console.setManufacturer(rs.getString("MANUFACTURER"));
+                console.setReleaseYear(rs.getInt("RELEASE_YEAR"));
+                consoles.put(consoleId, console);
+            }
+            results.computeIfAbsent(rs.getInt("GAME_ID"), id -> new HashSet<>()).add(console);
+        });
+    }
+
+    private Map<Integer, GameEdition> loadEditionsByGame(Set<Integer> gameIds) {
+        String sql = GAME_EDITION.select() + " WHERE GAME_ID IN (%s) ORDER BY GAME_EDITION_ID";
+        return queryByIds(sql, gameIds, "game editions", (rs, results) -> {
+            GAME_EDITION.validate(rs);
+            int gameId = rs.getInt(EDITION_GAME_ID);
+            // A game exposes a single edition, so the first one created wins
+            if (results.containsKey(gameId)) {
+                return;
+            }
+            GameEdition edition = new LazyJdbcGameEdition(this, gameId);
+            edition.setId(rs.getInt(EDITION_ID));
+            edition.setEditionName(rs.getString(EDITION_NAME));
+            edition.setSpecialContent(rs.getString(EDITION_SPECIAL_CONTENT));
+            edition.setPrice(rs.getDouble(EDITION_PRICE));
+            results.put(gameId, edition);
+        });
+    }
+
+    private Map<Integer, Game> loadGames(Set<Integer> ids) {
+        String sql = GAME.select() + " WHERE GAME_ID IN (%s)";
+        return queryByIds(sql, ids, "games", (rs, results) -> {
+            Game game = mapGame(rs);
+            results.put(game.getId(), game);
+        });
+    }
+
+    private <V> Map<Integer, V> queryByIds(String sqlTemplate, Set<Integer> ids, String description,
+                                           RowCollector<V> collector) {
+        String sql = String.format(sqlTemplate, String.join(", ", Collections.nCopies(ids.size(), "?")));
+        Map<Integer, V> results = new HashMap<>();
+
+        try (Connection conn = dataSource.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            for (Integer id : ids) {
+                stmt.setInt(index++, id);
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    collector.collect(rs, results);
+                }
+            }
+
+        } catch (SQLException e) {
+            throw new CrudException("Error loading " + description, e);
+        }
+        return results;
+    }
+
+    @FunctionalInterface
+    private interface RowCollector<V> {
+        void collect(ResultSet rs, Map<Integer, V> results) throws SQLException;
+    }
+}
@@ -0,0 +1,224 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.migrations;
+
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.DataSource;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.MigrationException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Applies versioned SQL migrations from the classpath at startup.
+ * <p>
+ * Migrations live under {@code /db/migration}, are listed in order in
+ * {@code migrations.txt} and are named {@code V<version>__<description>.sql}. Every applied
+ * migration is recorded in the SCHEMA_VERSION table together with a checksum, so each one
+ * runs exactly once per database and edits to an already applied file are detected.
+ * </p>
+ * <p>
+ * MySQL commits DDL implicitly, so a migration that fails halfway is not rolled back;
+ * keep one logical change per file.
+ * </p>
+ */
+public class MigrationRunner {
+
+    public static final String DEFAULT_LOCATION = "/db/migration";
+
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    private static final String CREATE_HISTORY_TABLE = """
+            CREATE TABLE IF NOT EXISTS SCHEMA_VERSION (
+                VERSION INT NOT NULL,
+                DESCRIPTION VARCHAR(200) NOT NULL,
+                CHECKSUM BIGINT NOT NULL,
+                APPLIED_AT TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                PRIMARY KEY (VERSION)
+            )""";
+
+    private final DataSource dataSource;
+    private final String location;
+
+    public MigrationRunner(DataSource dataSource) {
+        this(dataSource, DEFAULT_LOCATION);
+    }
+
+    /**
+     * Creates a runner that reads migrations from a custom classpath location.
+     *
+     * @param dataSource the data source of the database to migrate
+     * @param location   the classpath directory containing {@code migrations.txt}
+     */
+    public MigrationRunner(DataSource dataSource, String location) {
+        this.dataSource = Objects.requireNonNull(dataSource);
+        this.location = location.endsWith("/") ? location.substring(0, location.length() - 1) : location;
+    }
+
+    /**
+     * Applies every migration that has not been applied yet, in version order.
+     *
+     * @return the number of migrations applied
+     * @throws MigrationException if a migration cannot be read or fails
+     */
+    public int migrate() {
+        List<Migration> migrations = loadMigrations();
+
+        try (Connection conn = dataSource.getConnection()) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(CREATE_HISTORY_TABLE);
+            }
+
+            Map<Integer, Long> applied = appliedVersions(conn);
+            int count = 0;
+            for (Migration migration : migrations) {
+                Long checksum = applied.get(migration.version());
+                if (checksum == null) {
+                    apply(conn, migration);
+                    count++;
+                } else if (checksum != migration.checksum()) {
+                    throw new MigrationException("Migration V" + migration.version()
+                            + " has changed since it was applied");
+                }
+            }
+            return count;
+
+        } catch (SQLException e) {
+            throw new MigrationException("Error applying migrations", e);
+        }
+    }
+
+    /**
+     * Reads the migrations listed in the index file, sorted by version.
+     *
+     * @return the available migrations
+     */
+    public List<Migration> loadMigrations() {
+        List<Migration> migrations = new ArrayList<>();
+        Set<Integer> versions = new HashSet<>();
+
+        for (String line : readLines(location + "/migrations.txt")) {
+            String fileName = line.trim();
+            if (fileName.isEmpty() || fileName.startsWith("#")) {
+                continue;
+            }
+            Matcher matcher = FILE_NAME.matcher(fileName);
+            if (!matcher.matches()) {
+                throw new MigrationException("Invalid migration file name: " + fileName);
+            }
+            int version = Integer.parseInt(matcher.group(1));
+            if (!versions.add(version)) {
+                throw new MigrationException("Duplicate migration version: " + version);
+            }
+
+            String script = String.join("\n", readLines(location + "/" + fileName));
+            CRC32 crc = new CRC32();
+            crc.update(script.getBytes(StandardCharsets.UTF_8));
+
+            migrations.add(new Migration(version, matcher.group(2).replace('_', ' '), script, crc.getValue()));
+        }
+
+        migrations.sort(Comparator.comparingInt(Migration::version));
+        return migrations;
+    }
+
+    /**
+     * Splits a script into statements on semicolons at the end of a line,
+     * ignoring blank lines and {@code --} comments.
+     *
+     * @param script the SQL script
+     * @return the statements, without the trailing semicolons
+     */
+    static List<String> splitStatements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+
+        for (String line : script.split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            current.append(line).append('\n');
+            if (trimmed.endsWith(";")) {
+                String statement = current.toString().trim();
+                statements.add(statement.substring(0, statement.length() - 1));
+                current.setLength(0);
+            }
+        }
+
+        if (!current.toString().isBlank()) {
+            statements.add(current.toString().trim());
+        }
+        return statements;
+    }
+
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : splitStatements(migration.script())) {
+                stmt.execute(sql);
+            }
+
+            String insert = "INSERT INTO SCHEMA_VERSION (VERSION, DESCRIPTION, CHECKSUM) VALUES (?, ?, ?)";
+            try (PreparedStatement history = conn.prepareStatement(insert)) {
+                history.setInt(1, migration.version());
+                history.setString(2, migration.description());
+                history.setLong(3, migration.checksum());
+                history.executeUpdate();
+            }
+            conn.commit();
+
+        } catch (SQLException e) {
+            conn.rollback();
+            throw new MigrationException("Migration V" + migration.version() + " failed", e);
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private Map<Integer, Long> appliedVersions(Connection conn) throws SQLException {
+        Map<Integer, Long> applied = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT VERSION, CHECKSUM FROM SCHEMA_VERSION")) {
+            while (rs.next()) {
+                applied.put(rs.getInt(1), rs.getLong(2));
+            }
+        }
+        return applied;
+    }
+
+    private List<String> readLines(String resource) {
+        try (InputStream inputStream = getClass().getResourceAsStream(resource)) {
+            if (inputStream == null) {
+                throw new MigrationException("Migration resource not found: " + resource);
+            }
+            List<String> lines = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines.add(line);
+                }
+            }
+            return lines;
+        } catch (IOException e) {
+            throw new MigrationException("Error reading " + resource, e);
+        }
+    }
+
+    /**
+     * A migration read from the classpath.
+     *
+     * @param version     the version taken from the file name
+     * @param description the description taken from the file name
+     * @param script      the SQL script
+     * @param checksum    the CRC32 of the script
+     */
+    public record Migration(int version, String description, String script, long checksum) {
+    }
+}
@@ -0,0 +1,131 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.model;
+
+import cat.uvic.teknos.dam.kamika.model.*;
+import cat.uvic.teknos.dam.kamika.model.impl.GameImpl;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.loaders.LoadScope;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Game whose associations are loaded on first access through a {@link LoadScope}.
+ * <p>
+ * The foreign keys read from the GAME row are enqueued in the scope when the game is created,
+ * so the first call to {@link #getDeveloper()} on any game of the scope loads the developers
+ * of all of them with a single query. Calling a setter replaces the lazy value.
+ * </p>
+ */
+public class LazyJdbcGame extends GameImpl implements JdbcGame {
+
+    private final LoadScope scope;
+    private final int developerId;
+    private final int publisherId;
+    private final Integer genreId;
+
+    private boolean developerLoaded;
+    private boolean publisherLoaded;
+    private boolean genresLoaded;
+    private boolean consolesLoaded;
+    private boolean editionLoaded;
+
+    /**
+     * Creates a lazy game and registers its association keys in the scope.
+     *
+     * @param scope       the scope that resolves the associations
+     * @param id          the game ID
+     * @param developerId the DEVELOPER_ID foreign key
+     * @param publisherId the PUBLISHER_ID foreign key
+     * @param genreId     the GENRE_ID foreign key, or {@code null} if the game has no genre
+     */
+    public LazyJdbcGame(LoadScope scope, int id, int developerId, int publisherId, Integer genreId) {
+        this.scope = scope;
+        this.developerId = developerId;
+        this.publisherId = publisherId;
+        this.genreId = genreId;
+        setId(id);
+
+        scope.developers().enqueue(developerId);
+        scope.publishers().enqueue(publisherId);
+        scope.genres().enqueue(genreId);
+        scope.consolesByGame().enqueue(id);
+        scope.editionsByGame().enqueue(id);
+        scope.games().prime(id, this);
+    }
+
+    @Override
+    public Developer getDeveloper() {
+        if (!developerLoaded) {
+            setDeveloper(scope.developers().load(developerId));
+        }
+        return super.getDeveloper();
+    }
+
+    @Override
+    public void setDeveloper(Developer developer) {
+        super.setDeveloper(developer);
+        developerLoaded = true;
+    }
+
+    @Override
+    public Publisher getPublisher() {
+        if (!publisherLoaded) {
+            setPublisher(scope.publishers().load(publisherId));
+        }
+        return super.getPublisher();
+    }
+
+    @Override
+    public void setPublisher(Publisher publisher) {
+        super.setPublisher(publisher);
+        publisherLoaded = true;
+    }
+
+    @Override
+    public Set<Genre> getGenres() {
+        if (!genresLoaded) {
+            Set<Genre> genres = new HashSet<>();
+            if (genreId != null) {
+                Genre genre = scope.genres().load(genreId);
+                if (genre != null) {
+                    genres.add(genre);
+                }
+            }
+            setGenres(genres);
+        }
+        return super.getGenres();
+    }
+
+    @Override
+    public void setGenres(Set<Genre> genres) {
+        super.setGenres(genres);
+        genresLoaded = true;
+    }
+
+    @Override
+    public Set<Console> getConsoles() {
+        if (!consolesLoaded) {
+            setConsoles(new HashSet<>(scope.consolesByGame().load(getId())));
+        }
+        return super.getConsoles();
+    }
+
+    @Override
+    public void setConsoles(Set<Console> consoles) {
+        super.setConsoles(consoles);
+        consolesLoaded = true;
+    }
+
+    @Override
+    public GameEdition getEdition() {
+        if (!editionLoaded) {
+            setEdition(scope.editionsByGame().load(getId()));
+        }
+        return super.getEdition();
+    }
+
+    @Override
+    public void setEdition(GameEdition edition) {
+        super.setEdition(edition);
+        editionLoaded = true;
+    }
+}
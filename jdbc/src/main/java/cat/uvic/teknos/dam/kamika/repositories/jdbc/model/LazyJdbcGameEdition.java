@@ -0,0 +1,42 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.model;
+
+import cat.uvic.teknos.dam.kamika.model.Game;
+import cat.uvic.teknos.dam.kamika.model.impl.GameEditionImpl;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.loaders.LoadScope;
+
+/**
+ * Game edition whose game is loaded on first access through a {@link LoadScope}.
+ * Games already loaded in the same scope are reused instead of being queried again.
+ */
+public class LazyJdbcGameEdition extends GameEditionImpl implements JdbcGameEdition {
+
+    private final LoadScope scope;
+    private final int gameId;
+    private boolean gameLoaded;
+
+    /**
+     * Creates a lazy game edition and registers its game key in the scope.
+     *
+     * @param scope  the scope that resolves the game
+     * @param gameId the GAME_ID foreign key
+     */
+    public LazyJdbcGameEdition(LoadScope scope, int gameId) {
+        this.scope = scope;
+        this.gameId = gameId;
+        scope.games().enqueue(gameId);
+    }
+
+    @Override
+    public Game getGame() {
+        if (!gameLoaded) {
+            setGame(scope.games().load(gameId));
+        }
+        return super.getGame();
+    }
+
+    @Override
+    public void setGame(Game game) {
+        super.setGame(game);
+        gameLoaded = true;
+    }
+}
@@ -0,0 +1,42 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.model;
+
+import cat.uvic.teknos.dam.kamika.model.Developer;
+import cat.uvic.teknos.dam.kamika.model.impl.PublisherImpl;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.loaders.LoadScope;
+
+/**
+ * Publisher whose developer is loaded on first access through a {@link LoadScope}.
+ */
+public class LazyJdbcPublisher extends PublisherImpl implements JdbcPublisher {
+
+    private final LoadScope scope;
+    private final Integer developerId;
+    private boolean developerLoaded;
+
+    /**
+     * Creates a lazy publisher and registers its developer key in the scope.
+     *
+     * @param scope       the scope that resolves the developer
+     * @param developerId the DEVELOPER_ID foreign key, or {@code null} if there is none
+     */
+    public LazyJdbcPublisher(LoadScope scope, Integer developerId) {
+        this.scope = scope;
+        this.developerId = developerId;
+        this.developerLoaded = developerId == null;
+        scope.developers().enqueue(developerId);
+    }
+
+    @Override
+    public Developer getDeveloper() {
+        if (!developerLoaded) {
+            setDeveloper(scope.developers().load(developerId));
+        }
+        return super.getDeveloper();
+    }
+
+    @Override
+    public void setDeveloper(Developer developer) {
+        super.setDeveloper(developer);
+        developerLoaded = true;
+    }
+}
@@ -0,0 +1,59 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.sharding;
+
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.CrudException;
+
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+/**
+ * The rows of one table read from every shard, keyed by their generated ID.
+ * <p>
+ * The entities compare only some of their fields, e.g. two editions with the same name and
+ * price are equal whatever their game, so merging shards into a {@link HashSet} would drop
+ * distinct rows. This set keeps one element per ID instead, iterates in ID order like a
+ * query on a single database, and cannot be modified.
+ * </p>
+ *
+ * @param <T> the entity type
+ */
+final class ShardRows<T> extends AbstractSet<T> {
+
+    private final SortedMap<Integer, T> rows;
+
+    private ShardRows(SortedMap<Integer, T> rows) {
+        this.rows = rows;
+    }
+
+    /**
+     * Merges the rows returned by every shard.
+     *
+     * @param shards the rows of each shard
+     * @param idOf   returns the generated ID of a row
+     * @param <T>    the entity type
+     * @return the merged rows
+     * @throws CrudException if two shards hold a row with the same ID
+     */
+    static <T> Set<T> merge(List<? extends Collection<T>> shards, ToIntFunction<? super T> idOf) {
+        SortedMap<Integer, T> rows = new TreeMap<>();
+        for (Collection<T> shard : shards) {
+            for (T row : shard) {
+                int id = idOf.applyAsInt(row);
+                if (rows.putIfAbsent(id, row) != null) {
+                    throw new CrudException("ID " + id + " was found on more than one shard; "
+                            + "check the auto-increment settings of the shards");
+                }
+            }
+        }
+        return new ShardRows<>(rows);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return Collections.unmodifiableCollection(rows.values()).iterator();
+    }
+
+    @Override
+    public int size() {
+        return rows.size();
+    }
+}
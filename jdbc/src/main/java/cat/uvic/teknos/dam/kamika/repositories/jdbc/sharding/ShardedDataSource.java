@@ -0,0 +1,171 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.sharding;
+
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.DataSource;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.CrudException;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.DataSourceException;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * The databases the GAME, GAME_EDITION and GAME_CONSOLE tables are spread over.
+ * <p>
+ * A row lives on shard {@code (id - 1) mod N}, where {@code id} is the GAME_ID for games and
+ * the row's own generated ID for editions and game-console relations, which are always stored
+ * next to their game. IDs are made shard-aware by MySQL itself: every write connection of
+ * shard {@code i} sets {@code auto_increment_increment = N} and
+ * {@code auto_increment_offset = i + 1}, so each shard only generates IDs that map back to it.
+ * </p>
+ * <p>
+ * Reference tables such as GENRE, CONSOLE, DEVELOPER and PUBLISHER are not sharded. They are
+ * written to a single database and must be replicated to every shard, where the foreign keys
+ * of the game tables point to them. The shard count cannot change once data has been written.
+ * </p>
+ */
+public class ShardedDataSource implements AutoCloseable {
+
+    private final List<DataSource> shards;
+    private final AtomicInteger nextInsertShard = new AtomicInteger();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Creates the sharding layer.
+     *
+     * @param shards the data sources of the shards, in shard order
+     */
+    public ShardedDataSource(List<DataSource> shards) {
+        if (shards.isEmpty()) {
+            throw new DataSourceException("At least one shard is required");
+        }
+        List<DataSource> wrapped = new ArrayList<>();
+        for (int i = 0; i < shards.size(); i++) {
+            wrapped.add(new ShardDataSource(shards.get(i), i, shards.size()));
+        }
+        this.shards = List.copyOf(wrapped);
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Returns the shard that stores a row.
+     *
+     * @param id a GAME_ID, or the generated ID of an edition or game-console relation
+     * @return the shard index
+     */
+    public int shardOf(int id) {
+        if (id <= 0) {
+            throw new CrudException("Invalid id for shard routing: " + id);
+        }
+        return Math.floorMod(id - 1, shards.size());
+    }
+
+    /**
+     * Returns the data source of a shard, whose write connections generate shard-aware IDs.
+     *
+     * @param index the shard index
+     * @return the shard's data source
+     */
+    public DataSource shard(int index) {
+        return shards.get(index);
+    }
+
+    /**
+     * Picks the shard for a new game, spreading inserts evenly.
+     *
+     * @return the shard index
+     */
+    public int nextInsertShard() {
+        return Math.floorMod(nextInsertShard.getAndIncrement(), shards.size());
+    }
+
+    /**
+     * Runs a call on every shard in parallel and waits for all of them.
+     *
+     * @param call the call to run, given the shard index
+     * @param <T>  the result type
+     * @return the results, in shard order
+     * @throws CrudException if any shard fails
+     */
+    public <T> List<T> scatter(Function<Integer, T> call) {
+        if (shards.size() == 1) {
+            return List.of(call.apply(0));
+        }
+
+        List<Future<T>> futures = new ArrayList<>();
+        for (int i = 0; i < shards.size(); i++) {
+            int index = i;
+            futures.add(executor.submit(() -> call.apply(index)));
+        }
+
+        List<T> results = new ArrayList<>();
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new CrudException("Interrupted while querying shards", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new CrudException("Error querying shards", e.getCause());
+        }
+        return results;
+    }
+
+    @Override
+    public void close() throws Exception {
+        executor.shutdownNow();
+        for (DataSource shard : shards) {
+            shard.close();
+        }
+    }
+
+    /**
+     * Configures the auto-increment settings of every write connection of one shard.
+     */
+    private static final class ShardDataSource implements DataSource {
+
+        private final DataSource delegate;
+        private final String configureIds;
+
+        ShardDataSource(DataSource delegate, int index, int shardCount) {
+            this.delegate = delegate;
+            this.configureIds = "SET @@SESSION.auto_increment_increment = " + shardCount
+                    + ", @@SESSION.auto_increment_offset = " + (index + 1);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = delegate.getConnection();
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute(configureIds);
+            } catch (SQLException e) {
+                connection.close();
+                throw e;
+            }
+            return connection;
+        }
+
+        @Override
+        public Connection getReadConnection() throws SQLException {
+            return delegate.getReadConnection();
+        }
+
+        @Override
+        public void close() throws Exception {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.sharding;
+
+import cat.uvic.teknos.dam.kamika.model.GameConsole;
+import cat.uvic.teknos.dam.kamika.repositories.GameConsoleRepository;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.JdbcGameConsoleRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Game-console repository over a {@link ShardedDataSource}.
+ * Relations are stored on the shard of their game.
+ */
+public class ShardedGameConsoleRepository implements GameConsoleRepository {
+
+    private final ShardedDataSource shards;
+    private final List<JdbcGameConsoleRepository> repositories = new ArrayList<>();
+
+    public ShardedGameConsoleRepository(ShardedDataSource shards) {
+        this.shards = Objects.requireNonNull(shards);
+        for (int i = 0; i < shards.getShardCount(); i++) {
+            repositories.add(new JdbcGameConsoleRepository(shards.shard(i)));
+        }
+    }
+
+    /**
+     * Looks the relation up on the shard its shard-aware GAME_CONSOLE_ID was generated on.
+     */
+    @Override
+    public Optional<GameConsole> findByGameConsoleId(int gameConsoleId) {
+        return repositoryOf(gameConsoleId).findByGameConsoleId(gameConsoleId);
+    }
+
+    @Override
+    public boolean deleteByGameConsoleId(int gameConsoleId) {
+        return repositoryOf(gameConsoleId).deleteByGameConsoleId(gameConsoleId);
+    }
+
+    @Override
+    public Optional<GameConsole> findById(int gameId, int consoleId) {
+        return repositoryOf(gameId).findById(gameId, consoleId);
+    }
+
+    @Override
+    public GameConsole save(GameConsole gameConsole) {
+        Objects.requireNonNull(gameConsole, "Cannot save null game-console relation");
+        return repositoryOf(gameConsole.getGameId()).save(gameConsole);
+    }
+
+    @Override
+    public void delete(GameConsole gameConsole) {
+        Objects.requireNonNull(gameConsole, "Cannot delete a null entity");
+        repositoryOf(gameConsole.getGameId()).delete(gameConsole);
+    }
+
+    @Override
+    public boolean deleteById(int gameId, int consoleId) {
+        return repositoryOf(gameId).deleteById(gameId, consoleId);
+    }
+
+    @Override
+    public long count() {
+        return shards.scatter(shard -> repositories.get(shard).count()).stream()
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+
+    @Override
+    public boolean existsById(int gameId, int consoleId) {
+        return repositoryOf(gameId).existsById(gameId, consoleId);
+    }
+
+    private JdbcGameConsoleRepository repositoryOf(int id) {
+        return repositories.get(shards.shardOf(id));
+    }
+}
@@ -0,0 +1,110 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.sharding;
+
+import cat.uvic.teknos.dam.kamika.model.GameEdition;
+import cat.uvic.teknos.dam.kamika.repositories.GameEditionRepository;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.JdbcGameEditionRepository;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.CrudException;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Game edition repository over a {@link ShardedDataSource}.
+ * Editions are stored on the shard of their game.
+ */
+public class ShardedGameEditionRepository implements GameEditionRepository {
+
+    private final ShardedDataSource shards;
+    private final List<JdbcGameEditionRepository> repositories = new ArrayList<>();
+
+    public ShardedGameEditionRepository(ShardedDataSource shards) {
+        this.shards = Objects.requireNonNull(shards);
+        for (int i = 0; i < shards.getShardCount(); i++) {
+            repositories.add(new JdbcGameEditionRepository(shards.shard(i)));
+        }
+    }
+
+    @Override
+    public Optional<GameEdition> findByGameIdAndEditionName(int gameId, String editionName) {
+        return repositoryOf(gameId).findByGameIdAndEditionName(gameId, editionName);
+    }
+
+    @Override
+    public List<GameEdition> findByGameId(int gameId) {
+        return repositoryOf(gameId).findByGameId(gameId);
+    }
+
+    @Override
+    public GameEdition save(GameEdition gameEdition) {
+        if (gameEdition == null || gameEdition.getGame() == null || gameEdition.getGame().getId() <= 0) {
+            throw new IllegalArgumentException("Game must exist and have a valid ID");
+        }
+        return repositoryOf(gameEdition.getGame().getId()).save(gameEdition);
+    }
+
+    @Override
+    public void delete(GameEdition gameEdition) {
+        if (gameEdition == null || gameEdition.getGame() == null || gameEdition.getEditionName() == null) {
+            throw new CrudException("Game edition data is invalid");
+        }
+        repositoryOf(gameEdition.getGame().getId()).delete(gameEdition);
+    }
+
+    @Override
+    public void deleteByGameIdAndEditionName(int gameId, String editionName) {
+        repositoryOf(gameId).deleteByGameIdAndEditionName(gameId, editionName);
+    }
+
+    @Override
+    public long count() {
+        return shards.scatter(shard -> repositories.get(shard).count()).stream()
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+
+    @Override
+    public boolean existsByGameIdAndEditionName(int gameId, String editionName) {
+        return repositoryOf(gameId).existsByGameIdAndEditionName(gameId, editionName);
+    }
+
+    /**
+     * Searches every shard in parallel and returns the match of the lowest shard.
+     */
+    @Override
+    public Optional<GameEdition> findByEditionName(String editionName) {
+        return shards.scatter(shard -> repositories.get(shard).findByEditionName(editionName)).stream()
+                .flatMap(Optional::stream)
+                .findFirst();
+    }
+
+    /**
+     * Reads every shard in parallel and merges the editions by GAME_EDITION_ID, in ID order.
+     * Editions of different games with the same name and price are equal, so they are kept
+     * apart by ID rather than collected into a {@link HashSet}.
+     */
+    @Override
+    public Set<GameEdition> findAll() {
+        return ShardRows.merge(shards.scatter(shard -> {
+            try (Stream<GameEdition> editions = repositories.get(shard).streamAll()) {
+                return editions.toList();
+            }
+        }), GameEdition::getId);
+    }
+
+    @Override
+    public Stream<GameEdition> streamAll() {
+        return repositories.stream().flatMap(JdbcGameEditionRepository::streamAll);
+    }
+
+    /**
+     * Looks the edition up on the shard its shard-aware GAME_EDITION_ID was generated on.
+     */
+    @Override
+    public Optional<GameEdition> findById(int id) {
+        return repositoryOf(id).findById(id);
+    }
+
+    private JdbcGameEditionRepository repositoryOf(int id) {
+        return repositories.get(shards.shardOf(id));
+    }
+}
@@ -0,0 +1,129 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.sharding;
+
+import cat.uvic.teknos.dam.kamika.model.Game;
+import cat.uvic.teknos.dam.kamika.repositories.GameRepository;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.JdbcGameRepository;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.CrudException;
+
+import java.sql.SQLException;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Game repository over a {@link ShardedDataSource}.
+ * <p>
+ * Operations on one game go to the shard of its GAME_ID, and new games are spread over the
+ * shards in turn. {@link #findAll()} and {@link #count()} query every shard in parallel and
+ * merge the results.
+ * </p>
+ */
+public class ShardedGameRepository implements GameRepository {
+
+    private final ShardedDataSource shards;
+    private final List<JdbcGameRepository> repositories = new ArrayList<>();
+
+    public ShardedGameRepository(ShardedDataSource shards) {
+        this.shards = Objects.requireNonNull(shards);
+        for (int i = 0; i < shards.getShardCount(); i++) {
+            repositories.add(new JdbcGameRepository(shards.shard(i)));
+        }
+    }
+
+    @Override
+    public Optional<Game> findById(int id) {
+        return repositoryOf(id).findById(id);
+    }
+
+    @Override
+    public Game save(Game game) throws SQLException {
+        if (game.getId() > 0) {
+            return repositoryOf(game.getId()).save(game);
+        }
+
+        int shard = shards.nextInsertShard();
+        Game saved = repositories.get(shard).save(game);
+        if (shards.shardOf(saved.getId()) != shard) {
+            throw new CrudException("Game " + saved.getId() + " was generated on shard " + shard
+                    + ", which does not own it; check the auto-increment settings of the shard");
+        }
+        return saved;
+    }
+
+    @Override
+    public void delete(Game game) {
+        if (game == null || game.getId() <= 0) {
+            throw new IllegalArgumentException("Invalid game ID");
+        }
+        repositoryOf(game.getId()).delete(game);
+    }
+
+    @Override
+    public boolean deleteById(int id) {
+        return repositoryOf(id).deleteById(id);
+    }
+
+    @Override
+    public long count() {
+        return shards.scatter(shard -> repositories.get(shard).count()).stream()
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+
+    @Override
+    public boolean existsById(int id) {
+        return id > 0 && repositoryOf(id).existsById(id);
+    }
+
+    /**
+     * Reads every shard in parallel and merges the games by GAME_ID, in ID order.
+     */
+    @Override
+    public Set<Game> findAll() {
+        return ShardRows.merge(shards.scatter(shard -> {
+            try (Stream<Game> games = repositories.get(shard).streamAll()) {
+                return games.toList();
+            }
+        }), Game::getId);
+    }
+
+    /**
+     * Streams the shards one after the other, keeping a single open result set at a time.
+     */
+    @Override
+    public Stream<Game> streamAll() {
+        return repositories.stream().flatMap(JdbcGameRepository::streamAll);
+    }
+
+    @Override
+    public Stream<Game> streamByDeveloperId(int developerId) {
+        return repositories.stream().flatMap(repository -> repository.streamByDeveloperId(developerId));
+    }
+
+    @Override
+    public Optional<Game> findByIdWithDetails(int id) {
+        return repositoryOf(id).findByIdWithDetails(id);
+    }
+
+    /**
+     * Fetches the first {@code offset + limit} games of every shard in parallel and merges
+     * them by GAME_ID, so the page is the same as on a single database.
+     */
+    @Override
+    public List<Game> findAllWithDetails(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit must not be negative");
+        }
+        int window = (int) Math.min(Integer.MAX_VALUE, (long) offset + limit);
+
+        return shards.scatter(shard -> repositories.get(shard).findAllWithDetails(0, window)).stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparingInt(Game::getId))
+                .skip(offset)
+                .limit(limit)
+                .toList();
+    }
+
+    private JdbcGameRepository repositoryOf(int gameId) {
+        return repositories.get(shards.shardOf(gameId));
+    }
+}
@@ -0,0 +1,64 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.sharding;
+
+import cat.uvic.teknos.dam.kamika.repositories.*;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.*;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.DataSource;
+
+import java.util.Objects;
+
+/**
+ * Factory that provides sharded repositories for the GAME family of tables and plain JDBC
+ * repositories, on a single database, for the replicated reference tables.
+ */
+public class ShardedRepositoryFactory implements RepositoryFactory {
+
+    private final ShardedDataSource shards;
+    private final DataSource referenceDataSource;
+
+    /**
+     * Creates the factory.
+     *
+     * @param shards              the shards of the GAME, GAME_EDITION and GAME_CONSOLE tables
+     * @param referenceDataSource the database the reference tables are written to and
+     *                            replicated from
+     */
+    public ShardedRepositoryFactory(ShardedDataSource shards, DataSource referenceDataSource) {
+        this.shards = Objects.requireNonNull(shards);
+        this.referenceDataSource = Objects.requireNonNull(referenceDataSource);
+    }
+
+    @Override
+    public GameRepository getGameRepository() {
+        return new ShardedGameRepository(shards);
+    }
+
+    @Override
+    public GameEditionRepository getGameEditionRepository() {
+        return new ShardedGameEditionRepository(shards);
+    }
+
+    @Override
+    public GameConsoleRepository getGameConsoleRepository() {
+        return new ShardedGameConsoleRepository(shards);
+    }
+
+    @Override
+    public DeveloperRepository getDeveloperRepository() {
+        return new JdbcDeveloperRepository(referenceDataSource);
+    }
+
+    @Override
+    public PublisherRepository getPublisherRepository() {
+        return new JdbcPublisherRepository(referenceDataSource);
+    }
+
+    @Override
+    public GenreRepository getGenreRepository() {
+        return new JdbcGenreRepository(referenceDataSource);
+    }
+
+    @Override
+    public ConsoleRepository getConsoleRepository() {
+        return new JdbcConsoleRepository(referenceDataSource);
+    }
+}
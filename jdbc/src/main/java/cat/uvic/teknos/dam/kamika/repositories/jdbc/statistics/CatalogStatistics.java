@@ -0,0 +1,357 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.statistics;
+
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.DataSource;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.CrudException;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Aggregate counters of the catalog, kept in the CATALOG_COUNTER summary table and in memory.
+ * <p>
+ * Repositories record the counter deltas of every write through {@link #write}, which applies
+ * them to the summary table in the same transaction as the write and to the in-memory copy
+ * once it has committed. Reads such as {@code count()} are then answered from memory in
+ * constant time instead of scanning the base tables.
+ * </p>
+ * <p>
+ * Writes made outside the repositories, or by other application instances, are only seen
+ * after {@link #reconcile()} recomputes every counter from the base tables. It can be
+ * scheduled with {@link #startReconciliation(long, TimeUnit)}. While a reconciliation runs,
+ * writes wait before committing.
+ * </p>
+ */
+public class CatalogStatistics implements AutoCloseable {
+
+    /**
+     * Statistics that record nothing; repositories use it until real statistics are set.
+     */
+    public static final CatalogStatistics DISABLED = new CatalogStatistics();
+
+    private static final String UPSERT = "INSERT INTO CATALOG_COUNTER (COUNTER_NAME, COUNTER_KEY, COUNTER_VALUE) "
+            + "VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE COUNTER_VALUE = COUNTER_VALUE + ?";
+
+    private final DataSource dataSource;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile Map<Counter, ConcurrentMap<String, AtomicLong>> counters;
+    private ScheduledExecutorService scheduler;
+    private volatile RuntimeException lastReconcileFailure;
+
+    public CatalogStatistics(DataSource dataSource) {
+        this.dataSource = Objects.requireNonNull(dataSource);
+    }
+
+    private CatalogStatistics() {
+        this.dataSource = null;
+    }
+
+    /**
+     * Returns whether writes are recorded by these statistics.
+     *
+     * @return {@code false} only for {@link #DISABLED}
+     */
+    public boolean isEnabled() {
+        return dataSource != null;
+    }
+
+    /**
+     * Returns whether the counters are in memory and can answer reads.
+     *
+     * @return {@code true} once {@link #load()} or {@link #reconcile()} has completed
+     */
+    public boolean isLoaded() {
+        return counters != null;
+    }
+
+    /**
+     * Runs a repository write and records its counter changes in the same transaction.
+     * <p>
+     * When statistics are disabled the write runs as before, in auto-commit mode, and its
+     * changes are discarded.
+     * </p>
+     *
+     * @param conn  the connection the write runs on
+     * @param write the write, which reports its changes to the given {@link CounterChanges}
+     * @param <T>   the result type
+     * @return the result of the write
+     * @throws SQLException if the write or the counter update fails; the transaction is rolled back
+     */
+    public <T> T write(Connection conn, Write<T> write) throws SQLException {
+        if (!isEnabled()) {
+            return write.execute(new CounterChanges(false));
+        }
+
+        CounterChanges changes = new CounterChanges(true);
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            T result = write.execute(changes);
+
+            lock.readLock().lock();
+            try {
+                record(conn, changes);
+                conn.commit();
+                publish(changes);
+            } finally {
+                lock.readLock().unlock();
+            }
+            return result;
+
+        } catch (SQLException | RuntimeException e) {
+            rollbackQuietly(conn, e);
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Returns a total counter.
+     *
+     * @param counter the counter
+     * @return the current value
+     * @throws IllegalStateException if the counters are not loaded
+     */
+    public long get(Counter counter) {
+        return get(counter, Counter.TOTAL_KEY);
+    }
+
+    /**
+     * Returns the value of a key.
+     *
+     * @param counter the counter
+     * @param key     the key, e.g. a genre ID or a country name
+     * @return the current value, or 0 if the key has no entry
+     * @throws IllegalStateException if the counters are not loaded
+     */
+    public long get(Counter counter, Object key) {
+        AtomicLong value = loadedCounters().get(counter).get(counter.normalize(key));
+        return value == null ? 0 : value.get();
+    }
+
+    /**
+     * Returns a snapshot of every non-zero value of a counter.
+     *
+     * @param counter the counter
+     * @return the values by normalized key
+     * @throws IllegalStateException if the counters are not loaded
+     */
+    public Map<String, Long> getAll(Counter counter) {
+        Map<String, Long> snapshot = new HashMap<>();
+        loadedCounters().get(counter).forEach((key, value) -> {
+            long count = value.get();
+            if (count != 0) {
+                snapshot.put(key, count);
+            }
+        });
+        return snapshot;
+    }
+
+    /**
+     * Loads the counters from the summary table, reconciling first if it has never been filled.
+     *
+     * @throws CrudException if the summary table cannot be read
+     */
+    public void load() {
+        requireEnabled();
+        lock.writeLock().lock();
+        try {
+            Map<Counter, ConcurrentMap<String, AtomicLong>> loaded = emptyCounters();
+            boolean empty = true;
+            try (Connection conn = dataSource.getConnection();
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNTER_NAME, COUNTER_KEY, COUNTER_VALUE FROM CATALOG_COUNTER")) {
+
+                while (rs.next()) {
+                    loaded.get(Counter.valueOf(rs.getString(1))).put(rs.getString(2), new AtomicLong(rs.getLong(3)));
+                    empty = false;
+                }
+            } catch (SQLException e) {
+                throw new CrudException("Error loading catalog statistics", e);
+            }
+
+            if (empty) {
+                reconcile();
+            } else {
+                counters = loaded;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Recomputes every counter from the base tables and rewrites the summary table.
+     * <p>
+     * The summary rows are locked first, so writes that are still in flight block on their
+     * counter update until the new values have been committed and then apply their delta on
+     * top of them instead of being lost.
+     * </p>
+     *
+     * @throws CrudException if the counters cannot be recomputed
+     */
+    public void reconcile() {
+        requireEnabled();
+        lock.writeLock().lock();
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeQuery("SELECT COUNTER_NAME FROM CATALOG_COUNTER FOR UPDATE").close();
+
+                Map<Counter, ConcurrentMap<String, AtomicLong>> recomputed = emptyCounters();
+                for (Counter counter : Counter.values()) {
+                    try (ResultSet rs = stmt.executeQuery(counter.getReconcileQuery())) {
+                        while (rs.next()) {
+                            recomputed.get(counter).put(counter.normalize(rs.getString(1)), new AtomicLong(rs.getLong(2)));
+                        }
+                    }
+                }
+
+                stmt.executeUpdate("DELETE FROM CATALOG_COUNTER");
+                try (PreparedStatement insert = conn.prepareStatement(
+                        "INSERT INTO CATALOG_COUNTER (COUNTER_NAME, COUNTER_KEY, COUNTER_VALUE) VALUES (?, ?, ?)")) {
+                    for (var entry : recomputed.entrySet()) {
+                        for (var value : entry.getValue().entrySet()) {
+                            insert.setString(1, entry.getKey().name());
+                            insert.setString(2, value.getKey());
+                            insert.setLong(3, value.getValue().get());
+                            insert.addBatch();
+                        }
+                    }
+                    insert.executeBatch();
+                }
+                conn.commit();
+                counters = recomputed;
+
+            } catch (SQLException e) {
+                rollbackQuietly(conn, e);
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+
+        } catch (SQLException e) {
+            throw new CrudException("Error reconciling catalog statistics", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reconciles the counters periodically on a background thread.
+     *
+     * @param period the time between two reconciliations
+     * @param unit   the unit of the period
+     */
+    public synchronized void startReconciliation(long period, TimeUnit unit) {
+        requireEnabled();
+        if (scheduler != null) {
+            throw new IllegalStateException("Reconciliation already started");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-statistics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                reconcile();
+                lastReconcileFailure = null;
+            } catch (RuntimeException e) {
+                lastReconcileFailure = e;
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * Returns the error of the last scheduled reconciliation, if it failed.
+     *
+     * @return the failure, or {@code null} if the last run succeeded
+     */
+    public RuntimeException getLastReconcileFailure() {
+        return lastReconcileFailure;
+    }
+
+    /**
+     * Stops the scheduled reconciliation, if any.
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void record(Connection conn, CounterChanges changes) throws SQLException {
+        if (changes.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(UPSERT)) {
+            for (var entry : changes.getAll().entrySet()) {
+                for (var delta : entry.getValue().entrySet()) {
+                    stmt.setString(1, entry.getKey().name());
+                    stmt.setString(2, delta.getKey());
+                    stmt.setLong(3, delta.getValue());
+                    stmt.setLong(4, delta.getValue());
+                    stmt.addBatch();
+                }
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    private void publish(CounterChanges changes) {
+        Map<Counter, ConcurrentMap<String, AtomicLong>> current = counters;
+        if (current == null) {
+            return;
+        }
+        changes.getAll().forEach((counter, deltas) -> deltas.forEach((key, delta) ->
+                current.get(counter).computeIfAbsent(key, k -> new AtomicLong()).addAndGet(delta)));
+    }
+
+    private Map<Counter, ConcurrentMap<String, AtomicLong>> loadedCounters() {
+        Map<Counter, ConcurrentMap<String, AtomicLong>> current = counters;
+        if (current == null) {
+            throw new IllegalStateException("Catalog statistics are not loaded");
+        }
+        return current;
+    }
+
+    private static Map<Counter, ConcurrentMap<String, AtomicLong>> emptyCounters() {
+        Map<Counter, ConcurrentMap<String, AtomicLong>> empty = new EnumMap<>(Counter.class);
+        for (Counter counter : Counter.values()) {
+            empty.put(counter, new ConcurrentHashMap<>());
+        }
+        return empty;
+    }
+
+    private void requireEnabled() {
+        if (!isEnabled()) {
+            throw new IllegalStateException("Catalog statistics are disabled");
+        }
+    }
+
+    private static void rollbackQuietly(Connection conn, Exception cause) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    /**
+     * A repository write that reports the counter changes it causes.
+     *
+     * @param <T> the result type
+     */
+    @FunctionalInterface
+    public interface Write<T> {
+        T execute(CounterChanges changes) throws SQLException;
+    }
+}
@@ -0,0 +1,64 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.statistics;
+
+import java.util.Locale;
+
+/**
+ * The aggregate counters kept in the CATALOG_COUNTER summary table.
+ * <p>
+ * Total counters have a single value stored under {@link #TOTAL_KEY}; the others hold one
+ * value per key, e.g. one per genre ID. Each counter knows the query that recomputes it from
+ * the base tables, used when the summary table is reconciled.
+ * </p>
+ */
+public enum Counter {
+
+    GAMES("SELECT '*', COUNT(*) FROM GAME"),
+    DEVELOPERS("SELECT '*', COUNT(*) FROM DEVELOPER"),
+    PUBLISHERS("SELECT '*', COUNT(*) FROM PUBLISHER"),
+    GENRES("SELECT '*', COUNT(*) FROM GENRE"),
+    CONSOLES("SELECT '*', COUNT(*) FROM CONSOLE"),
+    GAME_EDITIONS("SELECT '*', COUNT(*) FROM GAME_EDITION"),
+    GAME_CONSOLES("SELECT '*', COUNT(*) FROM GAME_CONSOLE"),
+    GAMES_BY_GENRE("SELECT GENRE_ID, COUNT(*) FROM GAME WHERE GENRE_ID IS NOT NULL GROUP BY GENRE_ID"),
+    GAMES_BY_DEVELOPER("SELECT DEVELOPER_ID, COUNT(*) FROM GAME WHERE DEVELOPER_ID IS NOT NULL GROUP BY DEVELOPER_ID"),
+    GAMES_BY_CONSOLE("SELECT CONSOLE_ID, COUNT(*) FROM GAME_CONSOLE GROUP BY CONSOLE_ID"),
+    DEVELOPERS_BY_COUNTRY("SELECT LOWER(COUNTRY), COUNT(*) FROM DEVELOPER WHERE COUNTRY IS NOT NULL GROUP BY LOWER(COUNTRY)"),
+    PUBLISHERS_BY_COUNTRY("SELECT LOWER(COUNTRY), COUNT(*) FROM PUBLISHER WHERE COUNTRY IS NOT NULL GROUP BY LOWER(COUNTRY)");
+
+    /**
+     * Key under which total counters store their value.
+     */
+    public static final String TOTAL_KEY = "*";
+
+    private final String reconcileQuery;
+
+    Counter(String reconcileQuery) {
+        this.reconcileQuery = reconcileQuery;
+    }
+
+    /**
+     * Returns the query that recomputes this counter, as (key, count) rows.
+     *
+     * @return the reconcile query
+     */
+    public String getReconcileQuery() {
+        return reconcileQuery;
+    }
+
+    /**
+     * Returns the key under which a value of this counter is stored. Country counters are
+     * case-insensitive, matching {@code countByCountryIgnoreCase}.
+     *
+     * @param key the raw key, e.g. a genre ID or a country name
+     * @return the normalized key, or {@code null} if the key is {@code null}
+     */
+    public String normalize(Object key) {
+        if (key == null) {
+            return null;
+        }
+        String value = key.toString();
+        return this == DEVELOPERS_BY_COUNTRY || this == PUBLISHERS_BY_COUNTRY
+                ? value.toLowerCase(Locale.ROOT)
+                : value;
+    }
+}
@@ -0,0 +1,132 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.statistics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The counter deltas produced by one repository write.
+ * <p>
+ * Increments and decrements of the same key are merged, so moving a developer from one
+ * country to another and back again leaves no change to record. Instances are not
+ * thread-safe; each one belongs to a single transaction.
+ * </p>
+ */
+public class CounterChanges {
+
+    private final boolean tracking;
+    private final Map<Counter, Map<String, Long>> deltas = new EnumMap<>(Counter.class);
+
+    CounterChanges(boolean tracking) {
+        this.tracking = tracking;
+    }
+
+    /**
+     * Returns whether the changes will be recorded. Repositories skip reading the previous
+     * state of a row when they are not.
+     *
+     * @return {@code true} if statistics are enabled for the current write
+     */
+    public boolean isTracking() {
+        return tracking;
+    }
+
+    /**
+     * Adds one to a total counter.
+     *
+     * @param counter the counter
+     * @return these changes
+     */
+    public CounterChanges increment(Counter counter) {
+        return add(counter, Counter.TOTAL_KEY, 1);
+    }
+
+    /**
+     * Adds one to the value of a key.
+     *
+     * @param counter the counter
+     * @param key     the key; {@code null} keys are ignored
+     * @return these changes
+     */
+    public CounterChanges increment(Counter counter, Object key) {
+        return add(counter, key, 1);
+    }
+
+    /**
+     * Subtracts one from a total counter.
+     *
+     * @param counter the counter
+     * @return these changes
+     */
+    public CounterChanges decrement(Counter counter) {
+        return add(counter, Counter.TOTAL_KEY, -1);
+    }
+
+    /**
+     * Subtracts one from the value of a key.
+     *
+     * @param counter the counter
+     * @param key     the key; {@code null} keys are ignored
+     * @return these changes
+     */
+    public CounterChanges decrement(Counter counter, Object key) {
+        return add(counter, key, -1);
+    }
+
+    /**
+     * Records that an entity moved from one key to another, e.g. a game changing developer.
+     *
+     * @param counter the counter
+     * @param oldKey  the previous key, or {@code null}
+     * @param newKey  the new key, or {@code null}
+     * @return these changes
+     */
+    public CounterChanges move(Counter counter, Object oldKey, Object newKey) {
+        return decrement(counter, oldKey).increment(counter, newKey);
+    }
+
+    /**
+     * Returns the non-zero deltas of a counter.
+     *
+     * @param counter the counter
+     * @return the deltas by normalized key
+     */
+    public Map<String, Long> get(Counter counter) {
+        Map<String, Long> values = deltas.get(counter);
+        return values == null ? Map.of() : Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * Returns every non-zero delta.
+     *
+     * @return the deltas by counter and normalized key
+     */
+    public Map<Counter, Map<String, Long>> getAll() {
+        return Collections.unmodifiableMap(deltas);
+    }
+
+    /**
+     * Returns whether there is nothing to record.
+     *
+     * @return {@code true} if every delta is zero
+     */
+    public boolean isEmpty() {
+        return deltas.isEmpty();
+    }
+
+    private CounterChanges add(Counter counter, Object key, long delta) {
+        String normalized = counter.normalize(key);
+        if (normalized == null) {
+            return this;
+        }
+        Map<String, Long> values = deltas.computeIfAbsent(counter, c -> new HashMap<>());
+        if (values.merge(normalized, delta, Long::sum) == 0) {
+            values.remove(normalized);
+            if (values.isEmpty()) {
+                deltas.remove(counter);
+            }
+        }
+        return this;
+    }
+}
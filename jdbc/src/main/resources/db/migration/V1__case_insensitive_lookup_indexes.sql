@@ -0,0 +1,5 @@
+-- Functional indexes (MySQL 8.0.13+) backing the LOWER(column) = ? lookups
+CREATE INDEX IDX_GENRE_NAME_LOWER ON GENRE ((LOWER(NAME)));
+CREATE INDEX IDX_PUBLISHER_NAME_LOWER ON PUBLISHER ((LOWER(NAME)));
+CREATE INDEX IDX_PUBLISHER_COUNTRY_LOWER ON PUBLISHER ((LOWER(COUNTRY)));
+CREATE INDEX IDX_DEVELOPER_COUNTRY_LOWER ON DEVELOPER ((LOWER(COUNTRY)));
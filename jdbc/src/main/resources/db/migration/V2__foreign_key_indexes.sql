@@ -0,0 +1,7 @@
+-- Named indexes for foreign keys and the composite lookups used by the repositories
+CREATE INDEX IDX_GAME_DEVELOPER ON GAME (DEVELOPER_ID);
+CREATE INDEX IDX_GAME_PUBLISHER ON GAME (PUBLISHER_ID);
+CREATE INDEX IDX_GAME_GENRE ON GAME (GENRE_ID);
+CREATE INDEX IDX_GAME_EDITION_GAME_NAME ON GAME_EDITION (GAME_ID, EDITION_NAME);
+CREATE INDEX IDX_GAME_EDITION_NAME ON GAME_EDITION (EDITION_NAME);
+CREATE INDEX IDX_GAME_CONSOLE_CONSOLE ON GAME_CONSOLE (CONSOLE_ID);
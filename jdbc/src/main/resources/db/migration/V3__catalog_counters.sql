@@ -0,0 +1,7 @@
+-- Summary table of the aggregate counters maintained by CatalogStatistics
+CREATE TABLE CATALOG_COUNTER (
+    COUNTER_NAME VARCHAR(40) NOT NULL,
+    COUNTER_KEY VARCHAR(100) NOT NULL,
+    COUNTER_VALUE BIGINT NOT NULL,
+    PRIMARY KEY (COUNTER_NAME, COUNTER_KEY)
+);
@@ -0,0 +1,13 @@
+-- Next free ID of every table whose keys are allocated in blocks by HiLoIdAllocator
+CREATE TABLE ID_SEQUENCE (
+    SEQUENCE_NAME VARCHAR(40) NOT NULL,
+    NEXT_VALUE BIGINT NOT NULL,
+    PRIMARY KEY (SEQUENCE_NAME)
+);
+INSERT INTO ID_SEQUENCE (SEQUENCE_NAME, NEXT_VALUE) SELECT 'GAME', COALESCE(MAX(GAME_ID), 0) + 1 FROM GAME;
+INSERT INTO ID_SEQUENCE (SEQUENCE_NAME, NEXT_VALUE) SELECT 'GAME_EDITION', COALESCE(MAX(GAME_EDITION_ID), 0) + 1 FROM GAME_EDITION;
+INSERT INTO ID_SEQUENCE (SEQUENCE_NAME, NEXT_VALUE) SELECT 'GAME_CONSOLE', COALESCE(MAX(GAME_CONSOLE_ID), 0) + 1 FROM GAME_CONSOLE;
+INSERT INTO ID_SEQUENCE (SEQUENCE_NAME, NEXT_VALUE) SELECT 'DEVELOPER', COALESCE(MAX(DEVELOPER_ID), 0) + 1 FROM DEVELOPER;
+INSERT INTO ID_SEQUENCE (SEQUENCE_NAME, NEXT_VALUE) SELECT 'PUBLISHER', COALESCE(MAX(PUBLISHER_ID), 0) + 1 FROM PUBLISHER;
+INSERT INTO ID_SEQUENCE (SEQUENCE_NAME, NEXT_VALUE) SELECT 'GENRE', COALESCE(MAX(GENRE_ID), 0) + 1 FROM GENRE;
+INSERT INTO ID_SEQUENCE (SEQUENCE_NAME, NEXT_VALUE) SELECT 'CONSOLE', COALESCE(MAX(CONSOLE_ID), 0) + 1 FROM CONSOLE;
@@ -0,0 +1,2 @@
+-- Optimistic concurrency: every update of a developer increments its version
+ALTER TABLE DEVELOPER ADD COLUMN VERSION INT NOT NULL DEFAULT 0;
@@ -0,0 +1,157 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc;
+
+import cat.uvic.teknos.dam.kamika.model.Game;
+import cat.uvic.teknos.dam.kamika.model.impl.GameImpl;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.SingleConnectionDataSource;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.jupiter.LoadDatabaseExtension;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the throughput of {@link JdbcGameRepository#findAll()} before and after explicit
+ * column lists: {@code SELECT *} mapped by column label against {@link ColumnList#select()}
+ * mapped by ordinal.
+ * <p>
+ * Runs against the database of {@code datasource.properties} with {@code ./gradlew :jdbc:benchmark}
+ * and is excluded from the regular test task. The GAME table is topped up to
+ * {@code -Dkamika.benchmark.rows} rows (20000 by default) for the run and the extra rows are
+ * deleted afterwards. Both variants run alternately so drift affects them equally.
+ * </p>
+ */
+@Tag("benchmark")
+@ExtendWith(LoadDatabaseExtension.class)
+class ColumnListBenchmark {
+
+    private static final int ROWS = Integer.getInteger("kamika.benchmark.rows", 20_000);
+    private static final int WARM_UP_ITERATIONS = Integer.getInteger("kamika.benchmark.warmUp", 5);
+    private static final int ITERATIONS = Integer.getInteger("kamika.benchmark.iterations", 20);
+    private static final String TITLE_PREFIX = "benchmark-";
+
+    @Test
+    void findAllThroughput() throws SQLException {
+        try (var dataSource = new SingleConnectionDataSource()) {
+            Connection conn = dataSource.getConnection();
+            // Both variants share one open connection, so connecting is not part of the measurement
+            var repository = new JdbcGameRepository(() -> unclosable(conn));
+            try {
+                seed(conn);
+
+                int rows = 0;
+                for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+                    rows = selectAllByLabel(conn).size();
+                    assertEquals(rows, repository.findAll().size());
+                }
+
+                long byLabel = 0;
+                long byOrdinal = 0;
+                for (int i = 0; i < ITERATIONS; i++) {
+                    long start = System.nanoTime();
+                    selectAllByLabel(conn);
+                    byLabel += System.nanoTime() - start;
+
+                    start = System.nanoTime();
+                    repository.findAll();
+                    byOrdinal += System.nanoTime() - start;
+                }
+
+                double labelRate = rowsPerSecond(rows, byLabel);
+                double ordinalRate = rowsPerSecond(rows, byOrdinal);
+                System.out.printf("findAll over %d rows, %d iterations%n", rows, ITERATIONS);
+                System.out.printf("  SELECT * by label:          %,12.0f rows/s (%.2f ms/call)%n",
+                        labelRate, byLabel / 1e6 / ITERATIONS);
+                System.out.printf("  column list by ordinal:     %,12.0f rows/s (%.2f ms/call)%n",
+                        ordinalRate, byOrdinal / 1e6 / ITERATIONS);
+                System.out.printf("  change:                     %+.1f%%%n", (ordinalRate / labelRate - 1) * 100);
+            } finally {
+                try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM GAME WHERE TITLE LIKE ?")) {
+                    stmt.setString(1, TITLE_PREFIX + "%");
+                    stmt.executeUpdate();
+                }
+            }
+        }
+    }
+
+    private static Connection unclosable(Connection conn) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close")) {
+                        return null;
+                    }
+                    try {
+                        return method.invoke(conn, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private static double rowsPerSecond(int rows, long nanos) {
+        return rows * (double) ITERATIONS / (nanos / 1e9);
+    }
+
+    /**
+     * Inserts games until the table holds {@link #ROWS} rows, all with the first developer and publisher.
+     */
+    private static void seed(Connection conn) throws SQLException {
+        int existing;
+        int developerId;
+        int publisherId;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT (SELECT COUNT(*) FROM GAME), "
+                     + "(SELECT MIN(DEVELOPER_ID) FROM DEVELOPER), (SELECT MIN(PUBLISHER_ID) FROM PUBLISHER)")) {
+            rs.next();
+            existing = rs.getInt(1);
+            developerId = rs.getInt(2);
+            publisherId = rs.getInt(3);
+        }
+        assertTrue(developerId > 0 && publisherId > 0, "The benchmark needs a developer and a publisher");
+
+        try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO GAME "
+                + "(TITLE, RELEASE_DATE, DEVELOPER_ID, PUBLISHER_ID, PEGI_RATING, IS_MULTIPLAYER) "
+                + "VALUES (?, DATE '2020-01-01', ?, ?, 'PEGI 12', 1)")) {
+            for (int i = existing; i < ROWS; i++) {
+                stmt.setString(1, TITLE_PREFIX + i);
+                stmt.setInt(2, developerId);
+                stmt.setInt(3, publisherId);
+                stmt.addBatch();
+                if (i % 1_000 == 0) {
+                    stmt.executeBatch();
+                }
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * The findAll of JdbcGameRepository before column lists were introduced.
+     */
+    private static Set<Game> selectAllByLabel(Connection conn) throws SQLException {
+        Set<Game> games = new HashSet<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM GAME")) {
+
+            while (rs.next()) {
+                GameImpl game = new GameImpl();
+                game.setId(rs.getInt("GAME_ID"));
+                game.setTitle(rs.getString("TITLE"));
+
+                Date releaseDate = rs.getDate("RELEASE_DATE");
+                game.setReleaseDate(releaseDate != null ? releaseDate.toLocalDate() : null);
+
+                game.setPegiRating(rs.getString("PEGI_RATING"));
+                game.setMultiplayer(rs.getBoolean("IS_MULTIPLAYER"));
+                games.add(game);
+            }
+        }
+        return games;
+    }
+}
@@ -0,0 +1,63 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc;
+
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.CrudException;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnListTest {
+
+    private final ColumnList columns = ColumnList.of("GENRE", "GENRE_ID", "NAME", "DESCRIPTION");
+
+    @Test
+    void ordinalsFollowDeclarationOrder() {
+        assertEquals(1, columns.ordinal("GENRE_ID"));
+        assertEquals(3, columns.ordinal("DESCRIPTION"));
+        assertThrows(IllegalArgumentException.class, () -> columns.ordinal("MISSING"));
+    }
+
+    @Test
+    void selectListsColumnsExplicitly() {
+        assertEquals("SELECT GENRE_ID, NAME, DESCRIPTION FROM GENRE", columns.select());
+        assertEquals("G.GENRE_ID, G.NAME, G.DESCRIPTION", columns.names("G"));
+    }
+
+    @Test
+    void validateAcceptsMatchingLabelsWithTrailingColumns() throws Exception {
+        columns.validate(resultSet("genre_id", "NAME", "DESCRIPTION", "EXTRA"));
+    }
+
+    @Test
+    void validateRejectsReorderedColumns() {
+        assertThrows(CrudException.class, () -> columns.validate(resultSet("NAME", "GENRE_ID", "DESCRIPTION")));
+    }
+
+    @Test
+    void extendAppendsColumns() {
+        ColumnList extended = columns.extend("GAME_COUNT");
+        assertEquals(4, extended.size());
+        assertEquals(4, extended.ordinal("GAME_COUNT"));
+    }
+
+    private static ResultSet resultSet(String... labels) {
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(
+                ColumnListTest.class.getClassLoader(), new Class<?>[]{ResultSetMetaData.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getColumnCount" -> labels.length;
+                    case "getColumnLabel" -> labels[(int) args[0] - 1];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        return (ResultSet) Proxy.newProxyInstance(
+                ColumnListTest.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getMetaData")) {
+                        return metaData;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
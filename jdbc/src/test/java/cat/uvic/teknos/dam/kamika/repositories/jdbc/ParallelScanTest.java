@@ -0,0 +1,163 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc;
+
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.DataSource;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.CrudException;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelScanTest {
+
+    private static final ColumnList COLUMNS = ColumnList.of("GAME", "GAME_ID");
+
+    @Test
+    void evenSplitCoversMinToMax() {
+        ParallelScan<Long> scan = scan(table(LongStream.rangeClosed(11, 30))).partitions(3);
+
+        assertEquals(List.of(
+                new ParallelScan.IdRange(11, 17),
+                new ParallelScan.IdRange(18, 24),
+                new ParallelScan.IdRange(25, 30)), scan.split());
+    }
+
+    @Test
+    void sampledSplitBalancesRowsAcrossGaps() {
+        List<Long> ids = new ArrayList<>(LongStream.rangeClosed(1, 6).boxed().toList());
+        ids.addAll(List.of(1_000L, 2_000L));
+        ParallelScan<Long> scan = scan(table(ids.stream().mapToLong(Long::longValue))).partitions(4).sampled(true);
+
+        List<ParallelScan.IdRange> ranges = scan.split();
+
+        assertEquals(4, ranges.size());
+        assertEquals(1, ranges.getFirst().from());
+        assertEquals(5, ranges.get(2).from());
+        assertEquals(Long.MAX_VALUE, ranges.getLast().to());
+    }
+
+    @Test
+    void forEachReadsEveryRowOnce() {
+        ParallelScan<Long> scan = scan(table(LongStream.rangeClosed(1, 1_000))).parallelism(4);
+        Queue<Long> rows = new ConcurrentLinkedQueue<>();
+
+        long count = scan.forEach(rows::add);
+
+        assertEquals(1_000, count);
+        assertEquals(LongStream.rangeClosed(1, 1_000).boxed().collect(Collectors.toSet()), new HashSet<>(rows));
+    }
+
+    @Test
+    void streamMergesEveryRange() {
+        ParallelScan<Long> scan = scan(table(LongStream.rangeClosed(1, 5_000))).parallelism(3).partitions(7);
+
+        try (Stream<Long> rows = scan.stream()) {
+            assertEquals(5_000, rows.distinct().count());
+        }
+    }
+
+    @Test
+    void emptyTableHasNoRanges() {
+        ParallelScan<Long> scan = scan(table(LongStream.empty()));
+
+        assertTrue(scan.split().isEmpty());
+        try (Stream<Long> rows = scan.stream()) {
+            assertEquals(0, rows.count());
+        }
+    }
+
+    @Test
+    void failingRangeFailsTheStream() {
+        ParallelScan<Long> scan = new ParallelScan<>(table(LongStream.rangeClosed(1, 100)), "GAME", "GAME_ID", COLUMNS, rs -> {
+            if (rs.getLong(1) == 42) {
+                throw new CrudException("Broken row");
+            }
+            return rs.getLong(1);
+        }).parallelism(2);
+
+        try (Stream<Long> rows = scan.stream()) {
+            assertThrows(CrudException.class, rows::count);
+        }
+    }
+
+    private static ParallelScan<Long> scan(DataSource dataSource) {
+        return new ParallelScan<>(dataSource, "GAME", "GAME_ID", COLUMNS, rs -> rs.getLong(1));
+    }
+
+    /**
+     * A data source that answers the scan's queries from a sorted list of IDs.
+     */
+    private static DataSource table(LongStream idStream) {
+        List<Long> ids = idStream.sorted().boxed().toList();
+        return () -> proxy(Connection.class, (method, args) -> switch (method) {
+            case "createStatement" -> proxy(Statement.class, (m, a) -> switch (m) {
+                case "executeQuery" -> ((String) a[0]).startsWith("SELECT MIN")
+                        ? resultSet(ids.isEmpty() ? Collections.singletonList(new Long[]{null, null})
+                                : List.<Long[]>of(new Long[]{ids.getFirst(), ids.getLast()}))
+                        : resultSet(List.<Long[]>of(new Long[]{(long) ids.size()}));
+                default -> null;
+            });
+            case "prepareStatement" -> {
+                String sql = (String) args[0];
+                long[] params = new long[3];
+                yield proxy(PreparedStatement.class, (m, a) -> switch (m) {
+                    case "setLong" -> {
+                        params[(int) a[0]] = (long) a[1];
+                        yield null;
+                    }
+                    case "executeQuery" -> sql.contains("BETWEEN")
+                            ? resultSet(ids.stream().filter(id -> id >= params[1] && id <= params[2])
+                                    .map(id -> new Long[]{id}).toList())
+                            : resultSet(List.<Long[]>of(new Long[]{ids.get((int) params[1])}));
+                    default -> null;
+                });
+            }
+            default -> null;
+        });
+    }
+
+    private static ResultSet resultSet(List<Long[]> rows) {
+        Iterator<Long[]> iterator = rows.iterator();
+        Long[][] current = new Long[1][];
+        boolean[] wasNull = new boolean[1];
+        return proxy(ResultSet.class, (method, args) -> switch (method) {
+            case "next" -> {
+                current[0] = iterator.hasNext() ? iterator.next() : null;
+                yield current[0] != null;
+            }
+            case "getLong" -> {
+                Long value = current[0][(int) args[0] - 1];
+                wasNull[0] = value == null;
+                yield value == null ? 0L : value;
+            }
+            case "wasNull" -> wasNull[0];
+            default -> null;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    Object result = handler.invoke(method.getName(), args);
+                    if (result == null && method.getReturnType() == boolean.class) {
+                        return false;
+                    }
+                    return result;
+                });
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(String method, Object[] args) throws Exception;
+    }
+}
@@ -0,0 +1,63 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc;
+
+import cat.uvic.teknos.dam.kamika.model.Developer;
+import cat.uvic.teknos.dam.kamika.model.impl.DeveloperImpl;
+import cat.uvic.teknos.dam.kamika.repositories.DeveloperRepository;
+import cat.uvic.teknos.dam.kamika.repositories.Sort;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortColumnsTest {
+
+    private final SortColumns<Developer> columns = new SortColumns<>("DEVELOPER", DeveloperRepository.SORT_BY_ID,
+            Map.of(DeveloperRepository.SORT_BY_ID, "DEVELOPER_ID",
+                    DeveloperRepository.SORT_BY_NAME, "NAME"));
+
+    @Test
+    void orderByEndsWithThePrimaryKey() {
+        Sort<Developer> sort = Sort.by(DeveloperRepository.SORT_BY_NAME, Sort.Direction.DESC);
+
+        assertEquals(" ORDER BY NAME DESC, DEVELOPER_ID ASC", columns.orderBy(sort));
+    }
+
+    @Test
+    void primaryKeyIsNotRepeated() {
+        Sort<Developer> sort = Sort.by(DeveloperRepository.SORT_BY_ID, Sort.Direction.DESC);
+
+        assertEquals(" ORDER BY DEVELOPER_ID DESC", columns.orderBy(sort));
+    }
+
+    @Test
+    void unmappedKeysAreRejected() {
+        Sort<Developer> sort = Sort.by(DeveloperRepository.SORT_BY_COUNTRY);
+
+        assertThrows(IllegalArgumentException.class, () -> columns.orderBy(sort));
+    }
+
+    @Test
+    void comparatorMatchesTheSqlOrder() {
+        Developer first = developer(1, "Sega", null);
+        Developer second = developer(2, "Atlus", "Japan");
+        Developer third = developer(3, "Sega", "Japan");
+        Sort<Developer> sort = Sort.by(DeveloperRepository.SORT_BY_NAME, Sort.Direction.DESC)
+                .then(DeveloperRepository.SORT_BY_COUNTRY)
+                .then(DeveloperRepository.SORT_BY_ID);
+
+        List<Developer> sorted = Stream.of(second, third, first).sorted(sort.comparator()).toList();
+
+        assertEquals(List.of(1, 3, 2), sorted.stream().map(Developer::getId).toList());
+    }
+
+    private static Developer developer(int id, String name, String country) {
+        Developer developer = new DeveloperImpl();
+        developer.setId(id);
+        developer.setName(name);
+        developer.setCountry(country);
+        return developer;
+    }
+}
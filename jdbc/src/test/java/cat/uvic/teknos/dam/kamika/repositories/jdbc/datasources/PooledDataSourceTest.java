@@ -0,0 +1,255 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources;
+
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.DataSourceException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PooledDataSourceTest {
+
+    private final FakeDriver driver = new FakeDriver();
+
+    @BeforeEach
+    void registerDriver() throws SQLException {
+        DriverManager.registerDriver(driver);
+    }
+
+    @AfterEach
+    void deregisterDriver() throws SQLException {
+        DriverManager.deregisterDriver(driver);
+    }
+
+    private static PooledDataSource pool(int size, long timeoutMillis) {
+        return new PooledDataSource("fake", "localhost", "kamika", "user", "", "", size, timeoutMillis);
+    }
+
+    @Test
+    void closingReturnsThePhysicalConnectionToThePool() throws SQLException {
+        try (var pool = pool(2, 1_000)) {
+            Connection first = pool.getConnection();
+            assertEquals(1, pool.getActiveConnections());
+
+            first.close();
+            assertEquals(0, pool.getActiveConnections());
+            assertTrue(first.isClosed());
+
+            try (Connection second = pool.getConnection()) {
+                assertFalse(second.isClosed());
+            }
+            assertEquals(1, driver.physical.size());
+            assertFalse(driver.physical.getFirst().closed);
+        }
+    }
+
+    @Test
+    void closingTwiceReleasesOnce() throws SQLException {
+        try (var pool = pool(2, 1_000)) {
+            Connection first = pool.getConnection();
+            Connection second = pool.getConnection();
+
+            first.close();
+            first.close();
+
+            assertEquals(1, pool.getActiveConnections());
+            second.close();
+            assertEquals(0, pool.getActiveConnections());
+        }
+    }
+
+    @Test
+    void returnedConnectionCannotBeUsed() throws SQLException {
+        try (var pool = pool(1, 1_000)) {
+            Connection connection = pool.getConnection();
+            connection.close();
+
+            assertThrows(SQLException.class, connection::createStatement);
+        }
+    }
+
+    @Test
+    void exhaustedPoolTimesOut() throws SQLException {
+        try (var pool = pool(2, 100)) {
+            pool.getConnection();
+            pool.getConnection();
+
+            long start = System.nanoTime();
+            DataSourceException exception = assertThrows(DataSourceException.class, pool::getConnection);
+
+            assertTrue(exception.getMessage().contains("Timed out"));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 100);
+            assertEquals(2, pool.getActiveConnections());
+            assertEquals(2, driver.physical.size());
+        }
+    }
+
+    @Test
+    void waitingCallerGetsTheConnectionReleasedByAnother() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (var pool = pool(1, 5_000)) {
+            Connection held = pool.getConnection();
+            CountDownLatch waiting = new CountDownLatch(1);
+
+            Future<Connection> waiter = executor.submit(() -> {
+                waiting.countDown();
+                return pool.getConnection();
+            });
+            waiting.await();
+            Thread.sleep(50);
+            assertFalse(waiter.isDone());
+
+            held.close();
+            Connection handedOver = waiter.get(1, TimeUnit.SECONDS);
+
+            assertFalse(handedOver.isClosed());
+            assertEquals(1, driver.physical.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void openTransactionIsRolledBackOnRelease() throws SQLException {
+        try (var pool = pool(1, 1_000)) {
+            Connection connection = pool.getConnection();
+            connection.setAutoCommit(false);
+            connection.close();
+
+            FakeConnection physical = driver.physical.getFirst();
+            assertEquals(1, physical.rollbacks);
+            assertTrue(physical.autoCommit);
+        }
+    }
+
+    @Test
+    void brokenConnectionsAreReplaced() throws SQLException {
+        try (var pool = pool(1, 1_000)) {
+            pool.getConnection().close();
+            driver.physical.getFirst().closed = true;
+
+            try (Connection connection = pool.getConnection()) {
+                assertFalse(connection.isClosed());
+            }
+            assertEquals(2, driver.physical.size());
+        }
+    }
+
+    @Test
+    void failedConnectReleasesThePermit() {
+        driver.failing = true;
+        try (var pool = pool(1, 100)) {
+            assertThrows(DataSourceException.class, pool::getConnection);
+            assertEquals(0, pool.getActiveConnections());
+        }
+    }
+
+    @Test
+    void closingThePoolClosesIdleConnections() throws SQLException {
+        var pool = pool(2, 1_000);
+        pool.getConnection().close();
+
+        pool.close();
+
+        assertTrue(driver.physical.getFirst().closed);
+        assertThrows(DataSourceException.class, pool::getConnection);
+    }
+
+    @Test
+    void maxConnectionsIsThePoolSize() {
+        try (var pool = pool(7, 1_000)) {
+            assertEquals(7, pool.getMaxConnections());
+        }
+    }
+
+    /**
+     * Physical connection state observed by the tests.
+     */
+    private static final class FakeConnection {
+        volatile boolean closed;
+        volatile boolean autoCommit = true;
+        volatile int rollbacks;
+    }
+
+    /**
+     * A JDBC driver for {@code jdbc:fake:} URLs whose connections only track their state.
+     */
+    private static final class FakeDriver implements Driver {
+
+        final List<FakeConnection> physical = new CopyOnWriteArrayList<>();
+        volatile boolean failing;
+
+        @Override
+        public Connection connect(String url, Properties info) throws SQLException {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+            if (failing) {
+                throw new SQLException("Connection refused");
+            }
+            FakeConnection state = new FakeConnection();
+            physical.add(state);
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "close" -> {
+                            state.closed = true;
+                            yield null;
+                        }
+                        case "isClosed" -> state.closed;
+                        case "getAutoCommit" -> state.autoCommit;
+                        case "setAutoCommit" -> {
+                            state.autoCommit = (boolean) args[0];
+                            yield null;
+                        }
+                        case "rollback" -> {
+                            state.rollbacks++;
+                            yield null;
+                        }
+                        default -> null;
+                    });
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url.startsWith("jdbc:fake:");
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources;
+
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.JdbcDeveloperRepository;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.JdbcGameRepository;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.loaders.LoadScope;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoutingDataSourceTest {
+
+    /**
+     * Connections whose {@code toString()} is the name of the database they belong to.
+     */
+    private static DataSource database(String name) {
+        return () -> (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> method.getName().equals("toString") ? name : null);
+    }
+
+    /**
+     * A database whose queries all return an empty result set, or a single zero for counts.
+     */
+    private static DataSource emptyDatabase(String name) {
+        return () -> (Connection) proxy(Connection.class, name);
+    }
+
+    private static Object proxy(Class<?> type, String name) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "toString" -> name;
+                    case "createStatement", "prepareStatement" -> proxy(PreparedStatement.class, name);
+                    case "executeQuery" -> proxy(ResultSet.class, name);
+                    case "next", "wasNull" -> false;
+                    case "getLong" -> 0L;
+                    case "getInt" -> 0;
+                    default -> null;
+                });
+    }
+
+    /**
+     * Returns the database a read-only connection goes to when taken on a new thread bound to
+     * the given caller, or to no caller if it is {@code null}.
+     */
+    private static String readOnAnotherThread(RoutingDataSource routing, Object caller) throws InterruptedException {
+        String[] database = new String[1];
+        Thread thread = new Thread(() -> {
+            if (caller != null) {
+                routing.bindCaller(caller);
+            }
+            try {
+                database[0] = routing.getReadConnection().toString();
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        thread.start();
+        thread.join();
+        return database[0];
+    }
+
+    private static DataSource unreachable() {
+        return () -> {
+            throw new SQLException("Connection refused");
+        };
+    }
+
+    @Test
+    void readsAreSpreadOverReplicasAndWritesGoToPrimary() throws SQLException {
+        var routing = new RoutingDataSource(database("primary"),
+                List.of(database("replica1"), database("replica2")), 0);
+
+        assertEquals("replica1", routing.getReadConnection().toString());
+        assertEquals("replica2", routing.getReadConnection().toString());
+        assertEquals("replica1", routing.getReadConnection().toString());
+        assertEquals("primary", routing.getConnection().toString());
+        assertEquals(3, routing.getReplicaReads());
+    }
+
+    @Test
+    void readsStayOnPrimaryAfterAWrite() throws SQLException {
+        var routing = new RoutingDataSource(database("primary"), List.of(database("replica")), 60_000);
+
+        assertEquals("replica", routing.getReadConnection().toString());
+        routing.getConnection();
+
+        assertTrue(routing.isSticky());
+        assertEquals("primary", routing.getReadConnection().toString());
+
+        routing.clearSticky();
+        assertEquals("replica", routing.getReadConnection().toString());
+    }
+
+    @Test
+    void unboundThreadsAreSeparateCallers() throws Exception {
+        var routing = new RoutingDataSource(database("primary"), List.of(database("replica")), 60_000);
+        routing.getConnection();
+
+        assertEquals("replica", readOnAnotherThread(routing, null));
+        assertEquals("primary", routing.getReadConnection().toString());
+    }
+
+    @Test
+    void stickinessFollowsTheCallerAcrossThreads() throws Exception {
+        var routing = new RoutingDataSource(database("primary"), List.of(database("replica")), 60_000);
+        routing.bindCaller("client-1");
+        routing.getConnection();
+        routing.unbindCaller();
+
+        assertFalse(routing.isSticky());
+        assertEquals("primary", readOnAnotherThread(routing, "client-1"));
+        assertEquals("replica", readOnAnotherThread(routing, "client-2"));
+    }
+
+    @Test
+    void windowOfACallerEnds() throws Exception {
+        var routing = new RoutingDataSource(database("primary"), List.of(database("replica")), 20);
+        routing.bindCaller("client-1");
+        routing.getConnection();
+        assertTrue(routing.isSticky());
+
+        Thread.sleep(50);
+
+        assertFalse(routing.isSticky());
+        assertEquals("replica", routing.getReadConnection().toString());
+    }
+
+    @Test
+    void unreachableReplicasAreSkipped() throws SQLException {
+        var routing = new RoutingDataSource(database("primary"), List.of(unreachable(), database("replica")), 0);
+
+        assertEquals("replica", routing.getReadConnection().toString());
+        assertEquals("replica", routing.getReadConnection().toString());
+
+        var allDown = new RoutingDataSource(database("primary"), List.of(unreachable()), 0);
+        assertEquals("primary", allDown.getReadConnection().toString());
+        assertEquals(1, allDown.getPrimaryReads());
+    }
+
+    @Test
+    void readOnlyRepositoryCallsDoNotStartTheWindow() {
+        var routing = new RoutingDataSource(emptyDatabase("primary"), List.of(emptyDatabase("replica")), 60_000);
+        var games = new JdbcGameRepository(routing);
+        var developers = new JdbcDeveloperRepository(routing);
+
+        try (LoadScope scope = new LoadScope(routing)) {
+            games.findAll(scope);
+            games.findById(1, scope);
+        }
+        developers.countByCountryIgnoreCase("Spain");
+
+        assertFalse(routing.isSticky());
+        assertEquals(0, routing.getPrimaryReads());
+        assertEquals(3, routing.getReplicaReads());
+    }
+
+    @Test
+    void primaryConnectionsDoNotStartTheWindow() throws SQLException {
+        var routing = new RoutingDataSource(database("primary"), List.of(database("replica")), 60_000);
+
+        assertEquals("primary", routing.getPrimary().getConnection().toString());
+
+        assertFalse(routing.isSticky());
+        assertEquals("replica", routing.getReadConnection().toString());
+    }
+}
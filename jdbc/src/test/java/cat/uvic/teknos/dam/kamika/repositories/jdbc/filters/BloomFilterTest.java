@@ -0,0 +1,47 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.filters;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    void addedKeysAreAlwaysFound() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int id = 1; id <= 10_000; id++) {
+            filter.put(id);
+        }
+
+        for (int id = 1; id <= 10_000; id++) {
+            assertTrue(filter.mightContain(id));
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTheTarget() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int id = 1; id <= 10_000; id++) {
+            filter.put(id);
+        }
+
+        int falsePositives = 0;
+        for (int id = 10_001; id <= 110_000; id++) {
+            if (filter.mightContain(id)) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+        assertEquals(0.01, filter.expectedFalsePositiveRate(), 0.005);
+    }
+
+    @Test
+    void sizeFollowsTheTargetRate() {
+        BloomFilter filter = new BloomFilter(1_000, 0.01);
+
+        assertEquals(7, filter.getHashCount());
+        assertTrue(filter.getMemoryBytes() >= 1_198 && filter.getMemoryBytes() < 1_300);
+        assertEquals(0.0, filter.expectedFalsePositiveRate());
+    }
+}
@@ -0,0 +1,182 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.filters;
+
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.DataSource;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.ids.IdSequence;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdFilterTest {
+
+    @Test
+    void everyIdMightExistUntilBuilt() {
+        IdFilter filter = new IdFilter(table(List.of(1, 2)), IdSequence.DEVELOPER);
+
+        assertFalse(filter.isLoaded());
+        assertTrue(filter.mightContain(99));
+        assertTrue(IdFilter.DISABLED.mightContain(99));
+    }
+
+    @Test
+    void builtFilterAnswersMissesFromMemory() {
+        IdFilter filter = new IdFilter(table(List.of(1, 2, 3)), IdSequence.DEVELOPER);
+        filter.rebuild();
+
+        assertTrue(filter.mightContain(2));
+        int misses = 0;
+        for (int id = 1_000; id < 1_100; id++) {
+            if (!filter.mightContain(id)) {
+                misses++;
+            }
+        }
+
+        assertEquals(misses, filter.getDefiniteMisses());
+        assertTrue(misses > 90);
+        assertEquals(3, filter.getSize());
+        assertTrue(filter.getMemoryBytes() > 0);
+    }
+
+    @Test
+    void insertedIdsAreFoundBeforeAndAfterARebuild() {
+        List<Integer> rows = new ArrayList<>(List.of(1, 2));
+        IdFilter filter = new IdFilter(table(rows), IdSequence.GAME);
+        filter.rebuild();
+        filter.startRebuilding(1, TimeUnit.HOURS);
+
+        filter.add(500);
+        assertTrue(filter.mightContain(500));
+
+        // The insert has not committed when the next scan runs
+        filter.rebuild();
+        assertTrue(filter.mightContain(500));
+        filter.close();
+    }
+
+    @Test
+    void insertedIdsAreOnlyKeptForReplayWhileRebuildsAreScheduled() {
+        IdFilter filter = new IdFilter(table(List.of(1)), IdSequence.GAME);
+        filter.rebuild();
+
+        for (int id = 100; id < 1_100; id++) {
+            filter.add(id);
+        }
+        assertEquals(0, filter.getReplayBacklog());
+        assertTrue(filter.mightContain(600));
+
+        filter.startRebuilding(1, TimeUnit.HOURS);
+        filter.add(2_000);
+        assertEquals(1, filter.getReplayBacklog());
+
+        filter.close();
+        assertEquals(0, filter.getReplayBacklog());
+    }
+
+    @Test
+    void idsInsertedDuringAScanAreReplayed() {
+        List<Integer> rows = new ArrayList<>(List.of(1, 2));
+        IdFilter[] filter = new IdFilter[1];
+        filter[0] = new IdFilter(table(rows, () -> filter[0].add(900)), IdSequence.GAME);
+
+        filter[0].rebuild();
+
+        assertTrue(filter[0].mightContain(900));
+        assertEquals(0, filter[0].getReplayBacklog());
+    }
+
+    @Test
+    void rebuildForgetsDeletedIds() {
+        List<Integer> rows = new ArrayList<>(List.of(1, 2, 700));
+        IdFilter filter = new IdFilter(table(rows), IdSequence.GAME);
+        filter.rebuild();
+        rows.remove(Integer.valueOf(700));
+
+        filter.rebuild();
+        filter.rebuild();
+
+        assertFalse(filter.mightContain(700));
+    }
+
+    @Test
+    void observedRateCountsLookupsThatReachedTheDatabase() {
+        IdFilter filter = new IdFilter(table(List.of(1)), IdSequence.GENRE);
+        filter.rebuild();
+
+        filter.recordFalsePositive();
+        for (int id = 1_000; id < 1_010; id++) {
+            filter.mightContain(id);
+        }
+
+        long misses = filter.getDefiniteMisses();
+        assertEquals(1.0 / (1 + misses), filter.getObservedFalsePositiveRate(), 1e-9);
+    }
+
+    /**
+     * A data source whose queries return the given IDs, or their count.
+     */
+    private static DataSource table(List<Integer> ids) {
+        return table(ids, () -> { });
+    }
+
+    /**
+     * A data source whose queries return the given IDs, or their count, and that runs an action
+     * while the IDs are scanned.
+     */
+    private static DataSource table(List<Integer> ids, Runnable duringScan) {
+        return () -> proxy(Connection.class, (method, args) -> switch (method) {
+            case "createStatement" -> proxy(Statement.class, (m, a) ->
+                    m.equals("executeQuery") ? resultSet(List.of(ids.size())) : null);
+            case "prepareStatement" -> proxy(PreparedStatement.class, (m, a) -> {
+                if (!m.equals("executeQuery")) {
+                    return null;
+                }
+                duringScan.run();
+                return resultSet(List.copyOf(ids));
+            });
+            default -> null;
+        });
+    }
+
+    private static ResultSet resultSet(List<Integer> values) {
+        Iterator<Integer> iterator = values.iterator();
+        int[] current = new int[1];
+        return proxy(ResultSet.class, (method, args) -> switch (method) {
+            case "next" -> {
+                boolean hasNext = iterator.hasNext();
+                if (hasNext) {
+                    current[0] = iterator.next();
+                }
+                yield hasNext;
+            }
+            case "getInt" -> current[0];
+            case "getLong" -> (long) current[0];
+            default -> null;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    Object result = handler.invoke(method.getName(), args);
+                    if (result == null && method.getReturnType() == boolean.class) {
+                        return false;
+                    }
+                    return result;
+                });
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(String method, Object[] args) throws Exception;
+    }
+}
@@ -0,0 +1,155 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.ids;
+
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.DataSource;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HiLoIdAllocatorTest {
+
+    @Test
+    void idsComeFromReservedBlocks() {
+        SequenceTable table = new SequenceTable(0);
+        HiLoIdAllocator allocator = new HiLoIdAllocator(table.dataSource(), 3);
+
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            ids.add(allocator.next(IdSequence.GAME));
+        }
+
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7), ids);
+        assertEquals(3, table.reservations.get());
+        assertEquals(10L, (long) table.nextValues.get("GAME"));
+    }
+
+    @Test
+    void blocksStartAfterExistingRows() {
+        SequenceTable table = new SequenceTable(41);
+        HiLoIdAllocator allocator = new HiLoIdAllocator(table.dataSource(), 10);
+
+        assertEquals(42, allocator.next(IdSequence.DEVELOPER));
+        assertEquals(52L, (long) table.nextValues.get("DEVELOPER"));
+    }
+
+    @Test
+    void instancesSharingTheTableGetDisjointBlocks() {
+        SequenceTable table = new SequenceTable(0);
+        HiLoIdAllocator first = new HiLoIdAllocator(table.dataSource(), 5);
+        HiLoIdAllocator second = new HiLoIdAllocator(table.dataSource(), 5);
+
+        assertEquals(1, first.next(IdSequence.GENRE));
+        assertEquals(6, second.next(IdSequence.GENRE));
+        assertEquals(2, first.next(IdSequence.GENRE));
+    }
+
+    @Test
+    void concurrentCallersNeverShareAnId() throws Exception {
+        SequenceTable table = new SequenceTable(0);
+        HiLoIdAllocator allocator = new HiLoIdAllocator(table.dataSource(), 16);
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        assertTrue(ids.add(allocator.next(IdSequence.GAME_EDITION)));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        assertEquals(4_000, ids.size());
+        assertEquals(4_000 / 16, table.reservations.get());
+    }
+
+    /**
+     * An in-memory ID_SEQUENCE table behind fake connections.
+     */
+    private static final class SequenceTable {
+
+        private final Map<String, Long> nextValues = new ConcurrentHashMap<>();
+        private final AtomicInteger reservations = new AtomicInteger();
+        private final long maxId;
+
+        SequenceTable(long maxId) {
+            this.maxId = maxId;
+        }
+
+        DataSource dataSource() {
+            return () -> proxy(Connection.class, (method, args) -> switch (method) {
+                case "prepareStatement" -> statement((String) args[0]);
+                case "createStatement" -> proxy(Statement.class, (m, a) ->
+                        m.equals("executeQuery") ? resultSet(maxId) : null);
+                case "getAutoCommit" -> true;
+                default -> null;
+            });
+        }
+
+        private PreparedStatement statement(String sql) {
+            Object[] params = new Object[3];
+            return proxy(PreparedStatement.class, (method, args) -> switch (method) {
+                case "setString", "setLong" -> {
+                    params[(int) args[0]] = args[1];
+                    yield null;
+                }
+                case "executeQuery" -> {
+                    Long next = nextValues.get((String) params[1]);
+                    yield next == null ? resultSet() : resultSet(next);
+                }
+                case "executeUpdate" -> {
+                    if (sql.startsWith("INSERT")) {
+                        nextValues.put((String) params[1], 1L);
+                    } else {
+                        nextValues.put((String) params[2], (Long) params[1]);
+                        reservations.incrementAndGet();
+                    }
+                    yield 1;
+                }
+                default -> null;
+            });
+        }
+    }
+
+    private static ResultSet resultSet(long... values) {
+        boolean[] read = new boolean[1];
+        return proxy(ResultSet.class, (method, args) -> switch (method) {
+            case "next" -> {
+                boolean hasRow = !read[0] && values.length > 0;
+                read[0] = true;
+                yield hasRow;
+            }
+            case "getLong" -> values[0];
+            default -> null;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    Object result = handler.invoke(method.getName(), args);
+                    if (result == null && method.getReturnType() == boolean.class) {
+                        return false;
+                    }
+                    return result;
+                });
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(String method, Object[] args) throws Exception;
+    }
+}
@@ -0,0 +1,71 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.loaders;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchLoaderTest {
+
+    private final List<Set<Integer>> batches = new ArrayList<>();
+
+    private final Function<Set<Integer>, Map<Integer, String>> batchFunction = ids -> {
+        batches.add(ids);
+        Map<Integer, String> results = new HashMap<>();
+        for (Integer id : ids) {
+            if (id > 0) {
+                results.put(id, "value-" + id);
+            }
+        }
+        return results;
+    };
+
+    @Test
+    void loadResolvesAllPendingKeysWithOneBatch() {
+        var loader = new BatchLoader<>(batchFunction, 100);
+        loader.enqueue(1);
+        loader.enqueue(2);
+        loader.enqueue(3);
+
+        assertEquals("value-2", loader.load(2));
+        assertEquals("value-1", loader.load(1));
+        assertEquals("value-3", loader.load(3));
+
+        assertEquals(1, loader.getDispatchCount());
+        assertEquals(Set.of(1, 2, 3), batches.getFirst());
+    }
+
+    @Test
+    void loadSplitsPendingKeysIntoBatches() {
+        var loader = new BatchLoader<>(batchFunction, 2);
+        for (int id = 1; id <= 5; id++) {
+            loader.enqueue(id);
+        }
+
+        loader.load(1);
+
+        assertEquals(3, loader.getDispatchCount());
+        assertEquals(List.of(2, 2, 1), batches.stream().map(Set::size).toList());
+    }
+
+    @Test
+    void missingKeysAreMemoized() {
+        var loader = new BatchLoader<>(batchFunction, () -> "missing", 100);
+
+        assertEquals("missing", loader.load(-1));
+        assertEquals("missing", loader.load(-1));
+        assertEquals(1, loader.getDispatchCount());
+    }
+
+    @Test
+    void primedKeysAreNeverQueried() {
+        var loader = new BatchLoader<>(batchFunction, 100);
+        loader.enqueue(7);
+        loader.prime(7, "primed");
+
+        assertEquals("primed", loader.load(7));
+        assertEquals(0, loader.getDispatchCount());
+    }
+}
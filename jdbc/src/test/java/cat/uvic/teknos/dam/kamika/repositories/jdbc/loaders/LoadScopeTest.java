@@ -0,0 +1,263 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.loaders;
+
+import cat.uvic.teknos.dam.kamika.model.Game;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.JdbcGameRepository;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.DataSource;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadScopeTest {
+
+    private static final Pattern TABLE = Pattern.compile("FROM (\\w+)");
+    private static final Pattern KEY_COLUMN = Pattern.compile("WHERE (?:\\w+\\.)?(\\w+) (?:IN|= \\?)");
+
+    private final List<String> executed = new ArrayList<>();
+    private final Map<String, Table> tables = new HashMap<>();
+
+    @Test
+    void findAllLoadsEachAssociationWithOneQueryWhateverTheNumberOfGames() {
+        assertEquals(6, queriesToReadEveryAssociation(3));
+        executed.clear();
+        assertEquals(6, queriesToReadEveryAssociation(200));
+    }
+
+    @Test
+    void associationsAreSharedWithinTheScope() {
+        seed(10);
+        var repository = new JdbcGameRepository(dataSource());
+
+        try (LoadScope scope = new LoadScope(dataSource())) {
+            List<Game> games = sorted(repository.findAll(scope));
+
+            assertSame(games.get(0).getDeveloper(), games.get(3).getDeveloper());
+            assertEquals("Developer 1", games.get(0).getDeveloper().getName());
+            assertEquals(1, scope.getQueryCount());
+        }
+    }
+
+    @Test
+    void batchSizeSplitsTheAssociationQuery() {
+        seed(10);
+        var repository = new JdbcGameRepository(dataSource());
+
+        try (LoadScope scope = new LoadScope(dataSource(), 4)) {
+            for (Game game : repository.findAll(scope)) {
+                game.getEdition();
+            }
+
+            assertEquals(3, scope.getQueryCount());
+        }
+    }
+
+    @Test
+    void missingAssociationsAreEmptyWithoutExtraQueries() {
+        seed(4);
+        tables.get("GAME_CONSOLE").rows.clear();
+        tables.get("GAME_EDITION").rows.clear();
+        var repository = new JdbcGameRepository(dataSource());
+
+        try (LoadScope scope = new LoadScope(dataSource())) {
+            for (Game game : repository.findAll(scope)) {
+                assertTrue(game.getConsoles().isEmpty());
+                assertNull(game.getEdition());
+                assertNull(game.getEdition());
+            }
+
+            assertEquals(2, scope.getQueryCount());
+        }
+    }
+
+    @Test
+    void findByIdReadsAssociationsThroughTheScope() {
+        seed(5);
+        var repository = new JdbcGameRepository(dataSource());
+
+        try (LoadScope scope = new LoadScope(dataSource())) {
+            Game game = repository.findById(2, scope).orElseThrow();
+
+            assertEquals("Publisher 0", game.getPublisher().getName());
+            assertEquals("Genre 1", game.getGenres().iterator().next().getName());
+            assertTrue(repository.findById(99, scope).isEmpty());
+        }
+    }
+
+    /**
+     * Reads the developer, publisher, genres, consoles and edition of every game and
+     * returns the number of statements executed.
+     */
+    private int queriesToReadEveryAssociation(int gameCount) {
+        seed(gameCount);
+        var repository = new JdbcGameRepository(dataSource());
+
+        try (LoadScope scope = new LoadScope(dataSource())) {
+            Set<Game> games = repository.findAll(scope);
+            assertEquals(gameCount, games.size());
+
+            for (Game game : games) {
+                assertEquals("Developer " + (game.getId() % 3), game.getDeveloper().getName());
+                assertEquals("Publisher " + (game.getId() % 2), game.getPublisher().getName());
+                assertEquals(1, game.getGenres().size());
+                assertEquals(2, game.getConsoles().size());
+                assertEquals("Edition of " + game.getId(), game.getEdition().getEditionName());
+            }
+        }
+        return executed.size();
+    }
+
+    private static List<Game> sorted(Set<Game> games) {
+        List<Game> sorted = new ArrayList<>(games);
+        sorted.sort(Comparator.comparingInt(Game::getId));
+        return sorted;
+    }
+
+    /**
+     * Fills the tables with games 1..count spread over three developers, two publishers
+     * and two genres, each on two consoles and with one edition.
+     */
+    private void seed(int count) {
+        tables.clear();
+        Table games = table("GAME", "GAME_ID", "TITLE", "RELEASE_DATE", "DEVELOPER_ID", "PUBLISHER_ID",
+                "GENRE_ID", "PEGI_RATING", "IS_MULTIPLAYER");
+        Table developers = table("DEVELOPER", "DEVELOPER_ID", "NAME", "COUNTRY", "FOUNDATION_YEAR", "VERSION");
+        Table publishers = table("PUBLISHER", "PUBLISHER_ID", "NAME", "COUNTRY", "DEVELOPER_ID");
+        Table genres = table("GENRE", "GENRE_ID", "NAME", "DESCRIPTION");
+        Table consoles = table("GAME_CONSOLE", "GAME_ID", "CONSOLE_ID", "NAME", "MANUFACTURER", "RELEASE_YEAR");
+        Table editions = table("GAME_EDITION", "GAME_EDITION_ID", "GAME_ID", "EDITION_NAME", "SPECIAL_CONTENT", "PRICE");
+
+        for (int id = 0; id < 3; id++) {
+            developers.rows.add(new Object[]{id, "Developer " + id, "Spain", 1990 + id, 0});
+        }
+        for (int id = 0; id < 2; id++) {
+            publishers.rows.add(new Object[]{id, "Publisher " + id, "Japan", id});
+            genres.rows.add(new Object[]{id + 1, "Genre " + (id + 1), null});
+        }
+        for (int id = 1; id <= count; id++) {
+            games.rows.add(new Object[]{id, "Game " + id, java.sql.Date.valueOf(LocalDate.of(2000, 1, 1)),
+                    id % 3, id % 2, id % 2 + 1, "PEGI 12", id % 2 == 0});
+            consoles.rows.add(new Object[]{id, 1, "Console 1", "Sony", 2020});
+            consoles.rows.add(new Object[]{id, 2, "Console 2", "Nintendo", 2017});
+            editions.rows.add(new Object[]{100 + id, id, "Edition of " + id, null, 59.99});
+        }
+    }
+
+    private Table table(String name, String... labels) {
+        Table table = new Table(List.of(labels), new ArrayList<>());
+        tables.put(name, table);
+        return table;
+    }
+
+    private record Table(List<String> labels, List<Object[]> rows) {
+    }
+
+    /**
+     * A data source that answers single-table queries, optionally filtered with
+     * {@code WHERE <column> IN (...)} or {@code WHERE <column> = ?}, from the seeded tables and records every statement.
+     */
+    private DataSource dataSource() {
+        return () -> proxy(Connection.class, (method, args) -> switch (method) {
+            case "createStatement" -> proxy(Statement.class, (m, a) -> m.equals("executeQuery")
+                    ? query((String) a[0], List.of()) : null);
+            case "prepareStatement" -> {
+                String sql = (String) args[0];
+                List<Object> params = new ArrayList<>();
+                yield proxy(PreparedStatement.class, (m, a) -> switch (m) {
+                    case "setInt" -> {
+                        params.add(a[1]);
+                        yield null;
+                    }
+                    case "executeQuery" -> query(sql, params);
+                    default -> null;
+                });
+            }
+            default -> null;
+        });
+    }
+
+    private ResultSet query(String sql, List<Object> params) {
+        executed.add(sql);
+        Matcher tableName = TABLE.matcher(sql);
+        assertTrue(tableName.find(), sql);
+        Table table = tables.get(tableName.group(1));
+
+        List<Object[]> rows = table.rows;
+        Matcher keyColumn = KEY_COLUMN.matcher(sql);
+        if (keyColumn.find()) {
+            int keyIndex = indexOf(table, keyColumn.group(1));
+            rows = rows.stream().filter(row -> params.contains(row[keyIndex])).toList();
+        }
+        return resultSet(table, rows);
+    }
+
+    private static int indexOf(Table table, String label) {
+        for (int i = 0; i < table.labels.size(); i++) {
+            if (table.labels.get(i).equalsIgnoreCase(label)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown column " + label);
+    }
+
+    private static ResultSet resultSet(Table table, List<Object[]> rows) {
+        Iterator<Object[]> iterator = rows.iterator();
+        Object[][] current = new Object[1][];
+        boolean[] wasNull = new boolean[1];
+        ResultSetMetaData metaData = proxy(ResultSetMetaData.class, (method, args) -> switch (method) {
+            case "getColumnCount" -> table.labels.size();
+            case "getColumnLabel", "getColumnName" -> table.labels.get((int) args[0] - 1);
+            default -> null;
+        });
+        return proxy(ResultSet.class, (method, args) -> {
+            switch (method) {
+                case "next" -> {
+                    current[0] = iterator.hasNext() ? iterator.next() : null;
+                    return current[0] != null;
+                }
+                case "getMetaData" -> {
+                    return metaData;
+                }
+                case "wasNull" -> {
+                    return wasNull[0];
+                }
+                default -> {
+                    if (!method.startsWith("get")) {
+                        return null;
+                    }
+                    int index = args[0] instanceof String label ? indexOf(table, label) : (int) args[0] - 1;
+                    Object value = current[0][index];
+                    wasNull[0] = value == null;
+                    return switch (method) {
+                        case "getInt" -> value == null ? 0 : (Integer) value;
+                        case "getDouble" -> value == null ? 0.0 : (Double) value;
+                        case "getBoolean" -> value != null && (Boolean) value;
+                        default -> value;
+                    };
+                }
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    Object result = handler.invoke(method.getName(), args);
+                    if (result == null && method.getReturnType() == boolean.class) {
+                        return false;
+                    }
+                    return result;
+                });
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(String method, Object[] args) throws Exception;
+    }
+}
@@ -0,0 +1,141 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.migrations;
+
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.SingleConnectionDataSource;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.MigrationException;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.jupiter.LoadDatabaseExtension;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(LoadDatabaseExtension.class)
+class MigrationRunnerTest {
+
+    private static final String TEST_MIGRATIONS = "/db/migration-tests/";
+
+    private final MigrationRunner runner = new MigrationRunner(() -> {
+        throw new SQLException("No database needed");
+    });
+
+    private final SingleConnectionDataSource dataSource = new SingleConnectionDataSource();
+
+    @BeforeEach
+    void dropTestTables() throws SQLException {
+        try (Statement stmt = dataSource.getConnection().createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS SCHEMA_VERSION");
+            stmt.execute("DROP TABLE IF EXISTS MIGRATION_PROBE");
+        }
+    }
+
+    @AfterEach
+    void closeDataSource() throws SQLException {
+        dropTestTables();
+        dataSource.close();
+    }
+
+    @Test
+    void loadMigrationsInVersionOrder() {
+        List<MigrationRunner.Migration> migrations = runner.loadMigrations();
+
+        assertFalse(migrations.isEmpty());
+        assertEquals(1, migrations.getFirst().version());
+        assertEquals("case insensitive lookup indexes", migrations.getFirst().description());
+        for (int i = 1; i < migrations.size(); i++) {
+            assertTrue(migrations.get(i - 1).version() < migrations.get(i).version());
+        }
+    }
+
+    @Test
+    void splitStatementsIgnoresCommentsAndBlankLines() {
+        String script = """
+                -- first
+                CREATE INDEX A ON T (X);
+
+                CREATE INDEX B
+                    ON T (Y);
+                """;
+
+        List<String> statements = MigrationRunner.splitStatements(script);
+
+        assertEquals(2, statements.size());
+        assertEquals("CREATE INDEX A ON T (X)", statements.get(0));
+        assertTrue(statements.get(1).startsWith("CREATE INDEX B"));
+        assertFalse(statements.get(1).endsWith(";"));
+    }
+
+    @Test
+    void appliedMigrationsAreRecordedInTheHistoryTable() throws SQLException {
+        var migrations = new MigrationRunner(dataSource, TEST_MIGRATIONS + "applied");
+
+        assertEquals(2, migrations.migrate());
+
+        assertEquals(List.of("1 create probe", "2 insert probe"),
+                rows("SELECT VERSION, DESCRIPTION FROM SCHEMA_VERSION ORDER BY VERSION"));
+        List<String> checksums = rows("SELECT VERSION, CHECKSUM FROM SCHEMA_VERSION ORDER BY VERSION");
+        List<MigrationRunner.Migration> loaded = migrations.loadMigrations();
+        assertEquals(List.of("1 " + loaded.get(0).checksum(), "2 " + loaded.get(1).checksum()), checksums);
+        assertEquals(List.of("1"), rows("SELECT ID FROM MIGRATION_PROBE"));
+    }
+
+    @Test
+    void appliedVersionsAreSkipped() throws SQLException {
+        new MigrationRunner(dataSource, TEST_MIGRATIONS + "applied").migrate();
+
+        // Running V1 or V2 again would fail on the existing table or the duplicate row
+        assertEquals(0, new MigrationRunner(dataSource, TEST_MIGRATIONS + "applied").migrate());
+        assertEquals(1, new MigrationRunner(dataSource, TEST_MIGRATIONS + "grown").migrate());
+
+        assertEquals(List.of("1", "2"), rows("SELECT ID FROM MIGRATION_PROBE ORDER BY ID"));
+        assertEquals(List.of("1", "2", "3"), rows("SELECT VERSION FROM SCHEMA_VERSION ORDER BY VERSION"));
+    }
+
+    @Test
+    void editedMigrationIsDetectedByItsChecksum() throws SQLException {
+        new MigrationRunner(dataSource, TEST_MIGRATIONS + "applied").migrate();
+
+        MigrationException exception = assertThrows(MigrationException.class,
+                () -> new MigrationRunner(dataSource, TEST_MIGRATIONS + "edited").migrate());
+
+        assertEquals("Migration V1 has changed since it was applied", exception.getMessage());
+    }
+
+    @Test
+    void failingMigrationIsRolledBackAndNotRecorded() throws SQLException {
+        var migrations = new MigrationRunner(dataSource, TEST_MIGRATIONS + "failing");
+
+        MigrationException exception = assertThrows(MigrationException.class, migrations::migrate);
+
+        assertEquals("Migration V2 failed", exception.getMessage());
+        assertEquals(List.of(), rows("SELECT ID FROM MIGRATION_PROBE"));
+        assertEquals(List.of("1"), rows("SELECT VERSION FROM SCHEMA_VERSION"));
+    }
+
+    /**
+     * Returns each row of a query as its columns joined by spaces.
+     */
+    private List<String> rows(String sql) throws SQLException {
+        Connection connection = dataSource.getConnection();
+        List<String> rows = new ArrayList<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                List<String> values = new ArrayList<>();
+                for (int i = 1; i <= columns; i++) {
+                    values.add(rs.getString(i));
+                }
+                rows.add(String.join(" ", values));
+            }
+        }
+        return rows;
+    }
+}
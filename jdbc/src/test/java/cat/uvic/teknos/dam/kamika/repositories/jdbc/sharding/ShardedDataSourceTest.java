@@ -0,0 +1,107 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.sharding;
+
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.DataSource;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.CrudException;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedDataSourceTest {
+
+    /**
+     * A data source whose connections record the statements they execute.
+     */
+    private static DataSource recording(List<String> executed) {
+        return () -> (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (connection, method, args) -> switch (method.getName()) {
+                    case "createStatement" -> Proxy.newProxyInstance(
+                            Statement.class.getClassLoader(),
+                            new Class<?>[]{Statement.class},
+                            (statement, m, a) -> {
+                                if (m.getName().equals("execute")) {
+                                    executed.add((String) a[0]);
+                                }
+                                return m.getReturnType() == boolean.class ? false : null;
+                            });
+                    case "isClosed" -> false;
+                    default -> null;
+                });
+    }
+
+    private static ShardedDataSource shards(int count) {
+        List<DataSource> dataSources = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            dataSources.add(recording(new ArrayList<>()));
+        }
+        return new ShardedDataSource(dataSources);
+    }
+
+    @Test
+    void idsAreRoutedToTheShardThatGeneratedThem() {
+        ShardedDataSource shards = shards(3);
+
+        assertEquals(0, shards.shardOf(1));
+        assertEquals(1, shards.shardOf(2));
+        assertEquals(2, shards.shardOf(3));
+        assertEquals(0, shards.shardOf(4));
+        assertThrows(CrudException.class, () -> shards.shardOf(0));
+    }
+
+    @Test
+    void writeConnectionsGenerateShardAwareIds() throws Exception {
+        List<String> executed = new ArrayList<>();
+        ShardedDataSource shards = new ShardedDataSource(List.of(recording(new ArrayList<>()), recording(executed)));
+
+        shards.shard(1).getConnection();
+        shards.shard(1).getReadConnection();
+
+        assertEquals(List.of("SET @@SESSION.auto_increment_increment = 2, @@SESSION.auto_increment_offset = 2"),
+                executed);
+    }
+
+    @Test
+    void insertsAreSpreadOverShards() {
+        ShardedDataSource shards = shards(2);
+
+        assertEquals(0, shards.nextInsertShard());
+        assertEquals(1, shards.nextInsertShard());
+        assertEquals(0, shards.nextInsertShard());
+    }
+
+    @Test
+    void scatterQueriesEveryShardInParallel() {
+        ShardedDataSource shards = shards(4);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        List<Integer> results = shards.scatter(shard -> {
+            threads.add(Thread.currentThread().getName() + Thread.currentThread().threadId());
+            return shard * 10;
+        });
+
+        assertEquals(List.of(0, 10, 20, 30), results);
+        assertEquals(4, threads.size());
+    }
+
+    @Test
+    void scatterPropagatesShardFailures() {
+        ShardedDataSource shards = shards(2);
+
+        CrudException exception = assertThrows(CrudException.class, () -> shards.scatter(shard -> {
+            if (shard == 1) {
+                throw new CrudException("Shard down");
+            }
+            return shard;
+        }));
+        assertEquals("Shard down", exception.getMessage());
+    }
+}
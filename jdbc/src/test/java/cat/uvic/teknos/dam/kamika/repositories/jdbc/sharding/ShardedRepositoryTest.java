@@ -0,0 +1,209 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.sharding;
+
+import cat.uvic.teknos.dam.kamika.model.Game;
+import cat.uvic.teknos.dam.kamika.model.GameEdition;
+import cat.uvic.teknos.dam.kamika.model.impl.DeveloperImpl;
+import cat.uvic.teknos.dam.kamika.model.impl.GameEditionImpl;
+import cat.uvic.teknos.dam.kamika.model.impl.GameImpl;
+import cat.uvic.teknos.dam.kamika.model.impl.PublisherImpl;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.DataSource;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.CrudException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the sharded repositories against two in-memory H2 databases.
+ * <p>
+ * H2 has no session auto-increment settings, so the statement that makes MySQL generate
+ * shard-aware IDs is skipped and the identity columns of shard {@code i} are created with
+ * the same offset and increment instead.
+ * </p>
+ */
+class ShardedRepositoryTest {
+
+    private static final int SHARDS = 2;
+
+    private final List<String> urls = new ArrayList<>();
+    private ShardedDataSource shards;
+    private ShardedGameRepository games;
+    private ShardedGameEditionRepository editions;
+
+    @BeforeEach
+    void createShards() throws SQLException {
+        String name = UUID.randomUUID().toString();
+        List<DataSource> dataSources = new ArrayList<>();
+        for (int i = 0; i < SHARDS; i++) {
+            String url = "jdbc:h2:mem:" + name + "-" + i + ";DB_CLOSE_DELAY=-1";
+            urls.add(url);
+            try (Connection conn = DriverManager.getConnection(url);
+                 Statement stmt = conn.createStatement()) {
+                String identity = " INT GENERATED BY DEFAULT AS IDENTITY (START WITH " + (i + 1)
+                        + " INCREMENT BY " + SHARDS + ") PRIMARY KEY";
+                stmt.execute("CREATE TABLE GAME (GAME_ID" + identity + ", TITLE VARCHAR(100) NOT NULL, "
+                        + "RELEASE_DATE DATE, DEVELOPER_ID INT, PUBLISHER_ID INT, GENRE_ID INT, "
+                        + "PEGI_RATING VARCHAR(10), IS_MULTIPLAYER BOOLEAN)");
+                stmt.execute("CREATE TABLE GAME_EDITION (GAME_EDITION_ID" + identity + ", GAME_ID INT NOT NULL, "
+                        + "EDITION_NAME VARCHAR(100) NOT NULL, SPECIAL_CONTENT VARCHAR(255), PRICE DECIMAL(10, 2))");
+            }
+            dataSources.add(() -> withoutSessionVariables(DriverManager.getConnection(url)));
+        }
+        shards = new ShardedDataSource(dataSources);
+        games = new ShardedGameRepository(shards);
+        editions = new ShardedGameEditionRepository(shards);
+    }
+
+    @AfterEach
+    void dropShards() throws Exception {
+        shards.close();
+        for (String url : urls) {
+            try (Connection conn = DriverManager.getConnection(url);
+                 Statement stmt = conn.createStatement()) {
+                stmt.execute("SHUTDOWN");
+            }
+        }
+    }
+
+    @Test
+    void newGamesAreSpreadOverTheShards() throws SQLException {
+        for (int i = 1; i <= 4; i++) {
+            games.save(game("Game " + i));
+        }
+
+        assertEquals(2, countOn(0, "GAME"));
+        assertEquals(2, countOn(1, "GAME"));
+        assertEquals(4, games.count());
+    }
+
+    @Test
+    void gamesAreFoundOnTheShardThatGeneratedTheirId() throws SQLException {
+        Game first = games.save(game("Zelda"));
+        Game second = games.save(game("Metroid"));
+
+        assertEquals(0, shards.shardOf(first.getId()));
+        assertEquals(1, shards.shardOf(second.getId()));
+        assertEquals("Zelda", games.findById(first.getId()).orElseThrow().getTitle());
+        assertEquals("Metroid", games.findById(second.getId()).orElseThrow().getTitle());
+        assertTrue(games.existsById(second.getId()));
+        assertTrue(games.findById(second.getId() + SHARDS).isEmpty());
+    }
+
+    @Test
+    void findAllMergesEveryShardInIdOrder() throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            ids.add(games.save(game("Game " + i)).getId());
+        }
+
+        assertEquals(ids, games.findAll().stream().map(Game::getId).toList());
+    }
+
+    @Test
+    void findAllKeepsEditionsThatCompareEqual() throws SQLException {
+        GameEdition first = editions.save(edition(games.save(game("Zelda")), "Standard"));
+        GameEdition second = editions.save(edition(games.save(game("Metroid")), "Standard"));
+        GameEdition third = editions.save(edition(games.save(game("Kirby")), "Standard"));
+        assertEquals(first, second);
+
+        var all = editions.findAll();
+
+        assertEquals(3, all.size());
+        assertEquals(List.of(first.getId(), second.getId(), third.getId()),
+                all.stream().map(GameEdition::getId).toList());
+        assertEquals(3, editions.count());
+    }
+
+    @Test
+    void editionsAreStoredAndFoundWithTheirGame() throws SQLException {
+        Game zelda = games.save(game("Zelda"));
+        Game metroid = games.save(game("Metroid"));
+
+        GameEdition deluxe = editions.save(edition(metroid, "Deluxe"));
+
+        assertEquals(0, countOn(0, "GAME_EDITION"));
+        assertEquals(1, countOn(1, "GAME_EDITION"));
+        assertEquals("Deluxe", editions.findById(deluxe.getId()).orElseThrow().getEditionName());
+        assertTrue(editions.existsByGameIdAndEditionName(metroid.getId(), "Deluxe"));
+        assertFalse(editions.existsByGameIdAndEditionName(zelda.getId(), "Deluxe"));
+    }
+
+    @Test
+    void findAllRejectsAnIdStoredOnTwoShards() throws SQLException {
+        for (int i = 0; i < SHARDS; i++) {
+            try (Connection conn = DriverManager.getConnection(urls.get(i));
+                 Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("INSERT INTO GAME (GAME_ID, TITLE) VALUES (7, 'Copy " + i + "')");
+            }
+        }
+
+        assertThrows(CrudException.class, () -> games.findAll());
+    }
+
+    private long countOn(int shard, String table) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(urls.get(shard));
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static GameImpl game(String title) {
+        var developer = new DeveloperImpl();
+        developer.setId(1);
+        var publisher = new PublisherImpl();
+        publisher.setId(1);
+
+        var game = new GameImpl();
+        game.setTitle(title);
+        game.setReleaseDate(LocalDate.of(2020, 1, 1));
+        game.setDeveloper(developer);
+        game.setPublisher(publisher);
+        game.setPegiRating("PEGI 12");
+        return game;
+    }
+
+    private static GameEditionImpl edition(Game game, String name) {
+        var edition = new GameEditionImpl();
+        edition.setGame(game);
+        edition.setEditionName(name);
+        edition.setPrice(59.99);
+        return edition;
+    }
+
+    /**
+     * Wraps an H2 connection so that the MySQL session settings of {@link ShardedDataSource} are ignored.
+     */
+    private static Connection withoutSessionVariables(Connection conn) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(conn, method, args);
+                    if (method.getName().equals("createStatement") && args == null) {
+                        Statement stmt = (Statement) result;
+                        return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{Statement.class},
+                                (statementProxy, m, a) -> m.getName().equals("execute")
+                                        && ((String) a[0]).startsWith("SET @@SESSION")
+                                        ? false : invoke(stmt, m, a));
+                    }
+                    return result;
+                });
+    }
+
+    private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.statistics;
+
+import cat.uvic.teknos.dam.kamika.model.Developer;
+import cat.uvic.teknos.dam.kamika.model.impl.DeveloperImpl;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.JdbcDeveloperRepository;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.SingleConnectionDataSource;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.jupiter.LoadDatabaseExtension;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(LoadDatabaseExtension.class)
+class CatalogStatisticsTest {
+
+    private static final String COUNTRY = "Atlantis";
+
+    private final SingleConnectionDataSource dataSource = new SingleConnectionDataSource();
+    private final CatalogStatistics statistics = new CatalogStatistics(dataSource);
+    private final JdbcDeveloperRepository developers = new JdbcDeveloperRepository(dataSource);
+
+    @BeforeEach
+    void createSummaryTable() throws SQLException {
+        try (Statement stmt = dataSource.getConnection().createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS CATALOG_COUNTER");
+            // As created by migration V3
+            stmt.execute("""
+                    CREATE TABLE CATALOG_COUNTER (
+                        COUNTER_NAME VARCHAR(40) NOT NULL,
+                        COUNTER_KEY VARCHAR(100) NOT NULL,
+                        COUNTER_VALUE BIGINT NOT NULL,
+                        PRIMARY KEY (COUNTER_NAME, COUNTER_KEY)
+                    )""");
+            stmt.execute("DELETE FROM DEVELOPER WHERE COUNTRY = '" + COUNTRY + "'");
+        }
+        developers.setStatistics(statistics);
+    }
+
+    @AfterEach
+    void dropSummaryTable() throws SQLException {
+        statistics.close();
+        try (Statement stmt = dataSource.getConnection().createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS CATALOG_COUNTER");
+        }
+        dataSource.close();
+    }
+
+    @Test
+    void insertAndDeleteUpdateTheCountersAndTheSummaryTable() throws SQLException {
+        statistics.load();
+        long developersBefore = countRows("DEVELOPER");
+        assertEquals(developersBefore, statistics.get(Counter.DEVELOPERS));
+
+        Developer developer = developers.save(developer("Poseidon Games"));
+
+        assertEquals(developersBefore + 1, statistics.get(Counter.DEVELOPERS));
+        assertEquals(1, statistics.get(Counter.DEVELOPERS_BY_COUNTRY, "ATLANTIS"));
+        assertEquals(developersBefore + 1, storedValue(Counter.DEVELOPERS, Counter.TOTAL_KEY));
+        assertEquals(1, storedValue(Counter.DEVELOPERS_BY_COUNTRY, "atlantis"));
+        assertEquals(developersBefore + 1, developers.count());
+
+        assertTrue(developers.deleteById(developer.getId()));
+
+        assertEquals(developersBefore, statistics.get(Counter.DEVELOPERS));
+        assertEquals(0, statistics.get(Counter.DEVELOPERS_BY_COUNTRY, COUNTRY));
+        assertEquals(developersBefore, storedValue(Counter.DEVELOPERS, Counter.TOTAL_KEY));
+        assertEquals(0, storedValue(Counter.DEVELOPERS_BY_COUNTRY, "atlantis"));
+    }
+
+    @Test
+    void firstLoadFillsTheEmptySummaryTable() throws SQLException {
+        assertFalse(statistics.isLoaded());
+
+        statistics.load();
+
+        assertTrue(statistics.isLoaded());
+        assertEquals(countRows("GAME"), storedValue(Counter.GAMES, Counter.TOTAL_KEY));
+        assertEquals(countRows("DEVELOPER"), storedValue(Counter.DEVELOPERS, Counter.TOTAL_KEY));
+    }
+
+    @Test
+    void loadAfterARestartReadsTheSummaryTable() throws SQLException {
+        statistics.load();
+        developers.save(developer("Poseidon Games"));
+        developers.save(developer("Trident Studio"));
+        long recorded = statistics.get(Counter.DEVELOPERS);
+        // Not recorded, so only a reconciliation would count it
+        insertDeveloperAroundTheRepository("Kraken Interactive");
+
+        var restarted = new CatalogStatistics(dataSource);
+        restarted.load();
+
+        assertEquals(recorded, restarted.get(Counter.DEVELOPERS));
+        assertEquals(2, restarted.get(Counter.DEVELOPERS_BY_COUNTRY, COUNTRY));
+        assertEquals(statistics.getAll(Counter.GAMES_BY_GENRE), restarted.getAll(Counter.GAMES_BY_GENRE));
+    }
+
+    @Test
+    void reconcileFixesADriftedCounter() throws SQLException {
+        statistics.load();
+        insertDeveloperAroundTheRepository("Kraken Interactive");
+        try (Statement stmt = dataSource.getConnection().createStatement()) {
+            stmt.executeUpdate("UPDATE CATALOG_COUNTER SET COUNTER_VALUE = 999 WHERE COUNTER_NAME = 'GAMES'");
+        }
+        long developersNow = countRows("DEVELOPER");
+        assertEquals(developersNow - 1, statistics.get(Counter.DEVELOPERS));
+
+        statistics.reconcile();
+
+        assertEquals(developersNow, statistics.get(Counter.DEVELOPERS));
+        assertEquals(1, statistics.get(Counter.DEVELOPERS_BY_COUNTRY, COUNTRY));
+        assertEquals(developersNow, storedValue(Counter.DEVELOPERS, Counter.TOTAL_KEY));
+        assertEquals(countRows("GAME"), storedValue(Counter.GAMES, Counter.TOTAL_KEY));
+        assertEquals(countRows("GAME"), statistics.get(Counter.GAMES));
+    }
+
+    private static Developer developer(String name) {
+        Developer developer = new DeveloperImpl();
+        developer.setName(name);
+        developer.setCountry(COUNTRY);
+        developer.setFoundationYear(2001);
+        return developer;
+    }
+
+    private void insertDeveloperAroundTheRepository(String name) throws SQLException {
+        try (PreparedStatement stmt = dataSource.getConnection().prepareStatement(
+                "INSERT INTO DEVELOPER (NAME, COUNTRY, FOUNDATION_YEAR) VALUES (?, ?, 2001)")) {
+            stmt.setString(1, name);
+            stmt.setString(2, COUNTRY);
+            stmt.executeUpdate();
+        }
+    }
+
+    private long countRows(String table) throws SQLException {
+        try (Statement stmt = dataSource.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Returns the value stored in the summary table, or -1 if the counter key has no row.
+     */
+    private long storedValue(Counter counter, String key) throws SQLException {
+        try (PreparedStatement stmt = dataSource.getConnection().prepareStatement(
+                "SELECT COUNTER_VALUE FROM CATALOG_COUNTER WHERE COUNTER_NAME = ? AND COUNTER_KEY = ?")) {
+            stmt.setString(1, counter.name());
+            stmt.setString(2, key);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : -1;
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package cat.uvic.teknos.dam.kamika.repositories.jdbc.statistics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CounterChangesTest {
+
+    @Test
+    void incrementsAndDecrementsOfTheSameKeyAreMerged() {
+        CounterChanges changes = new CounterChanges(true);
+
+        changes.increment(Counter.GAMES_BY_GENRE, 1)
+                .increment(Counter.GAMES_BY_GENRE, 1)
+                .decrement(Counter.GAMES_BY_GENRE, 2);
+
+        assertEquals(Map.of("1", 2L, "2", -1L), changes.get(Counter.GAMES_BY_GENRE));
+    }
+
+    @Test
+    void movingBackToTheSameKeyLeavesNothingToRecord() {
+        CounterChanges changes = new CounterChanges(true);
+
+        changes.move(Counter.DEVELOPERS_BY_COUNTRY, "Spain", "Japan")
+                .move(Counter.DEVELOPERS_BY_COUNTRY, "Japan", "spain");
+
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    void countryKeysAreCaseInsensitiveAndNullKeysIgnored() {
+        CounterChanges changes = new CounterChanges(true);
+
+        changes.increment(Counter.PUBLISHERS_BY_COUNTRY, "JAPAN")
+                .increment(Counter.PUBLISHERS_BY_COUNTRY, "Japan")
+                .increment(Counter.PUBLISHERS_BY_COUNTRY, null)
+                .increment(Counter.PUBLISHERS);
+
+        assertEquals(Map.of("japan", 2L), changes.get(Counter.PUBLISHERS_BY_COUNTRY));
+        assertEquals(Map.of(Counter.TOTAL_KEY, 1L), changes.get(Counter.PUBLISHERS));
+    }
+
+    @Test
+    void disabledStatisticsRunTheWriteWithoutTracking() throws Exception {
+        CatalogStatistics statistics = CatalogStatistics.DISABLED;
+
+        boolean tracked = statistics.write(null, CounterChanges::isTracking);
+
+        assertFalse(tracked);
+        assertFalse(statistics.isLoaded());
+        assertThrows(IllegalStateException.class, () -> statistics.get(Counter.GAMES));
+        assertThrows(IllegalStateException.class, statistics::reconcile);
+    }
+}
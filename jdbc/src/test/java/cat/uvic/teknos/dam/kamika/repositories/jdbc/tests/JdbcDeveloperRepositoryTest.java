@@ -2,6 +2,10 @@ package cat.uvic.teknos.dam.kamika.repositories.jdbc.tests;
 
 import cat.uvic.teknos.dam.kamika.model.Developer;
 import cat.uvic.teknos.dam.kamika.model.impl.DeveloperImpl;
+import cat.uvic.teknos.dam.kamika.repositories.DeveloperPatch;
+import cat.uvic.teknos.dam.kamika.repositories.DeveloperRepository;
+import cat.uvic.teknos.dam.kamika.repositories.Sort;
+import cat.uvic.teknos.dam.kamika.repositories.exceptions.VersionConflictException;
 import cat.uvic.teknos.dam.kamika.repositories.jdbc.JdbcDeveloperRepository;
 import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.SingleConnectionDataSource;
 import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.CrudException;
@@ -9,7 +13,9 @@ import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.CrudException;
 import java.sql.Connection;
 import java.sql.Statement;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import cat.uvic.teknos.dam.kamika.repositories.jdbc.jupiter.LoadDatabaseExtension;
 import org.junit.jupiter.api.BeforeEach;
@@ -64,7 +70,8 @@ class JdbcDeveloperRepositoryTest {
                 DEVELOPER_ID INT PRIMARY KEY AUTO_INCREMENT,
                 NAME VARCHAR(255) NOT NULL,
                 COUNTRY VARCHAR(255),
-                FOUNDATION_YEAR INT
+                FOUNDATION_YEAR INT,
+                VERSION INT NOT NULL DEFAULT 0
             )
         """);
 
@@ -134,6 +141,137 @@ class JdbcDeveloperRepositoryTest {
         assertEquals(1983, found.get().getFoundationYear());
     }
 
+    /**
+     * Tests that every update increments the developer's version.
+     */
+    @Test
+    void shouldIncrementVersionOnUpdate() {
+        Developer developer = new DeveloperImpl();
+        developer.setName("Capcom");
+        developer.setCountry("Japan");
+        developer.setFoundationYear(1979);
+        Developer saved = developerRepository.save(developer);
+        assertEquals(0, saved.getVersion());
+
+        saved.setFoundationYear(1983);
+        developerRepository.save(saved);
+
+        assertEquals(1, saved.getVersion());
+        assertEquals(1, developerRepository.findById(saved.getId()).orElseThrow().getVersion());
+    }
+
+    /**
+     * Tests that an update based on an outdated version is rejected and changes nothing.
+     */
+    @Test
+    void shouldRejectUpdateOfStaleVersion() {
+        Developer developer = new DeveloperImpl();
+        developer.setName("Konami");
+        developer.setCountry("Japan");
+        developer.setFoundationYear(1969);
+        Developer saved = developerRepository.save(developer);
+
+        Developer first = developerRepository.findById(saved.getId()).orElseThrow();
+        Developer second = developerRepository.findById(saved.getId()).orElseThrow();
+        first.setName("Konami Digital Entertainment");
+        developerRepository.save(first);
+
+        second.setName("Konami Holdings");
+        VersionConflictException conflict = assertThrows(VersionConflictException.class,
+                () -> developerRepository.save(second));
+
+        assertEquals(Integer.valueOf(1), conflict.getCurrentVersion());
+        assertEquals("Konami Digital Entertainment",
+                developerRepository.findById(saved.getId()).orElseThrow().getName());
+    }
+
+    /**
+     * Tests that updating a developer that does not exist reports it as missing.
+     */
+    @Test
+    void shouldReportMissingDeveloperOnUpdate() {
+        Developer developer = new DeveloperImpl();
+        developer.setId(999_999);
+        developer.setName("Ghost");
+
+        VersionConflictException conflict = assertThrows(VersionConflictException.class,
+                () -> developerRepository.save(developer));
+
+        assertTrue(conflict.isMissing());
+    }
+
+    /**
+     * Tests that a sorted query returns every row in order, including rows with equal fields.
+     */
+    @Test
+    void shouldListDevelopersInSortOrder() {
+        for (String name : List.of("Sega", "Atlus", "Sega")) {
+            Developer developer = new DeveloperImpl();
+            developer.setName(name);
+            developer.setCountry("Japan");
+            developerRepository.save(developer);
+        }
+
+        List<Developer> developers = developerRepository.findAll(
+                Sort.by(DeveloperRepository.SORT_BY_NAME, Sort.Direction.DESC));
+
+        assertEquals(List.of("Sega", "Sega", "Atlus"), developers.stream().map(Developer::getName).toList());
+        assertTrue(developers.get(0).getId() < developers.get(1).getId());
+    }
+
+    /**
+     * Tests that a patch changes only the given fields and bumps the version.
+     */
+    @Test
+    void shouldPatchOnlyChangedFields() {
+        Developer developer = new DeveloperImpl();
+        developer.setName("Sega");
+        developer.setCountry("Japan");
+        developer.setFoundationYear(1960);
+        Developer saved = developerRepository.save(developer);
+
+        Developer patched = developerRepository.patch(saved.getId(),
+                new DeveloperPatch().country("Japan").foundationYear(1940)).orElseThrow();
+
+        assertEquals(1, patched.getVersion());
+        Developer stored = developerRepository.findById(saved.getId()).orElseThrow();
+        assertEquals("Sega", stored.getName());
+        assertEquals("Japan", stored.getCountry());
+        assertEquals(1940, stored.getFoundationYear());
+    }
+
+    /**
+     * Tests that a patch that changes nothing is not written and keeps the version.
+     */
+    @Test
+    void shouldSkipPatchWithoutChanges() {
+        Developer developer = new DeveloperImpl();
+        developer.setName("Atlus");
+        developer.setCountry("Japan");
+        Developer saved = developerRepository.save(developer);
+
+        Developer patched = developerRepository.patch(saved.getId(),
+                new DeveloperPatch().name("Atlus").country("Japan")).orElseThrow();
+
+        assertEquals(0, patched.getVersion());
+        assertEquals(0, developerRepository.findById(saved.getId()).orElseThrow().getVersion());
+    }
+
+    /**
+     * Tests that a patch expecting an outdated version is rejected.
+     */
+    @Test
+    void shouldRejectPatchOfStaleVersion() {
+        Developer developer = new DeveloperImpl();
+        developer.setName("Namco");
+        Developer saved = developerRepository.save(developer);
+        developerRepository.patch(saved.getId(), new DeveloperPatch().country("Japan"));
+
+        assertThrows(VersionConflictException.class, () -> developerRepository.patch(saved.getId(),
+                new DeveloperPatch().name("Bandai Namco").expectedVersion(0)));
+        assertTrue(developerRepository.patch(999_999, new DeveloperPatch().name("Ghost")).isEmpty());
+    }
+
     /**
      * Tests that a developer can be deleted by passing the entity object.
      *
@@ -279,4 +417,37 @@ class JdbcDeveloperRepositoryTest {
         assertEquals(2, japanCount);
         assertEquals(1, usaCount);
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that developers can be streamed filtered by country.
+     *
+     * <p>Verifies that:
+     * <ul>
+     *   <li>Only developers from the given country are returned, ignoring case</li>
+     *   <li>The stream can be consumed and closed without errors</li>
+     * </ul>
+     */
+    @Test
+    void shouldStreamDevelopersByCountryIgnoreCase() {
+        Developer dev1 = new DeveloperImpl();
+        dev1.setName("Nintendo");
+        dev1.setCountry("Japan");
+        dev1.setFoundationYear(1889);
+        developerRepository.save(dev1);
+
+        Developer dev2 = new DeveloperImpl();
+        dev2.setName("EA");
+        dev2.setCountry("USA");
+        dev2.setFoundationYear(1982);
+        developerRepository.save(dev2);
+
+        try (Stream<Developer> developers = developerRepository.streamByCountryIgnoreCase("JAPAN")) {
+            List<String> names = developers.map(Developer::getName).toList();
+            assertEquals(List.of("Nintendo"), names);
+        }
+
+        try (Stream<Developer> developers = developerRepository.streamAll()) {
+            assertEquals(2, developers.count());
+        }
+    }
+}
@@ -15,6 +15,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -213,4 +214,30 @@ class JdbcGameEditionRepositoryTest {
     void shouldThrowCrudExceptionOnInvalidOperation() {
         assertThrows(CrudException.class, () -> repository.findByGameIdAndEditionName(-1, ""));
     }
+
+    @Test
+    @Order(10)
+    void shouldFindOnlyTheEditionsOfTheGame() {
+        repository.save(edition(1, "Standard Edition"));
+        repository.save(edition(2, "Deluxe Edition"));
+        repository.save(edition(1, "Collector's Edition"));
+
+        List<GameEdition> editions = repository.findByGameId(1);
+
+        assertEquals(List.of("Standard Edition", "Collector's Edition"),
+                editions.stream().map(GameEdition::getEditionName).toList());
+        assertTrue(editions.stream().allMatch(edition -> edition.getGame().getId() == 1));
+        assertTrue(repository.findByGameId(999).isEmpty());
+    }
+
+    private static GameEdition edition(int gameId, String editionName) {
+        GameImpl game = new GameImpl();
+        game.setId(gameId);
+
+        GameEdition edition = new GameEditionImpl();
+        edition.setGame(game);
+        edition.setEditionName(editionName);
+        edition.setPrice(59.99);
+        return edition;
+    }
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package cat.uvic.teknos.dam.kamika.repositories.jdbc.tests;
 
+import cat.uvic.teknos.dam.kamika.model.Console;
 import cat.uvic.teknos.dam.kamika.model.Game;
+import cat.uvic.teknos.dam.kamika.model.Genre;
 import cat.uvic.teknos.dam.kamika.model.impl.GameImpl;
 import cat.uvic.teknos.dam.kamika.model.impl.DeveloperImpl;
 import cat.uvic.teknos.dam.kamika.model.impl.PublisherImpl;
@@ -13,10 +15,14 @@ import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -37,7 +43,11 @@ class JdbcGameRepositoryTest {
             stmt.execute("SET FOREIGN_KEY_CHECKS = 0");
 
             // Limpiar tablas en orden inverso de dependencias
+            stmt.execute("DELETE FROM GAME_EDITION");
+            stmt.execute("DELETE FROM GAME_CONSOLE");
             stmt.execute("DELETE FROM GAME");
+            stmt.execute("DELETE FROM GENRE WHERE GENRE_ID IN (901, 902)");
+            stmt.execute("DELETE FROM CONSOLE WHERE CONSOLE_ID IN (901, 902, 903)");
             stmt.execute("DELETE FROM PUBLISHER");
             stmt.execute("DELETE FROM DEVELOPER");
 
@@ -50,7 +60,8 @@ class JdbcGameRepositoryTest {
                     DEVELOPER_ID INT PRIMARY KEY AUTO_INCREMENT,
                     NAME VARCHAR(100) NOT NULL,
                     COUNTRY VARCHAR(50),
-                    FOUNDATION_YEAR INT
+                    FOUNDATION_YEAR INT,
+                    VERSION INT NOT NULL DEFAULT 0
                 )
             """);
 
@@ -96,10 +107,40 @@ class JdbcGameRepositoryTest {
             """);
 
             stmt.execute("""
-                INSERT INTO GAME (GAME_ID, TITLE, RELEASE_DATE, DEVELOPER_ID, PUBLISHER_ID, PEGI_RATING, IS_MULTIPLAYER) 
+                INSERT INTO GENRE (GENRE_ID, NAME, DESCRIPTION)
+                VALUES
+                    (901, 'Action-Adventure', 'Story-driven action'),
+                    (902, 'Action RPG', 'Real-time role-playing')
+            """);
+
+            stmt.execute("""
+                INSERT INTO GAME (GAME_ID, TITLE, RELEASE_DATE, DEVELOPER_ID, PUBLISHER_ID, GENRE_ID, PEGI_RATING, IS_MULTIPLAYER) 
                 VALUES 
-                    (1, 'The Last of Us Part II', '2020-06-19', 1, 1, '18', false),
-                    (2, 'Elden Ring', '2022-02-25', 2, 2, 'PEGI 16', true)
+                    (1, 'The Last of Us Part II', '2020-06-19', 1, 1, 901, '18', false),
+                    (2, 'Elden Ring', '2022-02-25', 2, 2, 902, 'PEGI 16', true)
+            """);
+
+            stmt.execute("""
+                INSERT INTO CONSOLE (CONSOLE_ID, NAME, MANUFACTURER, RELEASE_YEAR)
+                VALUES
+                    (901, 'PlayStation 4', 'Sony', 2013),
+                    (902, 'PlayStation 5', 'Sony', 2020),
+                    (903, 'Xbox Series X', 'Microsoft', 2020)
+            """);
+
+            stmt.execute("""
+                INSERT INTO GAME_CONSOLE (GAME_ID, CONSOLE_ID)
+                VALUES (1, 901), (1, 902), (2, 902), (2, 903)
+            """);
+
+            // The edition with the lowest ID is the one a game exposes, whatever the insertion order
+            stmt.execute("""
+                INSERT INTO GAME_EDITION (GAME_EDITION_ID, GAME_ID, EDITION_NAME, SPECIAL_CONTENT, PRICE)
+                VALUES
+                    (901, 1, 'Standard Edition', NULL, 59.99),
+                    (902, 1, 'Remastered', 'No Return mode', 49.99),
+                    (905, 2, 'Deluxe Edition', 'Digital artbook', 79.99),
+                    (903, 2, 'Launch Edition', 'Steelbook', 69.99)
             """);
 
         } catch (SQLException e) {
@@ -273,4 +314,92 @@ class JdbcGameRepositoryTest {
         assertTrue(games.stream().anyMatch(g -> "The Last of Us Part II".equals(g.getTitle())));
         assertTrue(games.stream().anyMatch(g -> "Elden Ring".equals(g.getTitle())));
     }
-}
\ No newline at end of file
+
+    @Test
+    @Order(11)
+    void shouldFindGameByIdWithDetails() {
+        Optional<Game> found = repository.findByIdWithDetails(2);
+        assertTrue(found.isPresent());
+        Game game = found.get();
+        assertEquals("Elden Ring", game.getTitle());
+        assertEquals("FromSoftware", game.getDeveloper().getName());
+        assertEquals("Bandai Namco Entertainment", game.getPublisher().getName());
+
+        assertEquals(Set.of("Action RPG"), genreNames(game));
+        assertEquals(Set.of(902, 903), consoleIds(game));
+        assertEquals(903, game.getEdition().getId());
+        assertEquals("Launch Edition", game.getEdition().getEditionName());
+        assertEquals("Steelbook", game.getEdition().getSpecialContent());
+        assertEquals(69.99, game.getEdition().getPrice(), 0.001);
+        assertSame(game, game.getEdition().getGame());
+    }
+
+    @Test
+    @Order(12)
+    void shouldFindPageOfGamesWithDetails() {
+        List<Game> firstPage = repository.findAllWithDetails(0, 1);
+        assertEquals(1, firstPage.size());
+        Game lastOfUs = firstPage.getFirst();
+        assertEquals(1, lastOfUs.getId());
+        assertEquals("Naughty Dog", lastOfUs.getDeveloper().getName());
+        assertEquals(Set.of("Action-Adventure"), genreNames(lastOfUs));
+        assertEquals(Set.of(901, 902), consoleIds(lastOfUs));
+        assertEquals("Standard Edition", lastOfUs.getEdition().getEditionName());
+
+        List<Game> secondPage = repository.findAllWithDetails(1, 10);
+        assertEquals(1, secondPage.size());
+        Game eldenRing = secondPage.getFirst();
+        assertEquals("Elden Ring", eldenRing.getTitle());
+        assertEquals("Bandai Namco Entertainment", eldenRing.getPublisher().getName());
+        assertEquals(Set.of("Action RPG"), genreNames(eldenRing));
+        assertEquals(Set.of(902, 903), consoleIds(eldenRing));
+        assertEquals("Launch Edition", eldenRing.getEdition().getEditionName());
+    }
+
+    @Test
+    @Order(13)
+    void shouldLoadDetailsOfGamesBeyondTheFirstInBatch() throws SQLException {
+        // 600 games need two IN batches of 500 ids for consoles and editions
+        var dataSource = new SingleConnectionDataSource();
+        Connection connection = dataSource.getConnection();
+        try (PreparedStatement games = connection.prepareStatement(
+                "INSERT INTO GAME (GAME_ID, TITLE, DEVELOPER_ID, PUBLISHER_ID, GENRE_ID) VALUES (?, ?, 3, 3, ?)");
+             PreparedStatement consoles = connection.prepareStatement(
+                     "INSERT INTO GAME_CONSOLE (GAME_ID, CONSOLE_ID) VALUES (?, 903)");
+             PreparedStatement editions = connection.prepareStatement(
+                     "INSERT INTO GAME_EDITION (GAME_ID, EDITION_NAME, PRICE) VALUES (?, ?, 9.99)")) {
+            for (int id = 3; id <= 600; id++) {
+                games.setInt(1, id);
+                games.setString(2, "Game " + id);
+                games.setInt(3, id % 2 == 0 ? 901 : 902);
+                games.addBatch();
+                consoles.setInt(1, id);
+                consoles.addBatch();
+                editions.setInt(1, id);
+                editions.setString(2, "Edition of " + id);
+                editions.addBatch();
+            }
+            games.executeBatch();
+            consoles.executeBatch();
+            editions.executeBatch();
+        }
+
+        List<Game> page = repository.findAllWithDetails(0, 1000);
+
+        assertEquals(600, page.size());
+        assertEquals(Set.of(901, 902), consoleIds(page.getFirst()));
+        for (Game game : page.subList(2, page.size())) {
+            assertEquals(Set.of(903), consoleIds(game), game.getTitle());
+            assertEquals("Edition of " + game.getId(), game.getEdition().getEditionName());
+            assertEquals(Set.of(game.getId() % 2 == 0 ? "Action-Adventure" : "Action RPG"), genreNames(game));
+        }
+    }
+
+    private static Set<String> genreNames(Game game) {
+        return game.getGenres().stream().map(Genre::getName).collect(Collectors.toSet());
+    }
+
+    private static Set<Integer> consoleIds(Game game) {
+        return game.getConsoles().stream().map(Console::getId).collect(Collectors.toSet());
+    }
+}
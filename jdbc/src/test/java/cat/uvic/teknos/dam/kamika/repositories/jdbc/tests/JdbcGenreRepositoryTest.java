@@ -10,6 +10,7 @@ import java.sql.Connection;
 import java.sql.Statement;
 import java.util.Optional;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import cat.uvic.teknos.dam.kamika.repositories.jdbc.jupiter.LoadDatabaseExtension;
 import org.junit.jupiter.api.BeforeEach;
@@ -180,6 +181,26 @@ class JdbcGenreRepositoryTest {
         assertNotNull(counts);
     }
 
+    @Test
+    void shouldStreamAllGenres() {
+        Genre genre1 = new GenreImpl();
+        genre1.setName("Racing");
+        genre1.setDescription("Driving games");
+        genreRepository.save(genre1);
+
+        Genre genre2 = new GenreImpl();
+        genre2.setName("Horror");
+        genre2.setDescription("Scary games");
+        genreRepository.save(genre2);
+
+        try (Stream<Genre> genres = genreRepository.streamAll()) {
+            assertEquals(2, genres.count());
+        }
+
+        // The connection is released once the stream is closed
+        assertEquals(2, genreRepository.count());
+    }
+
     @Test
     void shouldThrowCrudExceptionOnInvalidOperation() {
         assertThrows(CrudException.class, () -> genreRepository.findById(-1));
@@ -0,0 +1,2 @@
+-- A table the other test migrations write to
+CREATE TABLE MIGRATION_PROBE (ID INT NOT NULL, NAME VARCHAR(50), PRIMARY KEY (ID));
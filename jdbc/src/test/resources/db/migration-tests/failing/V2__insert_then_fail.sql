@@ -0,0 +1,3 @@
+-- The insert is rolled back when the next statement fails
+INSERT INTO MIGRATION_PROBE (ID) VALUES (1);
+INSERT INTO MISSING_TABLE (ID) VALUES (1);
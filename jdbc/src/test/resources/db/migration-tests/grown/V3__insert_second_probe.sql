@@ -0,0 +1 @@
+INSERT INTO MIGRATION_PROBE (ID) VALUES (2);
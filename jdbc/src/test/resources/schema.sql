@@ -9,6 +9,7 @@ CREATE TABLE IF NOT EXISTS DEVELOPER (
                                          NAME VARCHAR(100) NOT NULL,
     COUNTRY VARCHAR(50),
     FOUNDATION_YEAR INT,
+    VERSION INT NOT NULL DEFAULT 0,
     PRIMARY KEY (DEVELOPER_ID)
     );
 
@@ -15,6 +15,10 @@ dependencies {
     implementation("jakarta.persistence:jakarta.persistence-api:3.2.0")
     implementation("org.hibernate.orm:hibernate-core:7.0.0.Final")
 
+    // Second-level cache: Hibernate's JCache integration with Caffeine as the in-process provider
+    implementation("org.hibernate.orm:hibernate-jcache:7.0.0.Final")
+    runtimeOnly("com.github.ben-manes.caffeine:jcache:3.1.8")
+
     // MySQL connector (version 8.4.0 is more stable than 9.x with Hibernate)
     implementation("com.mysql:mysql-connector-j:9.3.0")
 
@@ -3,6 +3,8 @@ package cat.uvic.teknos.dam.kamika.model.jpa;
 import cat.uvic.teknos.dam.kamika.model.Console;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -15,6 +17,8 @@ import java.util.Set;
 @ToString
 @Entity
 @Table(name = "CONSOLE")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "consoles")
 public class JpaConsole implements Console {
 
     @Id
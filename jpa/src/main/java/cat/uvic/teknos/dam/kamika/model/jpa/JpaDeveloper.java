@@ -3,6 +3,9 @@ package cat.uvic.teknos.dam.kamika.model.jpa;
 import cat.uvic.teknos.dam.kamika.model.Developer;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Getter
 @Setter
@@ -11,7 +14,10 @@ import lombok.*;
 @EqualsAndHashCode(of = "id")
 @ToString
 @Entity
+@DynamicUpdate
 @Table(name = "DEVELOPER")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "developers")
 public class JpaDeveloper implements Developer {
 
     @Id
@@ -28,6 +34,10 @@ public class JpaDeveloper implements Developer {
     @Column(name = "FOUNDATION_YEAR")
     private Integer foundationYear;
 
+    @Version
+    @Column(name = "VERSION", nullable = false)
+    private int version;
+
     @Override
     public int getId() {
         return id;
@@ -67,4 +77,14 @@ public class JpaDeveloper implements Developer {
     public void setFoundationYear(int foundationYear) {
         this.foundationYear = foundationYear;
     }
+
+    @Override
+    public int getVersion() {
+        return version;
+    }
+
+    @Override
+    public void setVersion(int version) {
+        this.version = version;
+    }
 }
\ No newline at end of file
@@ -3,6 +3,8 @@ package cat.uvic.teknos.dam.kamika.model.jpa;
 import cat.uvic.teknos.dam.kamika.model.*;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDate;
 import java.util.Set;
@@ -43,6 +45,7 @@ public class JpaGame implements Game {
     private boolean multiplayer;
 
     @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "game-genres")
     @JoinTable(
             name = "GAME_GENRE",
             joinColumns = @JoinColumn(name = "GAME_ID"),
@@ -51,6 +54,7 @@ public class JpaGame implements Game {
     private Set<JpaGenre> genres;
 
     @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "game-consoles")
     @JoinTable(
             name = "GAME_CONSOLE",
             joinColumns = @JoinColumn(name = "GAME_ID"),
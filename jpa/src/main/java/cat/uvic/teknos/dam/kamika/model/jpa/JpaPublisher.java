@@ -3,6 +3,8 @@ package cat.uvic.teknos.dam.kamika.model.jpa;
 import cat.uvic.teknos.dam.kamika.model.*;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Getter
 @Setter
@@ -12,6 +14,8 @@ import lombok.*;
 @ToString
 @Entity
 @Table(name = "PUBLISHER")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "publishers")
 public class JpaPublisher implements Publisher {
 
     @Id
@@ -1,8 +1,17 @@
 package cat.uvic.teknos.dam.kamika.repositories.jpa;
 
+import cat.uvic.teknos.dam.kamika.repositories.caching.CacheStats;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.SessionFactory;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Utility class for managing JPA EntityManager and EntityManagerFactory.
@@ -14,7 +23,7 @@ import jakarta.persistence.Persistence;
  */
 public class JPAUtil {
 
-    private static final String PERSISTENCE_UNIT_NAME = "kamika-persistence-unit";
+    private static final String PERSISTENCE_UNIT_NAME = "kamika";
     private static EntityManagerFactory entityManagerFactory;
 
     /**
@@ -104,6 +113,55 @@ public class JPAUtil {
         }
     }
 
+    /**
+     * Marks a query as cacheable, so that its results are kept in the query cache until one
+     * of the tables it reads is written through Hibernate.
+     * The entities it returns are then read from the second-level cache.
+     *
+     * @param <T> the result type
+     * @param query the query to cache
+     * @return the same query
+     */
+    public static <T> TypedQuery<T> cacheable(TypedQuery<T> query) {
+        return query.setHint(HibernateHints.HINT_CACHEABLE, true);
+    }
+
+    /**
+     * Returns the hits and misses of every second-level cache region and of the query cache
+     * of the application's EntityManagerFactory.
+     *
+     * @return the statistics by region name, plus "queries" for the query cache
+     * @see #getCacheStats(EntityManagerFactory)
+     */
+    public static Map<String, CacheStats> getCacheStats() {
+        return getCacheStats(getEntityManagerFactory());
+    }
+
+    /**
+     * Returns the hits and misses of every second-level cache region and of the query cache.
+     * Hibernate does not count evictions, so they are reported as 0. The counts are only
+     * kept when hibernate.generate_statistics is enabled, otherwise they are all 0.
+     *
+     * @param entityManagerFactory the factory whose caches are reported
+     * @return the statistics by region name, plus "queries" for the query cache
+     */
+    public static Map<String, CacheStats> getCacheStats(EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            // Also covers the query result regions, which getDomainDataRegionStatistics() rejects
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region == null) {
+                continue;
+            }
+            stats.put(regionName, new CacheStats(region.getHitCount(), region.getMissCount(), 0,
+                    Math.max(0, region.getElementCountInMemory())));
+        }
+        stats.put("queries", new CacheStats(statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(), 0, 0));
+        return stats;
+    }
+
     /**
      * Functional interface for operations that need an EntityManager
      * and don't return a value (typically write operations).
@@ -128,6 +128,7 @@ public class JpaConsoleRepository implements ConsoleRepository {
     public Set<Console> findAll() {
         return JPAUtil.executeQuery(entityManager -> {
             TypedQuery<JpaConsole> query = entityManager.createQuery("SELECT c FROM JpaConsole c", JpaConsole.class);
+            JPAUtil.cacheable(query);
             return new HashSet<>(query.getResultList());
         });
     }
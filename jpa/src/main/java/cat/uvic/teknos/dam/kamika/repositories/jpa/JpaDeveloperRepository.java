@@ -4,7 +4,10 @@ import cat.uvic.teknos.dam.kamika.model.Developer;
 import cat.uvic.teknos.dam.kamika.model.jpa.JpaDeveloper;
 import cat.uvic.teknos.dam.kamika.repositories.DeveloperRepository;
 import cat.uvic.teknos.dam.kamika.exceptions.CrudException;
+import cat.uvic.teknos.dam.kamika.repositories.exceptions.VersionConflictException;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.RollbackException;
 import jakarta.persistence.TypedQuery;
 
 import java.util.HashSet;
@@ -28,10 +31,27 @@ public class JpaDeveloperRepository implements DeveloperRepository {
         return JPAUtil.executeQuery(entityManager -> {
             entityManager.getTransaction().begin();
             try {
-                JpaDeveloper jpaDeveloper = convertToJpaDeveloper(developer);
-                JpaDeveloper savedDeveloper = persistOrMerge(entityManager, jpaDeveloper);
+                JpaDeveloper savedDeveloper = developer.getId() == 0
+                        ? persist(entityManager, convertToJpaDeveloper(developer))
+                        : update(entityManager, developer);
                 entityManager.getTransaction().commit();
+                developer.setId(savedDeveloper.getId());
+                developer.setVersion(savedDeveloper.getVersion());
                 return savedDeveloper;
+            } catch (VersionConflictException e) {
+                if (entityManager.getTransaction().isActive()) {
+                    entityManager.getTransaction().rollback();
+                }
+                throw e;
+            } catch (OptimisticLockException | RollbackException e) {
+                if (entityManager.getTransaction().isActive()) {
+                    entityManager.getTransaction().rollback();
+                }
+                if (e instanceof OptimisticLockException || e.getCause() instanceof OptimisticLockException) {
+                    throw new VersionConflictException("Developer", developer.getId(), developer.getVersion(),
+                            currentVersion(developer.getId()));
+                }
+                throw new CrudException("Error guardando el developer", e);
             } catch (Exception e) {
                 if (entityManager.getTransaction().isActive()) {
                     entityManager.getTransaction().rollback();
@@ -49,16 +69,38 @@ public class JpaDeveloperRepository implements DeveloperRepository {
         jpaDeveloper.setId(developer.getId());
         jpaDeveloper.setName(developer.getName());
         jpaDeveloper.setCountry(developer.getCountry());
+        jpaDeveloper.setFoundationYear(developer.getFoundationYear());
         return jpaDeveloper;
     }
 
-    private JpaDeveloper persistOrMerge(EntityManager entityManager, JpaDeveloper jpaDeveloper) {
-        if (jpaDeveloper.getId() == 0) {
-            entityManager.persist(jpaDeveloper);
-            return jpaDeveloper;
-        } else {
-            return entityManager.merge(jpaDeveloper);
+    private JpaDeveloper persist(EntityManager entityManager, JpaDeveloper jpaDeveloper) {
+        entityManager.persist(jpaDeveloper);
+        return jpaDeveloper;
+    }
+
+    /**
+     * Copies the changes onto the managed developer if it is still at the version they were
+     * based on. Hibernate checks the version again in the UPDATE, so a concurrent change that
+     * commits in between fails the flush with an {@link OptimisticLockException}.
+     */
+    private JpaDeveloper update(EntityManager entityManager, Developer developer) {
+        JpaDeveloper managed = entityManager.find(JpaDeveloper.class, developer.getId());
+        if (managed == null || managed.getVersion() != developer.getVersion()) {
+            throw new VersionConflictException("Developer", developer.getId(), developer.getVersion(),
+                    managed == null ? null : managed.getVersion());
         }
+        managed.setName(developer.getName());
+        managed.setCountry(developer.getCountry());
+        managed.setFoundationYear(developer.getFoundationYear());
+        entityManager.flush();
+        return managed;
+    }
+
+    private Integer currentVersion(int id) {
+        return JPAUtil.executeQuery(entityManager -> {
+            JpaDeveloper developer = entityManager.find(JpaDeveloper.class, id);
+            return developer == null ? null : developer.getVersion();
+        });
     }
 
     @Override
@@ -130,6 +172,7 @@ public class JpaDeveloperRepository implements DeveloperRepository {
                     "SELECT COUNT(d) FROM JpaDeveloper d WHERE LOWER(d.country) = LOWER(:country)",
                     Long.class);
             query.setParameter("country", country);
+            JPAUtil.cacheable(query);
             return query.getSingleResult();
         });
     }
@@ -138,6 +181,7 @@ public class JpaDeveloperRepository implements DeveloperRepository {
     public Set<Developer> findAll() {
         return JPAUtil.executeQuery(entityManager -> {
             TypedQuery<JpaDeveloper> query = entityManager.createQuery("SELECT d FROM JpaDeveloper d", JpaDeveloper.class);
+            JPAUtil.cacheable(query);
             return new HashSet<>(query.getResultList());
         });
     }
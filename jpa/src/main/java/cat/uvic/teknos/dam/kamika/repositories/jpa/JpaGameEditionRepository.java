@@ -7,6 +7,7 @@ import cat.uvic.teknos.dam.kamika.exceptions.CrudException;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -32,7 +33,21 @@ public class JpaGameEditionRepository implements GameEditionRepository {
             );
             query.setParameter("gameId", gameId);
             query.setParameter("editionName", editionName);
-            return query.getResultStream().findFirst().map(ge -> ge);
+            JPAUtil.cacheable(query);
+            return query.getResultList().stream().findFirst().map(ge -> ge);
+        });
+    }
+
+    @Override
+    public List<GameEdition> findByGameId(int gameId) {
+        return JPAUtil.executeQuery(entityManager -> {
+            TypedQuery<JpaGameEdition> query = entityManager.createQuery(
+                    "SELECT ge FROM JpaGameEdition ge WHERE ge.game.id = :gameId ORDER BY ge.id",
+                    JpaGameEdition.class
+            );
+            query.setParameter("gameId", gameId);
+            JPAUtil.cacheable(query);
+            return query.getResultList().stream().map(ge -> (GameEdition) ge).toList();
         });
     }
 
@@ -154,7 +169,8 @@ public class JpaGameEditionRepository implements GameEditionRepository {
                     JpaGameEdition.class
             );
             query.setParameter("editionName", editionName);
-            return query.getResultStream().findFirst().map(ge -> ge);
+            JPAUtil.cacheable(query);
+            return query.getResultList().stream().findFirst().map(ge -> ge);
         });
     }
 
@@ -7,6 +7,7 @@ import cat.uvic.teknos.dam.kamika.exceptions.CrudException;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.HashSet;
@@ -137,4 +138,64 @@ public class JpaGameRepository implements GameRepository {
             return new HashSet<>(query.getResultList());
         });
     }
-}
\ No newline at end of file
+
+    /**
+     * Loads the game with its developer and publisher in one join, and its genres and consoles
+     * with one query each. JpaGame does not map editions, so the edition is always {@code null}.
+     */
+    @Override
+    public Optional<Game> findByIdWithDetails(int id) {
+        return JPAUtil.executeQuery(entityManager -> {
+            List<JpaGame> games = entityManager.createQuery(
+                    "SELECT g FROM JpaGame g LEFT JOIN FETCH g.developer LEFT JOIN FETCH g.publisher "
+                            + "WHERE g.id = :id", JpaGame.class)
+                    .setParameter("id", id)
+                    .getResultList();
+            fetchCollections(entityManager, games);
+            return games.stream().<Game>map(game -> game).findFirst();
+        });
+    }
+
+    /**
+     * Pages over the games in SQL and then fetches the collections of the page, since Hibernate
+     * would apply the limit in memory to a query that fetches a collection.
+     * JpaGame does not map editions, so the edition is always {@code null}.
+     */
+    @Override
+    public List<Game> findAllWithDetails(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit must not be negative");
+        }
+        if (limit == 0) {
+            return List.of();
+        }
+
+        return JPAUtil.executeQuery(entityManager -> {
+            List<JpaGame> games = entityManager.createQuery(
+                    "SELECT g FROM JpaGame g LEFT JOIN FETCH g.developer LEFT JOIN FETCH g.publisher "
+                            + "ORDER BY g.id", JpaGame.class)
+                    .setFirstResult(offset)
+                    .setMaxResults(limit)
+                    .getResultList();
+            fetchCollections(entityManager, games);
+            return List.<Game>copyOf(games);
+        });
+    }
+
+    /**
+     * Initializes the genres and consoles of managed games with one query per collection.
+     */
+    private static void fetchCollections(EntityManager entityManager, List<JpaGame> games) {
+        if (games.isEmpty()) {
+            return;
+        }
+        entityManager.createQuery("SELECT DISTINCT g FROM JpaGame g LEFT JOIN FETCH g.genres WHERE g IN :games",
+                        JpaGame.class)
+                .setParameter("games", games)
+                .getResultList();
+        entityManager.createQuery("SELECT DISTINCT g FROM JpaGame g LEFT JOIN FETCH g.consoles WHERE g IN :games",
+                        JpaGame.class)
+                .setParameter("games", games)
+                .getResultList();
+    }
+}
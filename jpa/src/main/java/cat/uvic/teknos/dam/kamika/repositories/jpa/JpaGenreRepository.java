@@ -74,6 +74,7 @@ public class JpaGenreRepository implements GenreRepository {
         var query = entityManager.createQuery(
                 "SELECT g FROM JpaGenre g WHERE LOWER(g.name) = LOWER(:name)", Genre.class);
         query.setParameter("name", name);
+        JPAUtil.cacheable(query);
         var resultList = query.getResultList();
         if (resultList.isEmpty()) {
             return Optional.empty();
@@ -85,6 +86,7 @@ public class JpaGenreRepository implements GenreRepository {
     public Set<Genre> findAll() {
         return JPAUtil.executeQuery(entityManager -> {
             TypedQuery<JpaGenre> query = entityManager.createQuery("SELECT g FROM JpaGenre g", JpaGenre.class);
+            JPAUtil.cacheable(query);
             return new HashSet<>(query.getResultList());
         });
     }
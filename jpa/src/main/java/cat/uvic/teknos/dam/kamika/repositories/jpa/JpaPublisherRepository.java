@@ -23,6 +23,7 @@ public class JpaPublisherRepository implements PublisherRepository {
             TypedQuery<Publisher> query = entityManager.createQuery(
                     "SELECT p FROM JpaPublisher p WHERE LOWER(p.name) = LOWER(:name)", Publisher.class);
             query.setParameter("name", name);
+            JPAUtil.cacheable(query);
             var resultList = query.getResultList();
             if (resultList == null || resultList.isEmpty()) {
                 return Optional.empty();
@@ -146,6 +147,7 @@ public class JpaPublisherRepository implements PublisherRepository {
             TypedQuery<Long> query = entityManager.createQuery(
                     "SELECT COUNT(p) FROM JpaPublisher p WHERE LOWER(p.country) = LOWER(:country)", Long.class);
             query.setParameter("country", country);
+            JPAUtil.cacheable(query);
             return query.getSingleResult();
         });
     }
@@ -154,6 +156,7 @@ public class JpaPublisherRepository implements PublisherRepository {
     public Set<Publisher> findAll() {
         return JPAUtil.executeQuery(entityManager -> {
             TypedQuery<JpaPublisher> query = entityManager.createQuery("SELECT p FROM JpaPublisher p", JpaPublisher.class);
+            JPAUtil.cacheable(query);
             return new HashSet<>(query.getResultList());
         });
     }
@@ -0,0 +1,137 @@
+package cat.uvic.teknos.dam.kamika.repositories.jpa;
+
+import cat.uvic.teknos.dam.kamika.model.jpa.JpaDeveloper;
+import cat.uvic.teknos.dam.kamika.repositories.caching.CacheStats;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class JPAUtilTest {
+
+    private static final String DEVELOPER_REGION = "developers";
+
+    private EntityManagerFactory emf;
+
+    @BeforeAll
+    void setUpClass() {
+        // The test unit with the cache settings of the application's one
+        emf = Persistence.createEntityManagerFactory("kamika_test", Map.of(
+                "hibernate.cache.use_second_level_cache", "true",
+                "hibernate.cache.use_query_cache", "true",
+                "hibernate.cache.region.factory_class", "jcache",
+                "hibernate.javax.cache.provider", "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider",
+                "hibernate.javax.cache.uri", "application.conf",
+                "hibernate.javax.cache.missing_cache_strategy", "create",
+                "hibernate.generate_statistics", "true"));
+    }
+
+    @AfterAll
+    void tearDownClass() {
+        if (emf != null) {
+            emf.close();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            em.createQuery("DELETE FROM JpaGameConsole").executeUpdate();
+            em.createQuery("DELETE FROM JpaGameEdition").executeUpdate();
+            em.createQuery("DELETE FROM JpaGame").executeUpdate();
+            em.createQuery("DELETE FROM JpaPublisher").executeUpdate();
+            em.createQuery("DELETE FROM JpaDeveloper").executeUpdate();
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+        emf.getCache().evictAll();
+        emf.unwrap(SessionFactory.class).getStatistics().clear();
+    }
+
+    @Test
+    void findsInLaterEntityManagersAreSecondLevelCacheHits() {
+        int id = persistDeveloper("Nintendo", "Japan");
+        emf.getCache().evictAll();
+
+        assertEquals("Nintendo", find(id).getName());
+        assertEquals("Nintendo", find(id).getName());
+        assertEquals("Nintendo", find(id).getName());
+
+        CacheStats developers = JPAUtil.getCacheStats(emf).get(DEVELOPER_REGION);
+        assertNotNull(developers);
+        assertEquals(1, developers.misses());
+        assertEquals(2, developers.hits());
+        assertEquals(0, developers.evictions());
+    }
+
+    @Test
+    void cacheableQueriesAreCountedUnderQueries() {
+        persistDeveloper("Sega", "Japan");
+
+        assertEquals(1, findByCountry("Japan").size());
+        assertEquals(1, findByCountry("Japan").size());
+
+        CacheStats queries = JPAUtil.getCacheStats(emf).get("queries");
+        assertNotNull(queries);
+        assertEquals(1, queries.misses());
+        assertEquals(1, queries.hits());
+    }
+
+    @Test
+    void writeMakesCachedQueryResultsStale() {
+        persistDeveloper("Sega", "Japan");
+        assertEquals(1, findByCountry("Japan").size());
+
+        persistDeveloper("Capcom", "Japan");
+
+        assertEquals(2, findByCountry("Japan").size());
+        assertEquals(0, JPAUtil.getCacheStats(emf).get("queries").hits());
+    }
+
+    private int persistDeveloper(String name, String country) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            JpaDeveloper developer = new JpaDeveloper();
+            developer.setName(name);
+            developer.setCountry(country);
+            developer.setFoundationYear(1980);
+            em.getTransaction().begin();
+            em.persist(developer);
+            em.getTransaction().commit();
+            return developer.getId();
+        } finally {
+            em.close();
+        }
+    }
+
+    private JpaDeveloper find(int id) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.find(JpaDeveloper.class, id);
+        } finally {
+            em.close();
+        }
+    }
+
+    private List<JpaDeveloper> findByCountry(String country) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return JPAUtil.cacheable(em.createQuery(
+                            "SELECT d FROM JpaDeveloper d WHERE d.country = :country", JpaDeveloper.class))
+                    .setParameter("country", country)
+                    .getResultList();
+        } finally {
+            em.close();
+        }
+    }
+}
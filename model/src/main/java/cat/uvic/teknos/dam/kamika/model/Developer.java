@@ -22,4 +22,13 @@ public interface Developer {
 
     int getFoundationYear();
     void setFoundationYear(int foundationYear);
+
+    /**
+     * Returns the version the developer was read at. Every update increments it, and an
+     * update based on an older version is rejected.
+     *
+     * @return the version, 0 for a developer that was never updated
+     */
+    int getVersion();
+    void setVersion(int version);
 }
\ No newline at end of file
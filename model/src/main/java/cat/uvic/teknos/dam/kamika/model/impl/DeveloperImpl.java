@@ -18,6 +18,7 @@ public class DeveloperImpl implements Developer {
     private String name;
     private String country;
     private int foundationYear;
+    private int version;
 
     @Override
     public int getId() {
@@ -59,6 +60,16 @@ public class DeveloperImpl implements Developer {
         this.foundationYear = foundationYear;
     }
 
+    @Override
+    public int getVersion() {
+        return version;
+    }
+
+    @Override
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     /**
      * Compares this object with another to check equality.
      * Two developers are considered equal if they have the same ID, name,
@@ -99,6 +110,7 @@ public class DeveloperImpl implements Developer {
                 ", name='" + name + '\'' +
                 ", country='" + country + '\'' +
                 ", foundationYear=" + foundationYear +
+                ", version=" + version +
                 '}';
     }
 }
\ No newline at end of file
@@ -12,8 +12,10 @@ package cat.uvic.teknos.dam.kamika.repositories;
 
 import cat.uvic.teknos.dam.kamika.model.Console;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for managing Console entities.
@@ -21,6 +23,12 @@ import java.util.Set;
  */
 public interface ConsoleRepository {
 
+    // Sort keys of findAll(Sort)
+    Sort.Key<Console> SORT_BY_ID = Sort.Key.of("id", Console::getId);
+    Sort.Key<Console> SORT_BY_NAME = Sort.Key.of("name", Console::getName);
+    Sort.Key<Console> SORT_BY_MANUFACTURER = Sort.Key.of("manufacturer", Console::getManufacturer);
+    Sort.Key<Console> SORT_BY_RELEASE_YEAR = Sort.Key.of("releaseYear", Console::getReleaseYear);
+
     /**
      * Find a console by its ID.
      *
@@ -73,4 +81,26 @@ public interface ConsoleRepository {
      * @return a set of all consoles
      */
     Set<Console> findAll();
+
+    /**
+     * Find all consoles in the given order, with ties broken by ID.
+     *
+     * @param sort the order of the results
+     * @return the consoles, in order
+     */
+    default List<Console> findAll(Sort<Console> sort) {
+        try (Stream<Console> consoles = streamAll()) {
+            return consoles.sorted(sort.then(SORT_BY_ID).comparator()).toList();
+        }
+    }
+
+    /**
+     * Streams all consoles without loading them into memory at once.
+     * The returned stream must be closed to release the underlying resources.
+     *
+     * @return a stream of all consoles
+     */
+    default Stream<Console> streamAll() {
+        return findAll().stream();
+    }
 }
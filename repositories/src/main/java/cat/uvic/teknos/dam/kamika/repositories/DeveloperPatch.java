@@ -0,0 +1,127 @@
+package cat.uvic.teknos.dam.kamika.repositories;
+
+import cat.uvic.teknos.dam.kamika.model.Developer;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A partial change to a developer: only the fields that were set are changed, the others keep
+ * their stored values.
+ * <p>
+ * A field set to {@code null} is cleared, as in a JSON Merge Patch. The patch can be made
+ * conditional on the version the client last read with {@link #expectedVersion(Integer)}.
+ * </p>
+ */
+public class DeveloperPatch {
+
+    /**
+     * The fields of a developer a patch can change.
+     */
+    public enum Field {
+        NAME,
+        COUNTRY,
+        FOUNDATION_YEAR
+    }
+
+    private final Map<Field, Object> values = new EnumMap<>(Field.class);
+    private Integer expectedVersion;
+
+    public DeveloperPatch name(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Developer name cannot be null or empty");
+        }
+        values.put(Field.NAME, name);
+        return this;
+    }
+
+    public DeveloperPatch country(String country) {
+        values.put(Field.COUNTRY, country);
+        return this;
+    }
+
+    /**
+     * Sets the foundation year.
+     *
+     * @param foundationYear the year, or {@code null} to clear it, which stores 0 like an unknown year
+     * @return this patch
+     */
+    public DeveloperPatch foundationYear(Integer foundationYear) {
+        values.put(Field.FOUNDATION_YEAR, foundationYear == null ? 0 : foundationYear);
+        return this;
+    }
+
+    /**
+     * Makes the patch conditional on the version of the developer.
+     *
+     * @param expectedVersion the version the patch is based on, or {@code null} to apply it to
+     *                        whatever version is stored
+     * @return this patch
+     */
+    public DeveloperPatch expectedVersion(Integer expectedVersion) {
+        this.expectedVersion = expectedVersion;
+        return this;
+    }
+
+    public Integer getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    public Set<Field> getFields() {
+        return Collections.unmodifiableSet(values.keySet());
+    }
+
+    /**
+     * Returns the new value of a field.
+     *
+     * @param field the field
+     * @return the value, or {@code null} if the field is not set or its value is cleared
+     */
+    public Object get(Field field) {
+        return values.get(field);
+    }
+
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+
+    /**
+     * Returns the fields whose new value differs from a developer's current one.
+     *
+     * @param developer the current developer
+     * @return the fields that would change
+     */
+    public Set<Field> diff(Developer developer) {
+        Set<Field> changed = EnumSet.noneOf(Field.class);
+        for (Map.Entry<Field, Object> entry : values.entrySet()) {
+            Object current = switch (entry.getKey()) {
+                case NAME -> developer.getName();
+                case COUNTRY -> developer.getCountry();
+                case FOUNDATION_YEAR -> developer.getFoundationYear();
+            };
+            if (!Objects.equals(current, entry.getValue())) {
+                changed.add(entry.getKey());
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Copies the fields of the patch onto a developer.
+     *
+     * @param developer the developer to change
+     */
+    public void applyTo(Developer developer) {
+        for (Map.Entry<Field, Object> entry : values.entrySet()) {
+            switch (entry.getKey()) {
+                case NAME -> developer.setName((String) entry.getValue());
+                case COUNTRY -> developer.setCountry((String) entry.getValue());
+                case FOUNDATION_YEAR -> developer.setFoundationYear((Integer) entry.getValue());
+            }
+        }
+    }
+}
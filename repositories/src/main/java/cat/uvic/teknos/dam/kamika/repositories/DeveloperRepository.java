@@ -12,9 +12,12 @@ package cat.uvic.teknos.dam.kamika.repositories;
 
 import cat.uvic.teknos.dam.kamika.model.Console;
 import cat.uvic.teknos.dam.kamika.model.Developer;
+import cat.uvic.teknos.dam.kamika.repositories.exceptions.VersionConflictException;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for managing Developer entities.
@@ -22,6 +25,12 @@ import java.util.Set;
  */
 public interface DeveloperRepository {
 
+    // Sort keys of findAll(Sort)
+    Sort.Key<Developer> SORT_BY_ID = Sort.Key.of("id", Developer::getId);
+    Sort.Key<Developer> SORT_BY_NAME = Sort.Key.of("name", Developer::getName);
+    Sort.Key<Developer> SORT_BY_COUNTRY = Sort.Key.of("country", Developer::getCountry);
+    Sort.Key<Developer> SORT_BY_FOUNDATION_YEAR = Sort.Key.of("foundationYear", Developer::getFoundationYear);
+
     /**
      * Find a developer by its ID.
      *
@@ -32,12 +41,38 @@ public interface DeveloperRepository {
 
     /**
      * Save a new developer or update an existing one.
+     * An update only succeeds if the stored developer is still at {@link Developer#getVersion()},
+     * and increments the version of both.
      *
      * @param developer the developer to save
      * @return the saved developer
+     * @throws VersionConflictException if the developer was changed or deleted since it was read
      */
     Developer save(Developer developer);
 
+    /**
+     * Changes only the fields set in a patch. Nothing is written if none of them differs from
+     * the stored developer, in which case the version does not change either.
+     *
+     * @param id    the developer ID
+     * @param patch the fields to change
+     * @return the patched developer, or empty if it does not exist
+     * @throws VersionConflictException if the patch expects a version that is no longer current
+     */
+    default Optional<Developer> patch(int id, DeveloperPatch patch) {
+        return findById(id).map(developer -> {
+            Integer expectedVersion = patch.getExpectedVersion();
+            if (expectedVersion != null && expectedVersion != developer.getVersion()) {
+                throw new VersionConflictException("Developer", id, expectedVersion, developer.getVersion());
+            }
+            if (patch.diff(developer).isEmpty()) {
+                return developer;
+            }
+            patch.applyTo(developer);
+            return save(developer);
+        });
+    }
+
     /**
      * Delete a developer.
      *
@@ -84,4 +119,37 @@ public interface DeveloperRepository {
      * @return a set of all developers
      */
     Set<Developer> findAll();
+
+    /**
+     * Find all developers in the given order, with ties broken by ID.
+     *
+     * @param sort the order of the results
+     * @return the developers, in order
+     */
+    default List<Developer> findAll(Sort<Developer> sort) {
+        try (Stream<Developer> developers = streamAll()) {
+            return developers.sorted(sort.then(SORT_BY_ID).comparator()).toList();
+        }
+    }
+
+    /**
+     * Streams all developers without loading them into memory at once.
+     * The returned stream must be closed to release the underlying resources.
+     *
+     * @return a stream of all developers
+     */
+    default Stream<Developer> streamAll() {
+        return findAll().stream();
+    }
+
+    /**
+     * Streams the developers from the given country (case-insensitive).
+     * The returned stream must be closed to release the underlying resources.
+     *
+     * @param country the country name
+     * @return a stream of the developers from the specified country
+     */
+    default Stream<Developer> streamByCountryIgnoreCase(String country) {
+        return streamAll().filter(developer -> country.equalsIgnoreCase(developer.getCountry()));
+    }
 }
\ No newline at end of file
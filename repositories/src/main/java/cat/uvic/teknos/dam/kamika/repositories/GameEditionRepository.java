@@ -12,8 +12,10 @@ package cat.uvic.teknos.dam.kamika.repositories;
 
 import cat.uvic.teknos.dam.kamika.model.GameEdition;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for managing GameEdition entities.
@@ -21,6 +23,11 @@ import java.util.Set;
  */
 public interface GameEditionRepository {
 
+    // Sort keys of findAll(Sort)
+    Sort.Key<GameEdition> SORT_BY_ID = Sort.Key.of("id", GameEdition::getId);
+    Sort.Key<GameEdition> SORT_BY_EDITION_NAME = Sort.Key.of("editionName", GameEdition::getEditionName);
+    Sort.Key<GameEdition> SORT_BY_PRICE = Sort.Key.of("price", GameEdition::getPrice);
+
     /**
      * Find a game edition by game ID and edition name.
      *
@@ -30,6 +37,21 @@ public interface GameEditionRepository {
      */
     Optional<GameEdition> findByGameIdAndEditionName(int gameId, String editionName);
 
+    /**
+     * Find the editions of a game, ordered by ID.
+     * Implementations backed by a database should query them by game instead of streaming every edition.
+     *
+     * @param gameId the game ID
+     * @return the editions of the game, empty if it has none
+     */
+    default List<GameEdition> findByGameId(int gameId) {
+        try (Stream<GameEdition> editions = streamAll()) {
+            return editions.filter(edition -> edition.getGame() != null && edition.getGame().getId() == gameId)
+                    .sorted(Sort.by(SORT_BY_ID).comparator())
+                    .toList();
+        }
+    }
+
     /**
      * Save a new game edition or update an existing one.
      *
@@ -78,6 +100,28 @@ public interface GameEditionRepository {
      */
     Set<GameEdition> findAll();
 
+    /**
+     * Find all game editions in the given order, with ties broken by ID.
+     *
+     * @param sort the order of the results
+     * @return the game editions, in order
+     */
+    default List<GameEdition> findAll(Sort<GameEdition> sort) {
+        try (Stream<GameEdition> editions = streamAll()) {
+            return editions.sorted(sort.then(SORT_BY_ID).comparator()).toList();
+        }
+    }
+
+    /**
+     * Streams all game editions without loading them into memory at once.
+     * The returned stream must be closed to release the underlying resources.
+     *
+     * @return a stream of all game editions
+     */
+    default Stream<GameEdition> streamAll() {
+        return findAll().stream();
+    }
+
     /**
      * Find a game edition by its ID.
      *
@@ -3,8 +3,11 @@ package cat.uvic.teknos.dam.kamika.repositories;
 import cat.uvic.teknos.dam.kamika.model.Game;
 
 import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for managing Game entities.
@@ -19,6 +22,12 @@ import java.util.Set;
  */
 public interface GameRepository {
 
+    // Sort keys of findAll(Sort)
+    Sort.Key<Game> SORT_BY_ID = Sort.Key.of("id", Game::getId);
+    Sort.Key<Game> SORT_BY_TITLE = Sort.Key.of("title", Game::getTitle);
+    Sort.Key<Game> SORT_BY_RELEASE_DATE = Sort.Key.of("releaseDate", Game::getReleaseDate);
+    Sort.Key<Game> SORT_BY_PEGI_RATING = Sort.Key.of("pegiRating", Game::getPegiRating);
+
     /**
      * Find a game by its ID.
      */
@@ -55,4 +64,72 @@ public interface GameRepository {
      * @return a set containing all games
      */
     Set<Game> findAll();
-}
\ No newline at end of file
+
+    /**
+     * Find all games in the given order, with ties broken by ID.
+     *
+     * @param sort the order of the results
+     * @return the games, in order
+     */
+    default List<Game> findAll(Sort<Game> sort) {
+        try (Stream<Game> games = streamAll()) {
+            return games.sorted(sort.then(SORT_BY_ID).comparator()).toList();
+        }
+    }
+
+    /**
+     * Streams all games without loading them into memory at once.
+     * The returned stream must be closed to release the underlying resources.
+     *
+     * @return a stream of all games
+     */
+    default Stream<Game> streamAll() {
+        return findAll().stream();
+    }
+
+    /**
+     * Streams the games made by the given developer.
+     * The returned stream must be closed to release the underlying resources.
+     *
+     * @param developerId the developer ID
+     * @return a stream of the developer's games
+     */
+    default Stream<Game> streamByDeveloperId(int developerId) {
+        return streamAll().filter(game -> game.getDeveloper() != null && game.getDeveloper().getId() == developerId);
+    }
+
+    /**
+     * Find a game by its ID together with its developer, publisher, genres, consoles and edition.
+     * <p>
+     * The default implementation only returns {@link #findById(int)}, so the associations are
+     * whatever that method fills in. Implementations that can load them eagerly override it.
+     * </p>
+     *
+     * @param id the game ID
+     * @return the fully populated game, or empty if it does not exist
+     */
+    default Optional<Game> findByIdWithDetails(int id) {
+        return findById(id);
+    }
+
+    /**
+     * Find a page of games, ordered by ID, together with their developer, publisher,
+     * genres, consoles and edition.
+     * <p>
+     * The default implementation reads the whole table through {@link #findAll()}, sorts it
+     * in memory and returns the page, with the associations that method fills in. It is meant
+     * for small in-memory repositories; database-backed ones should override it with a paged query.
+     * </p>
+     *
+     * @param offset the number of games to skip
+     * @param limit  the maximum number of games to return
+     * @return the fully populated games of the page
+     */
+    default List<Game> findAllWithDetails(int offset, int limit) {
+        return findAll().stream()
+                .sorted(Comparator.comparingInt(Game::getId))
+                .skip(offset)
+                .limit(limit)
+                .toList();
+    }
+}
@@ -3,8 +3,10 @@ package cat.uvic.teknos.dam.kamika.repositories;
 import cat.uvic.teknos.dam.kamika.model.Console;
 import cat.uvic.teknos.dam.kamika.model.Genre;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for managing Genre entities.
@@ -12,6 +14,10 @@ import java.util.Set;
  */
 public interface GenreRepository {
 
+    // Sort keys of findAll(Sort)
+    Sort.Key<Genre> SORT_BY_ID = Sort.Key.of("id", Genre::getId);
+    Sort.Key<Genre> SORT_BY_NAME = Sort.Key.of("name", Genre::getName);
+
     /**
      * Find a genre by its ID.
      *
@@ -77,4 +83,26 @@ public interface GenreRepository {
     Optional<Genre> findByName(String name);
 
     Set<Genre> findAll();
+
+    /**
+     * Find all genres in the given order, with ties broken by ID.
+     *
+     * @param sort the order of the results
+     * @return the genres, in order
+     */
+    default List<Genre> findAll(Sort<Genre> sort) {
+        try (Stream<Genre> genres = streamAll()) {
+            return genres.sorted(sort.then(SORT_BY_ID).comparator()).toList();
+        }
+    }
+
+    /**
+     * Streams all genres without loading them into memory at once.
+     * The returned stream must be closed to release the underlying resources.
+     *
+     * @return a stream of all genres
+     */
+    default Stream<Genre> streamAll() {
+        return findAll().stream();
+    }
 }
\ No newline at end of file
@@ -12,11 +12,18 @@ package cat.uvic.teknos.dam.kamika.repositories;
 
 import cat.uvic.teknos.dam.kamika.model.Publisher;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 public interface PublisherRepository {
 
+    // Sort keys of findAll(Sort)
+    Sort.Key<Publisher> SORT_BY_ID = Sort.Key.of("id", Publisher::getId);
+    Sort.Key<Publisher> SORT_BY_NAME = Sort.Key.of("name", Publisher::getName);
+    Sort.Key<Publisher> SORT_BY_COUNTRY = Sort.Key.of("country", Publisher::getCountry);
+
     /**
      * Find a publisher by its ID.
      *
@@ -68,4 +75,37 @@ public interface PublisherRepository {
     Optional<Publisher> findByName(String name);
 
     Set<Publisher> findAll();
+
+    /**
+     * Find all publishers in the given order, with ties broken by ID.
+     *
+     * @param sort the order of the results
+     * @return the publishers, in order
+     */
+    default List<Publisher> findAll(Sort<Publisher> sort) {
+        try (Stream<Publisher> publishers = streamAll()) {
+            return publishers.sorted(sort.then(SORT_BY_ID).comparator()).toList();
+        }
+    }
+
+    /**
+     * Streams all publishers without loading them into memory at once.
+     * The returned stream must be closed to release the underlying resources.
+     *
+     * @return a stream of all publishers
+     */
+    default Stream<Publisher> streamAll() {
+        return findAll().stream();
+    }
+
+    /**
+     * Streams the publishers from the given country (case-insensitive).
+     * The returned stream must be closed to release the underlying resources.
+     *
+     * @param country the country name
+     * @return a stream of the publishers from the specified country
+     */
+    default Stream<Publisher> streamByCountryIgnoreCase(String country) {
+        return streamAll().filter(publisher -> country.equalsIgnoreCase(publisher.getCountry()));
+    }
 }
\ No newline at end of file
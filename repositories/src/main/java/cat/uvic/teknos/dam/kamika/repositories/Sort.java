@@ -0,0 +1,147 @@
+package cat.uvic.teknos.dam.kamika.repositories;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * The order of the results of a list query, as a sequence of keys each sorted in a direction.
+ * <p>
+ * The keys an entity can be sorted by are declared by its repository interface, e.g.
+ * {@link DeveloperRepository#SORT_BY_NAME}. Repositories break ties by primary key, so the
+ * order of a query is always total and stable between calls.
+ * </p>
+ *
+ * @param <T> the sorted entity type
+ */
+public final class Sort<T> {
+
+    public enum Direction {
+        ASC,
+        DESC
+    }
+
+    /**
+     * A property an entity can be sorted by.
+     *
+     * @param <T> the entity type
+     */
+    public static final class Key<T> {
+
+        private final String name;
+        private final Function<? super T, ? extends Comparable<?>> extractor;
+
+        private Key(String name, Function<? super T, ? extends Comparable<?>> extractor) {
+            this.name = Objects.requireNonNull(name);
+            this.extractor = Objects.requireNonNull(extractor);
+        }
+
+        /**
+         * Creates a sort key.
+         *
+         * @param name      the name of the property
+         * @param extractor reads the property, used when the results are sorted in memory
+         * @param <T>       the entity type
+         * @return the key
+         */
+        public static <T> Key<T> of(String name, Function<? super T, ? extends Comparable<?>> extractor) {
+            return new Key<>(name, extractor);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Comparator<T> comparator() {
+            return Comparator.comparing(entity -> (Comparable) extractor.apply(entity),
+                    Comparator.nullsFirst(Comparator.naturalOrder()));
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * One key of a sort and its direction.
+     */
+    public record Order<T>(Key<T> key, Direction direction) {
+
+        public Order {
+            Objects.requireNonNull(key);
+            Objects.requireNonNull(direction);
+        }
+    }
+
+    private final List<Order<T>> orders;
+
+    private Sort(List<Order<T>> orders) {
+        this.orders = orders;
+    }
+
+    /**
+     * Sorts by a key in ascending order.
+     *
+     * @param key the key
+     * @param <T> the entity type
+     * @return the sort
+     */
+    public static <T> Sort<T> by(Key<T> key) {
+        return by(key, Direction.ASC);
+    }
+
+    public static <T> Sort<T> by(Key<T> key, Direction direction) {
+        return new Sort<T>(List.of()).then(key, direction);
+    }
+
+    public Sort<T> then(Key<T> key) {
+        return then(key, Direction.ASC);
+    }
+
+    /**
+     * Returns a sort that breaks the ties of this one by another key. A key that is already
+     * part of the sort would not change the order and is ignored.
+     *
+     * @param key       the key
+     * @param direction the direction of the key
+     * @return the extended sort
+     */
+    public Sort<T> then(Key<T> key, Direction direction) {
+        Order<T> order = new Order<>(key, direction);
+        if (orders.stream().anyMatch(existing -> existing.key() == key)) {
+            return this;
+        }
+        List<Order<T>> extended = new ArrayList<>(orders);
+        extended.add(order);
+        return new Sort<>(Collections.unmodifiableList(extended));
+    }
+
+    public List<Order<T>> getOrders() {
+        return orders;
+    }
+
+    /**
+     * Returns the comparator that sorts entities in memory the way this sort does. Nulls come
+     * first in ascending order, as in MySQL.
+     *
+     * @return the comparator
+     */
+    public Comparator<T> comparator() {
+        Comparator<T> comparator = (first, second) -> 0;
+        for (Order<T> order : orders) {
+            Comparator<T> next = order.key().comparator();
+            comparator = comparator.thenComparing(order.direction() == Direction.ASC ? next : next.reversed());
+        }
+        return comparator;
+    }
+
+    @Override
+    public String toString() {
+        return orders.stream().map(order -> order.key() + " " + order.direction()).toList().toString();
+    }
+}
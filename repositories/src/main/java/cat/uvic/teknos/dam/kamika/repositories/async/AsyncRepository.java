@@ -0,0 +1,60 @@
+package cat.uvic.teknos.dam.kamika.repositories.async;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Runs calls on a synchronous repository in the background of an {@link AsyncRepositoryFactory}.
+ * <p>
+ * Example:
+ * <pre>{@code
+ * CompletableFuture<Optional<Game>> game = async.games().supply(repo -> repo.findById(id));
+ * CompletableFuture<Set<GameEdition>> editions = async.gameEditions().supply(GameEditionRepository::findAll);
+ * CompletableFuture.allOf(game, editions).join();
+ * }</pre>
+ *
+ * @param <R> the repository type
+ */
+public class AsyncRepository<R> {
+
+    private final R repository;
+    private final AsyncRepositoryFactory factory;
+
+    AsyncRepository(R repository, AsyncRepositoryFactory factory) {
+        this.repository = Objects.requireNonNull(repository);
+        this.factory = factory;
+    }
+
+    /**
+     * Runs a call that returns a value.
+     *
+     * @param call the call to run on the repository
+     * @param <T>  the result type
+     * @return a future completed with the result, or exceptionally with the thrown exception
+     */
+    public <T> CompletableFuture<T> supply(RepositoryCall<R, T> call) {
+        return factory.submit(() -> call.call(repository));
+    }
+
+    /**
+     * Runs a call without a result, such as a delete.
+     *
+     * @param call the call to run on the repository
+     * @return a future completed when the call finishes
+     */
+    public CompletableFuture<Void> run(RepositoryCall<R, ?> call) {
+        return factory.submit(() -> {
+            call.call(repository);
+            return null;
+        });
+    }
+
+    /**
+     * Returns the wrapped synchronous repository.
+     *
+     * @return the repository
+     */
+    public R getRepository() {
+        return repository;
+    }
+}
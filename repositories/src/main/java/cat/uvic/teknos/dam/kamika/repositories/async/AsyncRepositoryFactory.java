@@ -0,0 +1,119 @@
+package cat.uvic.teknos.dam.kamika.repositories.async;
+
+import cat.uvic.teknos.dam.kamika.repositories.*;
+
+import java.util.Objects;
+import java.util.concurrent.*;
+
+/**
+ * Asynchronous facade over any {@link RepositoryFactory}.
+ * <p>
+ * Every call runs on its own virtual thread and returns a {@link CompletableFuture}, so
+ * independent queries, such as a game, its editions and its consoles, can overlap. At most
+ * {@code maxConcurrency} calls hit the database at the same time; the rest wait on a
+ * semaphore without holding a platform thread. The limit should match the number of
+ * connections the factory's data source can lend out at once, e.g. the pool size reported by
+ * {@code JdbcRepositoryFactory.getMaxConnections()}, so waiting happens here rather than
+ * inside the pool, where it would run into the pool's timeout.
+ * </p>
+ */
+public class AsyncRepositoryFactory implements AutoCloseable {
+
+    private final RepositoryFactory repositoryFactory;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Creates the facade.
+     *
+     * @param repositoryFactory the synchronous factory whose repositories are wrapped
+     * @param maxConcurrency    the maximum number of calls running at once, the connections available
+     */
+    public AsyncRepositoryFactory(RepositoryFactory repositoryFactory, int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Concurrency limit must be positive");
+        }
+        this.repositoryFactory = Objects.requireNonNull(repositoryFactory);
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency, true);
+    }
+
+    public AsyncRepository<GameRepository> games() {
+        return new AsyncRepository<>(repositoryFactory.getGameRepository(), this);
+    }
+
+    public AsyncRepository<DeveloperRepository> developers() {
+        return new AsyncRepository<>(repositoryFactory.getDeveloperRepository(), this);
+    }
+
+    public AsyncRepository<PublisherRepository> publishers() {
+        return new AsyncRepository<>(repositoryFactory.getPublisherRepository(), this);
+    }
+
+    public AsyncRepository<GenreRepository> genres() {
+        return new AsyncRepository<>(repositoryFactory.getGenreRepository(), this);
+    }
+
+    public AsyncRepository<ConsoleRepository> consoles() {
+        return new AsyncRepository<>(repositoryFactory.getConsoleRepository(), this);
+    }
+
+    public AsyncRepository<GameEditionRepository> gameEditions() {
+        return new AsyncRepository<>(repositoryFactory.getGameEditionRepository(), this);
+    }
+
+    public AsyncRepository<GameConsoleRepository> gameConsoles() {
+        return new AsyncRepository<>(repositoryFactory.getGameConsoleRepository(), this);
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Returns how many calls are currently running against the database.
+     *
+     * @return the number of calls holding a permit
+     */
+    public int getActiveCalls() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    future.completeExceptionally(e);
+                    return;
+                }
+                T result;
+                try {
+                    result = task.call();
+                } catch (Throwable e) {
+                    // Free the permit first so a caller that sees the future complete sees the call finished
+                    permits.release();
+                    future.completeExceptionally(e);
+                    return;
+                }
+                permits.release();
+                future.complete(result);
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Stops accepting calls and waits for the running ones to finish.
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
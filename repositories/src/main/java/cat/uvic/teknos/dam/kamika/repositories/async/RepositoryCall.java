@@ -0,0 +1,14 @@
+package cat.uvic.teknos.dam.kamika.repositories.async;
+
+/**
+ * A call made on a repository from an {@link AsyncRepository}.
+ * Unlike {@link java.util.function.Function}, it may throw checked exceptions
+ * such as the {@code SQLException} declared by {@code GameRepository.save}.
+ *
+ * @param <R> the repository type
+ * @param <T> the result type
+ */
+@FunctionalInterface
+public interface RepositoryCall<R, T> {
+    T call(R repository) throws Exception;
+}
@@ -0,0 +1,33 @@
+package cat.uvic.teknos.dam.kamika.repositories.caching;
+
+/**
+ * A snapshot of the counters of a cache.
+ *
+ * @param hits      the lookups answered from the cache
+ * @param misses    the lookups that had to be loaded
+ * @param evictions the entries dropped to stay within the size limit
+ * @param size      the number of cached entries
+ */
+public record CacheStats(long hits, long misses, long evictions, long size) {
+
+    /**
+     * Returns the share of lookups answered from the cache.
+     *
+     * @return the hit rate, or 0 if nothing was looked up
+     */
+    public double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Adds the counters of another cache.
+     *
+     * @param other the other snapshot
+     * @return the combined snapshot
+     */
+    public CacheStats plus(CacheStats other) {
+        return new CacheStats(hits + other.hits, misses + other.misses,
+                evictions + other.evictions, size + other.size);
+    }
+}
@@ -0,0 +1,110 @@
+package cat.uvic.teknos.dam.kamika.repositories.caching;
+
+import cat.uvic.teknos.dam.kamika.model.Console;
+import cat.uvic.teknos.dam.kamika.repositories.ConsoleRepository;
+import cat.uvic.teknos.dam.kamika.repositories.Sort;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Caches {@code findById}, {@code existsById} and {@code count} of a {@link ConsoleRepository}.
+ * Writes made through this decorator invalidate the affected entries; writes made around it
+ * are not seen until the entries are evicted.
+ */
+public class CachingConsoleRepository implements ConsoleRepository {
+
+    private final ConsoleRepository delegate;
+    private final EntityCache<Integer, Console> cache;
+
+    /**
+     * Creates the decorator with its own cache.
+     *
+     * @param delegate    the repository whose lookups are cached
+     * @param maximumSize the maximum number of cached consoles
+     */
+    public CachingConsoleRepository(ConsoleRepository delegate, int maximumSize) {
+        this(delegate, new EntityCache<>("consoles", maximumSize));
+    }
+
+    CachingConsoleRepository(ConsoleRepository delegate, EntityCache<Integer, Console> cache) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.cache = cache;
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    @Override
+    public Optional<Console> findById(int id) {
+        return cache.find(id, delegate::findById);
+    }
+
+    @Override
+    public Console save(Console console) {
+        boolean inserting = console.getId() == 0;
+        try {
+            Console saved = delegate.save(console);
+            invalidate(saved.getId(), inserting);
+            return saved;
+        } catch (RuntimeException e) {
+            cache.invalidate(console.getId());
+            throw e;
+        }
+    }
+
+    @Override
+    public void delete(Console console) {
+        try {
+            delegate.delete(console);
+        } finally {
+            cache.invalidateWithCount(console.getId());
+        }
+    }
+
+    @Override
+    public boolean deleteById(int id) {
+        try {
+            return delegate.deleteById(id);
+        } finally {
+            cache.invalidateWithCount(id);
+        }
+    }
+
+    @Override
+    public long count() {
+        return cache.count(delegate::count);
+    }
+
+    @Override
+    public boolean existsById(int id) {
+        return cache.exists(id, delegate::existsById);
+    }
+
+    @Override
+    public Set<Console> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Console> findAll(Sort<Console> sort) {
+        return delegate.findAll(sort);
+    }
+
+    @Override
+    public Stream<Console> streamAll() {
+        return delegate.streamAll();
+    }
+
+    private void invalidate(int id, boolean inserted) {
+        if (inserted) {
+            cache.invalidateWithCount(id);
+        } else {
+            cache.invalidate(id);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package cat.uvic.teknos.dam.kamika.repositories.caching;
+
+import cat.uvic.teknos.dam.kamika.model.Developer;
+import cat.uvic.teknos.dam.kamika.repositories.DeveloperPatch;
+import cat.uvic.teknos.dam.kamika.repositories.DeveloperRepository;
+import cat.uvic.teknos.dam.kamika.repositories.Sort;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Caches {@code findById}, {@code existsById}, {@code count} and the counts by country of a
+ * {@link DeveloperRepository}.
+ * Writes made through this decorator invalidate the affected entries; writes made around it
+ * are not seen until the entries are evicted.
+ */
+public class CachingDeveloperRepository implements DeveloperRepository {
+
+    private static final List<String> DEVELOPER_TABLES = List.of("developers");
+
+    private final DeveloperRepository delegate;
+    private final EntityCache<Integer, Developer> cache;
+
+    /**
+     * Creates the decorator with its own cache.
+     *
+     * @param delegate    the repository whose lookups are cached
+     * @param maximumSize the maximum number of cached developers
+     */
+    public CachingDeveloperRepository(DeveloperRepository delegate, int maximumSize) {
+        this(delegate, new EntityCache<>("developers", maximumSize));
+    }
+
+    CachingDeveloperRepository(DeveloperRepository delegate, EntityCache<Integer, Developer> cache) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.cache = cache;
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    @Override
+    public Optional<Developer> findById(int id) {
+        return cache.find(id, delegate::findById);
+    }
+
+    @Override
+    public Developer save(Developer developer) {
+        boolean inserting = developer.getId() == 0;
+        try {
+            Developer saved = delegate.save(developer);
+            invalidate(saved.getId(), inserting);
+            return saved;
+        } catch (RuntimeException e) {
+            cache.invalidate(developer.getId());
+            throw e;
+        }
+    }
+
+    @Override
+    public Optional<Developer> patch(int id, DeveloperPatch patch) {
+        try {
+            return delegate.patch(id, patch);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public void delete(Developer developer) {
+        try {
+            delegate.delete(developer);
+        } finally {
+            cache.invalidateWithCount(developer.getId());
+        }
+    }
+
+    @Override
+    public boolean deleteById(int id) {
+        try {
+            return delegate.deleteById(id);
+        } finally {
+            cache.invalidateWithCount(id);
+        }
+    }
+
+    @Override
+    public long count() {
+        return cache.count(delegate::count);
+    }
+
+    @Override
+    public boolean existsById(int id) {
+        return cache.exists(id, delegate::existsById);
+    }
+
+    @Override
+    public long countByCountryIgnoreCase(String country) {
+        return cache.getQueries().get("developers.countByCountryIgnoreCase", DEVELOPER_TABLES,
+                () -> delegate.countByCountryIgnoreCase(country),
+                country == null ? null : country.toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public Set<Developer> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Developer> findAll(Sort<Developer> sort) {
+        return delegate.findAll(sort);
+    }
+
+    @Override
+    public Stream<Developer> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public Stream<Developer> streamByCountryIgnoreCase(String country) {
+        return delegate.streamByCountryIgnoreCase(country);
+    }
+
+    private void invalidate(int id, boolean inserted) {
+        if (inserted) {
+            cache.invalidateWithCount(id);
+        } else {
+            cache.invalidate(id);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package cat.uvic.teknos.dam.kamika.repositories.caching;
+
+import cat.uvic.teknos.dam.kamika.model.GameConsole;
+import cat.uvic.teknos.dam.kamika.repositories.GameConsoleRepository;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Caches {@code findById}, {@code existsById} and {@code count} of a {@link GameConsoleRepository},
+ * keyed by game and console ID. Writes made through this decorator invalidate the affected
+ * entries; writes made around it are not seen until the entries are evicted. A delete by the
+ * surrogate ID does not tell which pair it removed, so it clears the whole cache.
+ */
+public class CachingGameConsoleRepository implements GameConsoleRepository {
+
+    private final GameConsoleRepository delegate;
+    private final EntityCache<Long, GameConsole> cache;
+
+    /**
+     * Creates the decorator with its own cache.
+     *
+     * @param delegate    the repository whose lookups are cached
+     * @param maximumSize the maximum number of cached game consoles
+     */
+    public CachingGameConsoleRepository(GameConsoleRepository delegate, int maximumSize) {
+        this(delegate, new EntityCache<>("gameConsoles", maximumSize));
+    }
+
+    CachingGameConsoleRepository(GameConsoleRepository delegate, EntityCache<Long, GameConsole> cache) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.cache = cache;
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    @Override
+    public Optional<GameConsole> findByGameConsoleId(int gameConsoleId) {
+        return delegate.findByGameConsoleId(gameConsoleId);
+    }
+
+    @Override
+    public boolean deleteByGameConsoleId(int gameConsoleId) {
+        try {
+            return delegate.deleteByGameConsoleId(gameConsoleId);
+        } finally {
+            cache.invalidateAll();
+        }
+    }
+
+    @Override
+    public Optional<GameConsole> findById(int gameId, int consoleId) {
+        return cache.find(key(gameId, consoleId), ignored -> delegate.findById(gameId, consoleId));
+    }
+
+    /**
+     * Saves the relation and invalidates its pair and the count, since a save is an insert or an
+     * update depending on whether the pair already exists.
+     */
+    @Override
+    public GameConsole save(GameConsole gameConsole) {
+        try {
+            return delegate.save(gameConsole);
+        } finally {
+            cache.invalidateWithCount(key(gameConsole.getGameId(), gameConsole.getConsoleId()));
+        }
+    }
+
+    @Override
+    public void delete(GameConsole gameConsole) {
+        try {
+            delegate.delete(gameConsole);
+        } finally {
+            cache.invalidateWithCount(key(gameConsole.getGameId(), gameConsole.getConsoleId()));
+        }
+    }
+
+    @Override
+    public boolean deleteById(int gameId, int consoleId) {
+        try {
+            return delegate.deleteById(gameId, consoleId);
+        } finally {
+            cache.invalidateWithCount(key(gameId, consoleId));
+        }
+    }
+
+    @Override
+    public long count() {
+        return cache.count(delegate::count);
+    }
+
+    @Override
+    public boolean existsById(int gameId, int consoleId) {
+        return cache.exists(key(gameId, consoleId), ignored -> delegate.existsById(gameId, consoleId));
+    }
+
+    private static long key(int gameId, int consoleId) {
+        return (long) gameId << 32 | (consoleId & 0xffffffffL);
+    }
+}
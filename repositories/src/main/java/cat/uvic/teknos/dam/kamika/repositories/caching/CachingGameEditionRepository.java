@@ -0,0 +1,129 @@
+package cat.uvic.teknos.dam.kamika.repositories.caching;
+
+import cat.uvic.teknos.dam.kamika.model.GameEdition;
+import cat.uvic.teknos.dam.kamika.repositories.GameEditionRepository;
+import cat.uvic.teknos.dam.kamika.repositories.Sort;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Caches {@code findById}, {@code count} and the lookups by game and edition name of a
+ * {@link GameEditionRepository}.
+ * Writes made through this decorator invalidate the affected entries; writes made around it
+ * are not seen until the entries are evicted. A delete by game and edition name does not tell
+ * which ID it removed, so it clears the whole cache.
+ */
+public class CachingGameEditionRepository implements GameEditionRepository {
+
+    private static final List<String> EDITION_TABLES = List.of("gameEditions", "games");
+
+    private final GameEditionRepository delegate;
+    private final EntityCache<Integer, GameEdition> cache;
+
+    /**
+     * Creates the decorator with its own cache.
+     *
+     * @param delegate    the repository whose lookups are cached
+     * @param maximumSize the maximum number of cached game editions
+     */
+    public CachingGameEditionRepository(GameEditionRepository delegate, int maximumSize) {
+        this(delegate, new EntityCache<>("gameEditions", maximumSize));
+    }
+
+    CachingGameEditionRepository(GameEditionRepository delegate, EntityCache<Integer, GameEdition> cache) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.cache = cache;
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    @Override
+    public Optional<GameEdition> findById(int id) {
+        return cache.find(id, delegate::findById);
+    }
+
+    @Override
+    public GameEdition save(GameEdition gameEdition) {
+        boolean inserting = gameEdition.getId() == 0;
+        try {
+            GameEdition saved = delegate.save(gameEdition);
+            if (inserting) {
+                cache.invalidateWithCount(saved.getId());
+            } else {
+                cache.invalidate(saved.getId());
+            }
+            return saved;
+        } catch (RuntimeException e) {
+            cache.invalidate(gameEdition.getId());
+            throw e;
+        }
+    }
+
+    @Override
+    public void delete(GameEdition gameEdition) {
+        try {
+            delegate.delete(gameEdition);
+        } finally {
+            cache.invalidateWithCount(gameEdition.getId());
+        }
+    }
+
+    @Override
+    public void deleteByGameIdAndEditionName(int gameId, String editionName) {
+        try {
+            delegate.deleteByGameIdAndEditionName(gameId, editionName);
+        } finally {
+            cache.invalidateAll();
+        }
+    }
+
+    @Override
+    public long count() {
+        return cache.count(delegate::count);
+    }
+
+    @Override
+    public Optional<GameEdition> findByGameIdAndEditionName(int gameId, String editionName) {
+        return cache.getQueries().get("gameEditions.findByGameIdAndEditionName", EDITION_TABLES,
+                () -> delegate.findByGameIdAndEditionName(gameId, editionName), gameId, editionName);
+    }
+
+    @Override
+    public List<GameEdition> findByGameId(int gameId) {
+        return cache.getQueries().get("gameEditions.findByGameId", EDITION_TABLES,
+                () -> delegate.findByGameId(gameId), gameId);
+    }
+
+    @Override
+    public boolean existsByGameIdAndEditionName(int gameId, String editionName) {
+        return cache.getQueries().get("gameEditions.existsByGameIdAndEditionName", EDITION_TABLES,
+                () -> delegate.existsByGameIdAndEditionName(gameId, editionName), gameId, editionName);
+    }
+
+    @Override
+    public Optional<GameEdition> findByEditionName(String editionName) {
+        return cache.getQueries().get("gameEditions.findByEditionName", EDITION_TABLES,
+                () -> delegate.findByEditionName(editionName), editionName);
+    }
+
+    @Override
+    public Set<GameEdition> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<GameEdition> findAll(Sort<GameEdition> sort) {
+        return delegate.findAll(sort);
+    }
+
+    @Override
+    public Stream<GameEdition> streamAll() {
+        return delegate.streamAll();
+    }
+}
@@ -0,0 +1,126 @@
+package cat.uvic.teknos.dam.kamika.repositories.caching;
+
+import cat.uvic.teknos.dam.kamika.model.Game;
+import cat.uvic.teknos.dam.kamika.repositories.GameRepository;
+import cat.uvic.teknos.dam.kamika.repositories.Sort;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Caches {@code findById}, {@code existsById} and {@code count} of a {@link GameRepository}.
+ * Writes made through this decorator invalidate the affected entries; writes made around it
+ * are not seen until the entries are evicted.
+ */
+public class CachingGameRepository implements GameRepository {
+
+    private final GameRepository delegate;
+    private final EntityCache<Integer, Game> cache;
+
+    /**
+     * Creates the decorator with its own cache.
+     *
+     * @param delegate    the repository whose lookups are cached
+     * @param maximumSize the maximum number of cached games
+     */
+    public CachingGameRepository(GameRepository delegate, int maximumSize) {
+        this(delegate, new EntityCache<>("games", maximumSize));
+    }
+
+    CachingGameRepository(GameRepository delegate, EntityCache<Integer, Game> cache) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.cache = cache;
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    @Override
+    public Optional<Game> findById(int id) {
+        return cache.find(id, delegate::findById);
+    }
+
+    @Override
+    public Game save(Game game) throws SQLException {
+        boolean inserting = game.getId() == 0;
+        try {
+            Game saved = delegate.save(game);
+            invalidate(saved.getId(), inserting);
+            return saved;
+        } catch (SQLException | RuntimeException e) {
+            cache.invalidate(game.getId());
+            throw e;
+        }
+    }
+
+    @Override
+    public void delete(Game game) {
+        try {
+            delegate.delete(game);
+        } finally {
+            cache.invalidateWithCount(game.getId());
+        }
+    }
+
+    @Override
+    public boolean deleteById(int id) {
+        try {
+            return delegate.deleteById(id);
+        } finally {
+            cache.invalidateWithCount(id);
+        }
+    }
+
+    @Override
+    public long count() {
+        return cache.count(delegate::count);
+    }
+
+    @Override
+    public boolean existsById(int id) {
+        return cache.exists(id, delegate::existsById);
+    }
+
+    @Override
+    public Set<Game> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Game> findAll(Sort<Game> sort) {
+        return delegate.findAll(sort);
+    }
+
+    @Override
+    public Stream<Game> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public Stream<Game> streamByDeveloperId(int developerId) {
+        return delegate.streamByDeveloperId(developerId);
+    }
+
+    @Override
+    public Optional<Game> findByIdWithDetails(int id) {
+        return delegate.findByIdWithDetails(id);
+    }
+
+    @Override
+    public List<Game> findAllWithDetails(int offset, int limit) {
+        return delegate.findAllWithDetails(offset, limit);
+    }
+
+    private void invalidate(int id, boolean inserted) {
+        if (inserted) {
+            cache.invalidateWithCount(id);
+        } else {
+            cache.invalidate(id);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package cat.uvic.teknos.dam.kamika.repositories.caching;
+
+import cat.uvic.teknos.dam.kamika.model.Genre;
+import cat.uvic.teknos.dam.kamika.repositories.GenreRepository;
+import cat.uvic.teknos.dam.kamika.repositories.Sort;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Caches {@code findById}, {@code existsById}, {@code count}, the lookups by name and the game
+ * count per genre of a {@link GenreRepository}.
+ * Writes made through this decorator invalidate the affected entries; writes made around it
+ * are not seen until the entries are evicted.
+ * The game counts also depend on the GAME table, so they only see game writes made through
+ * repositories that share this decorator's {@link QueryCache}, such as those of a
+ * {@link CachingRepositoryFactory}.
+ */
+public class CachingGenreRepository implements GenreRepository {
+
+    private static final List<String> GENRE_TABLES = List.of("genres");
+    private static final List<String> GAME_TABLES = List.of("games", "genres");
+
+    private final GenreRepository delegate;
+    private final EntityCache<Integer, Genre> cache;
+
+    /**
+     * Creates the decorator with its own cache.
+     *
+     * @param delegate    the repository whose lookups are cached
+     * @param maximumSize the maximum number of cached genres
+     */
+    public CachingGenreRepository(GenreRepository delegate, int maximumSize) {
+        this(delegate, new EntityCache<>("genres", maximumSize));
+    }
+
+    CachingGenreRepository(GenreRepository delegate, EntityCache<Integer, Genre> cache) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.cache = cache;
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    @Override
+    public Optional<Genre> findById(int id) {
+        return cache.find(id, delegate::findById);
+    }
+
+    @Override
+    public Genre save(Genre genre) {
+        boolean inserting = genre.getId() == 0;
+        try {
+            Genre saved = delegate.save(genre);
+            invalidate(saved.getId(), inserting);
+            return saved;
+        } catch (RuntimeException e) {
+            cache.invalidate(genre.getId());
+            throw e;
+        }
+    }
+
+    @Override
+    public void delete(Genre genre) {
+        try {
+            delegate.delete(genre);
+        } finally {
+            cache.invalidateWithCount(genre.getId());
+        }
+    }
+
+    @Override
+    public boolean deleteById(int id) {
+        try {
+            return delegate.deleteById(id);
+        } finally {
+            cache.invalidateWithCount(id);
+        }
+    }
+
+    @Override
+    public long count() {
+        return cache.count(delegate::count);
+    }
+
+    @Override
+    public boolean existsById(int id) {
+        return cache.exists(id, delegate::existsById);
+    }
+
+    @Override
+    public Optional<Genre> findByNameIgnoreCase(String name) {
+        return cache.getQueries().get("genres.findByNameIgnoreCase", GENRE_TABLES,
+                () -> delegate.findByNameIgnoreCase(name), name);
+    }
+
+    @Override
+    public Map<Integer, Long> countGamesPerGenre() {
+        Map<Integer, Long> counts = cache.getQueries().get("genres.countGamesPerGenre", GAME_TABLES,
+                delegate::countGamesPerGenre);
+        return new HashMap<>(counts);
+    }
+
+    @Override
+    public Optional<Genre> findByName(String name) {
+        return cache.getQueries().get("genres.findByName", GENRE_TABLES, () -> delegate.findByName(name), name);
+    }
+
+    @Override
+    public Set<Genre> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Genre> findAll(Sort<Genre> sort) {
+        return delegate.findAll(sort);
+    }
+
+    @Override
+    public Stream<Genre> streamAll() {
+        return delegate.streamAll();
+    }
+
+    private void invalidate(int id, boolean inserted) {
+        if (inserted) {
+            cache.invalidateWithCount(id);
+        } else {
+            cache.invalidate(id);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package cat.uvic.teknos.dam.kamika.repositories.caching;
+
+import cat.uvic.teknos.dam.kamika.model.Publisher;
+import cat.uvic.teknos.dam.kamika.repositories.PublisherRepository;
+import cat.uvic.teknos.dam.kamika.repositories.Sort;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Caches {@code findById}, {@code existsById}, {@code count} and the lookups by name and counts
+ * by country of a {@link PublisherRepository}.
+ * Writes made through this decorator invalidate the affected entries; writes made around it
+ * are not seen until the entries are evicted.
+ */
+public class CachingPublisherRepository implements PublisherRepository {
+
+    private static final List<String> PUBLISHER_TABLES = List.of("publishers");
+    private static final List<String> PUBLISHER_DEVELOPER_TABLES = List.of("publishers", "developers");
+
+    private final PublisherRepository delegate;
+    private final EntityCache<Integer, Publisher> cache;
+
+    /**
+     * Creates the decorator with its own cache.
+     *
+     * @param delegate    the repository whose lookups are cached
+     * @param maximumSize the maximum number of cached publishers
+     */
+    public CachingPublisherRepository(PublisherRepository delegate, int maximumSize) {
+        this(delegate, new EntityCache<>("publishers", maximumSize));
+    }
+
+    CachingPublisherRepository(PublisherRepository delegate, EntityCache<Integer, Publisher> cache) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.cache = cache;
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    @Override
+    public Optional<Publisher> findById(int id) {
+        return cache.find(id, delegate::findById);
+    }
+
+    @Override
+    public Publisher save(Publisher publisher) {
+        boolean inserting = publisher.getId() == 0;
+        try {
+            Publisher saved = delegate.save(publisher);
+            invalidate(saved.getId(), inserting);
+            return saved;
+        } catch (RuntimeException e) {
+            cache.invalidate(publisher.getId());
+            throw e;
+        }
+    }
+
+    @Override
+    public void delete(Publisher publisher) {
+        try {
+            delegate.delete(publisher);
+        } finally {
+            cache.invalidateWithCount(publisher.getId());
+        }
+    }
+
+    @Override
+    public boolean deleteById(int id) {
+        try {
+            return delegate.deleteById(id);
+        } finally {
+            cache.invalidateWithCount(id);
+        }
+    }
+
+    @Override
+    public long count() {
+        return cache.count(delegate::count);
+    }
+
+    @Override
+    public boolean existsById(int id) {
+        return cache.exists(id, delegate::existsById);
+    }
+
+    @Override
+    public long countByCountryIgnoreCase(String country) {
+        return cache.getQueries().get("publishers.countByCountryIgnoreCase", PUBLISHER_TABLES,
+                () -> delegate.countByCountryIgnoreCase(country), country);
+    }
+
+    @Override
+    public Optional<Publisher> findByName(String name) {
+        return cache.getQueries().get("publishers.findByName", PUBLISHER_DEVELOPER_TABLES,
+                () -> delegate.findByName(name), name);
+    }
+
+    @Override
+    public Set<Publisher> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Publisher> findAll(Sort<Publisher> sort) {
+        return delegate.findAll(sort);
+    }
+
+    @Override
+    public Stream<Publisher> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public Stream<Publisher> streamByCountryIgnoreCase(String country) {
+        return delegate.streamByCountryIgnoreCase(country);
+    }
+
+    private void invalidate(int id, boolean inserted) {
+        if (inserted) {
+            cache.invalidateWithCount(id);
+        } else {
+            cache.invalidate(id);
+        }
+    }
+}
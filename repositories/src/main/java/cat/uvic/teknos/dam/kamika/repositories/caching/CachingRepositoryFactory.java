@@ -0,0 +1,126 @@
+package cat.uvic.teknos.dam.kamika.repositories.caching;
+
+import cat.uvic.teknos.dam.kamika.model.*;
+import cat.uvic.teknos.dam.kamika.repositories.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Read-through cache in front of any {@link RepositoryFactory}, JDBC or JPA.
+ * <p>
+ * The repositories it returns answer {@code findById}, {@code existsById} and {@code count}
+ * from a {@link TinyLfuCache} per entity type, shared by every repository of that type, and
+ * invalidate it on {@code save} and {@code delete}. Since entities embed others, a game its
+ * developer and publisher for instance, a write to one type also clears the types that may hold
+ * a copy of it. Finders and counts by name or country are kept in a {@link QueryCache} shared by
+ * all types, which a write to any table they read makes stale. Other queries go straight to the
+ * wrapped repositories.
+ * </p>
+ * <p>
+ * Cached entities are shared between callers and must not be modified without saving them.
+ * Writes that bypass this factory, e.g. from another process, are only seen once the stale
+ * entries are evicted, so the cache suits data that is mostly written through it.
+ * </p>
+ */
+public class CachingRepositoryFactory implements RepositoryFactory {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+
+    private final RepositoryFactory delegate;
+    private final QueryCache queries;
+    private final EntityCache<Integer, Console> consoles;
+    private final EntityCache<Integer, Developer> developers;
+    private final EntityCache<Long, GameConsole> gameConsoles;
+    private final EntityCache<Integer, GameEdition> gameEditions;
+    private final EntityCache<Integer, Game> games;
+    private final EntityCache<Integer, Genre> genres;
+    private final EntityCache<Integer, Publisher> publishers;
+
+    public CachingRepositoryFactory(RepositoryFactory delegate) {
+        this(delegate, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * Creates the factory.
+     *
+     * @param delegate    the factory whose repositories are cached
+     * @param maximumSize the maximum number of cached entries per entity type
+     */
+    public CachingRepositoryFactory(RepositoryFactory delegate, int maximumSize) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.queries = new QueryCache(maximumSize);
+        this.consoles = new EntityCache<>("consoles", maximumSize, queries);
+        this.developers = new EntityCache<>("developers", maximumSize, queries);
+        this.gameConsoles = new EntityCache<>("gameConsoles", maximumSize, queries);
+        this.gameEditions = new EntityCache<>("gameEditions", maximumSize, queries);
+        this.games = new EntityCache<>("games", maximumSize, queries);
+        this.genres = new EntityCache<>("genres", maximumSize, queries);
+        this.publishers = new EntityCache<>("publishers", maximumSize, queries);
+
+        addDependents(developers, publishers, games, gameEditions, gameConsoles);
+        addDependents(publishers, games, gameEditions, gameConsoles);
+        addDependents(genres, games, gameEditions, gameConsoles);
+        addDependents(consoles, games, gameEditions, gameConsoles);
+        addDependents(games, gameEditions, gameConsoles);
+        addDependents(gameEditions, games, gameConsoles);
+        addDependents(gameConsoles, games, gameEditions);
+    }
+
+    @Override
+    public ConsoleRepository getConsoleRepository() {
+        return new CachingConsoleRepository(delegate.getConsoleRepository(), consoles);
+    }
+
+    @Override
+    public DeveloperRepository getDeveloperRepository() {
+        return new CachingDeveloperRepository(delegate.getDeveloperRepository(), developers);
+    }
+
+    @Override
+    public GameConsoleRepository getGameConsoleRepository() {
+        return new CachingGameConsoleRepository(delegate.getGameConsoleRepository(), gameConsoles);
+    }
+
+    @Override
+    public GameEditionRepository getGameEditionRepository() {
+        return new CachingGameEditionRepository(delegate.getGameEditionRepository(), gameEditions);
+    }
+
+    @Override
+    public GameRepository getGameRepository() {
+        return new CachingGameRepository(delegate.getGameRepository(), games);
+    }
+
+    @Override
+    public GenreRepository getGenreRepository() {
+        return new CachingGenreRepository(delegate.getGenreRepository(), genres);
+    }
+
+    @Override
+    public PublisherRepository getPublisherRepository() {
+        return new CachingPublisherRepository(delegate.getPublisherRepository(), publishers);
+    }
+
+    /**
+     * Returns the hit, miss and eviction counters of every entity type and of the queries.
+     *
+     * @return the statistics by entity type
+     */
+    public Map<String, CacheStats> getStats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        for (EntityCache<?, ?> cache : List.of(consoles, developers, gameConsoles, gameEditions, games, genres, publishers)) {
+            stats.put(cache.getName(), cache.stats());
+        }
+        stats.put("queries", queries.stats());
+        return stats;
+    }
+
+    private static void addDependents(EntityCache<?, ?> cache, EntityCache<?, ?>... dependents) {
+        for (EntityCache<?, ?> dependent : dependents) {
+            cache.addDependent(dependent);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package cat.uvic.teknos.dam.kamika.repositories.caching;
+
+import cat.uvic.teknos.dam.kamika.model.Developer;
+import cat.uvic.teknos.dam.kamika.repositories.DeveloperPatch;
+import cat.uvic.teknos.dam.kamika.repositories.DeveloperRepository;
+import cat.uvic.teknos.dam.kamika.repositories.Sort;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Coalesces concurrent identical reads of a {@link DeveloperRepository} with a
+ * {@link SingleFlight}, so that a burst of requests for the same list or developer runs one
+ * query. Every write made through this decorator stops sharing the reads in flight, so a read
+ * that starts after a write never receives data loaded before it.
+ * <p>
+ * It suits the layer below a {@link CachingDeveloperRepository}, whose cache loads misses
+ * outside its lock: when a popular developer is evicted or first requested, the concurrent
+ * misses run one query instead of one each.
+ * </p>
+ * <p>
+ * Each caller gets its own collection, but the developers in it are shared and must not be
+ * modified without saving them. Streams are not coalesced.
+ * </p>
+ */
+public class CoalescingDeveloperRepository implements DeveloperRepository {
+
+    private final DeveloperRepository delegate;
+    private final SingleFlight<List<Object>, Object> reads = new SingleFlight<>();
+
+    public CoalescingDeveloperRepository(DeveloperRepository delegate) {
+        this.delegate = Objects.requireNonNull(delegate);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<Developer> findById(int id) {
+        return (Optional<Developer>) reads.execute(List.of("findById", id), () -> delegate.findById(id));
+    }
+
+    @Override
+    public Developer save(Developer developer) {
+        try {
+            return delegate.save(developer);
+        } finally {
+            reads.forgetAll();
+        }
+    }
+
+    @Override
+    public Optional<Developer> patch(int id, DeveloperPatch patch) {
+        try {
+            return delegate.patch(id, patch);
+        } finally {
+            reads.forgetAll();
+        }
+    }
+
+    @Override
+    public void delete(Developer developer) {
+        try {
+            delegate.delete(developer);
+        } finally {
+            reads.forgetAll();
+        }
+    }
+
+    @Override
+    public boolean deleteById(int id) {
+        try {
+            return delegate.deleteById(id);
+        } finally {
+            reads.forgetAll();
+        }
+    }
+
+    @Override
+    public long count() {
+        return (Long) reads.execute(List.of("count"), delegate::count);
+    }
+
+    @Override
+    public boolean existsById(int id) {
+        return (Boolean) reads.execute(List.of("existsById", id), () -> delegate.existsById(id));
+    }
+
+    @Override
+    public long countByCountryIgnoreCase(String country) {
+        if (country == null) {
+            return delegate.countByCountryIgnoreCase(null);
+        }
+        return (Long) reads.execute(List.of("countByCountryIgnoreCase", country.toLowerCase(Locale.ROOT)),
+                () -> delegate.countByCountryIgnoreCase(country));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<Developer> findAll() {
+        return new HashSet<>((Set<Developer>) reads.execute(List.of("findAll"), delegate::findAll));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Developer> findAll(Sort<Developer> sort) {
+        return new ArrayList<>((List<Developer>) reads.execute(List.of("findAllSorted", sort.getOrders()),
+                () -> delegate.findAll(sort)));
+    }
+
+    @Override
+    public Stream<Developer> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public Stream<Developer> streamByCountryIgnoreCase(String country) {
+        return delegate.streamByCountryIgnoreCase(country);
+    }
+}
@@ -0,0 +1,148 @@
+package cat.uvic.teknos.dam.kamika.repositories.caching;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * The cached lookups of one entity type: entities and existence checks by key, and the row count.
+ * <p>
+ * Lookups of missing keys are cached too, as empty results. Types whose entities embed this one,
+ * such as games and their developer, or whose rows are deleted with it, register as dependents
+ * and are cleared whenever this type changes. Dependents are not cleared transitively, so each
+ * type must register every type that depends on it, directly or not.
+ * </p>
+ * <p>
+ * Every change also bumps the version of this type's table in the {@link QueryCache}, which
+ * may be shared with other types so that queries can read several tables.
+ * </p>
+ *
+ * @param <K> the key type
+ * @param <T> the entity type
+ */
+final class EntityCache<K, T> {
+
+    private final String name;
+    private final TinyLfuCache<K, Optional<T>> entities;
+    private final TinyLfuCache<K, Boolean> existence;
+    private final QueryCache queries;
+    private final List<EntityCache<?, ?>> dependents = new ArrayList<>();
+    private final AtomicLong countHits = new AtomicLong();
+    private final AtomicLong countMisses = new AtomicLong();
+    private final Object countLock = new Object();
+    private Long count;
+    private long countInvalidations;
+
+    EntityCache(String name, int maximumSize) {
+        this(name, maximumSize, new QueryCache(maximumSize));
+    }
+
+    EntityCache(String name, int maximumSize, QueryCache queries) {
+        this.name = name;
+        this.entities = new TinyLfuCache<>(maximumSize);
+        this.existence = new TinyLfuCache<>(maximumSize);
+        this.queries = queries;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    QueryCache getQueries() {
+        return queries;
+    }
+
+    /**
+     * Registers a type whose cached entities embed this one.
+     *
+     * @param dependent the cache of that type
+     */
+    void addDependent(EntityCache<?, ?> dependent) {
+        dependents.add(dependent);
+    }
+
+    Optional<T> find(K key, Function<K, Optional<T>> loader) {
+        return entities.get(key, loader);
+    }
+
+    boolean exists(K key, Predicate<K> loader) {
+        Optional<T> entity = entities.peek(key);
+        return entity != null ? entity.isPresent() : existence.get(key, loader::test);
+    }
+
+    long count(LongSupplier loader) {
+        long invalidationsBefore;
+        synchronized (countLock) {
+            if (count != null) {
+                countHits.incrementAndGet();
+                return count;
+            }
+            countMisses.incrementAndGet();
+            invalidationsBefore = countInvalidations;
+        }
+
+        long loaded = loader.getAsLong();
+        synchronized (countLock) {
+            if (countInvalidations == invalidationsBefore) {
+                count = loaded;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Forgets an entity that was updated.
+     *
+     * @param key the key of the entity
+     */
+    void invalidate(K key) {
+        entities.invalidate(key);
+        existence.invalidate(key);
+        queries.bump(name);
+        dependents.forEach(EntityCache::clear);
+    }
+
+    /**
+     * Forgets an entity that was inserted or deleted, and the row count.
+     *
+     * @param key the key of the entity
+     */
+    void invalidateWithCount(K key) {
+        invalidate(key);
+        invalidateCount();
+    }
+
+    /**
+     * Forgets everything, e.g. after a write whose key is unknown.
+     */
+    void invalidateAll() {
+        clear();
+        dependents.forEach(EntityCache::clear);
+    }
+
+    CacheStats stats() {
+        CacheStats counts;
+        synchronized (countLock) {
+            counts = new CacheStats(countHits.get(), countMisses.get(), 0, count == null ? 0 : 1);
+        }
+        return entities.stats().plus(existence.stats()).plus(counts);
+    }
+
+    private void clear() {
+        entities.invalidateAll();
+        existence.invalidateAll();
+        queries.bump(name);
+        invalidateCount();
+    }
+
+    private void invalidateCount() {
+        synchronized (countLock) {
+            count = null;
+            countInvalidations++;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package cat.uvic.teknos.dam.kamika.repositories.caching;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches the results of finder and count queries, keyed by method and arguments.
+ * <p>
+ * Each result is tagged with the tables it was read from and the version of each table when
+ * the query started. A write bumps the version of its table in constant time, without looking
+ * for the results that read it; those results simply stop matching and are reloaded on their
+ * next lookup, or evicted. Tables are named like the {@link EntityCache}s that bump them.
+ * </p>
+ */
+final class QueryCache {
+
+    private final TinyLfuCache<QueryKey, Result> results;
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    QueryCache(int maximumSize) {
+        this.results = new TinyLfuCache<>(maximumSize);
+    }
+
+    /**
+     * Returns the cached result of a query while none of its tables changed, running it
+     * otherwise.
+     *
+     * @param method the name of the query, unique within this cache
+     * @param tables the tables the query reads
+     * @param loader runs the query; must not return {@code null}
+     * @param args   the arguments of the query
+     * @param <V>    the result type
+     * @return the result
+     */
+    @SuppressWarnings("unchecked")
+    <V> V get(String method, List<String> tables, Supplier<V> loader, Object... args) {
+        QueryKey key = new QueryKey(method, Arrays.asList(args));
+        Result result = results.get(key, this::isCurrent, ignored -> {
+            long[] versionsBefore = versionsOf(tables);
+            return new Result(tables, versionsBefore, Objects.requireNonNull(loader.get()));
+        });
+        return (V) result.value();
+    }
+
+    /**
+     * Marks every cached result that read a table as stale.
+     *
+     * @param table the table that was written
+     */
+    void bump(String table) {
+        versions.computeIfAbsent(table, ignored -> new AtomicLong()).incrementAndGet();
+    }
+
+    CacheStats stats() {
+        return results.stats();
+    }
+
+    private boolean isCurrent(Result result) {
+        return Arrays.equals(result.versions(), versionsOf(result.tables()));
+    }
+
+    private long[] versionsOf(List<String> tables) {
+        long[] current = new long[tables.size()];
+        for (int i = 0; i < current.length; i++) {
+            AtomicLong version = versions.get(tables.get(i));
+            current[i] = version == null ? 0 : version.get();
+        }
+        return current;
+    }
+
+    private record QueryKey(String method, List<Object> args) {
+    }
+
+    private record Result(List<String> tables, long[] versions, Object value) {
+    }
+}
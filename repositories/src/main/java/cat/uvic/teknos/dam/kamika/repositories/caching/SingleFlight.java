@@ -0,0 +1,117 @@
+package cat.uvic.teknos.dam.kamika.repositories.caching;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces concurrent identical reads: while a value is being loaded for a key, other callers
+ * asking for the same key wait for that load instead of starting their own, and all of them
+ * receive its result or its exception.
+ * <p>
+ * Nothing is kept once a load completes, so this is not a cache. After a write, call
+ * {@link #forget} or {@link #forgetAll}: callers arriving later start a fresh load instead of
+ * sharing one that may have read the data before the write.
+ * </p>
+ *
+ * @param <K> the key type, e.g. a route or the arguments of a query
+ * @param <V> the value type
+ */
+public final class SingleFlight<K, V> {
+
+    /**
+     * Loads a value, possibly throwing a checked exception.
+     *
+     * @param <V> the value type
+     * @param <E> the exception type
+     */
+    @FunctionalInterface
+    public interface Loader<V, E extends Exception> {
+        V load() throws E;
+    }
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong shared = new AtomicLong();
+
+    /**
+     * Returns the value of a key, joining the load in flight for it if there is one.
+     *
+     * @param key    the key identifying the read
+     * @param loader loads the value if no load is in flight
+     * @param <E>    the exception thrown by the loader
+     * @return the loaded value
+     * @throws E if the load failed, whether it ran in this thread or another
+     */
+    public <E extends Exception> V execute(K key, Loader<? extends V, E> loader) throws E {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = flights.putIfAbsent(key, flight);
+        if (inFlight != null) {
+            shared.incrementAndGet();
+            return await(inFlight);
+        }
+
+        loads.incrementAndGet();
+        try {
+            V value = loader.load();
+            flight.complete(value);
+            return value;
+        } catch (Throwable e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    /**
+     * Stops sharing the load in flight for a key, if any, with later callers.
+     *
+     * @param key the key whose data was written
+     */
+    public void forget(K key) {
+        flights.remove(key);
+    }
+
+    /**
+     * Stops sharing every load in flight with later callers.
+     */
+    public void forgetAll() {
+        flights.clear();
+    }
+
+    /**
+     * Returns the number of loads that were run.
+     *
+     * @return the loads
+     */
+    public long getLoads() {
+        return loads.get();
+    }
+
+    /**
+     * Returns the number of calls answered by joining another caller's load.
+     *
+     * @return the shared calls
+     */
+    public long getShared() {
+        return shared.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V, E extends Exception> V await(CompletableFuture<V> flight) throws E {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw (E) cause;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package cat.uvic.teknos.dam.kamika.repositories.caching;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A size-bounded cache with W-TinyLFU eviction.
+ * <p>
+ * New entries enter a small LRU window (1% of the capacity). An entry leaving the window is
+ * only admitted to the main area if a {@link FrequencySketch} says it has been accessed more
+ * often recently than the entry it would evict, so a burst of one-off lookups, such as a scan
+ * over every ID, cannot flush the popular entries. The main area is a segmented LRU: entries
+ * hit a second time move from the probation segment to the protected one (80% of the area).
+ * </p>
+ * <p>
+ * All operations take one lock and run in constant time. Values are loaded outside the lock;
+ * a value loaded while its key was invalidated is returned but not cached.
+ * </p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class TinyLfuCache<K, V> {
+
+    private final int maximumSize;
+    private final int windowMaximum;
+    private final int protectedMaximum;
+    private final LinkedHashMap<K, V> window = new LinkedHashMap<>();
+    private final LinkedHashMap<K, V> probation = new LinkedHashMap<>();
+    private final LinkedHashMap<K, V> protectedSegment = new LinkedHashMap<>();
+    private final FrequencySketch sketch;
+    private long invalidations;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maximumSize the maximum number of entries
+     */
+    public TinyLfuCache(int maximumSize) {
+        if (maximumSize < 2) {
+            throw new IllegalArgumentException("Maximum size must be at least 2");
+        }
+        this.maximumSize = maximumSize;
+        this.windowMaximum = Math.max(1, maximumSize / 100);
+        this.protectedMaximum = (maximumSize - windowMaximum) * 4 / 5;
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * Returns the cached value of a key, loading and caching it on a miss.
+     *
+     * @param key    the key
+     * @param loader loads the value of a missing key; must not return {@code null}
+     * @return the value
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        return get(key, value -> true, loader);
+    }
+
+    /**
+     * Returns the cached value of a key if it is still valid, loading and caching it otherwise.
+     *
+     * @param key     the key
+     * @param isValid tells whether a cached value may still be returned
+     * @param loader  loads the value of a missing or invalid key; must not return {@code null}
+     * @return the value
+     */
+    public V get(K key, Predicate<? super V> isValid, Function<? super K, ? extends V> loader) {
+        long invalidationsBefore;
+        synchronized (this) {
+            V value = lookup(key);
+            if (value != null && isValid.test(value)) {
+                hits++;
+                return value;
+            }
+            misses++;
+            invalidationsBefore = invalidations;
+        }
+
+        V value = Objects.requireNonNull(loader.apply(key), "Loaded value cannot be null");
+        synchronized (this) {
+            if (invalidations == invalidationsBefore) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns the cached value of a key without loading it or counting a hit or miss.
+     *
+     * @param key the key
+     * @return the value, or {@code null} if it is not cached
+     */
+    public synchronized V peek(K key) {
+        V value = window.get(key);
+        if (value == null) {
+            value = probation.get(key);
+        }
+        return value != null ? value : protectedSegment.get(key);
+    }
+
+    /**
+     * Removes a key, e.g. after its value was changed in the database.
+     *
+     * @param key the key
+     */
+    public synchronized void invalidate(K key) {
+        invalidations++;
+        if (window.remove(key) == null && probation.remove(key) == null) {
+            protectedSegment.remove(key);
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        invalidations++;
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+    }
+
+    public synchronized int size() {
+        return window.size() + probation.size() + protectedSegment.size();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(hits, misses, evictions, size());
+    }
+
+    private V lookup(K key) {
+        sketch.increment(key.hashCode());
+
+        V value = window.remove(key);
+        if (value != null) {
+            window.put(key, value);
+            return value;
+        }
+        value = protectedSegment.remove(key);
+        if (value != null) {
+            protectedSegment.put(key, value);
+            return value;
+        }
+        value = probation.remove(key);
+        if (value != null) {
+            protectedSegment.put(key, value);
+            if (protectedSegment.size() > protectedMaximum) {
+                Map.Entry<K, V> demoted = removeEldest(protectedSegment);
+                probation.put(demoted.getKey(), demoted.getValue());
+            }
+        }
+        return value;
+    }
+
+    private void put(K key, V value) {
+        if (window.containsKey(key)) {
+            window.put(key, value);
+            return;
+        }
+        if (probation.containsKey(key)) {
+            probation.put(key, value);
+            return;
+        }
+        if (protectedSegment.containsKey(key)) {
+            protectedSegment.put(key, value);
+            return;
+        }
+
+        window.put(key, value);
+        if (window.size() <= windowMaximum) {
+            return;
+        }
+
+        Map.Entry<K, V> candidate = removeEldest(window);
+        if (probation.size() + protectedSegment.size() < maximumSize - windowMaximum) {
+            probation.put(candidate.getKey(), candidate.getValue());
+            return;
+        }
+
+        LinkedHashMap<K, V> victims = probation.isEmpty() ? protectedSegment : probation;
+        K victim = victims.keySet().iterator().next();
+        if (sketch.frequency(candidate.getKey().hashCode()) > sketch.frequency(victim.hashCode())) {
+            victims.remove(victim);
+            probation.put(candidate.getKey(), candidate.getValue());
+        }
+        evictions++;
+    }
+
+    private static <K, V> Map.Entry<K, V> removeEldest(LinkedHashMap<K, V> segment) {
+        Iterator<Map.Entry<K, V>> iterator = segment.entrySet().iterator();
+        Map.Entry<K, V> eldest = iterator.next();
+        Map.Entry<K, V> removed = Map.entry(eldest.getKey(), eldest.getValue());
+        iterator.remove();
+        return removed;
+    }
+}
@@ -0,0 +1,24 @@
+package cat.uvic.teknos.dam.kamika.repositories.exceptions;
+
+/**
+ * Thrown instead of calling a repository whose circuit breaker is open, because its database
+ * recently failed or answered too slowly and has not recovered yet.
+ */
+public class CircuitOpenException extends RuntimeException {
+
+    private final String circuit;
+
+    /**
+     * Creates the exception.
+     *
+     * @param circuit the name of the open circuit, e.g. "developers"
+     */
+    public CircuitOpenException(String circuit) {
+        super("Circuit " + circuit + " is open: the database is unavailable");
+        this.circuit = circuit;
+    }
+
+    public String getCircuit() {
+        return circuit;
+    }
+}
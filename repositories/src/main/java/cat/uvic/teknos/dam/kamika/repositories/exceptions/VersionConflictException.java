@@ -0,0 +1,55 @@
+package cat.uvic.teknos.dam.kamika.repositories.exceptions;
+
+/**
+ * Thrown when an update is based on a version of an entity that is no longer current,
+ * because another writer changed or deleted it in the meantime.
+ */
+public class VersionConflictException extends RuntimeException {
+
+    private final int id;
+    private final int expectedVersion;
+    private final Integer currentVersion;
+
+    /**
+     * Creates the exception.
+     *
+     * @param entity          the entity type, e.g. "Developer"
+     * @param id              the ID of the entity
+     * @param expectedVersion the version the update was based on
+     * @param currentVersion  the stored version, or {@code null} if the entity no longer exists
+     */
+    public VersionConflictException(String entity, int id, int expectedVersion, Integer currentVersion) {
+        super(currentVersion == null
+                ? entity + " with id " + id + " not found"
+                : entity + " with id " + id + " is at version " + currentVersion + ", not " + expectedVersion);
+        this.id = id;
+        this.expectedVersion = expectedVersion;
+        this.currentVersion = currentVersion;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    /**
+     * Returns the stored version of the entity.
+     *
+     * @return the current version, or {@code null} if the entity does not exist
+     */
+    public Integer getCurrentVersion() {
+        return currentVersion;
+    }
+
+    /**
+     * Returns whether the update failed because the entity does not exist at all.
+     *
+     * @return {@code true} if there is no current version
+     */
+    public boolean isMissing() {
+        return currentVersion == null;
+    }
+}
@@ -0,0 +1,101 @@
+package cat.uvic.teknos.dam.kamika.repositories.reference;
+
+import cat.uvic.teknos.dam.kamika.model.Console;
+import cat.uvic.teknos.dam.kamika.repositories.ConsoleRepository;
+import cat.uvic.teknos.dam.kamika.repositories.Sort;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Answers the reads of a {@link ConsoleRepository} from an in-memory snapshot of the CONSOLE
+ * table. Writes go to the wrapped repository and then swap in an updated snapshot; writes made
+ * around this decorator are only seen after {@link ReferenceDataRepositoryFactory#reload()}.
+ */
+public class ReferenceConsoleRepository implements ConsoleRepository {
+
+    private final ConsoleRepository delegate;
+    private final ReferenceTable<Console> table;
+
+    /**
+     * Creates the decorator, loading every console.
+     *
+     * @param delegate the repository that owns the consoles
+     */
+    public ReferenceConsoleRepository(ConsoleRepository delegate) {
+        this(delegate, new ReferenceTable<>(Console::getId, Console::getName, delegate::findAll));
+    }
+
+    ReferenceConsoleRepository(ConsoleRepository delegate, ReferenceTable<Console> table) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.table = table;
+    }
+
+    @Override
+    public Optional<Console> findById(int id) {
+        return id > 0 ? table.snapshot().findById(id) : delegate.findById(id);
+    }
+
+    /**
+     * Finds a console by name, ignoring case.
+     *
+     * @param name the name of the console
+     * @return the console, or empty if there is none
+     */
+    public Optional<Console> findByNameIgnoreCase(String name) {
+        return table.snapshot().findByName(name);
+    }
+
+    @Override
+    public Console save(Console console) {
+        Console saved = delegate.save(console);
+        table.put(saved);
+        return saved;
+    }
+
+    @Override
+    public void delete(Console console) {
+        delegate.delete(console);
+        table.remove(console.getId());
+    }
+
+    @Override
+    public boolean deleteById(int id) {
+        boolean deleted = delegate.deleteById(id);
+        if (deleted) {
+            table.remove(id);
+        }
+        return deleted;
+    }
+
+    @Override
+    public long count() {
+        return table.snapshot().size();
+    }
+
+    @Override
+    public boolean existsById(int id) {
+        return table.snapshot().containsId(id);
+    }
+
+    @Override
+    public Set<Console> findAll() {
+        return new HashSet<>(table.snapshot().getEntities());
+    }
+
+    @Override
+    public List<Console> findAll(Sort<Console> sort) {
+        return table.snapshot().getEntities().stream()
+                .sorted(sort.then(SORT_BY_ID).comparator())
+                .toList();
+    }
+
+    @Override
+    public Stream<Console> streamAll() {
+        return table.snapshot().getEntities().stream();
+    }
+}
@@ -0,0 +1,94 @@
+package cat.uvic.teknos.dam.kamika.repositories.reference;
+
+import cat.uvic.teknos.dam.kamika.model.Console;
+import cat.uvic.teknos.dam.kamika.model.Genre;
+import cat.uvic.teknos.dam.kamika.model.Publisher;
+import cat.uvic.teknos.dam.kamika.repositories.*;
+
+import java.util.Objects;
+
+/**
+ * Keeps the reference data, genres, consoles and publishers, in memory in front of any
+ * {@link RepositoryFactory}.
+ * <p>
+ * These tables change a few times a year but are read on almost every request, so the factory
+ * loads them fully when it is created and answers lookups by ID or name, existence checks,
+ * counts and full listings from an immutable {@link ReferenceSnapshot}. Reads are lock-free;
+ * a write goes to the database first and then publishes a new snapshot, so readers see either
+ * the old table or the new one. The other repositories are those of the wrapped factory.
+ * </p>
+ * <p>
+ * Snapshot entities are shared between callers and must not be modified without saving them.
+ * Writes that bypass this factory, e.g. from another process, are only seen after
+ * {@link #reload()}.
+ * </p>
+ */
+public class ReferenceDataRepositoryFactory implements RepositoryFactory {
+
+    private final RepositoryFactory delegate;
+    private final ConsoleRepository consoleRepository;
+    private final GenreRepository genreRepository;
+    private final PublisherRepository publisherRepository;
+    private final ReferenceTable<Console> consoles;
+    private final ReferenceTable<Genre> genres;
+    private final ReferenceTable<Publisher> publishers;
+
+    /**
+     * Creates the factory and loads the reference tables.
+     *
+     * @param delegate the factory whose repositories own the data
+     */
+    public ReferenceDataRepositoryFactory(RepositoryFactory delegate) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.consoleRepository = delegate.getConsoleRepository();
+        this.genreRepository = delegate.getGenreRepository();
+        this.publisherRepository = delegate.getPublisherRepository();
+        this.consoles = new ReferenceTable<>(Console::getId, Console::getName, consoleRepository::findAll);
+        this.genres = new ReferenceTable<>(Genre::getId, Genre::getName, genreRepository::findAll);
+        this.publishers = new ReferenceTable<>(Publisher::getId, Publisher::getName, publisherRepository::findAll);
+    }
+
+    @Override
+    public ConsoleRepository getConsoleRepository() {
+        return new ReferenceConsoleRepository(consoleRepository, consoles);
+    }
+
+    @Override
+    public DeveloperRepository getDeveloperRepository() {
+        return delegate.getDeveloperRepository();
+    }
+
+    @Override
+    public GameConsoleRepository getGameConsoleRepository() {
+        return delegate.getGameConsoleRepository();
+    }
+
+    @Override
+    public GameEditionRepository getGameEditionRepository() {
+        return delegate.getGameEditionRepository();
+    }
+
+    @Override
+    public GameRepository getGameRepository() {
+        return delegate.getGameRepository();
+    }
+
+    @Override
+    public GenreRepository getGenreRepository() {
+        return new ReferenceGenreRepository(genreRepository, genres);
+    }
+
+    @Override
+    public PublisherRepository getPublisherRepository() {
+        return new ReferencePublisherRepository(publisherRepository, publishers);
+    }
+
+    /**
+     * Reloads every reference table from the database, e.g. after an external change.
+     */
+    public void reload() {
+        consoles.reload();
+        genres.reload();
+        publishers.reload();
+    }
+}
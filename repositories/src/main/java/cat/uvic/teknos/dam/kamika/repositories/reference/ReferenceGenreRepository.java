@@ -0,0 +1,107 @@
+package cat.uvic.teknos.dam.kamika.repositories.reference;
+
+import cat.uvic.teknos.dam.kamika.model.Genre;
+import cat.uvic.teknos.dam.kamika.repositories.GenreRepository;
+import cat.uvic.teknos.dam.kamika.repositories.Sort;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Answers the reads of a {@link GenreRepository} from an in-memory snapshot of the GENRE table.
+ * Writes go to the wrapped repository and then swap in an updated snapshot; writes made around
+ * this decorator are only seen after {@link ReferenceDataRepositoryFactory#reload()}.
+ */
+public class ReferenceGenreRepository implements GenreRepository {
+
+    private final GenreRepository delegate;
+    private final ReferenceTable<Genre> table;
+
+    /**
+     * Creates the decorator, loading every genre.
+     *
+     * @param delegate the repository that owns the genres
+     */
+    public ReferenceGenreRepository(GenreRepository delegate) {
+        this(delegate, new ReferenceTable<>(Genre::getId, Genre::getName, delegate::findAll));
+    }
+
+    ReferenceGenreRepository(GenreRepository delegate, ReferenceTable<Genre> table) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.table = table;
+    }
+
+    @Override
+    public Optional<Genre> findById(int id) {
+        return id > 0 ? table.snapshot().findById(id) : delegate.findById(id);
+    }
+
+    @Override
+    public Genre save(Genre genre) {
+        Genre saved = delegate.save(genre);
+        table.put(saved);
+        return saved;
+    }
+
+    @Override
+    public void delete(Genre genre) {
+        delegate.delete(genre);
+        table.remove(genre.getId());
+    }
+
+    @Override
+    public boolean deleteById(int id) {
+        boolean deleted = delegate.deleteById(id);
+        if (deleted) {
+            table.remove(id);
+        }
+        return deleted;
+    }
+
+    @Override
+    public long count() {
+        return table.snapshot().size();
+    }
+
+    @Override
+    public boolean existsById(int id) {
+        return table.snapshot().containsId(id);
+    }
+
+    @Override
+    public Optional<Genre> findByNameIgnoreCase(String name) {
+        return table.snapshot().findByName(name);
+    }
+
+    @Override
+    public Map<Integer, Long> countGamesPerGenre() {
+        return delegate.countGamesPerGenre();
+    }
+
+    @Override
+    public Optional<Genre> findByName(String name) {
+        return table.snapshot().findByName(name);
+    }
+
+    @Override
+    public Set<Genre> findAll() {
+        return new HashSet<>(table.snapshot().getEntities());
+    }
+
+    @Override
+    public List<Genre> findAll(Sort<Genre> sort) {
+        return table.snapshot().getEntities().stream()
+                .sorted(sort.then(SORT_BY_ID).comparator())
+                .toList();
+    }
+
+    @Override
+    public Stream<Genre> streamAll() {
+        return table.snapshot().getEntities().stream();
+    }
+}
@@ -0,0 +1,108 @@
+package cat.uvic.teknos.dam.kamika.repositories.reference;
+
+import cat.uvic.teknos.dam.kamika.model.Publisher;
+import cat.uvic.teknos.dam.kamika.repositories.PublisherRepository;
+import cat.uvic.teknos.dam.kamika.repositories.Sort;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Answers the reads of a {@link PublisherRepository} from an in-memory snapshot of the PUBLISHER
+ * table. Writes go to the wrapped repository and then swap in an updated snapshot; writes made
+ * around this decorator, including changes to the developer a publisher embeds, are only seen
+ * after {@link ReferenceDataRepositoryFactory#reload()}.
+ */
+public class ReferencePublisherRepository implements PublisherRepository {
+
+    private final PublisherRepository delegate;
+    private final ReferenceTable<Publisher> table;
+
+    /**
+     * Creates the decorator, loading every publisher.
+     *
+     * @param delegate the repository that owns the publishers
+     */
+    public ReferencePublisherRepository(PublisherRepository delegate) {
+        this(delegate, new ReferenceTable<>(Publisher::getId, Publisher::getName, delegate::findAll));
+    }
+
+    ReferencePublisherRepository(PublisherRepository delegate, ReferenceTable<Publisher> table) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.table = table;
+    }
+
+    @Override
+    public Optional<Publisher> findById(int id) {
+        return id > 0 ? table.snapshot().findById(id) : delegate.findById(id);
+    }
+
+    @Override
+    public Publisher save(Publisher publisher) {
+        Publisher saved = delegate.save(publisher);
+        table.put(saved);
+        return saved;
+    }
+
+    @Override
+    public void delete(Publisher publisher) {
+        delegate.delete(publisher);
+        table.remove(publisher.getId());
+    }
+
+    @Override
+    public boolean deleteById(int id) {
+        boolean deleted = delegate.deleteById(id);
+        if (deleted) {
+            table.remove(id);
+        }
+        return deleted;
+    }
+
+    @Override
+    public long count() {
+        return table.snapshot().size();
+    }
+
+    @Override
+    public boolean existsById(int id) {
+        return table.snapshot().containsId(id);
+    }
+
+    @Override
+    public long countByCountryIgnoreCase(String country) {
+        long count = 0;
+        for (Publisher publisher : table.snapshot().getEntities()) {
+            if (country != null && country.equalsIgnoreCase(publisher.getCountry())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public Optional<Publisher> findByName(String name) {
+        return table.snapshot().findByName(name);
+    }
+
+    @Override
+    public Set<Publisher> findAll() {
+        return new HashSet<>(table.snapshot().getEntities());
+    }
+
+    @Override
+    public List<Publisher> findAll(Sort<Publisher> sort) {
+        return table.snapshot().getEntities().stream()
+                .sorted(sort.then(SORT_BY_ID).comparator())
+                .toList();
+    }
+
+    @Override
+    public Stream<Publisher> streamAll() {
+        return table.snapshot().getEntities().stream();
+    }
+}
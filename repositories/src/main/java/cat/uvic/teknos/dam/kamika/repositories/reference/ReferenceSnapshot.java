@@ -0,0 +1,198 @@
+package cat.uvic.teknos.dam.kamika.repositories.reference;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * An immutable copy of a reference table, indexed by ID and by normalized name.
+ * <p>
+ * IDs live in an open-addressing hash table of primitive {@code int} keys and the results are
+ * stored as ready-made {@link Optional}s, so a lookup by ID neither boxes its key nor allocates
+ * its result. Names are normalized the way the JDBC repositories compare them, by lowercasing;
+ * when several rows share a name, the one with the lowest ID wins.
+ * </p>
+ * <p>
+ * Writes never modify a snapshot: {@link #with} and {@link #without} copy it.
+ * </p>
+ *
+ * @param <T> the entity type
+ */
+public final class ReferenceSnapshot<T> {
+
+    private final ToIntFunction<T> idOf;
+    private final Function<T, String> nameOf;
+    private final int[] keys;
+    private final Optional<T>[] values;
+    private final int mask;
+    private final Map<String, Optional<T>> byName;
+    private final List<T> entities;
+
+    @SuppressWarnings("unchecked")
+    private ReferenceSnapshot(List<T> entities, ToIntFunction<T> idOf, Function<T, String> nameOf) {
+        this.idOf = idOf;
+        this.nameOf = nameOf;
+        this.entities = List.copyOf(entities);
+
+        int capacity = Integer.highestOneBit(Math.max(2, entities.size() * 2 - 1)) << 1;
+        this.keys = new int[capacity];
+        this.values = new Optional[capacity];
+        this.mask = capacity - 1;
+
+        Map<String, Optional<T>> names = new HashMap<>();
+        for (T entity : this.entities) {
+            int slot = slot(idOf.applyAsInt(entity));
+            keys[slot] = idOf.applyAsInt(entity);
+            values[slot] = Optional.of(entity);
+
+            String name = normalize(nameOf.apply(entity));
+            if (name != null) {
+                names.putIfAbsent(name, values[slot]);
+            }
+        }
+        this.byName = Map.copyOf(names);
+    }
+
+    /**
+     * Builds a snapshot of the given entities.
+     *
+     * @param entities the rows of the table
+     * @param idOf     the ID of an entity, which must be positive
+     * @param nameOf   the name of an entity, or {@code null} for none
+     * @param <T>      the entity type
+     * @return the snapshot
+     * @throws IllegalArgumentException if an ID is not positive or appears twice
+     */
+    public static <T> ReferenceSnapshot<T> of(Collection<? extends T> entities, ToIntFunction<T> idOf,
+                                              Function<T, String> nameOf) {
+        List<T> sorted = new ArrayList<>(entities);
+        sorted.sort(Comparator.comparingInt(idOf));
+        for (int i = 0; i < sorted.size(); i++) {
+            int id = idOf.applyAsInt(sorted.get(i));
+            if (id <= 0) {
+                throw new IllegalArgumentException("Invalid ID in reference snapshot: " + id);
+            }
+            if (i > 0 && id == idOf.applyAsInt(sorted.get(i - 1))) {
+                throw new IllegalArgumentException("Duplicate ID in reference snapshot: " + id);
+            }
+        }
+        return new ReferenceSnapshot<>(sorted, idOf, nameOf);
+    }
+
+    /**
+     * Normalizes a name for lookups, matching {@code LOWER(NAME) = ?} in SQL.
+     *
+     * @param name the name
+     * @return the lowercased name, or {@code null}
+     */
+    public static String normalize(String name) {
+        return name == null ? null : name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Finds an entity by ID.
+     *
+     * @param id the ID
+     * @return the entity, or empty if there is none
+     */
+    public Optional<T> findById(int id) {
+        if (id > 0) {
+            for (int slot = id * 0x9E3779B9 & mask; keys[slot] != 0; slot = slot + 1 & mask) {
+                if (keys[slot] == id) {
+                    return values[slot];
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Finds an entity by name, ignoring case.
+     *
+     * @param name the name
+     * @return the entity, or empty if there is none
+     */
+    public Optional<T> findByName(String name) {
+        if (name == null) {
+            return Optional.empty();
+        }
+        return byName.getOrDefault(normalize(name), Optional.empty());
+    }
+
+    public boolean containsId(int id) {
+        return findById(id).isPresent();
+    }
+
+    public int size() {
+        return entities.size();
+    }
+
+    /**
+     * Returns every entity in ID order.
+     *
+     * @return an unmodifiable list of the entities
+     */
+    public List<T> getEntities() {
+        return entities;
+    }
+
+    /**
+     * Returns a copy of this snapshot with an entity added, or replacing the one with its ID.
+     *
+     * @param entity the saved entity
+     * @return the new snapshot
+     */
+    public ReferenceSnapshot<T> with(T entity) {
+        int id = idOf.applyAsInt(entity);
+        List<T> copy = new ArrayList<>(entities.size() + 1);
+        boolean added = false;
+        for (T existing : entities) {
+            int existingId = idOf.applyAsInt(existing);
+            if (!added && existingId >= id) {
+                copy.add(entity);
+                added = true;
+            }
+            if (existingId != id) {
+                copy.add(existing);
+            }
+        }
+        if (!added) {
+            copy.add(entity);
+        }
+        return of(copy, idOf, nameOf);
+    }
+
+    /**
+     * Returns a copy of this snapshot without the entity with an ID.
+     *
+     * @param id the ID of the deleted entity
+     * @return the new snapshot, or this one if it has no such entity
+     */
+    public ReferenceSnapshot<T> without(int id) {
+        if (!containsId(id)) {
+            return this;
+        }
+        List<T> copy = new ArrayList<>(entities.size() - 1);
+        for (T existing : entities) {
+            if (idOf.applyAsInt(existing) != id) {
+                copy.add(existing);
+            }
+        }
+        return new ReferenceSnapshot<>(copy, idOf, nameOf);
+    }
+
+    private int slot(int id) {
+        int slot = id * 0x9E3779B9 & mask;
+        while (keys[slot] != 0) {
+            slot = slot + 1 & mask;
+        }
+        return slot;
+    }
+}
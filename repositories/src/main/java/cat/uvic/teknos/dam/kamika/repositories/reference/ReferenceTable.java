@@ -0,0 +1,50 @@
+package cat.uvic.teknos.dam.kamika.repositories.reference;
+
+import java.util.Collection;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Holds the current {@link ReferenceSnapshot} of one table.
+ * <p>
+ * Readers take the snapshot from a volatile field without locking. Writers copy it, apply their
+ * change and publish the copy, one writer at a time so that concurrent writes are not lost.
+ * </p>
+ *
+ * @param <T> the entity type
+ */
+final class ReferenceTable<T> {
+
+    private final ToIntFunction<T> idOf;
+    private final Function<T, String> nameOf;
+    private final Supplier<? extends Collection<? extends T>> loader;
+    private volatile ReferenceSnapshot<T> snapshot;
+
+    ReferenceTable(ToIntFunction<T> idOf, Function<T, String> nameOf,
+                   Supplier<? extends Collection<? extends T>> loader) {
+        this.idOf = idOf;
+        this.nameOf = nameOf;
+        this.loader = loader;
+        reload();
+    }
+
+    ReferenceSnapshot<T> snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Replaces the snapshot with a fresh copy of the whole table.
+     */
+    synchronized void reload() {
+        snapshot = ReferenceSnapshot.of(loader.get(), idOf, nameOf);
+    }
+
+    synchronized void put(T entity) {
+        snapshot = snapshot.with(entity);
+    }
+
+    synchronized void remove(int id) {
+        snapshot = snapshot.without(id);
+    }
+}
@@ -0,0 +1,212 @@
+package cat.uvic.teknos.dam.kamika.repositories.resilience;
+
+import cat.uvic.teknos.dam.kamika.repositories.exceptions.CircuitOpenException;
+
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stops calling a database that keeps failing or stalling, so that requests fail fast instead
+ * of piling up on the thread pool while it is down.
+ * <p>
+ * The circuit is closed while calls succeed. A call that throws an exception accepted by the
+ * failure predicate, or that succeeds but takes longer than the slow-call threshold, counts as a
+ * failure; after a number of consecutive failures the circuit opens. While it is open, every
+ * call throws {@link CircuitOpenException} without touching the database, and a single
+ * background probe checks the database every probe interval. The circuit closes again as soon
+ * as the probe succeeds. Requests never act as probes, so no request waits on a database that
+ * is still down.
+ * </p>
+ * <p>
+ * A call is only timed once it returns, so the slow-call threshold does not bound its latency:
+ * a call that never returns is never counted. Calls must be bounded by the caller, e.g. with
+ * a socket or query timeout of the JDBC driver, and only fail fast once the circuit is open.
+ * </p>
+ */
+public final class CircuitBreaker {
+
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final long DEFAULT_SLOW_CALL_MILLIS = 2_000;
+    public static final long DEFAULT_PROBE_INTERVAL_MILLIS = 5_000;
+
+    /**
+     * Checks whether the database is available again.
+     */
+    @FunctionalInterface
+    public interface Probe {
+        /**
+         * @throws Exception if the database is still unavailable
+         */
+        void check() throws Exception;
+    }
+
+    private static final Logger logger = Logger.getLogger(CircuitBreaker.class.getName());
+
+    private final String name;
+    private final int failureThreshold;
+    private final long slowCallNanos;
+    private final long probeIntervalMillis;
+    private final Predicate<Throwable> isFailure;
+    private final Probe probe;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong trips = new AtomicLong();
+    private final ScheduledExecutorService prober;
+    private volatile boolean open;
+
+    /**
+     * Creates a closed circuit breaker.
+     *
+     * @param name                the name of the circuit, reported by {@link CircuitOpenException}
+     * @param failureThreshold    the consecutive failures that open the circuit
+     * @param slowCallMillis      the duration above which a successful call counts as a failure
+     * @param probeIntervalMillis the time between two probes while the circuit is open
+     * @param isFailure           whether an exception means the database is unavailable, as
+     *                            opposed to e.g. a version conflict
+     * @param probe               checks the database while the circuit is open
+     */
+    public CircuitBreaker(String name, int failureThreshold, long slowCallMillis, long probeIntervalMillis,
+                          Predicate<Throwable> isFailure, Probe probe) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("Failure threshold must be positive");
+        }
+        this.name = Objects.requireNonNull(name);
+        this.failureThreshold = failureThreshold;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+        this.probeIntervalMillis = probeIntervalMillis;
+        this.isFailure = Objects.requireNonNull(isFailure);
+        this.probe = Objects.requireNonNull(probe);
+        this.prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "CircuitBreakerProbe-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs a call unless the circuit is open.
+     *
+     * @param call the call to the database
+     * @param <T>  the result type
+     * @return the result of the call
+     * @throws CircuitOpenException if the circuit is open
+     */
+    public <T> T execute(Supplier<T> call) {
+        if (open) {
+            rejected.incrementAndGet();
+            throw new CircuitOpenException(name);
+        }
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            if (isFailure.test(e)) {
+                onFailure();
+            } else {
+                onSuccess();
+            }
+            throw e;
+        }
+        if (System.nanoTime() - start > slowCallNanos) {
+            onFailure();
+        } else {
+            onSuccess();
+        }
+        return result;
+    }
+
+    /**
+     * Runs a call without a result unless the circuit is open.
+     *
+     * @param call the call to the database
+     * @throws CircuitOpenException if the circuit is open
+     */
+    public void run(Runnable call) {
+        execute(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * Returns whether an exception thrown by a call means the database is unavailable, i.e.
+     * whether a stale copy may be served instead of failing.
+     *
+     * @param e the exception
+     * @return {@code true} for a {@link CircuitOpenException} or an exception accepted by the
+     *         failure predicate
+     */
+    public boolean isFailure(Throwable e) {
+        return e instanceof CircuitOpenException || isFailure.test(e);
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Returns the calls rejected while the circuit was open.
+     *
+     * @return the rejected calls
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Returns how many times the circuit opened.
+     *
+     * @return the trips
+     */
+    public long getTrips() {
+        return trips.get();
+    }
+
+    private void onSuccess() {
+        if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+    }
+
+    private void onFailure() {
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            trip();
+        }
+    }
+
+    private synchronized void trip() {
+        if (open) {
+            return;
+        }
+        open = true;
+        trips.incrementAndGet();
+        logger.log(Level.WARNING, "Circuit " + name + " opened after " + failureThreshold + " failures");
+        prober.schedule(this::probe, probeIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void probe() {
+        try {
+            probe.check();
+        } catch (Throwable e) {
+            // Including errors: a probe that ended without scheduling the next one would leave
+            // the circuit open for good
+            logger.log(Level.FINE, "Circuit " + name + " is still open", e);
+            prober.schedule(this::probe, probeIntervalMillis, TimeUnit.MILLISECONDS);
+            return;
+        }
+        synchronized (this) {
+            consecutiveFailures.set(0);
+            open = false;
+        }
+        logger.log(Level.INFO, "Circuit " + name + " closed");
+    }
+}
@@ -0,0 +1,95 @@
+package cat.uvic.teknos.dam.kamika.repositories.resilience;
+
+import cat.uvic.teknos.dam.kamika.model.Developer;
+import cat.uvic.teknos.dam.kamika.repositories.DeveloperPatch;
+import cat.uvic.teknos.dam.kamika.repositories.DeveloperRepository;
+import cat.uvic.teknos.dam.kamika.repositories.Sort;
+import cat.uvic.teknos.dam.kamika.repositories.exceptions.CircuitOpenException;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Sends every call to a {@link DeveloperRepository} through a {@link CircuitBreaker}, so that
+ * calls fail fast with {@link CircuitOpenException} while its database is unavailable.
+ * <p>
+ * Streams are opened through the breaker, but rows read from them afterwards are not timed.
+ * </p>
+ */
+public class CircuitBreakingDeveloperRepository implements DeveloperRepository {
+
+    private final DeveloperRepository delegate;
+    private final CircuitBreaker breaker;
+
+    public CircuitBreakingDeveloperRepository(DeveloperRepository delegate, CircuitBreaker breaker) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.breaker = Objects.requireNonNull(breaker);
+    }
+
+    public CircuitBreaker getBreaker() {
+        return breaker;
+    }
+
+    @Override
+    public Optional<Developer> findById(int id) {
+        return breaker.execute(() -> delegate.findById(id));
+    }
+
+    @Override
+    public Developer save(Developer developer) {
+        return breaker.execute(() -> delegate.save(developer));
+    }
+
+    @Override
+    public Optional<Developer> patch(int id, DeveloperPatch patch) {
+        return breaker.execute(() -> delegate.patch(id, patch));
+    }
+
+    @Override
+    public void delete(Developer developer) {
+        breaker.run(() -> delegate.delete(developer));
+    }
+
+    @Override
+    public boolean deleteById(int id) {
+        return breaker.execute(() -> delegate.deleteById(id));
+    }
+
+    @Override
+    public long count() {
+        return breaker.execute(delegate::count);
+    }
+
+    @Override
+    public boolean existsById(int id) {
+        return breaker.execute(() -> delegate.existsById(id));
+    }
+
+    @Override
+    public long countByCountryIgnoreCase(String country) {
+        return breaker.execute(() -> delegate.countByCountryIgnoreCase(country));
+    }
+
+    @Override
+    public Set<Developer> findAll() {
+        return breaker.execute(delegate::findAll);
+    }
+
+    @Override
+    public List<Developer> findAll(Sort<Developer> sort) {
+        return breaker.execute(() -> delegate.findAll(sort));
+    }
+
+    @Override
+    public Stream<Developer> streamAll() {
+        return breaker.execute(delegate::streamAll);
+    }
+
+    @Override
+    public Stream<Developer> streamByCountryIgnoreCase(String country) {
+        return breaker.execute(() -> delegate.streamByCountryIgnoreCase(country));
+    }
+}
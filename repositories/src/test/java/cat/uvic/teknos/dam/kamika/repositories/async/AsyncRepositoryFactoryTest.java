@@ -0,0 +1,126 @@
+package cat.uvic.teknos.dam.kamika.repositories.async;
+
+import cat.uvic.teknos.dam.kamika.repositories.GameRepository;
+import cat.uvic.teknos.dam.kamika.repositories.RepositoryFactory;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncRepositoryFactoryTest {
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+    @Test
+    void noMoreCallsRunAtOnceThanTheLimit() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try (var async = new AsyncRepositoryFactory(factory(), 3)) {
+            List<CompletableFuture<Integer>> calls = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                calls.add(async.games().supply(repository -> blockUntil(release)));
+            }
+
+            waitFor(() -> running.get() == 3);
+            Thread.sleep(50);
+            assertEquals(3, running.get());
+            assertEquals(3, async.getActiveCalls());
+
+            release.countDown();
+            CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+            assertEquals(3, maxRunning.get());
+            assertEquals(0, async.getActiveCalls());
+        }
+    }
+
+    @Test
+    void queuedCallsRunWhenAPermitIsReleased() throws Exception {
+        CountDownLatch first = new CountDownLatch(1);
+        try (var async = new AsyncRepositoryFactory(factory(), 1)) {
+            CompletableFuture<Integer> holding = async.games().supply(repository -> blockUntil(first));
+            waitFor(() -> running.get() == 1);
+            CompletableFuture<Integer> queued = async.games().supply(repository -> 42);
+
+            Thread.sleep(50);
+            assertFalse(queued.isDone());
+
+            first.countDown();
+            assertEquals(Integer.valueOf(42), queued.get(5, TimeUnit.SECONDS));
+            assertTrue(holding.isDone());
+        }
+    }
+
+    @Test
+    void checkedExceptionsCompleteTheFutureExceptionally() throws Exception {
+        try (var async = new AsyncRepositoryFactory(factory(), 2)) {
+            CompletableFuture<Void> call = async.games().run(repository -> {
+                throw new SQLException("Duplicate entry");
+            });
+
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> call.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(SQLException.class, exception.getCause());
+            assertEquals(0, async.getActiveCalls());
+        }
+    }
+
+    @Test
+    void callsRunOnTheWrappedRepository() throws Exception {
+        try (var async = new AsyncRepositoryFactory(factory(), 2)) {
+            assertEquals(Long.valueOf(7), async.games().supply(GameRepository::count).get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void callsAfterCloseAreRejected() {
+        var async = new AsyncRepositoryFactory(factory(), 2);
+        async.close();
+
+        CompletableFuture<Integer> call = async.games().supply(repository -> 1);
+
+        assertTrue(call.isCompletedExceptionally());
+    }
+
+    @Test
+    void limitMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new AsyncRepositoryFactory(factory(), 0));
+    }
+
+    private int blockUntil(CountDownLatch release) throws InterruptedException {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        try {
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return 1;
+        } finally {
+            running.decrementAndGet();
+        }
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not reached in time");
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * A factory whose repositories answer {@code count()} with 7 and everything else with defaults.
+     */
+    private static RepositoryFactory factory() {
+        return (RepositoryFactory) Proxy.newProxyInstance(RepositoryFactory.class.getClassLoader(),
+                new Class<?>[]{RepositoryFactory.class},
+                (factory, getter, none) -> Proxy.newProxyInstance(getter.getReturnType().getClassLoader(),
+                        new Class<?>[]{getter.getReturnType()},
+                        (repository, method, args) -> method.getName().equals("count") ? 7L : null));
+    }
+}
@@ -0,0 +1,105 @@
+package cat.uvic.teknos.dam.kamika.repositories.caching;
+
+import cat.uvic.teknos.dam.kamika.model.impl.DeveloperImpl;
+import cat.uvic.teknos.dam.kamika.model.impl.GameImpl;
+import cat.uvic.teknos.dam.kamika.repositories.RepositoryFactory;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingRepositoryFactoryTest {
+
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+    private final CachingRepositoryFactory factory = new CachingRepositoryFactory(delegate(), 100);
+
+    @Test
+    void repositoriesOfATypeShareOneCache() {
+        factory.getGameRepository().findById(1);
+        factory.getGameRepository().findById(1);
+        factory.getGameRepository().existsById(1);
+
+        assertEquals(1, calls("GameRepository.findById"));
+        assertEquals(0, calls("GameRepository.existsById"));
+    }
+
+    @Test
+    void writingAnEmbeddedTypeClearsTheTypesThatEmbedIt() {
+        var games = factory.getGameRepository();
+        games.findById(1);
+        games.count();
+
+        var developer = new DeveloperImpl();
+        developer.setId(3);
+        factory.getDeveloperRepository().save(developer);
+
+        games.findById(1);
+        games.count();
+        assertEquals(2, calls("GameRepository.findById"));
+        assertEquals(2, calls("GameRepository.count"));
+    }
+
+    @Test
+    void writingATypeKeepsTheTypesItEmbeds() throws SQLException {
+        var developers = factory.getDeveloperRepository();
+        developers.findById(3);
+
+        var game = new GameImpl();
+        game.setId(1);
+        factory.getGameRepository().save(game);
+
+        developers.findById(3);
+        assertEquals(1, calls("DeveloperRepository.findById"));
+    }
+
+    @Test
+    void statsCountHitsAndMissesPerType() {
+        var games = factory.getGameRepository();
+        games.findById(1);
+        games.findById(1);
+        games.findById(2);
+        games.count();
+        games.count();
+
+        Map<String, CacheStats> stats = factory.getStats();
+
+        assertEquals(2, stats.get("games").hits());
+        assertEquals(3, stats.get("games").misses());
+        assertEquals(3, stats.get("games").size());
+        assertEquals(new CacheStats(0, 0, 0, 0), stats.get("developers"));
+        assertTrue(stats.containsKey("queries"));
+    }
+
+    private int calls(String method) {
+        AtomicInteger count = calls.get(method);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * A factory whose repositories count their calls, find nothing, count 7 rows and return
+     * what they save.
+     */
+    private RepositoryFactory delegate() {
+        return (RepositoryFactory) Proxy.newProxyInstance(RepositoryFactory.class.getClassLoader(),
+                new Class<?>[]{RepositoryFactory.class},
+                (factory, getter, none) -> Proxy.newProxyInstance(getter.getReturnType().getClassLoader(),
+                        new Class<?>[]{getter.getReturnType()},
+                        (repository, method, args) -> {
+                            String name = getter.getReturnType().getSimpleName() + "." + method.getName();
+                            calls.computeIfAbsent(name, key -> new AtomicInteger()).incrementAndGet();
+                            return switch (method.getName()) {
+                                case "findById" -> Optional.empty();
+                                case "existsById" -> false;
+                                case "count" -> 7L;
+                                case "save" -> args[0];
+                                default -> null;
+                            };
+                        }));
+    }
+}
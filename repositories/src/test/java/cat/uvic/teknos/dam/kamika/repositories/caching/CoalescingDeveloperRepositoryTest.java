@@ -0,0 +1,108 @@
+package cat.uvic.teknos.dam.kamika.repositories.caching;
+
+import cat.uvic.teknos.dam.kamika.model.Developer;
+import cat.uvic.teknos.dam.kamika.model.impl.DeveloperImpl;
+import cat.uvic.teknos.dam.kamika.repositories.DeveloperRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoalescingDeveloperRepositoryTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger findAllCalls = new AtomicInteger();
+    private final AtomicInteger findByIdCalls = new AtomicInteger();
+    private final CoalescingDeveloperRepository repository = new CoalescingDeveloperRepository(delegate());
+
+    @AfterEach
+    void stopExecutor() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentFindAllsRunOneQueryAndGetTheirOwnSet() throws Exception {
+        List<Future<Set<Developer>>> calls = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            calls.add(executor.submit(() -> repository.findAll()));
+        }
+        waitFor(() -> findAllCalls.get() == 1);
+        Thread.sleep(50);
+        release.countDown();
+
+        Set<Set<Developer>> results = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Future<Set<Developer>> call : calls) {
+            Set<Developer> developers = call.get(5, TimeUnit.SECONDS);
+            assertEquals(1, developers.size());
+            results.add(developers);
+        }
+        assertEquals(1, findAllCalls.get());
+        assertEquals(4, results.size());
+    }
+
+    @Test
+    void readStartedAfterAWriteDoesNotJoinAnOlderOne() throws Exception {
+        Future<Optional<Developer>> before = executor.submit(() -> repository.findById(7));
+        waitFor(() -> findByIdCalls.get() == 1);
+
+        var developer = new DeveloperImpl();
+        developer.setId(7);
+        repository.save(developer);
+        Future<Optional<Developer>> after = executor.submit(() -> repository.findById(7));
+        waitFor(() -> findByIdCalls.get() == 2);
+
+        release.countDown();
+        before.get(5, TimeUnit.SECONDS);
+        after.get(5, TimeUnit.SECONDS);
+        assertEquals(2, findByIdCalls.get());
+    }
+
+    /**
+     * A repository whose reads block until {@link #release} and that returns what it saves.
+     */
+    private DeveloperRepository delegate() {
+        return (DeveloperRepository) Proxy.newProxyInstance(DeveloperRepository.class.getClassLoader(),
+                new Class<?>[]{DeveloperRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findAll" -> {
+                        findAllCalls.incrementAndGet();
+                        assertTrue(release.await(5, TimeUnit.SECONDS));
+                        var developer = new DeveloperImpl();
+                        developer.setId(1);
+                        yield new HashSet<>(Set.of(developer));
+                    }
+                    case "findById" -> {
+                        findByIdCalls.incrementAndGet();
+                        assertTrue(release.await(5, TimeUnit.SECONDS));
+                        yield Optional.empty();
+                    }
+                    case "save" -> args[0];
+                    default -> null;
+                });
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not reached in time");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package cat.uvic.teknos.dam.kamika.repositories.caching;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void missingKeysAreCachedAsEmpty() {
+        var cache = new EntityCache<Integer, String>("developers", 10);
+
+        assertEquals(Optional.empty(), cache.find(1, this::missing));
+        assertEquals(Optional.empty(), cache.find(1, this::missing));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void existsIsAnsweredFromACachedEntity() {
+        var cache = new EntityCache<Integer, String>("developers", 10);
+        cache.find(1, this::load);
+
+        assertTrue(cache.exists(1, id -> fail("Entity is cached")));
+        assertTrue(cache.exists(2, id -> true));
+        assertTrue(cache.exists(2, id -> fail("Existence is cached")));
+    }
+
+    @Test
+    void invalidateForgetsTheEntityAndClearsDependents() {
+        var developers = new EntityCache<Integer, String>("developers", 10);
+        var games = new EntityCache<Integer, String>("games", 10);
+        developers.addDependent(games);
+        developers.find(1, this::load);
+        developers.find(2, this::load);
+        games.find(1, this::load);
+        games.count(() -> 3);
+
+        developers.invalidate(1);
+
+        developers.find(2, id -> fail("Developer 2 is still cached"));
+        developers.find(1, this::load);
+        games.find(1, this::load);
+        assertEquals(5, loads.get());
+        assertEquals(4, games.count(() -> 4));
+    }
+
+    @Test
+    void writesToADependentDoNotClearTheEmbeddedType() {
+        var developers = new EntityCache<Integer, String>("developers", 10);
+        var games = new EntityCache<Integer, String>("games", 10);
+        developers.addDependent(games);
+        developers.find(1, this::load);
+
+        games.invalidateAll();
+
+        developers.find(1, id -> fail("Developer is still cached"));
+    }
+
+    @Test
+    void changesMakeQueriesOfTheTableAndOfItsDependentsStale() {
+        var queries = new QueryCache(10);
+        var developers = new EntityCache<Integer, String>("developers", 10, queries);
+        var games = new EntityCache<Integer, String>("games", 10, queries);
+        developers.addDependent(games);
+        queries.get("countGames", List.of("games"), loads::incrementAndGet);
+
+        developers.invalidate(1);
+
+        assertEquals(Integer.valueOf(2), queries.get("countGames", List.of("games"), loads::incrementAndGet));
+    }
+
+    @Test
+    void countRacingWithAnInsertIsNotCached() {
+        var cache = new EntityCache<Integer, String>("developers", 10);
+
+        long counted = cache.count(() -> {
+            cache.invalidateWithCount(7);
+            return 6;
+        });
+
+        assertEquals(6, counted);
+        assertEquals(7, cache.count(() -> 7));
+        assertEquals(7, cache.count(() -> fail("Count is cached")));
+    }
+
+    @Test
+    void updatesKeepTheCount() {
+        var cache = new EntityCache<Integer, String>("developers", 10);
+        cache.count(() -> 6);
+
+        cache.invalidate(1);
+
+        assertEquals(6, cache.count(() -> fail("Count is cached")));
+    }
+
+    @Test
+    void statsAddUpEntitiesExistenceAndCount() {
+        var cache = new EntityCache<Integer, String>("developers", 10);
+        cache.find(1, this::load);
+        cache.find(1, this::load);
+        cache.exists(2, id -> false);
+        cache.count(() -> 1);
+        cache.count(() -> 1);
+
+        assertEquals(new CacheStats(2, 3, 0, 3), cache.stats());
+    }
+
+    private Optional<String> load(int id) {
+        loads.incrementAndGet();
+        return Optional.of("entity " + id);
+    }
+
+    private Optional<String> missing(int id) {
+        loads.incrementAndGet();
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,59 @@
+package cat.uvic.teknos.dam.kamika.repositories.caching;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrequencySketchTest {
+
+    @Test
+    void estimatesNeverUndercount() {
+        var sketch = new FrequencySketch(1_000);
+        for (int key = 0; key < 500; key++) {
+            for (int i = 0; i < key % 10; i++) {
+                sketch.increment(Integer.hashCode(key));
+            }
+        }
+
+        for (int key = 0; key < 500; key++) {
+            assertTrue(sketch.frequency(Integer.hashCode(key)) >= key % 10, "Key " + key);
+        }
+    }
+
+    @Test
+    void unseenKeysHaveNoFrequency() {
+        var sketch = new FrequencySketch(1_000);
+        sketch.increment(1);
+
+        assertEquals(1, sketch.frequency(1));
+        assertEquals(0, sketch.frequency(2));
+    }
+
+    @Test
+    void countersSaturateAtFifteen() {
+        var sketch = new FrequencySketch(1_000);
+        for (int i = 0; i < 100; i++) {
+            sketch.increment(42);
+        }
+
+        assertEquals(15, sketch.frequency(42));
+    }
+
+    @Test
+    void oldPopularityFadesAgainstRecentAccesses() {
+        var sketch = new FrequencySketch(16);
+        for (int i = 0; i < 15; i++) {
+            sketch.increment(1);
+        }
+
+        // 1,000 increments are six times the sample size of a 16-entry cache
+        for (int key = 1_000; key < 2_000; key++) {
+            sketch.increment(Integer.hashCode(key));
+        }
+        for (int i = 0; i < 3; i++) {
+            sketch.increment(2);
+        }
+
+        assertTrue(sketch.frequency(1) < sketch.frequency(2));
+    }
+}
@@ -0,0 +1,154 @@
+package cat.uvic.teknos.dam.kamika.repositories.caching;
+
+import cat.uvic.teknos.dam.kamika.model.impl.GameImpl;
+import cat.uvic.teknos.dam.kamika.model.impl.GenreImpl;
+import cat.uvic.teknos.dam.kamika.repositories.RepositoryFactory;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+    private final CachingRepositoryFactory factory = new CachingRepositoryFactory(delegate(), 100);
+
+    @Test
+    void writeToGamesMakesTheGameCountsPerGenreStale() throws SQLException {
+        var genres = factory.getGenreRepository();
+        genres.countGamesPerGenre();
+        genres.countGamesPerGenre();
+        assertEquals(1, calls("GenreRepository.countGamesPerGenre"));
+
+        var game = new GameImpl();
+        game.setId(1);
+        factory.getGameRepository().save(game);
+
+        genres.countGamesPerGenre();
+        assertEquals(2, calls("GenreRepository.countGamesPerGenre"));
+    }
+
+    @Test
+    void writeToGenresMakesTheGameCountsPerGenreStale() {
+        var genres = factory.getGenreRepository();
+        genres.countGamesPerGenre();
+
+        var genre = new GenreImpl();
+        genre.setId(1);
+        genres.save(genre);
+
+        genres.countGamesPerGenre();
+        assertEquals(2, calls("GenreRepository.countGamesPerGenre"));
+    }
+
+    @Test
+    void queriesOfUnrelatedTablesStayCached() throws SQLException {
+        var developers = factory.getDeveloperRepository();
+        var genres = factory.getGenreRepository();
+        developers.countByCountryIgnoreCase("Japan");
+        genres.findByName("RPG");
+
+        var game = new GameImpl();
+        game.setId(1);
+        factory.getGameRepository().save(game);
+
+        developers.countByCountryIgnoreCase("Japan");
+        genres.findByName("RPG");
+        assertEquals(1, calls("DeveloperRepository.countByCountryIgnoreCase"));
+        assertEquals(1, calls("GenreRepository.findByName"));
+    }
+
+    @Test
+    void argumentsAreCachedSeparately() {
+        var developers = factory.getDeveloperRepository();
+
+        assertEquals(5, developers.countByCountryIgnoreCase("Japan"));
+        assertEquals(6, developers.countByCountryIgnoreCase("Canada"));
+        assertEquals(5, developers.countByCountryIgnoreCase("Japan"));
+        assertEquals(6, developers.countByCountryIgnoreCase("Canada"));
+
+        assertEquals(2, calls("DeveloperRepository.countByCountryIgnoreCase"));
+    }
+
+    @Test
+    void countriesDifferingOnlyInCaseShareTheirCount() {
+        var developers = factory.getDeveloperRepository();
+
+        assertEquals(5, developers.countByCountryIgnoreCase("Japan"));
+        assertEquals(5, developers.countByCountryIgnoreCase("JAPAN"));
+        assertEquals(5, developers.countByCountryIgnoreCase("japan"));
+
+        assertEquals(1, calls("DeveloperRepository.countByCountryIgnoreCase"));
+    }
+
+    @Test
+    void methodsWithTheSameArgumentsAreCachedSeparately() {
+        var queries = new QueryCache(10);
+
+        assertEquals("by name", queries.get("genres.findByName", List.of("genres"), () -> "by name", "RPG"));
+        assertEquals("ignoring case", queries.get("genres.findByNameIgnoreCase", List.of("genres"),
+                () -> "ignoring case", "RPG"));
+        assertEquals("by name", queries.get("genres.findByName", List.of("genres"), () -> "reloaded", "RPG"));
+    }
+
+    @Test
+    void resultLoadedWhileItsTableIsWrittenIsReloaded() {
+        var queries = new QueryCache(10);
+
+        queries.get("games.count", List.of("games"), () -> {
+            queries.bump("games");
+            return loads.incrementAndGet();
+        });
+
+        assertEquals(Integer.valueOf(2), queries.get("games.count", List.of("games"), loads::incrementAndGet));
+        assertEquals(Integer.valueOf(2), queries.get("games.count", List.of("games"), loads::incrementAndGet));
+    }
+
+    @Test
+    void resultIsStaleOnceAnyOfItsTablesIsWritten() {
+        var queries = new QueryCache(10);
+        List<String> tables = List.of("publishers", "developers");
+        queries.get("publishers.findByName", tables, loads::incrementAndGet, "Sega");
+
+        queries.bump("developers");
+
+        assertEquals(Integer.valueOf(2), queries.get("publishers.findByName", tables, loads::incrementAndGet, "Sega"));
+        queries.bump("games");
+        assertEquals(Integer.valueOf(2), queries.get("publishers.findByName", tables, loads::incrementAndGet, "Sega"));
+    }
+
+    private int calls(String method) {
+        AtomicInteger count = calls.get(method);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * A factory whose repositories count their calls, count 5 developers in Japan and 6
+     * elsewhere, find nothing and return what they save.
+     */
+    private RepositoryFactory delegate() {
+        return (RepositoryFactory) Proxy.newProxyInstance(RepositoryFactory.class.getClassLoader(),
+                new Class<?>[]{RepositoryFactory.class},
+                (factory, getter, none) -> Proxy.newProxyInstance(getter.getReturnType().getClassLoader(),
+                        new Class<?>[]{getter.getReturnType()},
+                        (repository, method, args) -> {
+                            String name = getter.getReturnType().getSimpleName() + "." + method.getName();
+                            calls.computeIfAbsent(name, key -> new AtomicInteger()).incrementAndGet();
+                            return switch (method.getName()) {
+                                case "countByCountryIgnoreCase" -> "Japan".equals(args[0]) ? 5L : 6L;
+                                case "countGamesPerGenre" -> Map.of(1, 3L);
+                                case "findById", "findByName", "findByNameIgnoreCase" -> Optional.empty();
+                                case "save" -> args[0];
+                                default -> null;
+                            };
+                        }));
+    }
+}
@@ -0,0 +1,175 @@
+package cat.uvic.teknos.dam.kamika.repositories.caching;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final SingleFlight<String, String> flights = new SingleFlight<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void stopExecutor() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        List<Future<String>> calls = callConcurrently("developers", () -> blockingLoad("list"));
+
+        release.countDown();
+
+        for (Future<String> call : calls) {
+            assertEquals("list", call.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, flights.getLoads());
+        assertEquals(CALLERS - 1, flights.getShared());
+    }
+
+    @Test
+    void runtimeExceptionReachesEveryWaiter() throws Exception {
+        IllegalStateException failure = new IllegalStateException("Database unavailable");
+        List<Future<String>> calls = callConcurrently("developers", () -> {
+            blockingLoad("list");
+            throw failure;
+        });
+
+        release.countDown();
+
+        for (Future<String> call : calls) {
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> call.get(5, TimeUnit.SECONDS));
+            assertSame(failure, exception.getCause());
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void checkedExceptionReachesEveryWaiter() throws Exception {
+        IOException failure = new IOException("Serialization failed");
+        List<Future<String>> calls = callConcurrently("developers", () -> {
+            blockingLoad("list");
+            throw failure;
+        });
+
+        release.countDown();
+
+        for (Future<String> call : calls) {
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> call.get(5, TimeUnit.SECONDS));
+            assertSame(failure, exception.getCause());
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void callerAfterForgetStartsAFreshLoad() throws Exception {
+        Future<String> before = executor.submit(() -> flights.execute("developers/7", () -> blockingLoad("old")));
+        waitFor(() -> loads.get() == 1);
+
+        // A write commits while the first load is still reading
+        flights.forget("developers/7");
+        String after = flights.execute("developers/7", () -> "new");
+
+        assertEquals("new", after);
+        release.countDown();
+        assertEquals("old", before.get(5, TimeUnit.SECONDS));
+        assertEquals(2, flights.getLoads());
+        assertEquals(0, flights.getShared());
+    }
+
+    @Test
+    void finishingAForgottenLoadDoesNotEndANewerOne() throws Exception {
+        Future<String> old = executor.submit(() -> flights.execute("developers", () -> blockingLoad("old")));
+        waitFor(() -> loads.get() == 1);
+        flights.forgetAll();
+
+        CountDownLatch newer = new CountDownLatch(1);
+        Future<String> fresh = executor.submit(() -> flights.execute("developers", () -> {
+            loads.incrementAndGet();
+            assertTrue(newer.await(5, TimeUnit.SECONDS));
+            return "new";
+        }));
+        waitFor(() -> loads.get() == 2);
+        release.countDown();
+        assertEquals("old", old.get(5, TimeUnit.SECONDS));
+
+        // The newer load is still in flight and shared with later callers
+        Future<String> joined = executor.submit(() -> flights.execute("developers", () -> "unexpected"));
+        waitFor(() -> flights.getShared() == 1);
+        newer.countDown();
+        assertEquals("new", fresh.get(5, TimeUnit.SECONDS));
+        assertEquals("new", joined.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void differentKeysDoNotShare() throws Exception {
+        Future<String> first = executor.submit(() -> flights.execute("developers/1", () -> blockingLoad("1")));
+        waitFor(() -> loads.get() == 1);
+
+        assertEquals("2", flights.execute("developers/2", () -> "2"));
+
+        release.countDown();
+        assertEquals("1", first.get(5, TimeUnit.SECONDS));
+        assertEquals(0, flights.getShared());
+    }
+
+    @Test
+    void nothingIsKeptOnceALoadCompletes() throws IOException {
+        assertEquals("1", flights.execute("developers", () -> "1"));
+        assertEquals("2", flights.execute("developers", () -> "2"));
+
+        assertEquals(2, flights.getLoads());
+    }
+
+    /**
+     * Starts {@link #CALLERS} calls of a key and waits until one is loading and the others
+     * have joined it.
+     */
+    private List<Future<String>> callConcurrently(String key, SingleFlight.Loader<String, IOException> loader)
+            throws InterruptedException {
+        List<Future<String>> calls = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            calls.add(executor.submit(() -> flights.execute(key, loader)));
+        }
+        waitFor(() -> loads.get() == 1 && flights.getShared() == CALLERS - 1);
+        return calls;
+    }
+
+    private String blockingLoad(String value) {
+        loads.incrementAndGet();
+        try {
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail("Interrupted");
+        }
+        return value;
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not reached in time");
+            Thread.sleep(5);
+        }
+    }
+}
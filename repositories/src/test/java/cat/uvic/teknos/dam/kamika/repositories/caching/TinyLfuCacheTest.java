@@ -0,0 +1,128 @@
+package cat.uvic.teknos.dam.kamika.repositories.caching;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TinyLfuCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void hitsAndMissesAreCounted() {
+        var cache = new TinyLfuCache<Integer, String>(10);
+
+        cache.get(1, this::load);
+        cache.get(1, this::load);
+        cache.get(2, this::load);
+        cache.peek(1);
+
+        assertEquals(new CacheStats(1, 2, 0, 2), cache.stats());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void oneOffScanDoesNotEvictHotKeys() {
+        var cache = new TinyLfuCache<Integer, String>(100);
+        for (int i = 0; i < 4; i++) {
+            for (int key = 0; key < 20; key++) {
+                cache.get(key, this::load);
+            }
+        }
+
+        for (int key = 1_000; key < 1_400; key++) {
+            cache.get(key, this::load);
+        }
+
+        for (int key = 0; key < 20; key++) {
+            assertNotNull(cache.peek(key), "Hot key " + key + " was evicted");
+        }
+        assertTrue(cache.size() <= 100);
+        assertTrue(cache.stats().evictions() > 0);
+    }
+
+    @Test
+    void keyHitAgainIsPromotedAndOutlivesOlderProbationKeys() {
+        var cache = new TinyLfuCache<Integer, String>(10);
+        for (int key = 1; key <= 10; key++) {
+            cache.get(key, this::load);
+        }
+        // Key 1 is the eldest in probation; a second hit moves it to the protected segment
+        cache.get(1, this::load);
+
+        // Keys read twice while in the window are admitted over the probation keys read once
+        for (int key = 100; key < 109; key++) {
+            cache.get(key, this::load);
+            cache.get(key, this::load);
+        }
+
+        assertNotNull(cache.peek(1));
+        assertNull(cache.peek(2));
+        assertEquals(10, cache.size());
+    }
+
+    @Test
+    void loadRacingWithInvalidateIsNotCached() {
+        var cache = new TinyLfuCache<Integer, String>(10);
+
+        String value = cache.get(1, key -> {
+            cache.invalidate(key);
+            return load(key);
+        });
+
+        assertEquals("value 1", value);
+        assertNull(cache.peek(1));
+        cache.get(1, this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void loadRacingWithInvalidateAllIsNotCached() {
+        var cache = new TinyLfuCache<Integer, String>(10);
+
+        cache.get(1, key -> {
+            cache.invalidateAll();
+            return load(key);
+        });
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void invalidValueIsReloaded() {
+        var cache = new TinyLfuCache<Integer, String>(10);
+        cache.get(1, this::load);
+
+        String value = cache.get(1, cached -> false, key -> "reloaded");
+
+        assertEquals("reloaded", value);
+        assertEquals("reloaded", cache.peek(1));
+    }
+
+    @Test
+    void sizeNeverExceedsTheMaximum() {
+        var cache = new TinyLfuCache<Integer, String>(20);
+        Function<Integer, String> loader = this::load;
+
+        for (int key = 0; key < 1_000; key++) {
+            cache.get(key % 7 == 0 ? key % 35 : key, loader);
+            assertTrue(cache.size() <= 20);
+        }
+    }
+
+    @Test
+    void nullValuesAreRejected() {
+        var cache = new TinyLfuCache<Integer, String>(10);
+
+        assertThrows(NullPointerException.class, () -> cache.get(1, key -> null));
+        assertEquals(0, cache.size());
+    }
+
+    private String load(int key) {
+        loads.incrementAndGet();
+        return "value " + key;
+    }
+}
@@ -0,0 +1,126 @@
+package cat.uvic.teknos.dam.kamika.repositories.reference;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReferenceSnapshotTest {
+
+    // Four rows get a table of 8 slots, whose home slot is the ID modulo 8: these IDs all want
+    // the last slot, so three of them wrap around to the start of the table
+    private static final List<Integer> COLLIDING_IDS = List.of(7, 15, 23, 31);
+
+    @Test
+    void collidingIdsAreAllFound() {
+        var snapshot = snapshot(COLLIDING_IDS);
+
+        for (int id : COLLIDING_IDS) {
+            assertEquals(id, snapshot.findById(id).orElseThrow().id());
+        }
+        assertEquals(4, snapshot.size());
+    }
+
+    @Test
+    void missingIdsStopAtTheFirstEmptySlotAfterWrappingAround() {
+        var snapshot = snapshot(COLLIDING_IDS);
+
+        // Same home slot as the colliding IDs
+        assertEquals(Optional.empty(), snapshot.findById(39));
+        // Home slot 0 holds a wrapped ID
+        assertEquals(Optional.empty(), snapshot.findById(8));
+        assertEquals(Optional.empty(), snapshot.findById(0));
+        assertEquals(Optional.empty(), snapshot.findById(-7));
+        assertFalse(snapshot.containsId(39));
+    }
+
+    @Test
+    void lookupsReturnTheSameOptional() {
+        var snapshot = snapshot(COLLIDING_IDS);
+
+        assertSame(snapshot.findById(23), snapshot.findById(23));
+        assertSame(snapshot.findById(23), snapshot.findByName("ROW 23"));
+    }
+
+    @Test
+    void withAddsOrReplacesInACopy() {
+        var original = snapshot(COLLIDING_IDS);
+
+        var added = original.with(new Row(39, "row 39"));
+        var replaced = added.with(new Row(15, "renamed"));
+
+        assertEquals(List.of(7, 15, 23, 31, 39), ids(added));
+        assertEquals(39, added.findById(39).orElseThrow().id());
+        assertEquals("renamed", replaced.findById(15).orElseThrow().name());
+        assertEquals(Optional.empty(), replaced.findByName("row 15"));
+        assertEquals(5, replaced.size());
+
+        assertEquals(COLLIDING_IDS, ids(original));
+        assertEquals(Optional.empty(), original.findById(39));
+        assertEquals("row 15", original.findById(15).orElseThrow().name());
+    }
+
+    @Test
+    void withoutRemovesInACopyAndKeepsTheOtherCollidingIds() {
+        var original = snapshot(COLLIDING_IDS);
+
+        var removed = original.without(15);
+
+        assertEquals(Optional.empty(), removed.findById(15));
+        assertEquals(23, removed.findById(23).orElseThrow().id());
+        assertEquals(31, removed.findById(31).orElseThrow().id());
+        assertEquals(15, original.findById(15).orElseThrow().id());
+        assertSame(removed, removed.without(15));
+    }
+
+    @Test
+    void lowestIdWinsADuplicateName() {
+        var snapshot = ReferenceSnapshot.of(List.of(new Row(5, "Nintendo"), new Row(2, "NINTENDO"),
+                new Row(9, "nintendo")), Row::id, Row::name);
+
+        assertEquals(2, snapshot.findByName("nintendo").orElseThrow().id());
+        assertEquals(1, snapshot.with(new Row(1, "Nintendo")).findByName("Nintendo").orElseThrow().id());
+        assertEquals(5, snapshot.without(2).findByName("Nintendo").orElseThrow().id());
+    }
+
+    @Test
+    void namesAreMatchedIgnoringCase() {
+        var snapshot = ReferenceSnapshot.of(List.of(new Row(1, "Sega"), new Row(2, null)), Row::id, Row::name);
+
+        assertEquals(1, snapshot.findByName("SEGA").orElseThrow().id());
+        assertEquals(Optional.empty(), snapshot.findByName(null));
+        assertEquals(Optional.empty(), snapshot.findByName("Atari"));
+    }
+
+    @Test
+    void invalidAndDuplicateIdsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> snapshot(List.of(1, 0)));
+        assertThrows(IllegalArgumentException.class, () -> snapshot(List.of(3, 1, 3)));
+    }
+
+    @Test
+    void emptySnapshotFindsNothing() {
+        var snapshot = snapshot(List.of());
+
+        assertEquals(Optional.empty(), snapshot.findById(1));
+        assertEquals(1, snapshot.with(new Row(1, "row 1")).size());
+    }
+
+    private static ReferenceSnapshot<Row> snapshot(List<Integer> ids) {
+        List<Row> rows = new ArrayList<>();
+        for (int id : ids) {
+            rows.add(new Row(id, "row " + id));
+        }
+        return ReferenceSnapshot.of(rows, Row::id, Row::name);
+    }
+
+    private static List<Integer> ids(ReferenceSnapshot<Row> snapshot) {
+        return snapshot.getEntities().stream().map(Row::id).toList();
+    }
+
+    private record Row(int id, String name) {
+    }
+}
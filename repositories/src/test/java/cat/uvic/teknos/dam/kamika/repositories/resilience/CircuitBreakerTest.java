@@ -0,0 +1,155 @@
+package cat.uvic.teknos.dam.kamika.repositories.resilience;
+
+import cat.uvic.teknos.dam.kamika.repositories.exceptions.CircuitOpenException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger probes = new AtomicInteger();
+
+    @Test
+    void opensAfterTheConsecutiveFailureThreshold() {
+        var breaker = breaker(3, HOUR, HOUR, () -> {});
+
+        failCall(breaker);
+        failCall(breaker);
+        assertFalse(breaker.isOpen());
+        failCall(breaker);
+
+        assertTrue(breaker.isOpen());
+        assertEquals(1, breaker.getTrips());
+    }
+
+    @Test
+    void successResetsTheConsecutiveFailures() {
+        var breaker = breaker(3, HOUR, HOUR, () -> {});
+
+        failCall(breaker);
+        failCall(breaker);
+        assertEquals("ok", breaker.execute(() -> "ok"));
+        failCall(breaker);
+        failCall(breaker);
+
+        assertFalse(breaker.isOpen());
+    }
+
+    @Test
+    void exceptionsRejectedByThePredicateDoNotCount() {
+        var breaker = breaker(1, HOUR, HOUR, () -> {});
+
+        assertThrows(IllegalArgumentException.class, () -> breaker.execute(() -> {
+            throw new IllegalArgumentException("Duplicate name");
+        }));
+
+        assertFalse(breaker.isOpen());
+        assertFalse(breaker.isFailure(new IllegalArgumentException()));
+        assertTrue(breaker.isFailure(new CircuitOpenException("database")));
+    }
+
+    @Test
+    void slowSuccessfulCallsCountAsFailures() {
+        var breaker = breaker(2, 10, HOUR, () -> {});
+
+        assertEquals("slow", breaker.execute(() -> sleep(30, "slow")));
+        assertFalse(breaker.isOpen());
+        assertEquals("slow", breaker.execute(() -> sleep(30, "slow")));
+
+        assertTrue(breaker.isOpen());
+    }
+
+    @Test
+    void openCircuitFailsFastWithoutCallingTheDatabase() {
+        var breaker = breaker(1, HOUR, HOUR, () -> {});
+        failCall(breaker);
+        calls.set(0);
+
+        CircuitOpenException exception = assertThrows(CircuitOpenException.class,
+                () -> breaker.execute(calls::incrementAndGet));
+        assertThrows(CircuitOpenException.class, () -> breaker.run(calls::incrementAndGet));
+
+        assertEquals("database", exception.getCircuit());
+        assertEquals(0, calls.get());
+        assertEquals(2, breaker.getRejected());
+    }
+
+    @Test
+    void probeClosesTheCircuitOnceTheDatabaseAnswers() throws InterruptedException {
+        var breaker = breaker(1, HOUR, 10, () -> {
+            if (probes.incrementAndGet() < 3) {
+                throw new IllegalStateException("Still down");
+            }
+        });
+        failCall(breaker);
+
+        waitFor(() -> !breaker.isOpen());
+
+        assertEquals(3, probes.get());
+        assertEquals("ok", breaker.execute(() -> "ok"));
+        // The failures before the trip are forgotten
+        failCall(breaker);
+        assertTrue(breaker.isOpen());
+        assertEquals(2, breaker.getTrips());
+    }
+
+    @Test
+    void probeKeepsRunningAfterAnError() throws InterruptedException {
+        var breaker = breaker(1, HOUR, 10, () -> {
+            if (probes.incrementAndGet() == 1) {
+                throw new AssertionError("Driver bug");
+            }
+        });
+        failCall(breaker);
+
+        waitFor(() -> !breaker.isOpen());
+
+        assertEquals(2, probes.get());
+    }
+
+    @Test
+    void thresholdMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> breaker(0, HOUR, HOUR, () -> {}));
+    }
+
+    /**
+     * A breaker of a database whose unavailability is reported with an
+     * {@link IllegalStateException}.
+     */
+    private static CircuitBreaker breaker(int failureThreshold, long slowCallMillis, long probeIntervalMillis,
+                                          CircuitBreaker.Probe probe) {
+        return new CircuitBreaker("database", failureThreshold, slowCallMillis, probeIntervalMillis,
+                e -> e instanceof IllegalStateException, probe);
+    }
+
+    private void failCall(CircuitBreaker breaker) {
+        assertThrows(IllegalStateException.class, () -> breaker.execute(() -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("Database unavailable");
+        }));
+    }
+
+    private static String sleep(long millis, String result) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return result;
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not reached in time");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -1,15 +1,44 @@
 package cat.uvic.teknos.dam.kamika.server;
 
 import cat.uvic.teknos.dam.kamika.repositories.DeveloperRepository;
+import cat.uvic.teknos.dam.kamika.repositories.caching.CacheStats;
+import cat.uvic.teknos.dam.kamika.repositories.caching.CachingDeveloperRepository;
+import cat.uvic.teknos.dam.kamika.repositories.caching.CachingRepositoryFactory;
+import cat.uvic.teknos.dam.kamika.repositories.caching.CoalescingDeveloperRepository;
 import cat.uvic.teknos.dam.kamika.repositories.jdbc.JdbcDeveloperRepository;
 import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.DataSource;
-import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.SingleConnectionDataSource;
-import cat.uvic.teknos.dam.kamika.server.controllers.Controller;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.PooledDataSource;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.RoutingDataSource;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.exceptions.DataSourceException;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.filters.IdFilters;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.ids.HiLoIdAllocator;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.ids.IdSequence;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.migrations.MigrationRunner;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.statistics.CatalogStatistics;
+import cat.uvic.teknos.dam.kamika.repositories.resilience.CircuitBreaker;
+import cat.uvic.teknos.dam.kamika.repositories.resilience.CircuitBreakingDeveloperRepository;
+import cat.uvic.teknos.dam.kamika.server.cache.CacheWarmer;
+import cat.uvic.teknos.dam.kamika.server.cache.HeavyHitters;
+import cat.uvic.teknos.dam.kamika.server.cache.HotRoutes;
+import cat.uvic.teknos.dam.kamika.server.cache.ResponseCache;
 import cat.uvic.teknos.dam.kamika.server.controllers.DeveloperController;
+import cat.uvic.teknos.dam.kamika.server.controllers.StatsController;
 import cat.uvic.teknos.dam.kamika.server.router.RequestRouter;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * The main entry point for the Kamika Server application.
@@ -27,51 +56,295 @@ public class App {
         System.out.println("Starting Kamika Server...");
 
         DataSource dataSource = configureDataSource();
-        RequestRouter router = configureRouter(dataSource);
+        DataSource primary = primaryOf(dataSource);
+        migrateSchema(primary);
+        CatalogStatistics statistics = configureStatistics(primary);
+        IdFilters idFilters = configureIdFilters(primary);
+        ResponseCache responseCache = configureResponseCache();
+        HeavyHitters heavyHitters = configureHeavyHitters();
+        RequestRouter router = configureRouter(dataSource, statistics, idFilters, responseCache, heavyHitters);
+
+        HotRoutes hotRoutes = configureHotRoutes(router, responseCache);
 
         ExecutorService threadPool = Executors.newCachedThreadPool();
 
-        startServer(router, threadPool);
+        startServer(router, threadPool, dataSource, responseCache, hotRoutes, heavyHitters);
     }
 
     /**
      * Configures and returns the data source for database connections.
+     * A connection pool is used because every client is handled on its own thread.
+     * Read replicas can be added as a comma-separated list of servers in the
+     * {@code kamika.replicas} system property, e.g. {@code -Dkamika.replicas=localhost:3307}.
      * @return A configured {@link DataSource} instance.
      */
     private static DataSource configureDataSource() {
-        return new SingleConnectionDataSource(
+        DataSource primary = createPool("localhost:3306");
+
+        String replicaServers = System.getProperty("kamika.replicas", "").trim();
+        if (replicaServers.isEmpty()) {
+            return primary;
+        }
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (String server : replicaServers.split(",")) {
+            replicas.add(createPool(server.trim()));
+        }
+        System.out.println("Routing reads to " + replicas.size() + " replica(s).");
+        return new RoutingDataSource(primary, replicas);
+    }
+
+    /**
+     * Returns the data source of the primary database. Schema migrations, the catalog counters,
+     * the ID filters and the circuit breaker probe must see every committed write, and using the
+     * primary directly keeps them from starting the read-your-writes window of their thread.
+     * @param dataSource The configured data source.
+     * @return The primary of a {@link RoutingDataSource}, or the data source itself.
+     */
+    private static DataSource primaryOf(DataSource dataSource) {
+        return dataSource instanceof RoutingDataSource routing ? routing.getPrimary() : dataSource;
+    }
+
+    /**
+     * Creates a connection pool for one MySQL server of the Kamika database.
+     * Connecting and every read from the server time out after
+     * {@code kamika.connectTimeoutMillis} and {@code kamika.socketTimeoutMillis}, so that a call
+     * to a database that stopped answering fails instead of blocking its thread forever, and
+     * counts as a failure of the circuit breaker.
+     * @param server The host and port of the server.
+     * @return A pooled data source.
+     */
+    private static DataSource createPool(String server) {
+        return new PooledDataSource(
                 "mysql",
-                "localhost:3306",
+                server,
                 "kamika",
                 "root",
-                "teknos"
+                "teknos",
+                "useCursorFetch=true&rewriteBatchedStatements=true"
+                        + "&connectTimeout=" + Long.getLong("kamika.connectTimeoutMillis", 5_000)
+                        + "&socketTimeout=" + Long.getLong("kamika.socketTimeoutMillis", 30_000),
+                PooledDataSource.DEFAULT_POOL_SIZE
         );
     }
 
+    /**
+     * Applies pending schema migrations, such as the lookup indexes, before serving requests.
+     * @param dataSource The data source of the database to migrate.
+     */
+    private static void migrateSchema(DataSource dataSource) {
+        int applied = new MigrationRunner(dataSource).migrate();
+        System.out.println("Applied " + applied + " schema migration(s).");
+    }
+
+    /**
+     * Loads the catalog counters into memory and reconciles them with the tables every few minutes.
+     * @param dataSource The data source of the migrated database.
+     * @return The statistics shared by the repositories.
+     */
+    private static CatalogStatistics configureStatistics(DataSource dataSource) {
+        CatalogStatistics statistics = new CatalogStatistics(dataSource);
+        statistics.load();
+        statistics.startReconciliation(10, TimeUnit.MINUTES);
+        return statistics;
+    }
+
+    /**
+     * Builds the negative cache of developer IDs when the {@code kamika.idFilters} system
+     * property is {@code true}, and rebuilds it every few minutes to forget deleted IDs.
+     * The filters only learn the IDs inserted through this server's repositories, so a developer
+     * inserted by another server or tool is answered with 404 until the next rebuild, up to ten
+     * minutes later. Only enable it where this server is the single writer of DEVELOPER.
+     * @param dataSource The data source of the migrated database.
+     * @return The filters used by the repositories, or {@link IdFilters#NONE}.
+     */
+    private static IdFilters configureIdFilters(DataSource dataSource) {
+        if (!Boolean.getBoolean("kamika.idFilters")) {
+            return IdFilters.NONE;
+        }
+        IdFilters idFilters = new IdFilters(dataSource, IdSequence.DEVELOPER);
+        idFilters.rebuildAll();
+        idFilters.startRebuilding(10, TimeUnit.MINUTES);
+        return idFilters;
+    }
+
+    /**
+     * Creates the cache of rendered {@code GET} responses when the {@code kamika.responseCache}
+     * system property is {@code true}, holding up to {@code kamika.responseCacheSize} responses.
+     * @return The response cache, or {@code null} to render every response.
+     */
+    private static ResponseCache configureResponseCache() {
+        if (!Boolean.getBoolean("kamika.responseCache")) {
+            return null;
+        }
+        return new ResponseCache(Integer.getInteger("kamika.responseCacheSize", ResponseCache.DEFAULT_MAXIMUM_SIZE));
+    }
+
+    /**
+     * Creates the tracker of the items read most when the {@code kamika.heavyHitters} system
+     * property is {@code true}, monitoring {@code kamika.heavyHittersCapacity} IDs per resource.
+     * The response of an item is then only cached once it was read
+     * {@code kamika.heavyHittersAdmissionReads} times.
+     * @return The tracker, or {@code null} to track nothing.
+     */
+    private static HeavyHitters configureHeavyHitters() {
+        if (!Boolean.getBoolean("kamika.heavyHitters")) {
+            return null;
+        }
+        var heavyHitters = new HeavyHitters(Integer.getInteger("kamika.heavyHittersCapacity", HeavyHitters.DEFAULT_CAPACITY));
+        heavyHitters.setAdmissionReads(Long.getLong("kamika.heavyHittersAdmissionReads", HeavyHitters.DEFAULT_ADMISSION_READS));
+        return heavyHitters;
+    }
+
+    /**
+     * Counts the routes read by clients when the {@code kamika.warmUp} system property is
+     * {@code true}, saving the hottest {@code kamika.hotRoutesSize} to {@code kamika.hotRoutesFile}
+     * every {@code kamika.hotRoutesIntervalSeconds}. The routes saved by the previous run are
+     * replayed first, on {@code kamika.warmUpThreads} threads for at most
+     * {@code kamika.warmUpBudgetMillis}, to populate the caches and compile the request path
+     * before the server starts listening.
+     * @param router The configured router.
+     * @param responseCache The cache of rendered responses, or {@code null}.
+     * @return The recorder of the routes read, or {@code null} if warm-up is disabled.
+     */
+    private static HotRoutes configureHotRoutes(RequestRouter router, ResponseCache responseCache) {
+        if (!Boolean.getBoolean("kamika.warmUp")) {
+            return null;
+        }
+        HotRoutes hotRoutes = new HotRoutes(Path.of(System.getProperty("kamika.hotRoutesFile", "hot-routes.txt")),
+                Integer.getInteger("kamika.hotRoutesSize", HotRoutes.DEFAULT_MAXIMUM_ROUTES));
+
+        List<String> routes = hotRoutes.load();
+        long start = System.nanoTime();
+        int replayed = new CacheWarmer(router, responseCache).warmUp(routes,
+                Integer.getInteger("kamika.warmUpThreads", CacheWarmer.DEFAULT_THREADS),
+                Long.getLong("kamika.warmUpBudgetMillis", CacheWarmer.DEFAULT_BUDGET_MILLIS));
+        System.out.println("Warmed up " + replayed + " of " + routes.size() + " hot route(s) in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms.");
+
+        hotRoutes.startSaving(Integer.getInteger("kamika.hotRoutesIntervalSeconds", 60), TimeUnit.SECONDS);
+        return hotRoutes;
+    }
+
     /**
      * Configures the request router with all the application's controllers.
+     * New developers take their IDs from blocks reserved in ID_SEQUENCE when the
+     * {@code kamika.hiloIds} system property is {@code true}; every process writing the
+     * DEVELOPER table must then do the same. Developer lookups by ID are cached when
+     * {@code kamika.repositoryCache} is {@code true}, sized by {@code kamika.repositoryCacheSize}.
+     * Concurrent misses of the same lookup then share one query, and reach the database through
+     * the circuit breaker, if any, whose failures the controller answers with its last known copies.
      * @param dataSource The data source needed by repositories.
+     * @param statistics The catalog statistics kept up to date by the repositories.
+     * @param idFilters The ID filters checked by the repositories and reported under /stats.
+     * @param responseCache The cache of rendered responses, or {@code null}.
+     * @param heavyHitters The tracker of the items read most, or {@code null}.
      * @return A configured {@link RequestRouter} instance.
      */
-    private static RequestRouter configureRouter(DataSource dataSource) {
-        DeveloperRepository developerRepository = new JdbcDeveloperRepository(dataSource);
+    private static RequestRouter configureRouter(DataSource dataSource, CatalogStatistics statistics,
+                                                 IdFilters idFilters, ResponseCache responseCache,
+                                                 HeavyHitters heavyHitters) {
+        JdbcDeveloperRepository developerRepository = new JdbcDeveloperRepository(dataSource);
+        developerRepository.setStatistics(statistics);
+        developerRepository.setIdFilter(idFilters.get(IdSequence.DEVELOPER));
+        if (Boolean.getBoolean("kamika.hiloIds")) {
+            developerRepository.setIdAllocator(new HiLoIdAllocator(dataSource));
+        }
+        DeveloperRepository repository = developerRepository;
+        CircuitBreaker circuitBreaker = configureCircuitBreaker(primaryOf(dataSource));
+        if (circuitBreaker != null) {
+            repository = new CircuitBreakingDeveloperRepository(repository, circuitBreaker);
+        }
+        Map<String, Supplier<CacheStats>> cacheStats = new LinkedHashMap<>();
+        if (Boolean.getBoolean("kamika.repositoryCache")) {
+            var cachingRepository = new CachingDeveloperRepository(new CoalescingDeveloperRepository(repository),
+                    Integer.getInteger("kamika.repositoryCacheSize", CachingRepositoryFactory.DEFAULT_MAXIMUM_SIZE));
+            cacheStats.put("developers", cachingRepository::getStats);
+            repository = cachingRepository;
+        }
         ObjectMapper objectMapper = new ObjectMapper();
-        Controller developerController = new DeveloperController(developerRepository, objectMapper);
+        var developerController = new DeveloperController(repository, objectMapper);
+        developerController.setCircuitBreaker(circuitBreaker);
+        if (responseCache != null) {
+            developerController.setResponseCache(responseCache);
+            responseCache.addResource("developers");
+            cacheStats.put("responses", responseCache::getStats);
+        }
 
         var router = new RequestRouter();
         router.addController("developers", developerController);
+        var statsController = new StatsController(idFilters, cacheStats, objectMapper);
+        statsController.setHeavyHitters(heavyHitters);
+        router.addController("stats", statsController);
 
         return router;
     }
 
+    /**
+     * Creates the circuit breaker of the repositories when the {@code kamika.circuitBreaker}
+     * system property is {@code true}. It opens after {@code kamika.circuitBreakerFailures}
+     * consecutive database failures or calls slower than {@code kamika.circuitBreakerSlowCallMillis},
+     * and then validates a connection every {@code kamika.circuitBreakerProbeMillis} until the
+     * database answers again. Until it opens, a call that stalls is only cut short by the socket
+     * timeout of the pool.
+     * @param dataSource The data source of the primary database, which the probe validates.
+     * @return The circuit breaker, or {@code null} to always call the database.
+     */
+    private static CircuitBreaker configureCircuitBreaker(DataSource dataSource) {
+        if (!Boolean.getBoolean("kamika.circuitBreaker")) {
+            return null;
+        }
+        return new CircuitBreaker("database",
+                Integer.getInteger("kamika.circuitBreakerFailures", CircuitBreaker.DEFAULT_FAILURE_THRESHOLD),
+                Long.getLong("kamika.circuitBreakerSlowCallMillis", CircuitBreaker.DEFAULT_SLOW_CALL_MILLIS),
+                Long.getLong("kamika.circuitBreakerProbeMillis", CircuitBreaker.DEFAULT_PROBE_INTERVAL_MILLIS),
+                App::isDatabaseUnavailable,
+                () -> {
+                    try (Connection connection = dataSource.getConnection()) {
+                        if (!connection.isValid(2)) {
+                            throw new SQLException("Connection is not valid");
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Tells database outages apart from errors caused by the request itself, such as a
+     * constraint violation: the connection could not be obtained, or the driver reported a
+     * transient or connection error.
+     * @param e The exception thrown by a repository.
+     * @return {@code true} if the database is unavailable.
+     */
+    private static boolean isDatabaseUnavailable(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataSourceException
+                    || cause instanceof SQLTransientException
+                    || cause instanceof SQLRecoverableException
+                    || cause instanceof SQLNonTransientConnectionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Creates and starts a new Server instance.
      *
      * @param router The fully configured router to be used by the server.
      * @param threadPool The thread pool to manage concurrent client connections.
+     * @param dataSource The data source of the repositories, whose read-your-writes window is
+     *                   ended after each client if it routes reads to replicas.
+     * @param responseCache The cache of rendered responses, or {@code null}.
+     * @param hotRoutes The recorder of the routes read, or {@code null}.
+     * @param heavyHitters The tracker of the items read most, or {@code null}.
      */
-    private static void startServer(RequestRouter router, ExecutorService threadPool) {
+    private static void startServer(RequestRouter router, ExecutorService threadPool, DataSource dataSource,
+                                    ResponseCache responseCache, HotRoutes hotRoutes, HeavyHitters heavyHitters) {
         var server = new Server(8081, router, threadPool); // Assegura't que el port és el correcte
+        server.setRoutingDataSource(dataSource instanceof RoutingDataSource routing ? routing : null);
+        server.setResponseCache(responseCache);
+        server.setHotRoutes(hotRoutes);
+        server.setHeavyHitters(heavyHitters);
         server.start();
     }
 }
\ No newline at end of file
@@ -1,9 +1,16 @@
 package cat.uvic.teknos.dam.kamika.server;
 
+import cat.uvic.teknos.dam.kamika.repositories.exceptions.CircuitOpenException;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.RoutingDataSource;
 import cat.uvic.teknos.dam.kamika.security.CryptoUtils;
+import cat.uvic.teknos.dam.kamika.server.cache.HeavyHitters;
+import cat.uvic.teknos.dam.kamika.server.cache.HotRoutes;
+import cat.uvic.teknos.dam.kamika.server.cache.ResponseCache;
 import cat.uvic.teknos.dam.kamika.server.exceptions.BadRequestException;
 import cat.uvic.teknos.dam.kamika.server.exceptions.MethodNotAllowedException;
 import cat.uvic.teknos.dam.kamika.server.exceptions.NotFoundException;
+import cat.uvic.teknos.dam.kamika.server.exceptions.PreconditionFailedException;
+import cat.uvic.teknos.dam.kamika.server.exceptions.PreconditionRequiredException;
 import cat.uvic.teknos.dam.kamika.server.router.RequestRouter;
 import rawhttp.core.RawHttp;
 import rawhttp.core.RawHttpHeaders;
@@ -11,7 +18,9 @@ import rawhttp.core.RawHttpRequest;
 import rawhttp.core.RawHttpResponse;
 import rawhttp.core.body.StringBody;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.Socket;
 import java.nio.charset.StandardCharsets;
 import java.util.Optional;
@@ -27,6 +36,14 @@ import java.util.logging.Logger;
  * Rejects tampered requests with HTTP 400 Bad Request.
  * Computes and attaches {@code X-Content-Hash} to outgoing responses.
  * Uses {@code eagerly()} loading to safely read streams multiple times.
+ * Successful {@code GET} responses of cached resources are rendered once into a
+ * {@link ResponseCache} and later written to the socket straight from its bytes, unless they
+ * carry a {@code Warning}, e.g. a stale copy served while the database is unavailable, or a
+ * {@link HeavyHitters} tracker finds the item too rarely read to be worth caching.
+ * Requests rejected by an open circuit breaker are answered with HTTP 503.
+ * Clients open a new connection for every request, so the serving thread acts for the client's
+ * address on a {@link RoutingDataSource}, and the read-your-writes window a write opens follows
+ * the client to its next request.
  * @author Montse Orozco
  * @version 2.0.2
  */
@@ -38,7 +55,18 @@ public class ClientHandler implements Runnable {
     private final RawHttp http;
     private final AtomicInteger activeClients;
     private final CryptoUtils cryptoUtils;
+    private ResponseCache responseCache;
+    private HotRoutes hotRoutes;
+    private HeavyHitters heavyHitters;
+    private RoutingDataSource routingDataSource;
 
+    /**
+     * Creates a handler of one client.
+     *
+     * @param socket The connected client, or {@code null} to only {@link #process} requests.
+     * @param router The router of the requests.
+     * @param activeClients The count of connected clients.
+     */
     public ClientHandler(Socket socket, RequestRouter router, AtomicInteger activeClients) {
         this.clientSocket = socket;
         this.router = router;
@@ -47,54 +75,153 @@ public class ClientHandler implements Runnable {
         this.cryptoUtils = new CryptoUtils();
     }
 
+    /**
+     * Serves the cacheable {@code GET} responses from a cache of rendered responses.
+     *
+     * @param responseCache The cache, or {@code null} to render every response.
+     */
+    public void setResponseCache(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * Counts the routes read, so that the hottest ones can be replayed on the next start.
+     *
+     * @param hotRoutes The recorder, or {@code null} to count nothing.
+     */
+    public void setHotRoutes(HotRoutes hotRoutes) {
+        this.hotRoutes = hotRoutes;
+    }
+
+    /**
+     * Tracks the items read most, and only caches the response of an item once the tracker
+     * {@linkplain HeavyHitters#admits admits} it.
+     *
+     * @param heavyHitters The tracker, or {@code null} to track nothing and cache every item.
+     */
+    public void setHeavyHitters(HeavyHitters heavyHitters) {
+        this.heavyHitters = heavyHitters;
+    }
+
+    /**
+     * Binds the serving thread to the client's address while it is served, so that the client's
+     * reads stay on the primary after its writes, whichever connection and thread serve them.
+     *
+     * @param routingDataSource The data source of the repositories, or {@code null} if it does not route reads.
+     */
+    public void setRoutingDataSource(RoutingDataSource routingDataSource) {
+        this.routingDataSource = routingDataSource;
+    }
+
     @Override
     public void run() {
         String threadName = Thread.currentThread().getName();
         int currentClients = activeClients.incrementAndGet();
         logger.log(Level.INFO, "[" + threadName + "] Client connected. Total active: " + currentClients);
 
+        if (routingDataSource != null) {
+            routingDataSource.bindCaller(clientSocket.getInetAddress());
+        }
         try (clientSocket) {
             RawHttpRequest request = http.parseRequest(clientSocket.getInputStream()).eagerly();
+            process(request, clientSocket.getOutputStream());
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Communication error", e);
+        } finally {
+            if (routingDataSource != null) {
+                routingDataSource.unbindCaller();
+            }
+            activeClients.decrementAndGet();
+        }
+    }
+
+    /**
+     * Validates, routes and answers one request. Used for the requests read from the socket
+     * and for those replayed to warm the caches before the server starts listening.
+     *
+     * @param request The parsed request.
+     * @param out The stream the response is written to.
+     * @throws IOException if the response cannot be written.
+     */
+    public void process(RawHttpRequest request, OutputStream out) throws IOException {
+        if (request.getBody().isPresent()) {
+            String body = request.getBody().get().decodeBodyToString(StandardCharsets.UTF_8);
+            Optional<String> hashHeader = request.getHeaders().getFirst("X-Content-Hash");
 
-            if (request.getBody().isPresent()) {
-                String body = request.getBody().get().decodeBodyToString(StandardCharsets.UTF_8);
-                Optional<String> hashHeader = request.getHeaders().getFirst("X-Content-Hash");
-
-                if (hashHeader.isPresent()) {
-                    String computedHash = cryptoUtils.hash(body);
-                    if (!computedHash.equals(hashHeader.get())) {
-                        logger.log(Level.SEVERE, "Security Alert: Hash mismatch from client " + clientSocket.getInetAddress());
-                        RawHttpResponse<?> errorResponse = createErrorResponse(400, "Bad Request", "Integrity check failed.");
-                        signAndSendResponse(errorResponse);
-                        return;
-                    }
+            if (hashHeader.isPresent()) {
+                String computedHash = cryptoUtils.hash(body);
+                if (!computedHash.equals(hashHeader.get())) {
+                    logger.log(Level.SEVERE, "Security Alert: Hash mismatch from client "
+                            + (clientSocket != null ? clientSocket.getInetAddress() : "replay"));
+                    RawHttpResponse<?> errorResponse = createErrorResponse(400, "Bad Request", "Integrity check failed.");
+                    signAndSendResponse(errorResponse, out);
+                    return;
                 }
             }
+        }
 
-            RawHttpResponse<?> response;
-            try {
-                response = router.route(request);
-            } catch (NotFoundException e) {
-                response = createErrorResponse(404, "Not Found", e.getMessage());
-            } catch (BadRequestException e) {
-                response = createErrorResponse(400, "Bad Request", e.getMessage());
-            } catch (MethodNotAllowedException e) {
-                response = createErrorResponse(405, "Method Not Allowed", e.getMessage());
-            } catch (Exception e) {
-                logger.log(Level.SEVERE, "Internal Error", e);
-                response = createErrorResponse(500, "Internal Server Error", "Unexpected error.");
+        String route = responseCache == null ? null : responseCache.routeOf(request);
+        long version = 0;
+        if (route != null) {
+            byte[] cached = responseCache.get(route);
+            if (cached != null) {
+                recordRead(request);
+                out.write(cached);
+                return;
             }
+            version = responseCache.version();
+        }
 
-            signAndSendResponse(response);
+        RawHttpResponse<?> response;
+        try {
+            response = router.route(request);
+        } catch (NotFoundException e) {
+            response = createErrorResponse(404, "Not Found", e.getMessage());
+        } catch (BadRequestException e) {
+            response = createErrorResponse(400, "Bad Request", e.getMessage());
+        } catch (MethodNotAllowedException e) {
+            response = createErrorResponse(405, "Method Not Allowed", e.getMessage());
+        } catch (PreconditionFailedException e) {
+            response = createErrorResponse(412, "Precondition Failed", e.getMessage());
+        } catch (PreconditionRequiredException e) {
+            response = createErrorResponse(428, "Precondition Required", e.getMessage());
+        } catch (CircuitOpenException e) {
+            response = createErrorResponse(503, "Service Unavailable", e.getMessage());
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Internal Error", e);
+            response = createErrorResponse(500, "Internal Server Error", "Unexpected error.");
+        }
 
-        } catch (IOException e) {
-            logger.log(Level.WARNING, "Communication error", e);
-        } finally {
-            activeClients.decrementAndGet();
+        if (response.getStatusCode() == 200) {
+            recordRead(request);
+        }
+        if (route != null && response.getStatusCode() == 200 && response.getHeaders().getFirst("Warning").isEmpty()
+                && (heavyHitters == null || heavyHitters.admits(request.getUri().getPath()))) {
+            byte[] rendered = render(sign(response));
+            responseCache.put(route, version, rendered);
+            out.write(rendered);
+        } else {
+            signAndSendResponse(response, out);
         }
     }
 
-    private void signAndSendResponse(RawHttpResponse<?> response) throws IOException {
+    private void recordRead(RawHttpRequest request) {
+        if (!"GET".equalsIgnoreCase(request.getMethod())) {
+            return;
+        }
+        if (hotRoutes != null) {
+            hotRoutes.record(request.getUri().getPath());
+        }
+        if (heavyHitters != null) {
+            heavyHitters.record(request.getUri().getPath());
+        }
+    }
+
+    private void signAndSendResponse(RawHttpResponse<?> response, OutputStream out) throws IOException {
+        sign(response).writeTo(out);
+    }
+
+    private RawHttpResponse<?> sign(RawHttpResponse<?> response) throws IOException {
         if (response.getBody().isPresent()) {
             response = response.eagerly();
             String body = response.getBody().get().decodeBodyToString(StandardCharsets.UTF_8);
@@ -106,7 +233,13 @@ public class ClientHandler implements Runnable {
                     )
             );
         }
-        response.writeTo(clientSocket.getOutputStream());
+        return response;
+    }
+
+    private static byte[] render(RawHttpResponse<?> response) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        response.writeTo(bytes);
+        return bytes.toByteArray();
     }
 
     private RawHttpResponse<?> createErrorResponse(int code, String status, String message) {
@@ -1,5 +1,9 @@
 package cat.uvic.teknos.dam.kamika.server;
 
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.RoutingDataSource;
+import cat.uvic.teknos.dam.kamika.server.cache.HeavyHitters;
+import cat.uvic.teknos.dam.kamika.server.cache.HotRoutes;
+import cat.uvic.teknos.dam.kamika.server.cache.ResponseCache;
 import cat.uvic.teknos.dam.kamika.server.router.RequestRouter;
 import java.io.IOException;
 import java.net.ServerSocket;
@@ -20,6 +24,10 @@ public class Server {
     private ServerSocket serverSocket;
     private volatile boolean running;
     private final ExecutorService threadPool;
+    private ResponseCache responseCache;
+    private HotRoutes hotRoutes;
+    private HeavyHitters heavyHitters;
+    private RoutingDataSource routingDataSource;
 
     private final AtomicInteger activeClients = new AtomicInteger(0);
 
@@ -37,6 +45,43 @@ public class Server {
         this.running = false;
     }
 
+    /**
+     * Serves the cacheable {@code GET} responses from a cache of rendered responses.
+     *
+     * @param responseCache The cache, or {@code null} to render every response.
+     */
+    public void setResponseCache(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * Counts the routes read by clients, so that the hottest ones can be replayed on the next start.
+     *
+     * @param hotRoutes The recorder, or {@code null} to count nothing.
+     */
+    public void setHotRoutes(HotRoutes hotRoutes) {
+        this.hotRoutes = hotRoutes;
+    }
+
+    /**
+     * Tracks the items read most by clients, reported under {@code /stats/top} and used to only
+     * cache the responses of items read often.
+     *
+     * @param heavyHitters The tracker, or {@code null} to track nothing.
+     */
+    public void setHeavyHitters(HeavyHitters heavyHitters) {
+        this.heavyHitters = heavyHitters;
+    }
+
+    /**
+     * Keeps the reads of each client on the primary for a while after its writes.
+     *
+     * @param routingDataSource The data source of the repositories, or {@code null} if it does not route reads.
+     */
+    public void setRoutingDataSource(RoutingDataSource routingDataSource) {
+        this.routingDataSource = routingDataSource;
+    }
+
     /**
      * Starts the server's listening loop.
      * It also starts the client monitoring daemon thread.
@@ -54,6 +99,10 @@ public class Server {
                     Socket client = serverSocket.accept();
 
                     var clientHandler = new ClientHandler(client, router, activeClients);
+                    clientHandler.setResponseCache(responseCache);
+                    clientHandler.setHotRoutes(hotRoutes);
+                    clientHandler.setHeavyHitters(heavyHitters);
+                    clientHandler.setRoutingDataSource(routingDataSource);
 
                     threadPool.submit(clientHandler);
 
@@ -0,0 +1,100 @@
+package cat.uvic.teknos.dam.kamika.server.cache;
+
+import cat.uvic.teknos.dam.kamika.server.ClientHandler;
+import cat.uvic.teknos.dam.kamika.server.router.RequestRouter;
+import rawhttp.core.RawHttp;
+import rawhttp.core.RawHttpRequest;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Replays the hottest routes of the previous run before the server starts listening, so that
+ * the first clients find the response and repository caches populated and the request path
+ * already compiled by the JIT.
+ * <p>
+ * Each route is sent as a plain {@code GET} through a {@link ClientHandler} without a socket,
+ * exactly as a client request would be, and its response is discarded. Routes are replayed in
+ * parallel, hottest first, and whatever has not finished when the time budget runs out is
+ * cancelled, so a slow database can delay the start by at most the budget.
+ * </p>
+ * @author Montse
+ * @version 2.0.0
+ */
+public class CacheWarmer {
+
+    public static final long DEFAULT_BUDGET_MILLIS = 10_000;
+    public static final int DEFAULT_THREADS = 4;
+
+    private static final Logger logger = Logger.getLogger(CacheWarmer.class.getName());
+
+    private final RequestRouter router;
+    private final ResponseCache responseCache;
+    private final RawHttp http = new RawHttp();
+
+    /**
+     * Creates a warmer for a router.
+     *
+     * @param router        the router the routes are replayed through
+     * @param responseCache the cache of rendered responses to populate, or {@code null}
+     */
+    public CacheWarmer(RequestRouter router, ResponseCache responseCache) {
+        this.router = router;
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * Replays routes within a time budget.
+     *
+     * @param routes       the routes, hottest first, e.g. {@code developers/7}
+     * @param threads      the number of routes replayed at a time
+     * @param budgetMillis the maximum time spent replaying, in milliseconds
+     * @return the number of routes replayed before the budget ran out
+     */
+    public int warmUp(List<String> routes, int threads, long budgetMillis) {
+        if (routes.isEmpty()) {
+            return 0;
+        }
+        var handler = new ClientHandler(null, router, new AtomicInteger());
+        handler.setResponseCache(responseCache);
+        List<Callable<Void>> replays = new ArrayList<>(routes.size());
+        for (String route : routes) {
+            replays.add(() -> {
+                RawHttpRequest request = http.parseRequest("GET /" + route + " HTTP/1.1\r\nHost: localhost\r\n\r\n");
+                handler.process(request, OutputStream.nullOutputStream());
+                return null;
+            });
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        int replayed = 0;
+        try {
+            for (Future<Void> replay : pool.invokeAll(replays, budgetMillis, TimeUnit.MILLISECONDS)) {
+                try {
+                    replay.get();
+                    replayed++;
+                } catch (CancellationException e) {
+                    // The budget ran out before this route was replayed.
+                } catch (ExecutionException e) {
+                    logger.log(Level.FINE, "Could not replay a hot route", e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdownNow();
+        }
+        return replayed;
+    }
+}
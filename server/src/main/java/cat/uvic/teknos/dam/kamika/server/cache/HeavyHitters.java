@@ -0,0 +1,179 @@
+package cat.uvic.teknos.dam.kamika.server.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tracks the IDs read most often for each resource, e.g. the hottest {@code games} or
+ * {@code developers}, in constant memory, so that they can be reported under
+ * {@code /stats/top} and used to decide what is worth caching: {@link #admits} only lets an
+ * item into the response cache once it was read a few times, so items read once do not evict
+ * the hot ones.
+ * <p>
+ * Each resource is split into stripes by ID, and each stripe keeps a {@link SpaceSaving}
+ * summary guarded by its own lock. An ID always falls into the same stripe, so the stripes
+ * summarize disjoint streams and their top IDs merge exactly; concurrent reads of different
+ * IDs rarely wait for each other. Counts are upper bounds: {@link Hitter#error()} is how much a
+ * count may be overestimated.
+ * </p>
+ * @author Montse
+ * @version 2.0.0
+ */
+public class HeavyHitters {
+
+    public static final int DEFAULT_CAPACITY = 1_024;
+    public static final long DEFAULT_ADMISSION_READS = 2;
+
+    private static final int STRIPE_BITS = 4;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+
+    private final int stripeCapacity;
+    private final Map<String, Stripe[]> resources = new ConcurrentHashMap<>();
+    private volatile long admissionReads = DEFAULT_ADMISSION_READS;
+
+    /**
+     * Creates an empty tracker.
+     *
+     * @param capacity the number of IDs monitored per resource
+     */
+    public HeavyHitters(int capacity) {
+        if (capacity < STRIPES) {
+            throw new IllegalArgumentException("Capacity must be at least " + STRIPES);
+        }
+        this.stripeCapacity = capacity / STRIPES;
+    }
+
+    /**
+     * Sets how many reads an item needs before {@link #admits} lets it into a cache.
+     *
+     * @param admissionReads the minimum estimated reads, 1 to admit every item read
+     */
+    public void setAdmissionReads(long admissionReads) {
+        this.admissionReads = admissionReads;
+    }
+
+    /**
+     * Counts one read of an item, given the path of a successful request. Paths that do not
+     * name a single item, e.g. {@code /developers}, are ignored.
+     *
+     * @param path the path of the request, e.g. {@code /games/7}
+     */
+    public void record(String path) {
+        String route = ResponseCache.canonicalRoute(path);
+        int separator = route == null ? -1 : route.indexOf('/');
+        if (separator < 0) {
+            return;
+        }
+        record(route.substring(0, separator), Integer.parseInt(route.substring(separator + 1)));
+    }
+
+    /**
+     * Returns whether the response of a path is worth caching, i.e. the item it names was
+     * read at least the admission reads. Paths that do not name a single item, e.g. the list
+     * {@code /developers}, are always admitted. As estimates are upper bounds, a rarely read
+     * item may be admitted, but an item read often enough always is.
+     *
+     * @param path the path of the request, e.g. {@code /games/7}
+     * @return {@code true} if its response may be cached
+     */
+    public boolean admits(String path) {
+        String route = ResponseCache.canonicalRoute(path);
+        int separator = route == null ? -1 : route.indexOf('/');
+        if (separator < 0) {
+            return true;
+        }
+        return estimate(route.substring(0, separator), Integer.parseInt(route.substring(separator + 1)))
+                >= admissionReads;
+    }
+
+    /**
+     * Counts one read of an item.
+     *
+     * @param resource the resource, e.g. {@code games}
+     * @param id       the ID of the item
+     */
+    public void record(String resource, int id) {
+        Stripe stripe = stripeOf(resources.computeIfAbsent(resource, this::newStripes), id);
+        stripe.lock.lock();
+        try {
+            stripe.summary.offer(id);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the estimated number of reads of an item.
+     *
+     * @param resource the resource
+     * @param id       the ID of the item
+     * @return an upper bound of its reads, or 0 if it is not among the monitored IDs
+     */
+    public long estimate(String resource, int id) {
+        Stripe[] stripes = resources.get(resource);
+        if (stripes == null) {
+            return 0;
+        }
+        Stripe stripe = stripeOf(stripes, id);
+        stripe.lock.lock();
+        try {
+            return stripe.summary.estimate(id);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the IDs of a resource read most often, most read first.
+     *
+     * @param resource the resource
+     * @param k        the maximum number of IDs
+     * @return the heavy hitters, empty if the resource was never read
+     */
+    public List<Hitter> top(String resource, int k) {
+        Stripe[] stripes = resources.get(resource);
+        if (stripes == null) {
+            return List.of();
+        }
+        List<Hitter> hitters = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                hitters.addAll(stripe.summary.top(k));
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        hitters.sort(Comparator.comparingLong(Hitter::count).reversed());
+        return hitters.size() > k ? List.copyOf(hitters.subList(0, k)) : hitters;
+    }
+
+    private Stripe[] newStripes(String resource) {
+        Stripe[] stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(new ReentrantLock(), new SpaceSaving(stripeCapacity));
+        }
+        return stripes;
+    }
+
+    private static Stripe stripeOf(Stripe[] stripes, int id) {
+        return stripes[(id * 0x9E3779B9) >>> (Integer.SIZE - STRIPE_BITS)];
+    }
+
+    /**
+     * An ID read often.
+     *
+     * @param id    the ID of the item
+     * @param count an upper bound of its reads
+     * @param error how much the count may be overestimated
+     */
+    public record Hitter(int id, long count, long error) {
+    }
+
+    private record Stripe(ReentrantLock lock, SpaceSaving summary) {
+    }
+}
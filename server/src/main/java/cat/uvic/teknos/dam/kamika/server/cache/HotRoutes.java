@@ -0,0 +1,173 @@
+package cat.uvic.teknos.dam.kamika.server.cache;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Counts the successful {@code GET} reads of each route, e.g. {@code developers/7}, and saves
+ * the hottest ones to a small text file, one {@code count route} pair per line, so that the
+ * next start can replay them with a {@link CacheWarmer} before accepting connections.
+ * <p>
+ * Counting costs one map lookup and one {@link LongAdder} increment per read. The number of
+ * routes tracked is bounded: once full, new routes are ignored until the next save, which
+ * keeps only the hottest routes and halves their counts, so that old traffic fades away.
+ * The file is written to a temporary file first and then moved over the old one, so a crash
+ * while saving never leaves a truncated snapshot behind.
+ * </p>
+ * @author Montse
+ * @version 2.0.0
+ */
+public class HotRoutes {
+
+    public static final int DEFAULT_MAXIMUM_ROUTES = 1_000;
+
+    private static final Logger logger = Logger.getLogger(HotRoutes.class.getName());
+    private static final int TRACKED_ROUTES_PER_SAVED_ROUTE = 10;
+
+    private final Path file;
+    private final int maximumRoutes;
+    private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an empty recorder.
+     *
+     * @param file          the file the hottest routes are saved to and loaded from
+     * @param maximumRoutes the maximum number of routes saved
+     */
+    public HotRoutes(Path file, int maximumRoutes) {
+        if (maximumRoutes < 1) {
+            throw new IllegalArgumentException("Maximum routes must be positive");
+        }
+        this.file = file;
+        this.maximumRoutes = maximumRoutes;
+    }
+
+    /**
+     * Counts one successful read of a path.
+     *
+     * @param path the path of the request, e.g. {@code /developers/07}
+     */
+    public void record(String path) {
+        String route = ResponseCache.canonicalRoute(path);
+        if (route == null) {
+            return;
+        }
+        LongAdder count = counts.get(route);
+        if (count == null) {
+            if (counts.size() >= maximumRoutes * TRACKED_ROUTES_PER_SAVED_ROUTE) {
+                return;
+            }
+            count = counts.computeIfAbsent(route, ignored -> new LongAdder());
+        }
+        count.increment();
+    }
+
+    /**
+     * Returns the hottest routes counted so far, hottest first.
+     *
+     * @param limit the maximum number of routes
+     * @return the routes with their counts
+     */
+    public List<Map.Entry<String, Long>> top(int limit) {
+        List<Map.Entry<String, Long>> routes = new ArrayList<>(counts.size());
+        counts.forEach((route, count) -> routes.add(Map.entry(route, count.sum())));
+        routes.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()));
+        return routes.size() > limit ? routes.subList(0, limit) : routes;
+    }
+
+    /**
+     * Saves the hottest routes, keeps only those in memory and halves their counts.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void save() throws IOException {
+        List<Map.Entry<String, Long>> hottest = top(maximumRoutes);
+        StringBuilder snapshot = new StringBuilder();
+        for (Map.Entry<String, Long> route : hottest) {
+            snapshot.append(route.getValue()).append(' ').append(route.getKey()).append('\n');
+        }
+
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            Files.writeString(temporary, snapshot, StandardCharsets.UTF_8);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+
+        Set<String> kept = new HashSet<>();
+        for (Map.Entry<String, Long> route : hottest) {
+            kept.add(route.getKey());
+            LongAdder count = counts.get(route.getKey());
+            if (count != null) {
+                count.add(route.getValue() / 2 - route.getValue());
+            }
+        }
+        counts.keySet().retainAll(kept);
+    }
+
+    /**
+     * Reads the routes saved by a previous run, hottest first. Malformed lines are skipped.
+     *
+     * @return the routes, or an empty list if nothing was saved yet
+     */
+    public List<String> load() {
+        List<String> routes = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                String[] parts = line.trim().split(" ", 2);
+                if (parts.length == 2 && ResponseCache.canonicalRoute("/" + parts[1]) != null) {
+                    routes.add(parts[1]);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return routes;
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not read the hot routes from " + file, e);
+        }
+        return routes;
+    }
+
+    /**
+     * Saves the hottest routes periodically on a daemon thread, and once more on shutdown.
+     *
+     * @param interval the time between two saves
+     * @param unit     the unit of the interval
+     */
+    public void startSaving(long interval, TimeUnit unit) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "HotRoutesThread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::saveQuietly, interval, interval, unit);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::saveQuietly, "HotRoutesShutdownThread"));
+    }
+
+    private void saveQuietly() {
+        try {
+            save();
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, "Could not save the hot routes to " + file, e);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package cat.uvic.teknos.dam.kamika.server.cache;
+
+import cat.uvic.teknos.dam.kamika.repositories.caching.CacheStats;
+import rawhttp.core.RawHttpRequest;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the rendered bytes of successful {@code GET} responses, status line, headers
+ * ({@code ETag} and {@code X-Content-Hash} included) and body, so that a hit is written to the
+ * socket without querying, serializing or hashing anything.
+ * <p>
+ * Responses are keyed by route, e.g. {@code developers} or {@code developers/7}. Controllers
+ * call {@link #invalidate} after every write, which drops the response of the route and counts
+ * the write. A response is only cached if no write was counted while it was rendering, so one
+ * rendered concurrently with a write is never cached after it. The count is shared by all
+ * routes, which keeps no state per route at the cost of not caching the responses rendered
+ * during a write to another route. Only the resources registered with {@link #addResource} are
+ * cached; writes that bypass their controllers, e.g. from another process, are not seen until
+ * the response is evicted.
+ * </p>
+ * @author Montse
+ * @version 2.1.0
+ */
+public class ResponseCache {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 1_000;
+
+    private final int maximumSize;
+    private final Set<String> resources = ConcurrentHashMap.newKeySet();
+    private final AtomicLong writes = new AtomicLong();
+    private final LinkedHashMap<String, byte[]> responses = new LinkedHashMap<>(16, 0.75f, true);
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maximumSize the maximum number of cached responses
+     */
+    public ResponseCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive");
+        }
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Caches the {@code GET} responses of a resource, e.g. {@code developers}, whose controller
+     * invalidates its routes on every write.
+     *
+     * @param resource the first segment of the path
+     */
+    public void addResource(String resource) {
+        resources.add(resource.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Returns the route a request is cached under: the resource and, for a single item, its ID
+     * as parsed by the controllers, so that {@code /developers/07/} and {@code /developers/7}
+     * share one entry.
+     *
+     * @param request the request
+     * @return the route, or {@code null} if the response must not be cached, e.g. because the
+     *         request is conditional and may be answered with {@code 304}
+     */
+    public String routeOf(RawHttpRequest request) {
+        if (!"GET".equalsIgnoreCase(request.getMethod()) || request.getUri().getRawQuery() != null
+                || request.getHeaders().getFirst("If-None-Match").isPresent()) {
+            return null;
+        }
+        String route = canonicalRoute(request.getUri().getPath());
+        if (route == null || !resources.contains(route.split("/")[0])) {
+            return null;
+        }
+        return route;
+    }
+
+    /**
+     * Returns the canonical route of a path naming a resource or one item of it.
+     *
+     * @param path the path of a request, e.g. {@code /Developers/07/}
+     * @return the route, e.g. {@code developers/7}, or {@code null} for other paths
+     */
+    public static String canonicalRoute(String path) {
+        String[] pathParts = path.split("/");
+        if (pathParts.length < 2 || pathParts.length > 3 || pathParts[1].isEmpty()) {
+            return null;
+        }
+        String resource = pathParts[1].toLowerCase(Locale.ROOT);
+        if (pathParts.length == 2) {
+            return resource;
+        }
+        try {
+            return route(resource, Integer.parseInt(pathParts[2]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the route of one item of a resource.
+     *
+     * @param resource the resource
+     * @param id       the ID of the item
+     * @return the route
+     */
+    public static String route(String resource, int id) {
+        return resource + "/" + id;
+    }
+
+    /**
+     * Returns the number of writes so far, to be passed to {@link #put} once the response is
+     * rendered.
+     *
+     * @return the version
+     */
+    public long version() {
+        return writes.get();
+    }
+
+    /**
+     * Returns the cached response of a route.
+     *
+     * @param route the route
+     * @return the raw bytes of the response, or {@code null} on a miss
+     */
+    public synchronized byte[] get(String route) {
+        byte[] response = responses.get(route);
+        if (response != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return response;
+    }
+
+    /**
+     * Caches a rendered response, unless there was a write while rendering it.
+     *
+     * @param route   the route
+     * @param version the {@link #version} before rendering started
+     * @param bytes   the raw bytes of the response
+     */
+    public synchronized void put(String route, long version, byte[] bytes) {
+        if (writes.get() != version) {
+            return;
+        }
+        responses.put(route, bytes);
+        Iterator<byte[]> eldest = responses.values().iterator();
+        while (responses.size() > maximumSize) {
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Forgets the response of a route after a write and makes the responses still being
+     * rendered uncacheable.
+     *
+     * @param route the route
+     */
+    public synchronized void invalidate(String route) {
+        writes.incrementAndGet();
+        responses.remove(route);
+    }
+
+    public synchronized CacheStats getStats() {
+        return new CacheStats(hits, misses, evictions, responses.size());
+    }
+}
@@ -0,0 +1,132 @@
+package cat.uvic.teknos.dam.kamika.server.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Space-Saving summary of a stream of IDs: it monitors at most {@code capacity} IDs and,
+ * when an unmonitored ID arrives while full, replaces the monitored ID with the lowest count,
+ * inheriting that count as its overestimation error. Any ID seen more often than
+ * {@code n / capacity} times in a stream of {@code n} IDs is guaranteed to be monitored.
+ * <p>
+ * Monitored IDs are kept in a binary min-heap on their counts, so an update costs
+ * {@code O(log capacity)}. Not thread-safe; {@link HeavyHitters} locks one summary per stripe.
+ * </p>
+ */
+final class SpaceSaving {
+
+    private final int capacity;
+    private final int[] ids;
+    private final long[] counts;
+    private final long[] errors;
+    private final Map<Integer, Integer> slots;
+    private int size;
+
+    SpaceSaving(int capacity) {
+        this.capacity = capacity;
+        this.ids = new int[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.slots = new HashMap<>(capacity * 2);
+    }
+
+    void offer(int id) {
+        Integer slot = slots.get(id);
+        if (slot != null) {
+            counts[slot]++;
+            siftDown(slot);
+        } else if (size < capacity) {
+            ids[size] = id;
+            counts[size] = 1;
+            errors[size] = 0;
+            slots.put(id, size);
+            siftUp(size++);
+        } else {
+            slots.remove(ids[0]);
+            ids[0] = id;
+            errors[0] = counts[0];
+            counts[0]++;
+            slots.put(id, 0);
+            siftDown(0);
+        }
+    }
+
+    long estimate(int id) {
+        Integer slot = slots.get(id);
+        return slot == null ? 0 : counts[slot];
+    }
+
+    List<HeavyHitters.Hitter> top(int k) {
+        List<HeavyHitters.Hitter> hitters = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            hitters.add(new HeavyHitters.Hitter(ids[i], counts[i], errors[i]));
+        }
+        hitters.sort(Comparator.comparingLong(HeavyHitters.Hitter::count).reversed());
+        return hitters.size() > k ? hitters.subList(0, k) : hitters;
+    }
+
+    /**
+     * Checks that no slot counts less than its parent and that every monitored ID is found in
+     * its slot.
+     */
+    boolean isConsistent() {
+        for (int slot = 1; slot < size; slot++) {
+            if (counts[(slot - 1) / 2] > counts[slot]) {
+                return false;
+            }
+        }
+        for (int slot = 0; slot < size; slot++) {
+            if (!Integer.valueOf(slot).equals(slots.get(ids[slot]))) {
+                return false;
+            }
+        }
+        return slots.size() == size;
+    }
+
+    private void siftUp(int slot) {
+        while (slot > 0) {
+            int parent = (slot - 1) / 2;
+            if (counts[parent] <= counts[slot]) {
+                return;
+            }
+            swap(slot, parent);
+            slot = parent;
+        }
+    }
+
+    private void siftDown(int slot) {
+        while (true) {
+            int smallest = slot;
+            int left = 2 * slot + 1;
+            int right = left + 1;
+            if (left < size && counts[left] < counts[smallest]) {
+                smallest = left;
+            }
+            if (right < size && counts[right] < counts[smallest]) {
+                smallest = right;
+            }
+            if (smallest == slot) {
+                return;
+            }
+            swap(slot, smallest);
+            slot = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int id = ids[a];
+        long count = counts[a];
+        long error = errors[a];
+        ids[a] = ids[b];
+        counts[a] = counts[b];
+        errors[a] = errors[b];
+        ids[b] = id;
+        counts[b] = count;
+        errors[b] = error;
+        slots.put(ids[a], a);
+        slots.put(ids[b], b);
+    }
+}
@@ -2,11 +2,21 @@ package cat.uvic.teknos.dam.kamika.server.controllers;
 
 import cat.uvic.teknos.dam.kamika.model.Developer;
 import cat.uvic.teknos.dam.kamika.model.impl.DeveloperImpl;
+import cat.uvic.teknos.dam.kamika.repositories.DeveloperPatch;
 import cat.uvic.teknos.dam.kamika.repositories.DeveloperRepository;
+import cat.uvic.teknos.dam.kamika.repositories.Sort;
+import cat.uvic.teknos.dam.kamika.repositories.caching.SingleFlight;
+import cat.uvic.teknos.dam.kamika.repositories.exceptions.VersionConflictException;
+import cat.uvic.teknos.dam.kamika.repositories.resilience.CircuitBreaker;
+import cat.uvic.teknos.dam.kamika.security.CryptoUtils;
+import cat.uvic.teknos.dam.kamika.server.cache.ResponseCache;
 import cat.uvic.teknos.dam.kamika.server.exceptions.BadRequestException;
 import cat.uvic.teknos.dam.kamika.server.exceptions.MethodNotAllowedException;
 import cat.uvic.teknos.dam.kamika.server.exceptions.NotFoundException;
+import cat.uvic.teknos.dam.kamika.server.exceptions.PreconditionFailedException;
+import cat.uvic.teknos.dam.kamika.server.exceptions.PreconditionRequiredException;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import rawhttp.core.RawHttp;
 import rawhttp.core.RawHttpRequest;
@@ -15,21 +25,57 @@ import rawhttp.core.body.StringBody;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.util.Set;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Implements the {@link Controller} for the Developer entity.
  * This controller is responsible for the business logic of CRUD operations.
  * It throws custom exceptions to signal specific error conditions, which are then
  * handled by a higher-level component (ClientHandler).
+ * <p>
+ * A single developer is returned with its version as an {@code ETag}. A {@code PUT} must send
+ * that version back as {@code If-Match}; without it the update is refused with
+ * {@link PreconditionRequiredException}, so a client can never overwrite a change it has not
+ * seen. A {@code PATCH} is conditional only if it sends {@code If-Match} or a {@code version}
+ * member. Both fail with {@link PreconditionFailedException} if another writer changed the
+ * developer in the meantime.
+ * {@code PATCH} takes a JSON Merge Patch of the fields to change, so a client can change one
+ * field without reading and sending the whole developer.
+ * </p>
+ * <p>
+ * The list is returned with a hash of its content as {@code ETag}. A {@code GET} whose
+ * {@code If-None-Match} still matches is answered with {@code 304 Not Modified} and no body.
+ * Concurrent {@code GET}s of the same route share one query and serialization. Every
+ * successful write stops that sharing for the list and the developer, and invalidates their
+ * cached responses when a {@link ResponseCache} is set.
+ * </p>
+ * <p>
+ * When a {@link CircuitBreaker} is set, the last list and developers read are kept, and a
+ * {@code GET} that fails because the database is unavailable is answered with that stale copy
+ * and a {@code Warning: 110} header instead of an error. Deleting a developer forgets it and
+ * the list that included it.
+ * </p>
  * @author Montse
  * @version 2.0.0
  */
 public class DeveloperController implements Controller {
 
+    private static final String RESOURCE = "developers";
+    private static final int MAXIMUM_STALE_ENTRIES = 1_000;
+    private static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
     private final DeveloperRepository repository;
     private final ObjectMapper objectMapper;
     private final RawHttp http;
+    private final CryptoUtils cryptoUtils;
+    private final SingleFlight<String, RenderedJson> reads = new SingleFlight<>();
+    private final LinkedHashMap<String, RenderedJson> lastKnown = new LinkedHashMap<>(16, 0.75f, true);
+    private ResponseCache responseCache;
+    private CircuitBreaker circuitBreaker;
 
     /**
      * Constructs a new DeveloperController.
@@ -41,6 +87,26 @@ public class DeveloperController implements Controller {
         this.repository = repository;
         this.objectMapper = objectMapper;
         this.http = new RawHttp();
+        this.cryptoUtils = new CryptoUtils();
+    }
+
+    /**
+     * Sets the cache whose responses of this resource are invalidated by writes.
+     *
+     * @param responseCache The cache of rendered responses, or {@code null} for none.
+     */
+    public void setResponseCache(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * Serves the last known copy of a developer or the list when a read fails because the
+     * breaker of the repository is open or the database is unavailable.
+     *
+     * @param circuitBreaker The breaker of the repository, or {@code null} to fail such reads.
+     */
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
     }
 
     /**
@@ -53,6 +119,8 @@ public class DeveloperController implements Controller {
      * @throws NotFoundException if a requested resource does not exist.
      * @throws BadRequestException if the request is malformed (e.g., invalid ID, bad JSON).
      * @throws MethodNotAllowedException if the HTTP method is not supported for the URI.
+     * @throws PreconditionRequiredException if a {@code PUT} has no {@code If-Match} header.
+     * @throws PreconditionFailedException if the developer changed since the version of the request.
      */
     @Override
     public RawHttpResponse<?> handle(RawHttpRequest request) throws IOException {
@@ -71,25 +139,98 @@ public class DeveloperController implements Controller {
         }
 
         return switch (method.toUpperCase()) {
-            case "GET" -> hasId ? getDeveloperById(id) : getAllDevelopers();
+            case "GET" -> hasId ? getDeveloperById(id, request) : getAllDevelopers(request);
             case "POST" -> hasId ? throwMethodNotAllowed(method) : createDeveloper(request);
             case "PUT" -> hasId ? updateDeveloper(id, request) : throwMethodNotAllowed(method);
+            case "PATCH" -> hasId ? patchDeveloper(id, request) : throwMethodNotAllowed(method);
             case "DELETE" -> hasId ? deleteDeveloper(id) : throwMethodNotAllowed(method);
             default -> throwMethodNotAllowed(method);
         };
     }
 
-    private RawHttpResponse<?> getAllDevelopers() throws IOException {
-        Set<Developer> developers = repository.findAll();
-        String jsonBody = objectMapper.writeValueAsString(developers);
-        return createJsonResponse(200, "OK", jsonBody);
+    private RawHttpResponse<?> getAllDevelopers(RawHttpRequest request) throws IOException {
+        RenderedJson developers = read(RESOURCE, () -> {
+            List<Developer> all = repository.findAll(Sort.by(DeveloperRepository.SORT_BY_ID));
+            String json = objectMapper.writeValueAsString(all);
+            return new RenderedJson(json, "\"" + cryptoUtils.hash(json) + "\"");
+        });
+        return createConditionalResponse(request, developers);
+    }
+
+    private RawHttpResponse<?> getDeveloperById(int id, RawHttpRequest request) throws IOException {
+        RenderedJson developer = read(ResponseCache.route(RESOURCE, id), () -> {
+            Developer found = repository.findById(id)
+                    .orElseThrow(() -> new NotFoundException("Developer", id));
+            return new RenderedJson(objectMapper.writeValueAsString(found), "\"" + found.getVersion() + "\"");
+        });
+        return createConditionalResponse(request, developer);
+    }
+
+    /**
+     * Renders a route, sharing the rendering with concurrent reads of the same route. Falls
+     * back to the last known copy of the route if the database is unavailable.
+     */
+    private RenderedJson read(String route, SingleFlight.Loader<RenderedJson, IOException> loader) throws IOException {
+        RenderedJson rendered;
+        try {
+            rendered = reads.execute(route, loader);
+        } catch (RuntimeException e) {
+            if (circuitBreaker == null || !circuitBreaker.isFailure(e)) {
+                throw e;
+            }
+            RenderedJson stale;
+            synchronized (lastKnown) {
+                stale = lastKnown.get(route);
+            }
+            if (stale == null) {
+                throw e;
+            }
+            return new RenderedJson(stale.json(), stale.etag(), true);
+        }
+        if (circuitBreaker != null) {
+            synchronized (lastKnown) {
+                lastKnown.put(route, rendered);
+                Iterator<RenderedJson> eldest = lastKnown.values().iterator();
+                while (lastKnown.size() > MAXIMUM_STALE_ENTRIES) {
+                    eldest.next();
+                    eldest.remove();
+                }
+            }
+        }
+        return rendered;
     }
 
-    private RawHttpResponse<?> getDeveloperById(int id) throws IOException {
-        Developer developer = repository.findById(id)
-                .orElseThrow(() -> new NotFoundException("Developer", id));
-        String jsonBody = objectMapper.writeValueAsString(developer);
-        return createJsonResponse(200, "OK", jsonBody);
+    /**
+     * Answers a {@code GET} with {@code 304 Not Modified} if the client already holds the
+     * rendered entity, i.e. one of the tags in its {@code If-None-Match} matches, or with the
+     * entity otherwise.
+     */
+    private RawHttpResponse<?> createConditionalResponse(RawHttpRequest request, RenderedJson rendered) {
+        Optional<String> ifNoneMatch = request.getHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch.isPresent()) {
+            for (String tag : ifNoneMatch.get().split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(rendered.etag())) {
+                    return http.parseResponse(
+                            "HTTP/1.1 304 Not Modified\r\n" +
+                                    (rendered.stale() ? "Warning: " + STALE_WARNING + "\r\n" : "") +
+                                    "ETag: " + rendered.etag());
+                }
+            }
+        }
+        if (rendered.stale()) {
+            return http.parseResponse(
+                    "HTTP/1.1 200 OK\r\n" +
+                            "Content-Type: application/json\r\n" +
+                            "ETag: " + rendered.etag() + "\r\n" +
+                            "Warning: " + STALE_WARNING + "\r\n" +
+                            "Content-Length: " + rendered.json().getBytes().length
+            ).withBody(new StringBody(rendered.json()));
+        }
+        return createJsonResponse(200, "OK", rendered.json(), rendered.etag());
     }
 
     private RawHttpResponse<?> createDeveloper(RawHttpRequest request) throws IOException {
@@ -98,46 +239,174 @@ public class DeveloperController implements Controller {
             Developer newDeveloper = objectMapper.readValue(jsonBody, DeveloperImpl.class);
             newDeveloper.setId(0);
             Developer savedDeveloper = repository.save(newDeveloper);
+            invalidateResponses(savedDeveloper.getId());
             String responseJson = objectMapper.writeValueAsString(savedDeveloper);
-            return createJsonResponse(201, "Created", responseJson);
+            return createJsonResponse(201, "Created", responseJson, savedDeveloper.getVersion());
         } catch (JsonProcessingException e) {
             throw new BadRequestException("Invalid JSON format: " + e.getMessage());
         }
     }
 
     private RawHttpResponse<?> updateDeveloper(int id, RawHttpRequest request) throws IOException {
-        if (!repository.existsById(id)) {
-            throw new NotFoundException("Developer", id);
-        }
         try {
             String jsonBody = request.getBody().orElseThrow().decodeBodyToString(StandardCharsets.UTF_8);
             Developer updatedData = objectMapper.readValue(jsonBody, DeveloperImpl.class);
             updatedData.setId(id);
+            // The version of the body, if any, is ignored: the precondition is the If-Match header
+            updatedData.setVersion(parseIfMatch(request).orElseThrow(() -> new PreconditionRequiredException(
+                    "Updating a developer requires an If-Match header with its ETag")));
             Developer savedDeveloper = repository.save(updatedData);
+            invalidateResponses(id);
             String responseJson = objectMapper.writeValueAsString(savedDeveloper);
-            return createJsonResponse(200, "OK", responseJson);
+            return createJsonResponse(200, "OK", responseJson, savedDeveloper.getVersion());
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("Invalid JSON format: " + e.getMessage());
+        } catch (VersionConflictException e) {
+            if (e.isMissing()) {
+                throw new NotFoundException("Developer", id);
+            }
+            throw new PreconditionFailedException(e.getMessage());
+        }
+    }
+
+    private RawHttpResponse<?> patchDeveloper(int id, RawHttpRequest request) throws IOException {
+        try {
+            String jsonBody = request.getBody().orElseThrow().decodeBodyToString(StandardCharsets.UTF_8);
+            DeveloperPatch patch = parseMergePatch(objectMapper.readTree(jsonBody));
+            parseIfMatch(request).ifPresent(patch::expectedVersion);
+            Developer patchedDeveloper = repository.patch(id, patch)
+                    .orElseThrow(() -> new NotFoundException("Developer", id));
+            invalidateResponses(id);
+            String responseJson = objectMapper.writeValueAsString(patchedDeveloper);
+            return createJsonResponse(200, "OK", responseJson, patchedDeveloper.getVersion());
         } catch (JsonProcessingException e) {
             throw new BadRequestException("Invalid JSON format: " + e.getMessage());
+        } catch (VersionConflictException e) {
+            if (e.isMissing()) {
+                throw new NotFoundException("Developer", id);
+            }
+            throw new PreconditionFailedException(e.getMessage());
+        }
+    }
+
+    /**
+     * Converts a JSON Merge Patch (RFC 7396) into a {@link DeveloperPatch}. Members that are
+     * absent keep their value and {@code null} members are cleared; {@code version} makes the
+     * patch conditional, like {@code If-Match}.
+     */
+    private DeveloperPatch parseMergePatch(JsonNode json) {
+        if (json == null || !json.isObject()) {
+            throw new BadRequestException("A merge patch must be a JSON object");
+        }
+        DeveloperPatch patch = new DeveloperPatch();
+        Iterator<Map.Entry<String, JsonNode>> fields = json.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode value = field.getValue();
+            switch (field.getKey()) {
+                case "name" -> {
+                    if (!value.isTextual() || value.asText().isBlank()) {
+                        throw new BadRequestException("Developer name cannot be null or empty");
+                    }
+                    patch.name(value.asText());
+                }
+                case "country" -> {
+                    if (!value.isNull() && !value.isTextual()) {
+                        throw new BadRequestException("Country must be a string");
+                    }
+                    patch.country(value.isNull() ? null : value.asText());
+                }
+                case "foundationYear" -> {
+                    if (!value.isNull() && !value.isInt()) {
+                        throw new BadRequestException("Foundation year must be an integer");
+                    }
+                    patch.foundationYear(value.isNull() ? null : value.asInt());
+                }
+                case "version" -> {
+                    if (!value.isInt()) {
+                        throw new BadRequestException("Version must be an integer");
+                    }
+                    patch.expectedVersion(value.asInt());
+                }
+                case "id" -> {
+                    // The ID is taken from the URI.
+                }
+                default -> throw new BadRequestException("Unknown developer field: " + field.getKey());
+            }
+        }
+        return patch;
+    }
+
+    /**
+     * Reads the version a conditional request is based on from its {@code If-Match} header,
+     * which holds an {@code ETag} returned by this controller.
+     */
+    private Optional<Integer> parseIfMatch(RawHttpRequest request) {
+        Optional<String> ifMatch = request.getHeaders().getFirst("If-Match");
+        if (ifMatch.isEmpty()) {
+            return Optional.empty();
+        }
+        String tag = ifMatch.get().trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new BadRequestException("Invalid If-Match header: " + ifMatch.get());
+        }
+        try {
+            return Optional.of(Integer.parseInt(tag.substring(1, tag.length() - 1)));
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid If-Match header: " + ifMatch.get());
         }
     }
 
     private RawHttpResponse<?> deleteDeveloper(int id) {
-        if (!repository.existsById(id)) {
+        if (!repository.deleteById(id)) {
             throw new NotFoundException("Developer", id);
         }
-        repository.deleteById(id);
+        invalidateResponses(id);
+        synchronized (lastKnown) {
+            lastKnown.remove(ResponseCache.route(RESOURCE, id));
+            lastKnown.remove(RESOURCE);
+        }
         return http.parseResponse("HTTP/1.1 204 No Content");
     }
 
+    private void invalidateResponses(int id) {
+        String route = ResponseCache.route(RESOURCE, id);
+        reads.forget(route);
+        reads.forget(RESOURCE);
+        if (responseCache != null) {
+            responseCache.invalidate(route);
+            responseCache.invalidate(RESOURCE);
+        }
+    }
+
     private RawHttpResponse<?> throwMethodNotAllowed(String method) {
         throw new MethodNotAllowedException(method);
     }
 
-    private RawHttpResponse<?> createJsonResponse(int code, String status, String jsonBody) {
+    private RawHttpResponse<?> createJsonResponse(int code, String status, String jsonBody, int version) {
+        return createJsonResponse(code, status, jsonBody, "\"" + version + "\"");
+    }
+
+    private RawHttpResponse<?> createJsonResponse(int code, String status, String jsonBody, String etag) {
         return http.parseResponse(
                 "HTTP/1.1 " + code + " " + status + "\r\n" +
                         "Content-Type: application/json\r\n" +
+                        "ETag: " + etag + "\r\n" +
                         "Content-Length: " + jsonBody.getBytes().length
         ).withBody(new StringBody(jsonBody));
     }
+
+    /**
+     * A developer or list serialized once and shared by the requests coalesced on it.
+     * A stale one is a last known copy served while the database is unavailable.
+     */
+    private record RenderedJson(String json, String etag, boolean stale) {
+
+        RenderedJson(String json, String etag) {
+            this(json, etag, false);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,169 @@
+package cat.uvic.teknos.dam.kamika.server.controllers;
+
+import cat.uvic.teknos.dam.kamika.repositories.caching.CacheStats;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.filters.IdFilter;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.filters.IdFilters;
+import cat.uvic.teknos.dam.kamika.server.cache.HeavyHitters;
+import cat.uvic.teknos.dam.kamika.server.exceptions.BadRequestException;
+import cat.uvic.teknos.dam.kamika.server.exceptions.MethodNotAllowedException;
+import cat.uvic.teknos.dam.kamika.server.exceptions.NotFoundException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import rawhttp.core.RawHttp;
+import rawhttp.core.RawHttpRequest;
+import rawhttp.core.RawHttpResponse;
+import rawhttp.core.body.StringBody;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Implements the {@link Controller} for the server's runtime metrics.
+ * {@code GET /stats/id-filters} reports, for every filtered table, the size, memory use and
+ * false-positive rates of its ID filter, and {@code GET /stats/caches} the hits, misses and
+ * evictions of every repository and response cache.
+ * {@code GET /stats/top?resource=games&k=50} lists the IDs of a resource read most often, when
+ * a {@link HeavyHitters} tracker is set.
+ * @author Montse
+ * @version 2.0.0
+ */
+public class StatsController implements Controller {
+
+    private static final int DEFAULT_TOP = 10;
+
+    private final IdFilters idFilters;
+    private final Map<String, Supplier<CacheStats>> caches;
+    private final ObjectMapper objectMapper;
+    private final RawHttp http;
+    private HeavyHitters heavyHitters;
+
+    /**
+     * Constructs a new StatsController.
+     *
+     * @param idFilters The ID filters used by the repositories.
+     * @param objectMapper The mapper for converting the metrics to JSON.
+     */
+    public StatsController(IdFilters idFilters, ObjectMapper objectMapper) {
+        this(idFilters, Map.of(), objectMapper);
+    }
+
+    /**
+     * Constructs a new StatsController that also reports repository caches.
+     *
+     * @param idFilters The ID filters used by the repositories.
+     * @param caches The statistics of each repository cache, by name.
+     * @param objectMapper The mapper for converting the metrics to JSON.
+     */
+    public StatsController(IdFilters idFilters, Map<String, Supplier<CacheStats>> caches, ObjectMapper objectMapper) {
+        this.idFilters = idFilters;
+        this.caches = caches;
+        this.objectMapper = objectMapper;
+        this.http = new RawHttp();
+    }
+
+    /**
+     * Sets the tracker of the items read most, reported under {@code /stats/top}.
+     *
+     * @param heavyHitters The tracker, or {@code null} if reads are not tracked.
+     */
+    public void setHeavyHitters(HeavyHitters heavyHitters) {
+        this.heavyHitters = heavyHitters;
+    }
+
+    /**
+     * Handles a request for one of the metrics resources.
+     *
+     * @param request The incoming HTTP request.
+     * @return The metrics as JSON.
+     * @throws IOException if the metrics cannot be serialized.
+     * @throws NotFoundException if the metrics resource does not exist.
+     * @throws BadRequestException if the query of {@code /stats/top} is invalid.
+     * @throws MethodNotAllowedException if the method is not GET.
+     */
+    @Override
+    public RawHttpResponse<?> handle(RawHttpRequest request) throws IOException {
+        if (!"GET".equalsIgnoreCase(request.getMethod())) {
+            throw new MethodNotAllowedException(request.getMethod());
+        }
+
+        String[] pathParts = request.getUri().getPath().split("/");
+        String resource = pathParts.length > 2 ? pathParts[2] : "";
+        if (resource.equals("id-filters")) {
+            return createJsonResponse(objectMapper.writeValueAsString(getIdFilterStats()));
+        }
+        if (resource.equals("caches")) {
+            return createJsonResponse(objectMapper.writeValueAsString(getCacheStats()));
+        }
+        if (resource.equals("top") && heavyHitters != null) {
+            return createJsonResponse(objectMapper.writeValueAsString(getTop(request.getUri().getQuery())));
+        }
+        throw new NotFoundException("Unknown stats resource: " + resource);
+    }
+
+    private Map<String, Map<String, Object>> getIdFilterStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        for (IdFilter filter : idFilters.getAll().values()) {
+            Map<String, Object> table = new LinkedHashMap<>();
+            table.put("loaded", filter.isLoaded());
+            table.put("size", filter.getSize());
+            table.put("memoryBytes", filter.getMemoryBytes());
+            table.put("expectedFalsePositiveRate", filter.getExpectedFalsePositiveRate());
+            table.put("observedFalsePositiveRate", filter.getObservedFalsePositiveRate());
+            table.put("definiteMisses", filter.getDefiniteMisses());
+            table.put("falsePositives", filter.getFalsePositives());
+            stats.put(filter.getTable().getTable(), table);
+        }
+        return stats;
+    }
+
+    private Map<String, Map<String, Object>> getCacheStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        caches.forEach((name, supplier) -> {
+            CacheStats cache = supplier.get();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("size", cache.size());
+            entry.put("hits", cache.hits());
+            entry.put("misses", cache.misses());
+            entry.put("hitRate", cache.hitRate());
+            entry.put("evictions", cache.evictions());
+            stats.put(name, entry);
+        });
+        return stats;
+    }
+
+    private List<HeavyHitters.Hitter> getTop(String query) {
+        String topResource = null;
+        int k = DEFAULT_TOP;
+        for (String parameter : query == null ? new String[0] : query.split("&")) {
+            String[] pair = parameter.split("=", 2);
+            String value = pair.length > 1 ? pair[1] : "";
+            if (pair[0].equals("resource")) {
+                topResource = value.toLowerCase(Locale.ROOT);
+            } else if (pair[0].equals("k")) {
+                try {
+                    k = Integer.parseInt(value);
+                } catch (NumberFormatException e) {
+                    throw new BadRequestException("k must be an integer");
+                }
+                if (k < 1) {
+                    throw new BadRequestException("k must be positive");
+                }
+            }
+        }
+        if (topResource == null || topResource.isEmpty()) {
+            throw new BadRequestException("The resource parameter is required");
+        }
+        return heavyHitters.top(topResource, k);
+    }
+
+    private RawHttpResponse<?> createJsonResponse(String jsonBody) {
+        return http.parseResponse(
+                "HTTP/1.1 200 OK\r\n" +
+                        "Content-Type: application/json\r\n" +
+                        "Content-Length: " + jsonBody.getBytes().length
+        ).withBody(new StringBody(jsonBody));
+    }
+}
@@ -0,0 +1,21 @@
+package cat.uvic.teknos.dam.kamika.server.exceptions;
+
+/**
+ * Exception thrown when a conditional request does not match the current state of the resource,
+ * e.g. an {@code If-Match} version that is no longer current.
+ * This typically corresponds to HTTP 412 status code.
+ *
+ * @author Montse
+ * @version 2.0.0
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+    /**
+     * Constructs a new PreconditionFailedException with the specified detail message.
+     *
+     * @param message the detail message explaining which precondition failed
+     */
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
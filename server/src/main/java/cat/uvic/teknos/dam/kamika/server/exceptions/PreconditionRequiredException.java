@@ -0,0 +1,21 @@
+package cat.uvic.teknos.dam.kamika.server.exceptions;
+
+/**
+ * Exception thrown when a request that must be conditional carries no precondition,
+ * e.g. an update without an {@code If-Match} header.
+ * This typically corresponds to HTTP 428 status code.
+ *
+ * @author Montse
+ * @version 2.0.0
+ */
+public class PreconditionRequiredException extends RuntimeException {
+
+    /**
+     * Constructs a new PreconditionRequiredException with the specified detail message.
+     *
+     * @param message the detail message explaining which precondition is missing
+     */
+    public PreconditionRequiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,182 @@
+package cat.uvic.teknos.dam.kamika.server;
+
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.DataSource;
+import cat.uvic.teknos.dam.kamika.repositories.jdbc.datasources.RoutingDataSource;
+import cat.uvic.teknos.dam.kamika.server.cache.HeavyHitters;
+import cat.uvic.teknos.dam.kamika.server.cache.ResponseCache;
+import cat.uvic.teknos.dam.kamika.server.router.RequestRouter;
+import org.junit.jupiter.api.Test;
+import rawhttp.core.RawHttp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientHandlerTest {
+
+    private static final RawHttp HTTP = new RawHttp();
+
+    private static final InetAddress CLIENT = address(10, 0, 0, 1);
+    private static final InetAddress OTHER_CLIENT = address(10, 0, 0, 2);
+
+    private final RoutingDataSource routing = new RoutingDataSource(database("primary"),
+            List.of(database("replica")), 60_000);
+    private final List<String> reads = new CopyOnWriteArrayList<>();
+
+    @Test
+    void clientReadsItsWriteOnItsNextConnection() throws Exception {
+        RequestRouter router = writingAndReadingRouter();
+
+        serve(router, CLIENT, "POST /developers HTTP/1.1\r\nHost: localhost\r\nContent-Length: 2\r\n\r\n{}");
+        // A new connection, served by another pooled thread
+        Thread reader = new Thread(() -> serve(router, CLIENT, "GET /developers/1 HTTP/1.1\r\nHost: localhost\r\n\r\n"));
+        reader.start();
+        reader.join();
+        serve(router, OTHER_CLIENT, "GET /developers/1 HTTP/1.1\r\nHost: localhost\r\n\r\n");
+
+        assertEquals(List.of("primary", "replica"), reads);
+    }
+
+    @Test
+    void servingThreadIsNotLeftActingForTheClient() {
+        RequestRouter router = writingAndReadingRouter();
+
+        String response = serve(router, CLIENT, "DELETE /developers/1 HTTP/1.1\r\nHost: localhost\r\n\r\n");
+
+        assertTrue(response.startsWith("HTTP/1.1 204"));
+        assertFalse(routing.isSticky());
+        routing.bindCaller(CLIENT);
+        assertTrue(routing.isSticky());
+        routing.unbindCaller();
+    }
+
+    @Test
+    void windowIsStartedEvenIfTheRequestFails() {
+        var router = new RequestRouter();
+        router.addController("developers", request -> {
+            routing.getConnection().close();
+            throw new IllegalStateException("Broken");
+        });
+
+        String response = serve(router, CLIENT, "POST /developers HTTP/1.1\r\nHost: localhost\r\n\r\n");
+
+        assertTrue(response.startsWith("HTTP/1.1 500"));
+        routing.bindCaller(CLIENT);
+        assertTrue(routing.isSticky());
+        routing.unbindCaller();
+    }
+
+    @Test
+    void itemIsOnlyCachedOnceTheHeavyHittersAdmitIt() throws Exception {
+        AtomicInteger renders = new AtomicInteger();
+        var router = new RequestRouter();
+        router.addController("developers", request -> {
+            renders.incrementAndGet();
+            return HTTP.parseResponse("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: 2\r\n\r\n{}");
+        });
+        var responseCache = new ResponseCache(10);
+        responseCache.addResource("developers");
+        var handler = new ClientHandler(null, router, new AtomicInteger());
+        handler.setResponseCache(responseCache);
+        handler.setHeavyHitters(new HeavyHitters(HeavyHitters.DEFAULT_CAPACITY));
+
+        for (int i = 0; i < 3; i++) {
+            var out = new ByteArrayOutputStream();
+            handler.process(HTTP.parseRequest("GET /developers/7 HTTP/1.1\r\nHost: localhost\r\n\r\n"), out);
+            assertTrue(out.toString(StandardCharsets.UTF_8).startsWith("HTTP/1.1 200"));
+        }
+
+        // Read once, not admitted; read twice, cached; then served from the cache
+        assertEquals(2, renders.get());
+        assertEquals(1, responseCache.getStats().hits());
+    }
+
+    /**
+     * Writes with {@code POST} and {@code DELETE}, and records where each {@code GET} read from.
+     */
+    private RequestRouter writingAndReadingRouter() {
+        var router = new RequestRouter();
+        router.addController("developers", request -> {
+            if (request.getMethod().equals("GET")) {
+                try (Connection connection = routing.getReadConnection()) {
+                    reads.add(connection.toString());
+                }
+                return HTTP.parseResponse("HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\n{}");
+            }
+            routing.getConnection().close();
+            return HTTP.parseResponse("HTTP/1.1 204 No Content\r\n\r\n");
+        });
+        return router;
+    }
+
+    private String serve(RequestRouter router, InetAddress client, String request) {
+        var socket = new FakeSocket(client, request);
+        var handler = new ClientHandler(socket, router, new AtomicInteger());
+        handler.setRoutingDataSource(routing);
+        handler.run();
+        return socket.response();
+    }
+
+    /**
+     * Connections whose {@code toString()} is the name of the database they belong to.
+     */
+    private static DataSource database(String name) {
+        return () -> (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> method.getName().equals("toString") ? name : null);
+    }
+
+    private static InetAddress address(int... bytes) {
+        try {
+            return InetAddress.getByAddress(new byte[]{(byte) bytes[0], (byte) bytes[1], (byte) bytes[2], (byte) bytes[3]});
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * A socket connected to the given client that reads the given request and records the response.
+     */
+    private static final class FakeSocket extends Socket {
+
+        private final InetAddress client;
+        private final InputStream in;
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        FakeSocket(InetAddress client, String request) {
+            this.client = client;
+            this.in = new ByteArrayInputStream(request.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public InetAddress getInetAddress() {
+            return client;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return in;
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return out;
+        }
+
+        String response() {
+            return out.toString(StandardCharsets.UTF_8);
+        }
+    }
+}
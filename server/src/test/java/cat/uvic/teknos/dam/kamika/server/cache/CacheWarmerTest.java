@@ -0,0 +1,71 @@
+package cat.uvic.teknos.dam.kamika.server.cache;
+
+import cat.uvic.teknos.dam.kamika.server.router.RequestRouter;
+import org.junit.jupiter.api.Test;
+import rawhttp.core.RawHttp;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheWarmerTest {
+
+    private static final RawHttp HTTP = new RawHttp();
+
+    private final ResponseCache responseCache = new ResponseCache(10);
+    private final List<String> replayed = new CopyOnWriteArrayList<>();
+
+    @Test
+    void replayedRoutesFillTheResponseCache() {
+        var warmer = new CacheWarmer(router(), responseCache);
+
+        int warmed = warmer.warmUp(List.of("developers/1", "developers", "developers/2"), 2, 5_000);
+
+        assertEquals(3, warmed);
+        assertNotNull(responseCache.get("developers/1"));
+        assertNotNull(responseCache.get("developers"));
+        assertNotNull(responseCache.get("developers/2"));
+        assertEquals(3, responseCache.getStats().size());
+    }
+
+    @Test
+    void replayStopsWhenTheBudgetRunsOut() {
+        var warmer = new CacheWarmer(router(), responseCache);
+        long start = System.nanoTime();
+
+        // developers/99 blocks the only thread until it is cancelled
+        int warmed = warmer.warmUp(List.of("developers/1", "developers/2", "developers/99", "developers/3"), 1, 300);
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "Warm-up outlived its budget");
+        assertEquals(2, warmed);
+        assertEquals(List.of("/developers/1", "/developers/2", "/developers/99"), replayed);
+        assertNotNull(responseCache.get("developers/1"));
+        assertNotNull(responseCache.get("developers/2"));
+        assertNull(responseCache.get("developers/99"));
+        assertNull(responseCache.get("developers/3"));
+    }
+
+    @Test
+    void noRoutesReplayNothing() {
+        assertEquals(0, new CacheWarmer(router(), responseCache).warmUp(List.of(), 4, 1_000));
+    }
+
+    /**
+     * Answers every read of a developer, except {@code developers/99}, which takes a minute.
+     */
+    private RequestRouter router() {
+        responseCache.addResource("developers");
+        var router = new RequestRouter();
+        router.addController("developers", request -> {
+            String path = request.getUri().getPath();
+            replayed.add(path);
+            if (path.endsWith("/99")) {
+                Thread.sleep(60_000);
+            }
+            return HTTP.parseResponse("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: 2\r\n\r\n{}");
+        });
+        return router;
+    }
+}
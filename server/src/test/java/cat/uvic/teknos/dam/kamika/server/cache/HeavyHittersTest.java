@@ -0,0 +1,110 @@
+package cat.uvic.teknos.dam.kamika.server.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeavyHittersTest {
+
+    private final HeavyHitters heavyHitters = new HeavyHitters(HeavyHitters.DEFAULT_CAPACITY);
+
+    @Test
+    void topMergesTheStripesMostReadFirst() {
+        for (int id = 1; id <= 40; id++) {
+            for (int read = 0; read < id; read++) {
+                heavyHitters.record("games", id);
+            }
+        }
+
+        List<HeavyHitters.Hitter> top = heavyHitters.top("games", 5);
+
+        assertEquals(List.of(new HeavyHitters.Hitter(40, 40, 0), new HeavyHitters.Hitter(39, 39, 0),
+                new HeavyHitters.Hitter(38, 38, 0), new HeavyHitters.Hitter(37, 37, 0),
+                new HeavyHitters.Hitter(36, 36, 0)), top);
+        assertEquals(40, heavyHitters.top("games", 100).size());
+    }
+
+    @Test
+    void resourcesAreTrackedSeparately() {
+        heavyHitters.record("games", 7);
+        heavyHitters.record("developers", 7);
+        heavyHitters.record("developers", 7);
+
+        assertEquals(1, heavyHitters.estimate("games", 7));
+        assertEquals(2, heavyHitters.estimate("developers", 7));
+        assertEquals(0, heavyHitters.estimate("publishers", 7));
+        assertEquals(List.of(), heavyHitters.top("publishers", 10));
+    }
+
+    @Test
+    void onlyPathsOfASingleItemAreRecorded() {
+        heavyHitters.record("/games/7");
+        heavyHitters.record("/Games/07/");
+        heavyHitters.record("/games");
+        heavyHitters.record("/games/abc");
+        heavyHitters.record("/");
+
+        assertEquals(List.of(new HeavyHitters.Hitter(7, 2, 0)), heavyHitters.top("games", 10));
+    }
+
+    @Test
+    void itemsAreAdmittedOnceReadEnough() {
+        assertTrue(heavyHitters.admits("/developers"));
+        assertFalse(heavyHitters.admits("/developers/7"));
+
+        heavyHitters.record("/developers/7");
+        assertFalse(heavyHitters.admits("/developers/7"));
+        heavyHitters.record("/developers/7");
+        assertTrue(heavyHitters.admits("/developers/7"));
+
+        heavyHitters.setAdmissionReads(1);
+        heavyHitters.record("/developers/8");
+        assertTrue(heavyHitters.admits("/developers/8"));
+    }
+
+    @Test
+    void concurrentReadsAreAllCounted() throws Exception {
+        int threads = 4;
+        int rounds = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                readers.add(executor.submit(() -> {
+                    for (int round = 0; round < rounds; round++) {
+                        for (int id = 1; id <= 50; id++) {
+                            heavyHitters.record("games", id);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> reader : readers) {
+                reader.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<HeavyHitters.Hitter> top = heavyHitters.top("games", 100);
+        Set<Integer> ids = new HashSet<>();
+        for (HeavyHitters.Hitter hitter : top) {
+            assertEquals(threads * rounds, hitter.count());
+            ids.add(hitter.id());
+        }
+        assertEquals(50, ids.size());
+    }
+
+    @Test
+    void capacityMustCoverEveryStripe() {
+        assertThrows(IllegalArgumentException.class, () -> new HeavyHitters(8));
+    }
+}
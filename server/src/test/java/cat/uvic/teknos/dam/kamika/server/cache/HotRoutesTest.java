@@ -0,0 +1,94 @@
+package cat.uvic.teknos.dam.kamika.server.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotRoutesTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void savedRoutesAreLoadedHottestFirst() throws IOException {
+        Path file = directory.resolve("hot-routes.txt");
+        var hotRoutes = new HotRoutes(file, HotRoutes.DEFAULT_MAXIMUM_ROUTES);
+        record(hotRoutes, "/developers/07/", 3);
+        record(hotRoutes, "/games", 5);
+        record(hotRoutes, "/Publishers/2", 1);
+        record(hotRoutes, "/games/abc", 9);
+
+        hotRoutes.save();
+
+        assertEquals(List.of("5 games", "3 developers/7", "1 publishers/2"), Files.readAllLines(file));
+        assertEquals(List.of("games", "developers/7", "publishers/2"),
+                new HotRoutes(file, HotRoutes.DEFAULT_MAXIMUM_ROUTES).load());
+    }
+
+    @Test
+    void corruptedLinesAreSkipped() throws IOException {
+        Path file = directory.resolve("hot-routes.txt");
+        var hotRoutes = new HotRoutes(file, HotRoutes.DEFAULT_MAXIMUM_ROUTES);
+        record(hotRoutes, "/games/1", 2);
+        hotRoutes.save();
+        Files.writeString(file, "garbage\n\n4 games/abc\n2 developers/1/2\n1 consoles\n",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        assertEquals(List.of("games/1", "consoles"), hotRoutes.load());
+    }
+
+    @Test
+    void missingFileLoadsNothing() {
+        assertEquals(List.of(), new HotRoutes(directory.resolve("missing.txt"), 10).load());
+    }
+
+    @Test
+    void saveKeepsTheHottestRoutesAndHalvesTheirCounts() throws IOException {
+        Path file = directory.resolve("hot-routes.txt");
+        var hotRoutes = new HotRoutes(file, 2);
+        record(hotRoutes, "/games/1", 8);
+        record(hotRoutes, "/games/2", 4);
+        record(hotRoutes, "/games/3", 2);
+
+        hotRoutes.save();
+
+        assertEquals(List.of("8 games/1", "4 games/2"), Files.readAllLines(file));
+        assertEquals(List.of(Map.entry("games/1", 4L), Map.entry("games/2", 2L)), hotRoutes.top(10));
+
+        // Old traffic fades, so a route read more since the last save overtakes it
+        record(hotRoutes, "/games/3", 5);
+        hotRoutes.save();
+
+        assertEquals(List.of("5 games/3", "4 games/1"), Files.readAllLines(file));
+    }
+
+    @Test
+    void newRoutesAreIgnoredOnceTheTrackedRoutesAreFull() {
+        var hotRoutes = new HotRoutes(directory.resolve("hot-routes.txt"), 1);
+        for (int id = 1; id <= 15; id++) {
+            hotRoutes.record("/games/" + id);
+        }
+        hotRoutes.record("/games/1");
+
+        List<Map.Entry<String, Long>> tracked = hotRoutes.top(100);
+
+        assertEquals(10, tracked.size());
+        assertEquals(Map.entry("games/1", 2L), tracked.getFirst());
+        assertTrue(tracked.stream().noneMatch(route -> route.getKey().equals("games/11")));
+    }
+
+    private static void record(HotRoutes hotRoutes, String path, int reads) {
+        for (int i = 0; i < reads; i++) {
+            hotRoutes.record(path);
+        }
+    }
+}
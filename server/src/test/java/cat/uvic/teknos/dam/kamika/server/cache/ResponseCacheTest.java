@@ -0,0 +1,150 @@
+package cat.uvic.teknos.dam.kamika.server.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rawhttp.core.RawHttp;
+import rawhttp.core.RawHttpRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheTest {
+
+    private static final RawHttp HTTP = new RawHttp();
+
+    private final ResponseCache cache = new ResponseCache(2);
+
+    @BeforeEach
+    void addResources() {
+        cache.addResource("Developers");
+    }
+
+    @Test
+    void responseRenderedDuringAWriteIsNeverServed() {
+        long version = cache.version();
+
+        // A PUT commits while the GET is still rendering the old developer
+        cache.invalidate("developers/7");
+        cache.put("developers/7", version, bytes("old"));
+
+        assertNull(cache.get("developers/7"));
+        assertEquals(0, cache.getStats().size());
+    }
+
+    @Test
+    void responseCachedBeforeAWriteIsNotServedAfterIt() {
+        cache.put("developers/7", cache.version(), bytes("old"));
+        assertArrayEquals(bytes("old"), cache.get("developers/7"));
+
+        cache.invalidate("developers/7");
+
+        assertNull(cache.get("developers/7"));
+        long version = cache.version();
+        cache.put("developers/7", version, bytes("new"));
+        assertArrayEquals(bytes("new"), cache.get("developers/7"));
+    }
+
+    @Test
+    void writesOnlyInvalidateTheirRoute() {
+        cache.put("developers", cache.version(), bytes("list"));
+        cache.put("developers/7", cache.version(), bytes("7"));
+
+        cache.invalidate("developers/7");
+
+        assertArrayEquals(bytes("list"), cache.get("developers"));
+    }
+
+    @Test
+    void responseRenderedDuringAWriteToAnotherRouteIsRenderedAgain() {
+        long version = cache.version();
+
+        cache.invalidate("developers/8");
+        cache.put("developers/7", version, bytes("7"));
+        assertNull(cache.get("developers/7"));
+
+        cache.put("developers/7", cache.version(), bytes("7"));
+        assertArrayEquals(bytes("7"), cache.get("developers/7"));
+    }
+
+    @Test
+    void leastRecentlyUsedResponseIsEvicted() {
+        cache.put("developers/1", 0, bytes("1"));
+        cache.put("developers/2", 0, bytes("2"));
+        cache.get("developers/1");
+
+        cache.put("developers/3", 0, bytes("3"));
+
+        assertNotNull(cache.get("developers/1"));
+        assertNull(cache.get("developers/2"));
+        assertEquals(1, cache.getStats().evictions());
+        assertEquals(2, cache.getStats().size());
+    }
+
+    @Test
+    void hitsAndMissesAreCounted() {
+        cache.get("developers/1");
+        cache.put("developers/1", 0, bytes("1"));
+        cache.get("developers/1");
+        cache.get("developers/1");
+
+        assertEquals(2, cache.getStats().hits());
+        assertEquals(1, cache.getStats().misses());
+    }
+
+    @Test
+    void plainGetsOfARegisteredResourceAreCached() {
+        assertEquals("developers", cache.routeOf(request("GET /developers HTTP/1.1")));
+        assertEquals("developers/7", cache.routeOf(request("GET /Developers/07/ HTTP/1.1")));
+    }
+
+    @Test
+    void writesAreNotCached() {
+        for (String method : new String[]{"POST", "PUT", "PATCH", "DELETE", "HEAD"}) {
+            assertNull(cache.routeOf(request(method + " /developers/7 HTTP/1.1")), method);
+        }
+    }
+
+    @Test
+    void requestsWithAQueryStringAreNotCached() {
+        assertNull(cache.routeOf(request("GET /developers?sort=name HTTP/1.1")));
+        assertNull(cache.routeOf(request("GET /developers/7?fields=name HTTP/1.1")));
+    }
+
+    @Test
+    void conditionalRequestsAreNotCached() {
+        assertNull(cache.routeOf(request("GET /developers/7 HTTP/1.1\r\nIf-None-Match: \"3\"")));
+    }
+
+    @Test
+    void otherPathsAreNotCached() {
+        assertNull(cache.routeOf(request("GET /games/1 HTTP/1.1")));
+        assertNull(cache.routeOf(request("GET /developers/abc HTTP/1.1")));
+        assertNull(cache.routeOf(request("GET /developers/7/games HTTP/1.1")));
+        assertNull(cache.routeOf(request("GET / HTTP/1.1")));
+    }
+
+    @Test
+    void routesDoNotDependOnTheDefaultLocale() {
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+        try {
+            var cache = new ResponseCache(10);
+            cache.addResource("PUBLISHERS");
+
+            assertEquals("publishers/1", ResponseCache.canonicalRoute("/PUBLISHERS/1"));
+            assertEquals("publishers", cache.routeOf(request("GET /Publishers HTTP/1.1")));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    private static RawHttpRequest request(String head) {
+        return HTTP.parseRequest(head + "\r\nHost: localhost\r\n\r\n");
+    }
+
+    private static byte[] bytes(String response) {
+        return response.getBytes(StandardCharsets.UTF_8);
+    }
+}
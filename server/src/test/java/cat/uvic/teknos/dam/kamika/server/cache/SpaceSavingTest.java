@@ -0,0 +1,99 @@
+package cat.uvic.teknos.dam.kamika.server.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceSavingTest {
+
+    @Test
+    void heapStaysConsistentWhileIdsAreReplaced() {
+        var summary = new SpaceSaving(16);
+        var random = new Random(42);
+
+        for (int i = 0; i < 10_000; i++) {
+            summary.offer(skewedId(random));
+            assertTrue(summary.isConsistent(), "Inconsistent after offer " + i);
+        }
+    }
+
+    @Test
+    void unmonitoredIdReplacesTheLowestCountAndInheritsItAsError() {
+        var summary = new SpaceSaving(2);
+        summary.offer(1);
+        summary.offer(1);
+        summary.offer(2);
+
+        summary.offer(3);
+
+        assertEquals(2, summary.estimate(1));
+        assertEquals(0, summary.estimate(2));
+        assertEquals(2, summary.estimate(3));
+        assertEquals(new HeavyHitters.Hitter(3, 2, 1), hitter(summary.top(2), 3));
+        assertEquals(new HeavyHitters.Hitter(1, 2, 0), hitter(summary.top(2), 1));
+    }
+
+    @Test
+    void countsStayWithinTheirErrorOfTheTrueCounts() {
+        int capacity = 50;
+        int offers = 20_000;
+        var summary = new SpaceSaving(capacity);
+        Map<Integer, Long> exact = new HashMap<>();
+        var random = new Random(7);
+        for (int i = 0; i < offers; i++) {
+            int id = skewedId(random);
+            summary.offer(id);
+            exact.merge(id, 1L, Long::sum);
+        }
+
+        List<HeavyHitters.Hitter> monitored = summary.top(capacity);
+        assertEquals(capacity, monitored.size());
+        long total = 0;
+        for (HeavyHitters.Hitter hitter : monitored) {
+            long trueCount = exact.get(hitter.id());
+            assertTrue(hitter.count() >= trueCount, hitter + " below its " + trueCount + " reads");
+            assertTrue(hitter.count() - hitter.error() <= trueCount, hitter + " above its " + trueCount + " reads");
+            assertTrue(hitter.error() <= offers / capacity, hitter + " with an error above n / capacity");
+            total += hitter.count();
+        }
+        // Every offer adds exactly one to one count
+        assertEquals(offers, total);
+        // Any ID read more than n / capacity times is monitored
+        exact.forEach((id, reads) -> {
+            if (reads > offers / capacity) {
+                assertTrue(summary.estimate(id) >= reads, "Heavy ID " + id + " was lost");
+            }
+        });
+    }
+
+    @Test
+    void topIsSortedByCountAndLimited() {
+        var summary = new SpaceSaving(10);
+        for (int id = 1; id <= 5; id++) {
+            for (int read = 0; read < id; read++) {
+                summary.offer(id);
+            }
+        }
+
+        List<HeavyHitters.Hitter> top = summary.top(3);
+
+        assertEquals(List.of(5, 4, 3), top.stream().map(HeavyHitters.Hitter::id).toList());
+        assertEquals(5, summary.top(10).size());
+    }
+
+    /**
+     * Returns IDs between 0 and 999, lower IDs being much more likely.
+     */
+    private static int skewedId(Random random) {
+        return random.nextInt(random.nextInt(1_000) + 1);
+    }
+
+    private static HeavyHitters.Hitter hitter(List<HeavyHitters.Hitter> hitters, int id) {
+        return hitters.stream().filter(hitter -> hitter.id() == id).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,303 @@
+package cat.uvic.teknos.dam.kamika.server.controllers;
+
+import cat.uvic.teknos.dam.kamika.model.Developer;
+import cat.uvic.teknos.dam.kamika.model.impl.DeveloperImpl;
+import cat.uvic.teknos.dam.kamika.repositories.DeveloperRepository;
+import cat.uvic.teknos.dam.kamika.repositories.exceptions.VersionConflictException;
+import cat.uvic.teknos.dam.kamika.repositories.resilience.CircuitBreaker;
+import cat.uvic.teknos.dam.kamika.repositories.resilience.CircuitBreakingDeveloperRepository;
+import cat.uvic.teknos.dam.kamika.server.ClientHandler;
+import cat.uvic.teknos.dam.kamika.server.router.RequestRouter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rawhttp.core.RawHttp;
+import rawhttp.core.RawHttpResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sends requests through a {@link ClientHandler} to a controller backed by an in-memory
+ * repository that checks versions like the database ones.
+ */
+class DeveloperControllerTest {
+
+    private static final RawHttp HTTP = new RawHttp();
+    private static final String BODY = "{\"name\":\"Nintendo EPD\",\"country\":\"Japan\",\"foundationYear\":2015}";
+
+    private final InMemoryDeveloperRepository repository = new InMemoryDeveloperRepository();
+    private ClientHandler handler;
+
+    @BeforeEach
+    void createHandler() {
+        var router = new RequestRouter();
+        router.addController("developers", new DeveloperController(repository, new ObjectMapper()));
+        handler = new ClientHandler(null, router, new AtomicInteger());
+        repository.save(developer("Nintendo"));
+    }
+
+    /**
+     * Sends the requests through a breaker that opens on the first read of an unavailable
+     * repository and never closes during the test.
+     */
+    private CircuitBreaker useCircuitBreaker() {
+        var breaker = new CircuitBreaker("database", 1, 60_000, 3_600_000,
+                e -> e instanceof IllegalStateException, () -> {
+                    throw new IllegalStateException("Still down");
+                });
+        var controller = new DeveloperController(new CircuitBreakingDeveloperRepository(repository, breaker),
+                new ObjectMapper());
+        controller.setCircuitBreaker(breaker);
+        var router = new RequestRouter();
+        router.addController("developers", controller);
+        handler = new ClientHandler(null, router, new AtomicInteger());
+        return breaker;
+    }
+
+    @Test
+    void putWithTheCurrentVersionUpdatesAndReturnsTheNextETag() throws IOException {
+        RawHttpResponse<?> response = send("PUT", "/developers/1", "If-Match: \"0\"", BODY);
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals(Optional.of("\"1\""), response.getHeaders().getFirst("ETag"));
+        assertEquals("Nintendo EPD", repository.findById(1).orElseThrow().getName());
+    }
+
+    @Test
+    void putWithAStaleIfMatchFailsWith412() throws IOException {
+        send("PUT", "/developers/1", "If-Match: \"0\"", BODY);
+
+        RawHttpResponse<?> response = send("PUT", "/developers/1", "If-Match: \"0\"",
+                BODY.replace("Nintendo EPD", "Lost update"));
+
+        assertEquals(412, response.getStatusCode());
+        assertEquals("Nintendo EPD", repository.findById(1).orElseThrow().getName());
+    }
+
+    @Test
+    void putOfAMissingDeveloperFailsWith404() throws IOException {
+        RawHttpResponse<?> response = send("PUT", "/developers/42", "If-Match: \"0\"", BODY);
+
+        assertEquals(404, response.getStatusCode());
+        assertFalse(repository.existsById(42));
+    }
+
+    @Test
+    void putWithoutIfMatchFailsWith428() throws IOException {
+        RawHttpResponse<?> response = send("PUT", "/developers/1", null,
+                BODY.replace("}", ",\"version\":0}"));
+
+        assertEquals(428, response.getStatusCode());
+        assertEquals("Nintendo", repository.findById(1).orElseThrow().getName());
+    }
+
+    @Test
+    void getOfAnUnchangedDeveloperIsNotModified() throws IOException {
+        String etag = send("GET", "/developers/1", null, null).getHeaders().getFirst("ETag").orElseThrow();
+
+        RawHttpResponse<?> response = send("GET", "/developers/1", "If-None-Match: " + etag, null);
+
+        assertEquals(304, response.getStatusCode());
+        assertEquals(Optional.of(etag), response.getHeaders().getFirst("ETag"));
+        assertTrue(response.getBody().isEmpty());
+    }
+
+    @Test
+    void getOfAnUpdatedDeveloperReturnsItAgain() throws IOException {
+        String etag = send("GET", "/developers/1", null, null).getHeaders().getFirst("ETag").orElseThrow();
+        send("PUT", "/developers/1", "If-Match: " + etag, BODY);
+
+        RawHttpResponse<?> response = send("GET", "/developers/1", "If-None-Match: " + etag, null);
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals(Optional.of("\"1\""), response.getHeaders().getFirst("ETag"));
+    }
+
+    @Test
+    void getOfAnUnchangedListIsNotModified() throws IOException {
+        String etag = send("GET", "/developers", null, null).getHeaders().getFirst("ETag").orElseThrow();
+
+        assertEquals(304, send("GET", "/developers", "If-None-Match: " + etag, null).getStatusCode());
+
+        repository.save(developer("Sega"));
+        assertEquals(200, send("GET", "/developers", "If-None-Match: " + etag, null).getStatusCode());
+    }
+
+    @Test
+    void lastKnownCopiesAreServedWithAWarningWhileTheDatabaseIsDown() throws IOException {
+        CircuitBreaker breaker = useCircuitBreaker();
+        RawHttpResponse<?> fresh = send("GET", "/developers/1", null, null);
+        send("GET", "/developers", null, null);
+
+        repository.unavailable = true;
+        RawHttpResponse<?> failed = send("GET", "/developers/1", null, null);
+        RawHttpResponse<?> rejected = send("GET", "/developers", null, null);
+
+        assertTrue(breaker.isOpen());
+        assertEquals(1, breaker.getRejected());
+        for (RawHttpResponse<?> stale : new RawHttpResponse<?>[]{failed, rejected}) {
+            assertEquals(200, stale.getStatusCode());
+            assertEquals(Optional.of("110 - \"Response is Stale\""), stale.getHeaders().getFirst("Warning"));
+            assertTrue(body(stale).contains("Nintendo"));
+        }
+        assertEquals(body(fresh), body(failed));
+        assertEquals(fresh.getHeaders().getFirst("ETag"), failed.getHeaders().getFirst("ETag"));
+    }
+
+    @Test
+    void readWithoutALastKnownCopyFailsWith503WhileTheCircuitIsOpen() throws IOException {
+        useCircuitBreaker();
+        send("GET", "/developers/1", null, null);
+
+        repository.unavailable = true;
+        send("GET", "/developers/1", null, null);
+
+        assertEquals(503, send("GET", "/developers/2", null, null).getStatusCode());
+    }
+
+    @Test
+    void deleteForgetsTheDeveloperAndTheList() throws IOException {
+        useCircuitBreaker();
+        send("GET", "/developers", null, null);
+        send("GET", "/developers/1", null, null);
+        assertEquals(204, send("DELETE", "/developers/1", null, null).getStatusCode());
+
+        repository.unavailable = true;
+        RawHttpResponse<?> developer = send("GET", "/developers/1", null, null);
+        RawHttpResponse<?> list = send("GET", "/developers", null, null);
+
+        assertNotEquals(200, developer.getStatusCode());
+        assertEquals(503, list.getStatusCode());
+        assertEquals(Optional.empty(), list.getHeaders().getFirst("Warning"));
+    }
+
+    @Test
+    void deleteOfAMissingDeveloperIsNotFound() throws IOException {
+        assertEquals(204, send("DELETE", "/developers/1", null, null).getStatusCode());
+
+        assertEquals(404, send("DELETE", "/developers/1", null, null).getStatusCode());
+        assertEquals(404, send("DELETE", "/developers/99", null, null).getStatusCode());
+    }
+
+    private static String body(RawHttpResponse<?> response) throws IOException {
+        return response.getBody().orElseThrow().decodeBodyToString(StandardCharsets.UTF_8);
+    }
+
+    private RawHttpResponse<?> send(String method, String path, String header, String body) throws IOException {
+        StringBuilder request = new StringBuilder(method + " " + path + " HTTP/1.1\r\nHost: localhost\r\n");
+        if (header != null) {
+            request.append(header).append("\r\n");
+        }
+        if (body != null) {
+            request.append("Content-Type: application/json\r\n")
+                    .append("Content-Length: ").append(body.getBytes(StandardCharsets.UTF_8).length).append("\r\n\r\n")
+                    .append(body);
+        } else {
+            request.append("\r\n");
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        handler.process(HTTP.parseRequest(request.toString()).eagerly(), out);
+        return HTTP.parseResponse(out.toString(StandardCharsets.UTF_8)).eagerly();
+    }
+
+    private static DeveloperImpl developer(String name) {
+        var developer = new DeveloperImpl();
+        developer.setName(name);
+        developer.setCountry("Japan");
+        developer.setFoundationYear(1889);
+        return developer;
+    }
+
+    /**
+     * Keeps copies of the developers and rejects updates based on another version, like
+     * {@code JdbcDeveloperRepository}. Reads throw {@link IllegalStateException} while it is
+     * unavailable.
+     */
+    private static final class InMemoryDeveloperRepository implements DeveloperRepository {
+
+        private final Map<Integer, Developer> developers = new TreeMap<>();
+        private int nextId = 1;
+        private volatile boolean unavailable;
+
+        @Override
+        public synchronized Optional<Developer> findById(int id) {
+            checkAvailable();
+            return Optional.ofNullable(developers.get(id)).map(InMemoryDeveloperRepository::copy);
+        }
+
+        @Override
+        public synchronized Developer save(Developer developer) {
+            if (developer.getId() == 0) {
+                developer.setId(nextId++);
+                developer.setVersion(0);
+            } else {
+                Developer stored = developers.get(developer.getId());
+                if (stored == null || stored.getVersion() != developer.getVersion()) {
+                    throw new VersionConflictException("Developer", developer.getId(), developer.getVersion(),
+                            stored == null ? null : stored.getVersion());
+                }
+                developer.setVersion(developer.getVersion() + 1);
+            }
+            developers.put(developer.getId(), copy(developer));
+            return developer;
+        }
+
+        @Override
+        public void delete(Developer developer) {
+            deleteById(developer.getId());
+        }
+
+        @Override
+        public synchronized boolean deleteById(int id) {
+            return developers.remove(id) != null;
+        }
+
+        @Override
+        public synchronized long count() {
+            return developers.size();
+        }
+
+        @Override
+        public synchronized boolean existsById(int id) {
+            return developers.containsKey(id);
+        }
+
+        @Override
+        public synchronized long countByCountryIgnoreCase(String country) {
+            return developers.values().stream().filter(d -> country.equalsIgnoreCase(d.getCountry())).count();
+        }
+
+        @Override
+        public synchronized Set<Developer> findAll() {
+            checkAvailable();
+            return developers.values().stream().map(InMemoryDeveloperRepository::copy).collect(Collectors.toSet());
+        }
+
+        private void checkAvailable() {
+            if (unavailable) {
+                throw new IllegalStateException("Database unavailable");
+            }
+        }
+
+        private static Developer copy(Developer developer) {
+            var copy = new DeveloperImpl();
+            copy.setId(developer.getId());
+            copy.setName(developer.getName());
+            copy.setCountry(developer.getCountry());
+            copy.setFoundationYear(developer.getFoundationYear());
+            copy.setVersion(developer.getVersion());
+            return copy;
+        }
+    }
+}